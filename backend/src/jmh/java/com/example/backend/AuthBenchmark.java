@@ -0,0 +1,78 @@
+package com.example.backend;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The two costs of the auth path: a login, dominated by the bcrypt verification at the given
+ * cost (per thread, so ops/s times cores is the ceiling for a node), and authorizing one admin
+ * request, which is verifying its token.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class AuthBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Login {
+        @Param({"10", "12"})
+        int cost;
+
+        PasswordHasher hasher;
+        String stored;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            hasher = new PasswordHasher(cost);
+            stored = hasher.hash("correct horse battery staple");
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Tokens {
+        TokenService tokens;
+        User user;
+        String token;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            tokens = new TokenService(new byte[32], null, Duration.ofHours(8), Clock.systemUTC());
+            user = new User();
+            user.setId("64b7f0c2a1b2c3d4e5f60718");
+            user.setUsername("admin");
+            user.setRole("ADMIN");
+            token = tokens.issue(user).value();
+        }
+    }
+
+    @Benchmark
+    public boolean verifyPassword(Login login) {
+        return login.hasher.matches("correct horse battery staple", login.stored);
+    }
+
+    @Benchmark
+    public String issueToken(Tokens tokens) {
+        return tokens.tokens.issue(tokens.user).value();
+    }
+
+    @Benchmark
+    public TokenService.Principal verifyToken(Tokens tokens) {
+        return tokens.tokens.verify(tokens.token);
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.backend;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+/** Recorded upstream payloads and generated catalog data shared by the benchmarks. */
+final class BenchmarkFixtures {
+
+    private BenchmarkFixtures() {}
+
+    /** A 40-result RapidAPI /search response, the page size the controller asks for. */
+    static String rapidApiSearch() {
+        return resource("/fixtures/rapidapi-search.json");
+    }
+
+    /** The same response as the raw body bytes the HTTP client hands over. */
+    static byte[] rapidApiSearchBytes() {
+        return rapidApiSearch().getBytes(StandardCharsets.UTF_8);
+    }
+
+    static String resource(String path) {
+        try (InputStream in = BenchmarkFixtures.class.getResourceAsStream(path)) {
+            if (in == null) throw new IllegalStateException("missing fixture " + path);
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Admin books shaped like the uploaded ones: Mongo ObjectId ids and every metadata field set. */
+    static List<AdminBook> adminBooks(int count, long seed) {
+        Random random = new Random(seed);
+        List<AdminBook> books = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            AdminBook b = new AdminBook();
+            b.setId(String.format("%08x%016x", 0x65000000 + i, random.nextLong()));
+            b.setTitle("Admin Book " + i + " on Distributed Systems");
+            b.setAuthor("Author " + random.nextInt(500));
+            b.setPublisher("Publisher " + random.nextInt(50));
+            b.setYear(String.valueOf(1990 + random.nextInt(35)));
+            b.setFormat(random.nextBoolean() ? "pdf" : "epub");
+            b.setSize((1 + random.nextInt(40)) + " MB");
+            b.setLanguage("English");
+            b.setImgUrl("");
+            b.setR2Key(UUID.nameUUIDFromBytes(b.getId().getBytes(StandardCharsets.UTF_8)) + "-book-" + i + ".pdf");
+            b.setDescription("A description of admin book " + i + " that runs to a few sentences, like the ones admins type in.");
+            books.add(b);
+        }
+        return books;
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.backend;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Catalog search latency as admin_books grows. The index queries should stay roughly flat
+ * across catalog sizes; {@code titleScan} is the old unanchored case-insensitive title
+ * match, which grows linearly with the catalog.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms3g", "-Xmx3g"})
+public class CatalogIndexBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    int books;
+
+    private CatalogIndex index;
+    private List<AdminBook> catalog;
+    private String selectiveQuery;
+    private String prefixQuery;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(7);
+        String[] vocabulary = IntStream.range(0, 50_000).mapToObj(i -> word(random)).toArray(String[]::new);
+
+        catalog = new ArrayList<>(books);
+        for (int i = 0; i < books; i++) {
+            AdminBook b = new AdminBook();
+            b.setId(Integer.toHexString(i));
+            b.setTitle(phrase(random, vocabulary, 3 + random.nextInt(4)));
+            b.setAuthor(phrase(random, vocabulary, 2));
+            b.setPublisher(phrase(random, vocabulary, 1));
+            b.setDescription(phrase(random, vocabulary, 20));
+            catalog.add(b);
+        }
+        index = new CatalogIndex();
+        index.rebuild(catalog.stream());
+
+        // Words from a real title, so every catalog size has matches.
+        String[] title = catalog.get(books / 2).getTitle().split(" ");
+        selectiveQuery = title[0] + " " + title[1];
+        prefixQuery = title[0].substring(0, Math.min(4, title[0].length()));
+    }
+
+    // Zipf-like pick, so some words are common and most are rare, as in real titles.
+    private static String phrase(Random random, String[] vocabulary, int words) {
+        StringBuilder sb = new StringBuilder();
+        for (int w = 0; w < words; w++) {
+            if (w > 0) sb.append(' ');
+            double u = random.nextDouble();
+            sb.append(vocabulary[(int) (vocabulary.length * u * u * u)]);
+        }
+        return sb.toString();
+    }
+
+    private static String word(Random random) {
+        int length = 4 + random.nextInt(6);
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) sb.append((char) ('a' + random.nextInt(26)));
+        return sb.toString();
+    }
+
+    @Benchmark
+    public CatalogIndex.Page selectiveQuery() {
+        return index.search(selectiveQuery, 0, 20);
+    }
+
+    @Benchmark
+    public CatalogIndex.Page prefixQuery() {
+        return index.search(prefixQuery, 0, 20);
+    }
+
+    @Benchmark
+    public CatalogIndex.Page secondPage() {
+        return index.search(selectiveQuery, 20, 20);
+    }
+
+    @Benchmark
+    public int titleScan() {
+        String needle = selectiveQuery.toLowerCase(Locale.ROOT);
+        int matches = 0;
+        for (AdminBook b : catalog) {
+            if (b.getTitle().toLowerCase(Locale.ROOT).contains(needle)) matches++;
+        }
+        return matches;
+    }
+}
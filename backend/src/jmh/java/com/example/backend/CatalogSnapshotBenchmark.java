@@ -0,0 +1,65 @@
+package com.example.backend;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cold start of a node that has a catalog snapshot: map and decode the file, then build the
+ * index from it, which is what stands between process start and the first search answered
+ * without Mongo. {@code decodeOnly} separates the file read from the index build.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g"})
+public class CatalogSnapshotBenchmark {
+
+    @Param({"10000", "100000"})
+    int books;
+
+    private Path dir;
+    private CatalogSnapshot snapshot;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("catalog-snapshot-bench");
+        snapshot = new CatalogSnapshot(dir.resolve("catalog.snapshot").toString());
+        snapshot.save(BenchmarkFixtures.adminBooks(books, 42), System.currentTimeMillis());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(snapshot.getPath());
+        Files.deleteIfExists(dir);
+    }
+
+    @Benchmark
+    public CatalogSnapshot.Loaded decodeOnly() {
+        return snapshot.load();
+    }
+
+    @Benchmark
+    public CatalogIndex loadIndex() {
+        CatalogIndex index = new CatalogIndex();
+        index.rebuild(snapshot.load().books().stream());
+        return index;
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.backend;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson on the hot paths: parsing a recorded RapidAPI search response body into the
+ * summaries the search cache holds, and writing an /api/admin/books page of AdminBook documents.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonMappingBenchmark {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private byte[] searchResponse;
+
+    @State(Scope.Benchmark)
+    public static class AdminBooksPage {
+        @Param({"50", "500"})
+        int pageSize;
+
+        List<AdminBook> books;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            books = BenchmarkFixtures.adminBooks(pageSize, 5);
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        searchResponse = BenchmarkFixtures.rapidApiSearchBytes();
+    }
+
+    @Benchmark
+    public List<BookSummary> parseRemoteSearch() throws Exception {
+        return RemoteSearchParser.parse(mapper.getFactory(), searchResponse);
+    }
+
+    @Benchmark
+    public byte[] serializeAdminBooksPage(AdminBooksPage page) throws Exception {
+        return mapper.writeValueAsBytes(Map.of("books", page.books, "total", 10_000, "page", 0, "pageSize", page.pageSize));
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.backend;
+
+import io.micrometer.observation.ObservationRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
+
+import java.net.URI;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SigV4 presigning of an R2 download URL, which is local crypto only, against the cached path
+ * /api/admin/download takes for a hot book.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PresignBenchmark {
+
+    private S3Presigner presigner;
+    private R2UrlSigner signer;
+    private String key;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        presigner = S3Presigner.builder()
+                .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create("access", "secret")))
+                .region(Region.US_EAST_1)
+                .endpointOverride(URI.create("https://account.r2.cloudflarestorage.com"))
+                .build();
+        BoundedCache<String, PresignedUrl> cache = new BoundedCache<>("presignedUrl", 1000, 1 << 20,
+                Duration.ofMinutes(45), (k, v) -> 100L);
+        signer = new R2UrlSigner(presigner, cache, Runnable::run, Duration.ofHours(1), Duration.ofMinutes(30),
+                Clock.systemUTC(), ObservationRegistry.NOOP);
+        List<AdminBook> books = BenchmarkFixtures.adminBooks(1, 9);
+        key = books.get(0).getR2Key();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        presigner.close();
+    }
+
+    @Benchmark
+    public String presignGetObject() {
+        return presigner.presignGetObject(GetObjectPresignRequest.builder()
+                        .getObjectRequest(r -> r.bucket("knowledgehub-books").key(key))
+                        .signatureDuration(Duration.ofHours(1))
+                        .build())
+                .url()
+                .toString();
+    }
+
+    @Benchmark
+    public String cachedDownloadUrl() {
+        return signer.getDownloadUrl("knowledgehub-books", key).url();
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.backend;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * What the limiters add to a request, with 8 threads calling at once: a per-client bucket for
+ * one of 10k clients, every thread on the same client's bucket (CAS contention on one cell),
+ * and the global upstream budget while it still has room. Rates are set high enough that
+ * every call is allowed, which is the slower path.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class RateLimiterBenchmark {
+
+    private static final int CLIENTS = 10_000;
+
+    private RateLimiter limiter;
+    private UpstreamBudget budget;
+    private String[] clients;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        limiter = new RateLimiter("bench", 1e9, 1_000_000, CLIENTS * 2);
+        budget = new UpstreamBudget("bench", 1e9, 1_000_000, 100, 1000, 0);
+        clients = new String[CLIENTS];
+        for (int i = 0; i < CLIENTS; i++) {
+            clients[i] = "10." + (i >> 16 & 255) + "." + (i >> 8 & 255) + "." + (i & 255);
+            limiter.tryAcquire(clients[i]);
+        }
+    }
+
+    @Benchmark
+    public long perClient() {
+        return limiter.tryAcquire(clients[ThreadLocalRandom.current().nextInt(CLIENTS)]);
+    }
+
+    @Benchmark
+    public long sameClient() {
+        return limiter.tryAcquire(clients[0]);
+    }
+
+    @Benchmark
+    public CompletableFuture<Void> upstreamBudget() {
+        return budget.acquire(UpstreamBudget.Priority.NORMAL);
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.backend;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The /api/search merge of local admin books with a 40-result remote page, and the
+ * serialization of the merged response. {@code adminBooks} is the local hit count; a few of
+ * them share a content hash with remote results, so dedup and ranking both do real work. The
+ * hosted-md5 lookup goes to a catalog index holding the local books.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchMergeBenchmark {
+
+    private static final String QUERY = "distributed systems design";
+
+    @Param({"0", "10", "100"})
+    int adminBooks;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private List<AdminBook> local;
+    private List<BookSummary> remote;
+    private List<BookSummary> merged;
+    private CatalogIndex catalog;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        remote = RemoteSearchParser.parse(mapper.getFactory(), BenchmarkFixtures.rapidApiSearchBytes());
+        local = BenchmarkFixtures.adminBooks(adminBooks, 3);
+        for (int i = 0; i < Math.min(local.size(), 5); i++) {
+            local.get(i).setMd5(remote.get(i * 7).id());
+        }
+        catalog = new CatalogIndex();
+        for (AdminBook book : local) catalog.upsert(book);
+        merged = SearchMerger.merge(QUERY, local, remote, catalog::hostsMd5);
+    }
+
+    @Benchmark
+    public List<BookSummary> merge() {
+        return SearchMerger.merge(QUERY, local, remote, catalog::hostsMd5);
+    }
+
+    @Benchmark
+    public byte[] mergeAndSerialize() throws Exception {
+        return mapper.writeValueAsBytes(new SearchResponse(SearchMerger.merge(QUERY, local, remote, catalog::hostsMd5), null, List.of(), List.of()));
+    }
+
+    @Benchmark
+    public byte[] serializeMerged() throws Exception {
+        return mapper.writeValueAsBytes(new SearchResponse(merged, null, List.of(), List.of()));
+    }
+}
@@ -0,0 +1,204 @@
+package com.example.backend;
+
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Closed-loop HTTP load: {@code concurrency} workers each send a request, wait for the
+ * response, and send the next, for a fixed duration. Records every latency so percentiles are
+ * exact rather than bucketed.
+ *
+ * A run is either one request shape or a weighted mix of {@link Operation}s, each worker
+ * picking the next operation at random by weight. Runs also report the allocation rate of the
+ * server, which runs in the same JVM: bytes allocated by every thread except the load
+ * generator's own and those of the local stand-ins for the upstreams, as counted by the JVM
+ * per thread.
+ */
+final class LoadGenerator {
+
+    private static final String THREAD_PREFIX = "load-";
+    // Load generator, MockHttpUpstream / S3StandIn handlers and the JDK HttpServer they run on
+    private static final List<String> NOT_SERVER_THREADS = List.of(THREAD_PREFIX, "stand-in-", "HTTP-Dispatcher");
+
+    /** One kind of request in a mix; {@code request} gets the server's base URI and the worker-local random source. */
+    record Operation(String name, int weight, BiFunction<URI, ThreadLocalRandom, HttpRequest> request) {
+        static Operation get(String name, int weight, Function<ThreadLocalRandom, String> path) {
+            return new Operation(name, weight, (base, random) -> HttpRequest.newBuilder(base.resolve(path.apply(random)))
+                    .timeout(Duration.ofSeconds(30))
+                    .GET()
+                    .build());
+        }
+    }
+
+    /** {@code allocatedBytes} is -1 when not measured (the operations within a mix, or no JVM support). */
+    record Result(String name, long requests, long errors, double seconds, long[] sortedLatencyNanos, long allocatedBytes) {
+        double throughput() {
+            return requests / seconds;
+        }
+
+        double percentileMillis(double p) {
+            if (sortedLatencyNanos.length == 0) return 0;
+            int i = (int) Math.ceil(p / 100.0 * sortedLatencyNanos.length) - 1;
+            return sortedLatencyNanos[Math.max(0, Math.min(i, sortedLatencyNanos.length - 1))] / 1e6;
+        }
+
+        @Override
+        public String toString() {
+            String line = String.format("%-28s %8d req %6d err %9.1f req/s   p50 %7.1f ms   p90 %7.1f ms   p99 %7.1f ms   p99.9 %7.1f ms   max %7.1f ms",
+                    name, requests, errors, throughput(), percentileMillis(50), percentileMillis(90),
+                    percentileMillis(99), percentileMillis(99.9), percentileMillis(100));
+            if (allocatedBytes < 0) return line;
+            return line + String.format("   alloc %7.1f MB/s %8.1f KB/req",
+                    allocatedBytes / seconds / (1 << 20), requests == 0 ? 0.0 : allocatedBytes / 1024.0 / requests);
+        }
+    }
+
+    private final AtomicInteger clientThreads = new AtomicInteger();
+
+    // Named so its threads are left out of the server's allocation count
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .executor(Executors.newCachedThreadPool(r -> {
+                Thread t = new Thread(r, THREAD_PREFIX + "client-" + clientThreads.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            }))
+            .build();
+
+    /** {@code requestPath} gets the worker-local random source and returns a path such as {@code /api/search?query=x}. */
+    Result run(String name, URI base, int concurrency, Duration duration, Function<ThreadLocalRandom, String> requestPath)
+            throws InterruptedException {
+        return run(name, base, concurrency, duration, List.of(Operation.get(name, 1, requestPath))).get(0);
+    }
+
+    /** Returns the whole run under {@code name} first, with the allocation rate, then one result per operation. */
+    List<Result> run(String name, URI base, int concurrency, Duration duration, List<Operation> mix)
+            throws InterruptedException {
+        int[] cumulativeWeights = new int[mix.size()];
+        int totalWeight = 0;
+        for (int i = 0; i < mix.size(); i++) {
+            totalWeight += mix.get(i).weight();
+            cumulativeWeights[i] = totalWeight;
+        }
+        if (totalWeight <= 0) throw new IllegalArgumentException("The mix needs at least one operation with a positive weight");
+        int weights = totalWeight;
+
+        long deadline = System.nanoTime() + duration.toNanos();
+        long[][][] latencies = new long[concurrency][][];
+        int[][] counts = new int[concurrency][];
+        AtomicLongArray errors = new AtomicLongArray(mix.size());
+        CountDownLatch done = new CountDownLatch(concurrency);
+
+        Map<Long, Long> allocatedBefore = serverAllocatedBytes();
+        long start = System.nanoTime();
+        for (int w = 0; w < concurrency; w++) {
+            int worker = w;
+            Thread t = new Thread(() -> {
+                long[][] mine = new long[mix.size()][1024];
+                int[] n = new int[mix.size()];
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                try {
+                    while (System.nanoTime() < deadline) {
+                        int op = pick(cumulativeWeights, random.nextInt(weights));
+                        HttpRequest request = mix.get(op).request().apply(base, random);
+                        long sent = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() >= 400) errors.incrementAndGet(op);
+                        } catch (Exception e) {
+                            errors.incrementAndGet(op);
+                        }
+                        if (n[op] == mine[op].length) mine[op] = Arrays.copyOf(mine[op], n[op] * 2);
+                        mine[op][n[op]++] = System.nanoTime() - sent;
+                    }
+                } finally {
+                    latencies[worker] = mine;
+                    counts[worker] = n;
+                    done.countDown();
+                }
+            }, THREAD_PREFIX + w);
+            t.setDaemon(true);
+            t.start();
+        }
+        done.await();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long allocated = allocatedSince(allocatedBefore);
+
+        List<Result> results = new ArrayList<>(mix.size() + 1);
+        long[][] perOperation = new long[mix.size()][];
+        for (int op = 0; op < mix.size(); op++) {
+            int total = 0;
+            for (int w = 0; w < concurrency; w++) total += counts[w][op];
+            long[] all = new long[total];
+            int offset = 0;
+            for (int w = 0; w < concurrency; w++) {
+                System.arraycopy(latencies[w][op], 0, all, offset, counts[w][op]);
+                offset += counts[w][op];
+            }
+            Arrays.sort(all);
+            perOperation[op] = all;
+        }
+
+        long[] everything = Arrays.stream(perOperation).flatMapToLong(Arrays::stream).sorted().toArray();
+        long allErrors = 0;
+        for (int op = 0; op < mix.size(); op++) allErrors += errors.get(op);
+        results.add(new Result(name, everything.length, allErrors, seconds, everything, allocated));
+        if (mix.size() > 1) {
+            for (int op = 0; op < mix.size(); op++) {
+                results.add(new Result("  " + mix.get(op).name(), perOperation[op].length, errors.get(op), seconds,
+                        perOperation[op], -1));
+            }
+        }
+        return results;
+    }
+
+    private static int pick(int[] cumulativeWeights, int r) {
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (r < cumulativeWeights[i]) return i;
+        }
+        return cumulativeWeights.length - 1;
+    }
+
+    // Allocated bytes per live server thread. Threads that exit during the run take their count
+    // with them, so this is a lower bound; pools that keep their threads are counted in full.
+    private static Map<Long, Long> serverAllocatedBytes() {
+        if (!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads)
+                || !threads.isThreadAllocatedMemorySupported() || !threads.isThreadAllocatedMemoryEnabled()) {
+            return null;
+        }
+        Map<Long, Long> bytes = new HashMap<>();
+        for (Thread t : Thread.getAllStackTraces().keySet()) {
+            if (NOT_SERVER_THREADS.stream().anyMatch(t.getName()::startsWith)) continue;
+            long allocated = threads.getThreadAllocatedBytes(t.getId());
+            if (allocated >= 0) bytes.put(t.getId(), allocated);
+        }
+        return bytes;
+    }
+
+    private static long allocatedSince(Map<Long, Long> before) {
+        Map<Long, Long> after = serverAllocatedBytes();
+        if (before == null || after == null) return -1;
+        long total = 0;
+        for (Map.Entry<Long, Long> e : after.entrySet()) {
+            total += Math.max(0, e.getValue() - before.getOrDefault(e.getKey(), 0L));
+        }
+        return total;
+    }
+}
@@ -0,0 +1,301 @@
+package com.example.backend;
+
+import org.bson.types.ObjectId;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Mixed-traffic load run of the whole app on one machine, with no network access: every
+ * upstream is replaced by a local stand-in. RapidAPI and GlitterNode are {@link MockHttpUpstream}s
+ * answering after a tunable latency (base plus random jitter), R2 is an {@link S3StandIn}, and
+ * MongoDB is a throwaway local {@code mongod}, or a throwaway database on the server named by
+ * {@code -Dloadtest.mongoUri} ({@link MongoStandIn}).
+ *
+ * The catalog is seeded with {@code -Dloadtest.books} books (default 200) of
+ * {@code -Dloadtest.bookKb} KB each (256) in Mongo, the index and the S3 stand-in. Then a warmup
+ * and one timed run of the mix, reported as a whole (throughput, latency percentiles, server
+ * allocation rate) and per operation:
+ * <ul>
+ *   <li>search: /api/search, mostly a skewed set of catalog words (cache hits, local matches), a
+ *       fifth distinct queries that go to RapidAPI</li>
+ *   <li>download: /api/download links for a skewed pool of md5s</li>
+ *   <li>detail: /api/book-detail for ten md5s from the same pool</li>
+ *   <li>content: /api/admin/books/{id}/content, half of them a 64 KB range</li>
+ *   <li>presign: /api/admin/download, a presigned R2 URL</li>
+ *   <li>upload: /api/admin/upload of a {@code loadtest.bookKb} file; left out without Mongo</li>
+ * </ul>
+ * Client rate limits, the RapidAPI budget and admin auth are off.
+ *
+ * Run with: mvn -Ploadtest test-compile exec:exec -Dloadtest.main=com.example.backend.LoadTestSuite
+ *
+ * Arguments: concurrency (default 64), seconds (30), upstream latency ms (100), jitter ms (50),
+ * and the mix as name=weight pairs (search=50,download=15,detail=15,content=10,presign=5,upload=5).
+ */
+public class LoadTestSuite {
+
+    private static final String BUCKET = "knowledgehub-books";
+    private static final String DEFAULT_MIX = "search=50,download=15,detail=15,content=10,presign=5,upload=5";
+    private static final Pattern MD5 = Pattern.compile("[0-9a-f]{32}");
+
+    private static final int WORDS = 500;
+    private static final int MD5_POOL = 5000;
+
+    public static void main(String[] args) throws Exception {
+        int concurrency = args.length > 0 ? Integer.parseInt(args[0]) : 64;
+        Duration duration = Duration.ofSeconds(args.length > 1 ? Long.parseLong(args[1]) : 30);
+        long latencyMs = args.length > 2 ? Long.parseLong(args[2]) : 100;
+        long jitterMs = args.length > 3 ? Long.parseLong(args[3]) : 50;
+        Map<String, Integer> weights = parseMix(args.length > 4 ? args[4] : DEFAULT_MIX);
+        int bookCount = Integer.getInteger("loadtest.books", 200);
+        int bookKb = Integer.getInteger("loadtest.bookKb", 256);
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String[] md5s = new String[MD5_POOL];
+        for (int i = 0; i < md5s.length; i++) md5s[i] = randomMd5(random);
+        // A handful of pre-rendered search pages, so the stand-in spends next to nothing per request
+        String[] searchPages = new String[16];
+        for (int i = 0; i < searchPages.length; i++) searchPages[i] = searchPage(md5s, random);
+
+        Path workDir = Files.createTempDirectory("knowledgehub-loadtest");
+        List<LoadGenerator.Result> results;
+        try (MockHttpUpstream rapidApi = new MockHttpUpstream();
+             MockHttpUpstream glitterNode = new MockHttpUpstream();
+             S3StandIn r2 = new S3StandIn();
+             MongoStandIn mongo = MongoStandIn.start()) {
+            rapidApi.byDefault(ex -> {
+                long delay = latencyMs + ThreadLocalRandom.current().nextLong(jitterMs + 1);
+                return ex.getRequestURI().getPath().startsWith("/download")
+                        ? MockHttpUpstream.Reply.ok("[\"https://example.org/file.pdf\"]").delayed(delay)
+                        : MockHttpUpstream.Reply.ok(searchPages[ThreadLocalRandom.current().nextInt(searchPages.length)]).delayed(delay);
+            });
+            glitterNode.byDefault((ex, body) -> MockHttpUpstream.Reply.ok(details(new String(body, StandardCharsets.UTF_8)))
+                    .delayed(latencyMs + ThreadLocalRandom.current().nextLong(jitterMs + 1)));
+
+            if (mongo == null) {
+                System.out.println("No mongod on the PATH (or -Dloadtest.mongod / -Dloadtest.mongoUri): running without Mongo, uploads left out");
+                weights.remove("upload");
+            }
+
+            List<String> properties = new ArrayList<>(List.of(
+                    "--server.port=0",
+                    "--upstream.rapidapi.baseUrl=" + rapidApi.uri(""),
+                    "--upstream.glitternode.url=" + glitterNode.uri("/v1/book"),
+                    "--upstream.rapidapi.http2=false",
+                    "--upstream.glitternode.http2=false",
+                    "--upstream.rapidapi.maxConcurrent=100000",
+                    "--upstream.glitternode.maxConcurrent=100000",
+                    "--upstream.rapidapi.maxAttempts=1",
+                    "--upstream.glitternode.maxAttempts=1",
+                    "--upstream.rapidapi.budget.ratePerSecond=0",
+                    "--ratelimit.enabled=false",
+                    "--auth.enabled=false",
+                    "--search.remote.timeoutMs=30000",
+                    "--cloudflare.r2.endpoint=" + r2.endpoint(),
+                    "--cloudflare.r2.pathStyle=true",
+                    "--cloudflare.r2.bucket=" + BUCKET,
+                    "--catalog.snapshot.enabled=false",
+                    "--content.cache.dir=" + workDir.resolve("content"),
+                    "--covers.cache.dir=" + workDir.resolve("covers"),
+                    "--spring.servlet.multipart.location=" + Files.createDirectories(workDir.resolve("multipart"))
+            ));
+            if (mongo != null) {
+                properties.add("--spring.data.mongodb.uri=" + mongo.uri());
+                properties.add("--spring.data.mongodb.database=" + mongo.database());
+            } else {
+                // Nothing listens there: Mongo calls fail fast instead of reaching a developer's local server
+                properties.add("--spring.data.mongodb.uri=mongodb://127.0.0.1:1/knowledgehub?serverSelectionTimeoutMS=500");
+                properties.add("--catalog.changes.enabled=false");
+            }
+
+            try (ConfigurableApplicationContext context = new SpringApplicationBuilder(BackendApplication.class)
+                    .run(properties.toArray(new String[0]))) {
+                List<AdminBook> books = seed(context, mongo != null, bookCount, bookKb, md5s);
+                URI base = URI.create("http://127.0.0.1:" + context.getEnvironment().getProperty("local.server.port"));
+                List<LoadGenerator.Operation> mix = mix(weights, books, md5s, bookKb);
+
+                LoadGenerator load = new LoadGenerator();
+                load.run("warmup", base, concurrency, Duration.ofSeconds(10), mix);
+                results = load.run("mix", base, concurrency, duration, mix);
+            }
+        } finally {
+            try (var files = Files.walk(workDir)) {
+                files.sorted(java.util.Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+            }
+        }
+
+        System.out.printf("%nconcurrency %d, %ds, upstream latency %d+%dms, %d books of %d KB, mix %s, Java %s%n",
+                concurrency, duration.toSeconds(), latencyMs, jitterMs, bookCount, bookKb, weights, Runtime.version());
+        results.forEach(System.out::println);
+        System.exit(0);
+    }
+
+    // Objects go to the S3 stand-in through the app's own client; books to Mongo when there is one,
+    // and straight into the index either way
+    private static List<AdminBook> seed(ConfigurableApplicationContext context, boolean withMongo, int count, int kb,
+                                        String[] md5s) throws InterruptedException {
+        CatalogIndex index = context.getBean(CatalogIndex.class);
+        if (withMongo) {
+            long deadline = System.nanoTime() + 30_000_000_000L;
+            while (!index.isReady() && System.nanoTime() < deadline) Thread.sleep(100);
+        }
+
+        S3Client s3 = context.getBean(S3Client.class);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        byte[] content = new byte[kb * 1024];
+        List<AdminBook> books = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            random.nextBytes(content);
+            AdminBook book = new AdminBook();
+            book.setId(new ObjectId().toHexString());
+            book.setTitle(word(random) + " " + word(random) + " " + word(random));
+            book.setAuthor(word(random) + " " + word(random));
+            book.setPublisher("Load");
+            book.setYear(Integer.toString(1950 + random.nextInt(75)));
+            book.setFormat("pdf");
+            book.setLanguage("English");
+            book.setDescription("");
+            book.setR2Key("loadtest/" + book.getId() + ".pdf");
+            book.setMd5(md5s[random.nextInt(md5s.length)]);
+            book.setSize(BookEnricher.formatSize(content.length));
+            book.setUpdatedAt(Instant.now());
+            s3.putObject(PutObjectRequest.builder().bucket(BUCKET).key(book.getR2Key()).build(), RequestBody.fromBytes(content));
+            books.add(book);
+        }
+        if (withMongo) context.getBean(AdminBookRepository.class).saveAll(books);
+        index.rebuild(books.stream());
+        return books;
+    }
+
+    private static List<LoadGenerator.Operation> mix(Map<String, Integer> weights, List<AdminBook> books, String[] md5s,
+                                                     int bookKb) {
+        byte[] upload = new byte[bookKb * 1024];
+        ThreadLocalRandom.current().nextBytes(upload);
+
+        List<LoadGenerator.Operation> mix = new ArrayList<>();
+        weights.forEach((name, weight) -> mix.add(switch (name) {
+            case "search" -> LoadGenerator.Operation.get(name, weight, random -> random.nextInt(5) == 0
+                    ? "/api/search?query=q" + Long.toHexString(random.nextLong())
+                    : "/api/search?query=" + skewedWord(random));
+            case "download" -> LoadGenerator.Operation.get(name, weight,
+                    random -> "/api/download?md5=" + md5s[skewed(random, md5s.length)]);
+            case "detail" -> new LoadGenerator.Operation(name, weight, (base, random) -> {
+                StringBuilder ids = new StringBuilder();
+                for (int i = 0; i < 10; i++) ids.append(i == 0 ? "\"" : ",\"").append(md5s[skewed(random, md5s.length)]).append('"');
+                return HttpRequest.newBuilder(base.resolve("/api/book-detail"))
+                        .timeout(Duration.ofSeconds(30))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString("{\"book_ids\":[" + ids + "]}"))
+                        .build();
+            });
+            case "content" -> new LoadGenerator.Operation(name, weight, (base, random) -> {
+                AdminBook book = books.get(skewed(random, books.size()));
+                HttpRequest.Builder request = HttpRequest.newBuilder(base.resolve("/api/admin/books/" + book.getId() + "/content"))
+                        .timeout(Duration.ofSeconds(30));
+                if (random.nextBoolean()) {
+                    long from = random.nextLong(Math.max(1, bookKb - 64)) * 1024;
+                    request.header("Range", "bytes=" + from + "-" + (from + 64 * 1024 - 1));
+                }
+                return request.GET().build();
+            });
+            case "presign" -> LoadGenerator.Operation.get(name, weight,
+                    random -> "/api/admin/download?bookId=" + books.get(skewed(random, books.size())).getId());
+            case "upload" -> new LoadGenerator.Operation(name, weight, (base, random) -> upload(base, random, upload));
+            default -> throw new IllegalArgumentException("Unknown operation in the mix: " + name);
+        }));
+        return mix;
+    }
+
+    private static HttpRequest upload(URI base, ThreadLocalRandom random, byte[] file) {
+        String boundary = "loadtest" + Long.toHexString(random.nextLong());
+        StringBuilder fields = new StringBuilder();
+        Map<String, String> values = Map.of(
+                "title", word(random) + " " + word(random) + " " + word(random),
+                "author", word(random), "publisher", "Load", "year", "2024", "format", "pdf");
+        values.forEach((field, value) -> fields.append("--").append(boundary).append("\r\n")
+                .append("Content-Disposition: form-data; name=\"").append(field).append("\"\r\n\r\n")
+                .append(value).append("\r\n"));
+        fields.append("--").append(boundary).append("\r\n")
+                .append("Content-Disposition: form-data; name=\"file\"; filename=\"book.pdf\"\r\n")
+                .append("Content-Type: application/pdf\r\n\r\n");
+        return HttpRequest.newBuilder(base.resolve("/api/admin/upload"))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+                .POST(HttpRequest.BodyPublishers.concat(
+                        HttpRequest.BodyPublishers.ofString(fields.toString()),
+                        HttpRequest.BodyPublishers.ofByteArray(file),
+                        HttpRequest.BodyPublishers.ofString("\r\n--" + boundary + "--\r\n")))
+                .build();
+    }
+
+    // GlitterNode's {"data": {"book": {MD5: ...}}} for every id asked for
+    private static String details(String requestBody) {
+        StringBuilder books = new StringBuilder();
+        Matcher ids = MD5.matcher(requestBody);
+        while (ids.find()) {
+            if (books.length() > 0) books.append(',');
+            books.append('"').append(ids.group()).append("\":{\"title\":\"Stand-in\",\"author\":\"Load\",\"pages\":320,\"md5\":\"")
+                    .append(ids.group()).append("\"}");
+        }
+        return "{\"data\":{\"book\":{" + books + "}}}";
+    }
+
+    private static String searchPage(String[] md5s, ThreadLocalRandom random) {
+        StringBuilder books = new StringBuilder("{\"books\":[");
+        for (int i = 0; i < 40; i++) {
+            if (i > 0) books.append(',');
+            books.append("{\"title\":\"").append(word(random)).append(' ').append(word(random))
+                    .append("\",\"author\":\"Load\",\"md5\":\"").append(md5s[random.nextInt(md5s.length)]).append("\"}");
+        }
+        return books.append("]}").toString();
+    }
+
+    private static Map<String, Integer> parseMix(String spec) {
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        for (String pair : spec.split(",")) {
+            String[] parts = pair.trim().split("=", 2);
+            if (parts.length != 2) throw new IllegalArgumentException("Expected name=weight, got " + pair);
+            int weight = Integer.parseInt(parts[1].trim());
+            if (weight > 0) weights.put(parts[0].trim(), weight);
+        }
+        return weights;
+    }
+
+    // Index into a popularity-ordered list: low indexes come up far more often, as with real traffic
+    private static int skewed(ThreadLocalRandom random, int size) {
+        double r = random.nextDouble();
+        return (int) (r * r * r * size);
+    }
+
+    private static String skewedWord(ThreadLocalRandom random) {
+        return "w" + skewed(random, WORDS);
+    }
+
+    private static String word(ThreadLocalRandom random) {
+        return "w" + random.nextInt(WORDS);
+    }
+
+    private static String randomMd5(ThreadLocalRandom random) {
+        byte[] bytes = new byte[16];
+        random.nextBytes(bytes);
+        return HexFormat.of().formatHex(bytes);
+    }
+}
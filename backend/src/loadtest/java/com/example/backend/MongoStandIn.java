@@ -0,0 +1,153 @@
+package com.example.backend;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import org.bson.Document;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * MongoDB for load runs, without the network: a throwaway {@code mongod} on a free local port
+ * with its data in a temp directory, started as a one-node replica set so the catalog change
+ * stream works as in production. The binary is {@code -Dloadtest.mongod} or {@code mongod} on
+ * the PATH. With {@code -Dloadtest.mongoUri} an already running server is used instead: the
+ * run gets its own database on it, {@code knowledgehub-loadtest-<random>} in place of any
+ * database the URI names, and drops it on close, so the data already there is never read or
+ * written. {@link #start()} returns null when neither is available.
+ */
+final class MongoStandIn implements AutoCloseable {
+
+    private static final String REPLICA_SET = "loadtest";
+
+    private final String uri;
+    private final Process process;
+    private final Path dataDir;
+    private final String database;
+
+    private MongoStandIn(String uri, Process process, Path dataDir, String database) {
+        this.uri = uri;
+        this.process = process;
+        this.dataDir = dataDir;
+        this.database = database;
+    }
+
+    static MongoStandIn start() throws IOException, InterruptedException {
+        String existing = System.getProperty("loadtest.mongoUri");
+        if (existing != null && !existing.isBlank()) {
+            String database = "knowledgehub-loadtest-" + UUID.randomUUID().toString().substring(0, 8);
+            return new MongoStandIn(withDatabase(existing.trim(), database), null, null, database);
+        }
+
+        String binary = findMongod();
+        if (binary == null) return null;
+
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        Path dataDir = Files.createTempDirectory("mongo-stand-in");
+        Process process = new ProcessBuilder(binary,
+                "--dbpath", dataDir.toString(),
+                "--port", Integer.toString(port),
+                "--bind_ip", "127.0.0.1",
+                "--replSet", REPLICA_SET,
+                "--quiet")
+                .redirectErrorStream(true)
+                .redirectOutput(dataDir.resolve("mongod.log").toFile())
+                .start();
+
+        MongoStandIn standIn = new MongoStandIn(
+                "mongodb://127.0.0.1:" + port + "/knowledgehub?replicaSet=" + REPLICA_SET, process, dataDir, "knowledgehub");
+        try {
+            standIn.initiate(port);
+        } catch (RuntimeException | InterruptedException e) {
+            standIn.close();
+            throw e;
+        }
+        return standIn;
+    }
+
+    String uri() {
+        return uri;
+    }
+
+    /** The database to use; the app needs it as well as the URI, since its properties name one. */
+    String database() {
+        return database;
+    }
+
+    // The URI with its database path replaced. Credentials were checked against the database the
+    // URI named (admin if none), so that stays the authSource unless the URI set one itself.
+    static String withDatabase(String uri, String database) {
+        int hosts = uri.indexOf("://") + 3;
+        int query = uri.indexOf('?', hosts);
+        if (query < 0) query = uri.length();
+        int slash = uri.indexOf('/', hosts);
+        if (slash < 0 || slash > query) slash = query;
+
+        String named = slash < query ? uri.substring(slash + 1, query) : "";
+        String options = query < uri.length() ? uri.substring(query + 1) : "";
+        boolean credentials = uri.lastIndexOf('@', slash) >= hosts;
+        if (credentials && !options.contains("authSource=")) {
+            String authSource = "authSource=" + (named.isEmpty() ? "admin" : named);
+            options = options.isEmpty() ? authSource : options + "&" + authSource;
+        }
+        return uri.substring(0, slash) + "/" + database + (options.isEmpty() ? "" : "?" + options);
+    }
+
+    // Directly connected, since the replica set has no primary to discover until it is initiated
+    private void initiate(int port) throws InterruptedException {
+        try (MongoClient client = MongoClients.create("mongodb://127.0.0.1:" + port + "/?directConnection=true")) {
+            long deadline = System.nanoTime() + 30_000_000_000L;
+            while (true) {
+                try {
+                    client.getDatabase("admin").runCommand(new Document("ping", 1));
+                    break;
+                } catch (RuntimeException e) {
+                    if (!process.isAlive()) throw new IllegalStateException("mongod exited, see " + dataDir.resolve("mongod.log"));
+                    if (System.nanoTime() > deadline) throw e;
+                    Thread.sleep(200);
+                }
+            }
+            client.getDatabase("admin").runCommand(new Document("replSetInitiate", new Document("_id", REPLICA_SET)
+                    .append("members", List.of(new Document("_id", 0).append("host", "127.0.0.1:" + port)))));
+            while (!client.getDatabase("admin").runCommand(new Document("hello", 1)).getBoolean("isWritablePrimary", false)) {
+                if (System.nanoTime() > deadline) throw new IllegalStateException("mongod did not become primary");
+                Thread.sleep(200);
+            }
+        }
+    }
+
+    private static String findMongod() {
+        String configured = System.getProperty("loadtest.mongod");
+        if (configured != null && !configured.isBlank()) return configured;
+        String path = System.getenv("PATH");
+        if (path == null) return null;
+        for (String dir : path.split(File.pathSeparator)) {
+            File candidate = new File(dir, "mongod");
+            if (candidate.canExecute()) return candidate.getPath();
+        }
+        return null;
+    }
+
+    @Override
+    public void close() throws IOException, InterruptedException {
+        if (process == null) {
+            try (MongoClient client = MongoClients.create(uri)) {
+                client.getDatabase(database).drop();
+            }
+            return;
+        }
+        process.destroy();
+        if (!process.waitFor(10, java.util.concurrent.TimeUnit.SECONDS)) process.destroyForcibly().waitFor();
+        try (var files = Files.walk(dataDir)) {
+            files.sorted(java.util.Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.backend;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Stream;
+
+/**
+ * Boots the app with platform threads, with the virtual-threads profile and with the reactive
+ * (WebFlux / Reactor Netty) profile, points the upstreams at a local stand-in with fixed
+ * latency, and drives /api/search and /api/download with distinct keys (so every request
+ * misses the caches and goes upstream). Client rate limits and the RapidAPI budget are off.
+ *
+ * Run on a Java 21+ JVM, otherwise the virtual-thread run is skipped:
+ * mvn -Ploadtest test-compile exec:exec -Dloadtest.java=/path/to/jdk21/bin/java
+ *
+ * Arguments: concurrency (default 400), seconds per run (20), upstream latency ms (150).
+ */
+public class ThreadingModeComparison {
+
+    public static void main(String[] args) throws Exception {
+        int concurrency = args.length > 0 ? Integer.parseInt(args[0]) : 400;
+        Duration duration = Duration.ofSeconds(args.length > 1 ? Long.parseLong(args[1]) : 20);
+        long latencyMs = args.length > 2 ? Long.parseLong(args[2]) : 150;
+
+        String books = "{\"books\":[" + String.join(",", Stream.generate(
+                () -> "{\"title\":\"Stand-in\",\"author\":\"Load\",\"md5\":\"" + randomMd5(ThreadLocalRandom.current()) + "\"}")
+                .limit(40).toList()) + "]}";
+
+        List<LoadGenerator.Result> results = new ArrayList<>();
+        try (MockHttpUpstream upstream = new MockHttpUpstream()) {
+            upstream.byDefault(ex -> ex.getRequestURI().getPath().startsWith("/download")
+                    ? MockHttpUpstream.Reply.ok("[\"https://example.org/file.pdf\"]").delayed(latencyMs)
+                    : MockHttpUpstream.Reply.ok(books).delayed(latencyMs));
+
+            results.addAll(runMode("platform", null, upstream, concurrency, duration));
+            if (Runtime.version().feature() >= 21) {
+                results.addAll(runMode("virtual", "virtual-threads", upstream, concurrency, duration));
+            } else {
+                System.out.println("Java " + Runtime.version().feature() + ": skipping the virtual-thread run (needs 21+)");
+            }
+            results.addAll(runMode("reactive", "reactive", upstream, concurrency, duration));
+        }
+
+        System.out.printf("%nconcurrency %d, %ds per run, upstream latency %dms, Java %s%n",
+                concurrency, duration.toSeconds(), latencyMs, Runtime.version());
+        results.forEach(System.out::println);
+        System.exit(0);
+    }
+
+    private static List<LoadGenerator.Result> runMode(String mode, String profile, MockHttpUpstream upstream,
+                                                      int concurrency, Duration duration) throws InterruptedException {
+        // Command-line arguments, so they override application.properties.
+        String[] properties = {
+                "--server.port=0",
+                "--upstream.rapidapi.baseUrl=" + upstream.uri(""),
+                "--upstream.glitternode.url=" + upstream.uri("/v1/book"),
+                "--upstream.rapidapi.http2=false",
+                "--upstream.rapidapi.maxConcurrent=100000",
+                "--upstream.rapidapi.maxAttempts=1",
+                "--upstream.rapidapi.budget.ratePerSecond=0",
+                "--ratelimit.enabled=false",
+                "--search.remote.timeoutMs=30000"
+        };
+        SpringApplicationBuilder builder = new SpringApplicationBuilder(BackendApplication.class);
+        if (profile != null) builder.profiles(profile);
+
+        List<LoadGenerator.Result> results = new ArrayList<>();
+        try (ConfigurableApplicationContext context = builder.run(properties)) {
+            // Serve local search from an empty index instead of waiting for Mongo.
+            context.getBean(CatalogIndex.class).rebuild(Stream.empty());
+            URI base = URI.create("http://127.0.0.1:" + context.getEnvironment().getProperty("local.server.port"));
+
+            LoadGenerator load = new LoadGenerator();
+            load.run("warmup", base, concurrency, Duration.ofSeconds(5), ThreadingModeComparison::searchPath);
+            results.add(load.run(mode + " /api/search", base, concurrency, duration, ThreadingModeComparison::searchPath));
+            results.add(load.run(mode + " /api/download", base, concurrency, duration,
+                    random -> "/api/download?md5=" + randomMd5(random)));
+        }
+        return results;
+    }
+
+    private static String searchPath(ThreadLocalRandom random) {
+        return "/api/search?query=q" + Long.toHexString(random.nextLong());
+    }
+
+    private static String randomMd5(ThreadLocalRandom random) {
+        byte[] bytes = new byte[16];
+        random.nextBytes(bytes);
+        return HexFormat.of().formatHex(bytes);
+    }
+}
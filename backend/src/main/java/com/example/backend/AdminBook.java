@@ -1,8 +1,11 @@
 package com.example.backend;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.mapping.Document;
 
+import java.time.Instant;
+
 @Document(collection = "admin_books") // MongoDB collection name
 public class AdminBook {
 
@@ -19,6 +22,12 @@ public class AdminBook {
     private String imgUrl;   // Cover image URL
     private String r2Key;    // Key in Cloudflare R2 bucket (for download)
     private String description;
+    private String md5;      // Content hash of the uploaded file, lower-case hex
+    private String coverKey; // Key of the rendered cover thumbnail in R2, set by enrichment
+    @JsonIgnore
+    private String contentTerms; // Most frequent words of the extracted text, indexed for search
+    private Instant enrichedAt;  // When size, cover and text were last extracted from the file
+    private Instant updatedAt;   // Set by every write, so a catalog snapshot can catch up on what changed since
 
     // Getters and setters
     public String getId() { return id; }
@@ -53,4 +62,19 @@ public class AdminBook {
 
     public String getDescription() { return description; }
     public void setDescription(String description) { this.description = description; }
+
+    public String getMd5() { return md5; }
+    public void setMd5(String md5) { this.md5 = md5; }
+
+    public String getCoverKey() { return coverKey; }
+    public void setCoverKey(String coverKey) { this.coverKey = coverKey; }
+
+    public String getContentTerms() { return contentTerms; }
+    public void setContentTerms(String contentTerms) { this.contentTerms = contentTerms; }
+
+    public Instant getEnrichedAt() { return enrichedAt; }
+    public void setEnrichedAt(Instant enrichedAt) { this.enrichedAt = enrichedAt; }
+
+    public Instant getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(Instant updatedAt) { this.updatedAt = updatedAt; }
 }
@@ -0,0 +1,33 @@
+package com.example.backend;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class AuthConfig {
+
+    // Runs after Spring's CORS handling, so 401/403 responses still carry CORS headers
+    @Bean
+    public WebMvcConfigurer authInterceptorConfigurer(AuthInterceptor authInterceptor) {
+        return new WebMvcConfigurer() {
+            @Override
+            public void addInterceptors(InterceptorRegistry registry) {
+                registry.addInterceptor(authInterceptor)
+                        .addPathPatterns("/api/admin/**", "/api/users", "/api/users/**");
+            }
+        };
+    }
+
+    // Reactive profile: ordered after CorsWebFilter for the same reason
+    @Bean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+    public AuthWebFilter authWebFilter(TokenService tokenService, ObjectMapper objectMapper,
+                                       @Value("${auth.enabled:true}") boolean enabled) {
+        return new AuthWebFilter(tokenService, objectMapper, enabled);
+    }
+}
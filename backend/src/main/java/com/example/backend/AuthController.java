@@ -0,0 +1,78 @@
+package com.example.backend;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Semaphore;
+
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RestController
+@RequestMapping("/api")
+public class AuthController {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PasswordHasher passwordHasher;
+
+    @Autowired
+    private TokenService tokenService;
+
+    // bcrypt is deliberately CPU-bound; a burst of logins must not take every core from other requests
+    private final Semaphore hashingSlots;
+
+    public AuthController(@Value("${auth.login.maxConcurrent:0}") int maxConcurrent) {
+        this.hashingSlots = new Semaphore(maxConcurrent > 0 ? maxConcurrent : Runtime.getRuntime().availableProcessors());
+    }
+
+    // Returns the user and a bearer token for the admin endpoints. Unknown user and wrong password
+    // get the same answer, after the same amount of hashing.
+    @PostMapping("/login")
+    public ResponseEntity<?> login(@RequestBody Map<String, String> payload) {
+        String username = payload.get("username");
+        String password = payload.get("password");
+        if (username == null || password == null) {
+            return ResponseEntity.badRequest().body(Map.of("error", "username and password are required"));
+        }
+        if (!hashingSlots.tryAcquire()) {
+            return ResponseEntity.status(503).header("Retry-After", "1").body(Map.of("error", "Too many logins in progress"));
+        }
+        try {
+            Optional<User> found = userRepository.findByUsername(username);
+            if (found.isEmpty()) {
+                passwordHasher.burn(password);
+                return ResponseEntity.status(401).body(Map.of("error", "Invalid credentials"));
+            }
+            User user = found.get();
+            if (!passwordHasher.matches(password, user.getPassword())) {
+                return ResponseEntity.status(401).body(Map.of("error", "Invalid credentials"));
+            }
+            // Plaintext from before hashing, or an older cost: replace now that we have the password
+            if (passwordHasher.needsRehash(user.getPassword())) {
+                try {
+                    user.setPassword(passwordHasher.hash(password));
+                    userRepository.save(user);
+                } catch (Exception e) {
+                    System.err.println("Could not rehash password of " + user.getId() + ": " + e.getMessage());
+                }
+            }
+
+            TokenService.Token token = tokenService.issue(user);
+            return ResponseEntity.ok(Map.of(
+                    "id", user.getId(),
+                    "username", user.getUsername(),
+                    "role", user.getRole(),
+                    "token", token.value(),
+                    "expiresAt", token.expiresAt().toString()
+            ));
+        } finally {
+            hashingSlots.release();
+        }
+    }
+}
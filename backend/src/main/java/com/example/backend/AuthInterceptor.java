@@ -0,0 +1,68 @@
+package com.example.backend;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Admin-only endpoints: requires a valid bearer token with role ADMIN, answering 401 without
+ * one and 403 for other roles. Sign-up ({@code POST /api/users}) stays open; a token on it is
+ * still read, so an admin can create admins. The verified principal is left in the
+ * {@link #PRINCIPAL} request attribute.
+ */
+@Component
+public class AuthInterceptor implements HandlerInterceptor {
+
+    public static final String PRINCIPAL = AuthInterceptor.class.getName() + ".principal";
+
+    @Autowired
+    private TokenService tokenService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${auth.enabled:true}")
+    private boolean enabled;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws IOException {
+        if (!enabled || "OPTIONS".equals(request.getMethod())) return true;
+
+        TokenService.Principal principal = tokenService.verify(bearerToken(request));
+        if (principal != null) request.setAttribute(PRINCIPAL, principal);
+
+        if ("POST".equals(request.getMethod()) && "/api/users".equals(request.getRequestURI())) return true;
+        if (principal == null) {
+            response.setHeader(HttpHeaders.WWW_AUTHENTICATE, "Bearer");
+            return reject(response, 401, "Authentication required");
+        }
+        if (!principal.isAdmin()) return reject(response, 403, "Admin role required");
+        return true;
+    }
+
+    public static TokenService.Principal principal(HttpServletRequest request) {
+        return (TokenService.Principal) request.getAttribute(PRINCIPAL);
+    }
+
+    private static String bearerToken(HttpServletRequest request) {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (header == null || !header.regionMatches(true, 0, "Bearer ", 0, 7)) return null;
+        return header.substring(7).trim();
+    }
+
+    private boolean reject(HttpServletResponse response, int status, String error) throws IOException {
+        response.setStatus(status);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), Map.of("error", error));
+        return false;
+    }
+}
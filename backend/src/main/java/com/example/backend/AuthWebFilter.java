@@ -0,0 +1,73 @@
+package com.example.backend;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+/**
+ * {@link AuthInterceptor} for the "reactive" profile: the same bearer tokens, paths and 401 /
+ * 403 answers, with the verified principal left in the {@link AuthInterceptor#PRINCIPAL}
+ * exchange attribute. Verifying a token is an HMAC over a few hundred bytes, so it runs on the
+ * event loop.
+ */
+public class AuthWebFilter implements WebFilter {
+
+    private final TokenService tokenService;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+
+    public AuthWebFilter(TokenService tokenService, ObjectMapper objectMapper, boolean enabled) {
+        this.tokenService = tokenService;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        String path = exchange.getRequest().getPath().pathWithinApplication().value();
+        HttpMethod method = exchange.getRequest().getMethod();
+        boolean protectedPath = path.startsWith("/api/admin/") || path.equals("/api/users") || path.startsWith("/api/users/");
+        if (!enabled || !protectedPath || HttpMethod.OPTIONS.equals(method)) return chain.filter(exchange);
+
+        TokenService.Principal principal = tokenService.verify(bearerToken(exchange));
+        if (principal != null) exchange.getAttributes().put(AuthInterceptor.PRINCIPAL, principal);
+
+        if (HttpMethod.POST.equals(method) && path.equals("/api/users")) return chain.filter(exchange);
+        if (principal == null) {
+            exchange.getResponse().getHeaders().set(HttpHeaders.WWW_AUTHENTICATE, "Bearer");
+            return writeError(exchange.getResponse(), HttpStatus.UNAUTHORIZED, "Authentication required", objectMapper);
+        }
+        if (!principal.isAdmin()) {
+            return writeError(exchange.getResponse(), HttpStatus.FORBIDDEN, "Admin role required", objectMapper);
+        }
+        return chain.filter(exchange);
+    }
+
+    private static String bearerToken(ServerWebExchange exchange) {
+        String header = exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        if (header == null || !header.regionMatches(true, 0, "Bearer ", 0, 7)) return null;
+        return header.substring(7).trim();
+    }
+
+    static Mono<Void> writeError(ServerHttpResponse response, HttpStatus status, String error, ObjectMapper objectMapper) {
+        byte[] body;
+        try {
+            body = objectMapper.writeValueAsBytes(Map.of("error", error));
+        } catch (JsonProcessingException e) {
+            return Mono.error(e);
+        }
+        response.setStatusCode(status);
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(body)));
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.backend;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Book content streamed through the backend, for resumable downloads and in-browser readers
+ * that fetch a PDF / EPUB piece by piece.
+ *
+ * Supports single-range requests (206, 416), If-Range and If-None-Match against a strong ETag:
+ * the book's md5 when known, else R2's ETag. Bytes come from the local disk copy when there
+ * is one, sent by the container with sendfile where it supports it and FileChannel.transferTo
+ * otherwise; else from R2, fetching only the requested range, through one fixed-size buffer.
+ * Either way memory per download does not grow with the object.
+ */
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RestController
+@RequestMapping("/api/admin/books")
+public class BookContentController {
+
+    // Tomcat's request attributes for handing a file region to the connector (see org.apache.catalina.Globals)
+    private static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    @Autowired
+    private AdminBookRepository adminBookRepository;
+
+    @Autowired
+    private CatalogIndex catalogIndex;
+
+    @Autowired
+    private R2ContentCache contentCache;
+
+    @Value("${content.cacheControl:private, max-age=300}")
+    private String cacheControl;
+
+    @GetMapping("/{id}/content")
+    public ResponseEntity<?> getContent(
+            @PathVariable String id,
+            @RequestHeader(value = HttpHeaders.RANGE, required = false) String rangeHeader,
+            @RequestHeader(value = HttpHeaders.IF_RANGE, required = false) String ifRange,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            HttpServletRequest request,
+            HttpServletResponse response
+    ) {
+        R2ObjectInfo info;
+        String eTag;
+        String key;
+        try {
+            AdminBook book = catalogIndex.get(id);
+            if (book == null) book = adminBookRepository.findById(id).orElse(null);
+            if (book == null || book.getR2Key() == null) return ResponseEntity.status(404).body(Map.of("error", "Book not found"));
+
+            key = book.getR2Key();
+            info = contentCache.info(key);
+            eTag = book.getMd5() != null ? "\"" + book.getMd5() + "\"" : info.eTag();
+        } catch (Exception e) {
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof NoSuchKeyException || (cause instanceof S3Exception s3 && s3.statusCode() == 404)) {
+                return ResponseEntity.status(404).body(Map.of("error", "Book content not found"));
+            }
+            cause.printStackTrace();
+            return ResponseEntity.status(500).body(Map.of("error", String.valueOf(cause.getMessage())));
+        }
+
+        if (ifNoneMatch != null && matches(ifNoneMatch, eTag)) {
+            return ResponseEntity.status(304).eTag(eTag).header(HttpHeaders.CACHE_CONTROL, cacheControl).build();
+        }
+
+        // A Range is only honoured if the client's copy is still this version of the object
+        ByteRange range = ifRange == null || ifRange.equals(eTag) ? ByteRange.parse(rangeHeader, info.size()) : null;
+        if (range == ByteRange.NOT_SATISFIABLE) {
+            return ResponseEntity.status(416).header(HttpHeaders.CONTENT_RANGE, "bytes */" + info.size()).build();
+        }
+
+        long start = range == null ? 0 : range.start();
+        long length = range == null ? info.size() : range.length();
+        response.setStatus(range == null ? 200 : 206);
+        response.setHeader(HttpHeaders.ETAG, eTag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.inline()
+                .filename(fileName(key), StandardCharsets.UTF_8).build().toString());
+        if (range != null) response.setHeader(HttpHeaders.CONTENT_RANGE, range.contentRange(info.size()));
+        response.setContentType(info.contentType() != null ? info.contentType() : "application/octet-stream");
+        response.setContentLengthLong(length);
+        if ("HEAD".equals(request.getMethod())) return null;
+
+        try {
+            R2ContentCache.CachedFile cached = contentCache.lookup(key, info);
+            if (cached == null) {
+                contentCache.copyFromR2(key, range, response.getOutputStream());
+            } else if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED)) && length > 0) {
+                // The connector copies the file region to the socket in the kernel once we return
+                request.setAttribute(SENDFILE_FILENAME, cached.path().toAbsolutePath().toString());
+                request.setAttribute(SENDFILE_START, start);
+                request.setAttribute(SENDFILE_END, start + length);
+            } else {
+                contentCache.transfer(cached.path(), start, length, Channels.newChannel(response.getOutputStream()));
+            }
+        } catch (IOException e) {
+            // Headers are already sent; nothing useful can be written. Usually the client hung up.
+            System.err.println("Content download of " + id + " ended early: " + e.getMessage());
+        }
+        return null;
+    }
+
+    static boolean matches(String ifNoneMatch, String eTag) {
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*")) return true;
+            if (tag.startsWith("W/")) tag = tag.substring(2);
+            if (tag.equals(eTag)) return true;
+        }
+        return false;
+    }
+
+    // Keys are "<uuid>-<original file name>"
+    static String fileName(String key) {
+        return key.length() > 37 && key.charAt(36) == '-' ? key.substring(37) : key;
+    }
+}
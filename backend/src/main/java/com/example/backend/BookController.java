@@ -2,38 +2,53 @@ package com.example.backend;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Repository;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.bind.annotation.*;
 
 import software.amazon.awssdk.services.s3.S3Client;
-import software.amazon.awssdk.services.s3.model.PutObjectRequest;
-import software.amazon.awssdk.services.s3.presigner.S3Presigner;
-import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
-import software.amazon.awssdk.services.s3.model.GetObjectRequest;
-
-import java.net.URI;
-import java.net.URLEncoder;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
-import java.nio.charset.StandardCharsets;
-import java.time.Duration;
-import java.util.*;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RestController
 @RequestMapping("/api")
 public class BookController {
 
-    private static final String RAPIDAPI_KEY = "09d1087a77msh8003cef6c78e753p13eafbjsn1cdff80684cf";
-    private static final String RAPIDAPI_HOST = "annas-archive-api.p.rapidapi.com";
-    private static final String GLITTER_NODE_URL = "https://lgate.glitternode.ru/v1/book";
-
     private final ObjectMapper mapper = new ObjectMapper();
-    private final HttpClient client = HttpClient.newHttpClient();
 
     @Autowired
     private AdminBookRepository adminBookRepository;
@@ -42,9 +57,66 @@ public class BookController {
     private S3Client s3Client;
 
     @Autowired
-    private S3Presigner s3Presigner;
+    private R2UrlSigner r2UrlSigner;
+
+    @Autowired
+    private R2MultipartUploader r2Uploader;
+
+    @Autowired
+    @Qualifier("applicationTaskExecutor")
+    private AsyncTaskExecutor searchExecutor;
+
+    @Autowired
+    @Qualifier("remoteSearchCache")
+    private BoundedCache<String, RemoteSearchPage> remoteSearchCache;
+
+    @Autowired
+    @Qualifier("searchWindowCache")
+    private BoundedCache<String, SearchWindow> searchWindowCache;
+
+    @Autowired
+    @Qualifier("bookDetailCache")
+    private BoundedCache<String, JsonNode> bookDetailCache;
+
+    @Value("${detail.chunkSize:20}")
+    private int detailChunkSize;
+
+    @Value("${detail.maxInFlight:4}")
+    private int detailMaxInFlight;
+
+    @Autowired
+    @Qualifier("downloadLinksCache")
+    private BoundedCache<String, List<String>> downloadLinksCache;
+
+    @Autowired
+    private CatalogIndex catalogIndex;
+
+    @Autowired
+    private CatalogEventBus catalogEvents;
+
+    @Autowired
+    private EnrichmentQueue enrichmentQueue;
+
+    @Autowired
+    private ObservationRegistry observationRegistry;
+
+    @Value("${catalog.events.publishTimeoutMs:2000}")
+    private long catalogPublishTimeoutMs;
+
+    @Autowired
+    private RemoteBooks remoteBooks;
 
-    private final String bucketName = "knowledgehub-books";
+    @Value("${search.local.maxResults:100}")
+    private int localSearchMaxResults;
+
+    @Value("${search.local.timeoutMs:1500}")
+    private long localSearchTimeoutMs;
+
+    @Value("${search.remote.timeoutMs:4000}")
+    private long remoteSearchTimeoutMs;
+
+    @Value("${cloudflare.r2.bucket:knowledgehub-books}")
+    private String bucketName;
 
     // =========================
     // Admin upload book
@@ -62,14 +134,7 @@ public class BookController {
     ) {
         try {
             String key = UUID.randomUUID() + "-" + file.getOriginalFilename();
-
-            s3Client.putObject(
-                    PutObjectRequest.builder()
-                            .bucket(bucketName)
-                            .key(key)
-                            .build(),
-                    software.amazon.awssdk.core.sync.RequestBody.fromBytes(file.getBytes())
-            );
+            String md5 = uploadFile(key, file);
 
             AdminBook book = new AdminBook();
             book.setTitle(title);
@@ -80,8 +145,18 @@ public class BookController {
             book.setLanguage(language != null ? language : "Unknown");
             book.setDescription(description != null ? description : "");
             book.setR2Key(key);
-
-            adminBookRepository.save(book);
+            book.setMd5(md5);
+            book.setSize(BookEnricher.formatSize(file.getSize()));
+            book.setUpdatedAt(Instant.now());
+
+            try {
+                adminBookRepository.save(book);
+            } catch (DuplicateKeyException e) {
+                return duplicateFile(key);
+            }
+            publishChange(CatalogChange.upsert(book, null));
+            // Cover and text are extracted in the background; the response does not wait for them
+            enqueueEnrichment(book);
 
             return ResponseEntity.ok(Map.of("message", "Book uploaded successfully", "bookId", book.getId()));
         } catch (Exception e) {
@@ -90,30 +165,57 @@ public class BookController {
         }
     }
 
+    // Streams the file to R2 and returns its md5, hashed on the way through
+    private String uploadFile(String key, MultipartFile file) throws IOException, NoSuchAlgorithmException {
+        MessageDigest md5 = MessageDigest.getInstance("MD5");
+        try (InputStream in = new DigestInputStream(file.getInputStream(), md5)) {
+            r2Uploader.upload(bucketName, key, in, file.getSize(), file.getContentType());
+        }
+        return HexFormat.of().formatHex(md5.digest());
+    }
+
+    // The book is stored either way; a book whose task could not be queued is picked up by a backfill
+    private void enqueueEnrichment(AdminBook book) {
+        try {
+            enrichmentQueue.enqueue(book);
+        } catch (Exception e) {
+            System.err.println("Could not queue enrichment of " + book.getId() + ": " + e.getMessage());
+        }
+    }
+
+    // Another book already has this file (unique md5); the object just uploaded is not needed
+    private ResponseEntity<?> duplicateFile(String uploadedKey) {
+        s3Client.deleteObject(builder -> builder.bucket(bucketName).key(uploadedKey).build());
+        return ResponseEntity.status(409).body(Map.of("error", "A book with the same file already exists"));
+    }
+
+    // Waits briefly for the index and caches to apply the change, so the admin sees their own write;
+    // a slow listener only delays the response, the change is applied regardless
+    private void publishChange(CatalogChange change) {
+        try {
+            catalogEvents.publish(change).get(catalogPublishTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            System.err.println("Catalog change " + change.type() + " " + change.id() + " still being applied after " + catalogPublishTimeoutMs + "ms");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            System.err.println("Catalog change " + change.type() + " " + change.id() + " failed: " + e.getCause());
+        }
+    }
+
     // =========================
     // Admin download book (presigned URL)
     // =========================
     @GetMapping("/admin/download")
     public ResponseEntity<?> downloadAdminBook(@RequestParam String bookId) {
         try {
-            AdminBook book = adminBookRepository.findById(bookId).orElse(null);
+            // Hot books are answered from the catalog index and the URL cache, without Mongo or signing
+            AdminBook book = catalogIndex.get(bookId);
+            if (book == null) book = adminBookRepository.findById(bookId).orElse(null);
             if (book == null) return ResponseEntity.status(404).body(Map.of("error", "Book not found"));
 
-            GetObjectRequest getObjectRequest = GetObjectRequest.builder()
-                    .bucket(bucketName)
-                    .key(book.getR2Key())
-                    .build();
-
-            String presignedUrl = s3Presigner.presignGetObject(
-                            GetObjectPresignRequest.builder()
-                                    .getObjectRequest(getObjectRequest)
-                                    .signatureDuration(Duration.ofHours(1))
-                                    .build()
-                    )
-                    .url()
-                    .toString();
-
-            return ResponseEntity.ok(Map.of("downloadUrl", presignedUrl));
+            PresignedUrl url = r2UrlSigner.getDownloadUrl(bucketName, book.getR2Key());
+            return ResponseEntity.ok(Map.of("downloadUrl", url.url(), "expiresAt", url.expiresAt().toString()));
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.status(500).body(Map.of("error", e.getMessage()));
@@ -148,20 +250,29 @@ public ResponseEntity<?> updateAdminBook(
         if (language != null) book.setLanguage(language);
         if (description != null) book.setDescription(description);
 
-        // Replace file if provided
+        // Replace file if provided; the new object is stored before the old one is removed
+        String oldKey = null;
         if (file != null) {
-            // Delete old file from S3
-            s3Client.deleteObject(builder -> builder.bucket(bucketName).key(book.getR2Key()).build());
-            // Upload new file
+            oldKey = book.getR2Key();
             String key = UUID.randomUUID() + "-" + file.getOriginalFilename();
-            s3Client.putObject(
-                    PutObjectRequest.builder().bucket(bucketName).key(key).build(),
-                    software.amazon.awssdk.core.sync.RequestBody.fromBytes(file.getBytes())
-            );
+            book.setMd5(uploadFile(key, file));
             book.setR2Key(key);
+            book.setSize(BookEnricher.formatSize(file.getSize()));
         }
 
-        adminBookRepository.save(book);
+        book.setUpdatedAt(Instant.now());
+        try {
+            adminBookRepository.save(book);
+        } catch (DuplicateKeyException e) {
+            if (file == null) throw e;
+            return duplicateFile(book.getR2Key());
+        }
+        publishChange(CatalogChange.upsert(book, oldKey));
+        if (file != null) enqueueEnrichment(book);
+        if (oldKey != null) {
+            String staleKey = oldKey;
+            s3Client.deleteObject(builder -> builder.bucket(bucketName).key(staleKey).build());
+        }
         return ResponseEntity.ok(Map.of("message", "Book updated successfully"));
 
     } catch (Exception e) {
@@ -182,6 +293,8 @@ public ResponseEntity<?> updateAdminBook(
 
             s3Client.deleteObject(builder -> builder.bucket(bucketName).key(book.getR2Key()).build());
             adminBookRepository.deleteById(bookId);
+            publishChange(CatalogChange.delete(bookId, book.getR2Key()));
+            enrichmentQueue.cancel(bookId);
 
             return ResponseEntity.ok(Map.of("message", "Book deleted successfully"));
         } catch (Exception e) {
@@ -191,77 +304,42 @@ public ResponseEntity<?> updateAdminBook(
     }
 
     // =========================
-    // Search books (Admin + Anna's Archive)
+    // Admin catalog listing / search (ranked, paginated)
     // =========================
-    @SuppressWarnings("unchecked")
-    @GetMapping("/search")
-    public ResponseEntity<?> searchBooks(@RequestParam String query) {
+    @GetMapping("/admin/books")
+    public ResponseEntity<?> listAdminBooks(
+            @RequestParam(defaultValue = "") String query,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int pageSize,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
+    ) {
         try {
-            List<Map<String, Object>> books = new ArrayList<>();
-            List<AdminBook> adminBooks = adminBookRepository.findByTitleContainingIgnoreCase(query);
-
-            for (AdminBook b : adminBooks) {
-                Map<String, Object> book = new HashMap<>();
-                book.put("id", b.getId());
-                book.put("title", b.getTitle());
-                book.put("author", b.getAuthor());
-                book.put("publisher", b.getPublisher());
-                book.put("year", b.getYear());
-                book.put("format", b.getFormat());
-                book.put("size", b.getSize() != null ? b.getSize() : "N/A");
-                book.put("imgUrl", b.getImgUrl() != null ? b.getImgUrl() : "");
-                book.put("language", b.getLanguage());
-                book.put("descr", b.getDescription());
-                book.put("isAdminBook", true);
-                books.add(book);
+            if (page < 0 || pageSize < 1 || pageSize > 500) {
+                return ResponseEntity.badRequest().body(Map.of("error", "page must be >= 0 and pageSize between 1 and 500"));
             }
 
-            String encodedQuery = URLEncoder.encode(query, StandardCharsets.UTF_8);
-            String url = String.format(
-                    "https://%s/search?q=%s&cat=fiction,nonfiction,comic,magazine,musicalscore,other,unknown&skip=0&limit=40&ext=pdf,epub,mobi,azw3&sort=mostRelevant&source=libgenLi,libgenRs",
-                    RAPIDAPI_HOST, encodedQuery
-            );
-
-            HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create(url))
-                    .header("x-rapidapi-key", RAPIDAPI_KEY)
-                    .header("x-rapidapi-host", RAPIDAPI_HOST)
-                    .GET()
-                    .build();
-
-            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
-
-            if (response.statusCode() == 200) {
-                JsonNode root = mapper.readTree(response.body());
-                JsonNode booksNode = root.path("books");
-
-                if (booksNode.isArray()) {
-                    for (JsonNode node : booksNode) {
-                        String md5 = node.path("md5").asText("").trim();
-                        boolean exists = adminBooks.stream().anyMatch(b -> md5.equals(b.getId()));
-                        if (exists) continue;
-
-                        Map<String, Object> book = new HashMap<>();
-                        book.put("id", md5);
-                        book.put("title", node.path("title").asText("Untitled"));
-                        book.put("author", node.path("author").asText("Unknown"));
-                        book.put("publisher", node.path("publisher").asText("Unknown Publisher"));
-                        book.put("year", node.path("year").asText("N/A"));
-                        book.put("descr", node.path("descr").asText(""));
-                        book.put("format", node.path("format").asText("Unknown"));
-                        book.put("size", node.path("size").asText("N/A"));
-                        book.put("imgUrl", node.path("imgUrl").asText(""));
-                        if (node.has("language")) book.put("language", node.get("language").asText("Unknown"));
-                        if (node.has("pages")) book.put("pages", node.get("pages").asText("N/A"));
-                        if (node.has("extension")) book.put("extension", node.get("extension").asText(""));
-                        book.put("isAdminBook", false);
-                        books.add(book);
-                    }
+            long total;
+            List<AdminBook> books = new ArrayList<>();
+            String eTag = null;
+            if (catalogIndex.isReady()) {
+                // Same index version, same listing: revalidating skips the search as well as the body
+                eTag = "\"" + catalogIndex.version() + "\"";
+                if (ifNoneMatch != null && BookContentController.matches(ifNoneMatch, eTag)) {
+                    return ResponseEntity.status(304).eTag(eTag).cacheControl(CacheControl.noCache()).build();
                 }
+                // In long: a large page would overflow int into a negative offset
+                int offset = (int) Math.min((long) page * pageSize, Integer.MAX_VALUE);
+                CatalogIndex.Page result = catalogIndex.search(query, offset, pageSize);
+                total = result.total();
+                for (CatalogIndex.Hit hit : result.hits()) books.add(hit.book());
+            } else {
+                Page<AdminBook> result = adminBookRepository.findByTitleContainingIgnoreCase(query, PageRequest.of(page, pageSize));
+                total = result.getTotalElements();
+                books.addAll(result.getContent());
             }
 
-            return ResponseEntity.ok(Map.of("books", books));
-
+            return ResponseEntity.ok().eTag(eTag).cacheControl(CacheControl.noCache())
+                    .body(Map.of("books", books, "total", total, "page", page, "pageSize", pageSize));
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.status(500).body(Map.of("error", e.getMessage()));
@@ -269,82 +347,264 @@ public ResponseEntity<?> updateAdminBook(
     }
 
     // =========================
-    // GlitterNode Book Detail
+    // Search books (Admin + Anna's Archive)
     // =========================
-    @SuppressWarnings("unchecked")
-    @PostMapping("/book-detail")
-    public ResponseEntity<?> getBookDetail(@RequestBody Map<String, Object> payload) {
+    // Both sources are queried at the same time, each under its own deadline. A source that
+    // misses its deadline or fails is left out and named in "timedOut" / "failed", so the
+    // response tracks the slowest source that answered in time instead of the sum of both.
+    //
+    // Results come in windows: one block of local hits merged with one RapidAPI page. A
+    // complete window is cached, so the pages inside it are served without searching again;
+    // "nextCursor" walks through the window and then on to the next one.
+    @GetMapping("/search")
+    public CompletableFuture<ResponseEntity<?>> searchBooks(
+            @RequestParam String query,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "60") int pageSize,
+            @RequestParam(required = false) String fields,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
+    ) {
+        if (pageSize < 1 || pageSize > 200) {
+            return CompletableFuture.completedFuture(
+                    ResponseEntity.badRequest().body(Map.of("error", "pageSize must be between 1 and 200")));
+        }
+        SearchCursor at;
+        int fieldMask;
         try {
-            List<String> bookIds = (List<String>) payload.get("book_ids");
-            if (bookIds == null || bookIds.isEmpty()) {
-                return ResponseEntity.badRequest().body(Map.of("error", "book_ids is required"));
-            }
+            at = cursor == null || cursor.isBlank() ? SearchCursor.START : SearchCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(Map.of("error", "Invalid cursor")));
+        }
+        try {
+            fieldMask = BookSummary.parseFields(fields);
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(Map.of("error", e.getMessage())));
+        }
 
-            Map<String, Object> requestBody = new HashMap<>();
-            requestBody.put("book_ids", bookIds);
-            requestBody.put("address", payload.getOrDefault("address", ""));
+        String windowKey = normalizeQuery(query) + "|" + at.localOffset() + "|" + at.remoteOffset();
+        SearchWindow cached = searchWindowCache.get(windowKey);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(searchPage(
+                    cached, at, pageSize, fieldMask, localSearchMaxResults, remoteBooks.getSearchLimit(), List.of(), List.of(), ifNoneMatch));
+        }
 
-            HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create(GLITTER_NODE_URL))
-                    .header("Content-Type", "application/json")
-                    .POST(HttpRequest.BodyPublishers.ofString(mapper.writeValueAsString(requestBody)))
-                    .build();
+        CompletableFuture<SourceResult<Slice<AdminBook>>> local = SourceResult.settle(
+                "local", searchLocal(query, at.localOffset()), localSearchTimeoutMs);
 
-            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        CompletableFuture<SourceResult<RemoteSearchPage>> remote = SourceResult.settle(
+                "remote", searchRemote(query, at.remoteOffset()), remoteSearchTimeoutMs);
 
-            if (response.statusCode() != 200) {
-                return ResponseEntity.status(response.statusCode())
-                        .body(Map.of("error", "Failed to fetch data from Glitter Node"));
+        return local.thenCombine(remote, (adminResult, remoteResult) -> {
+            if (adminResult.error() != null) adminResult.error().printStackTrace();
+            boolean shed = remoteResult.error() instanceof UpstreamBudget.BudgetExhaustedException;
+            if (remoteResult.error() != null && !shed) remoteResult.error().printStackTrace();
+            List<String> timedOut = SourceResult.timedOut(adminResult, remoteResult);
+            List<String> failed = SourceResult.failed(adminResult, remoteResult);
+            if (adminResult.isMissing() && shed) {
+                return tooManyRequests((UpstreamBudget.BudgetExhaustedException) remoteResult.error());
+            }
+            if (adminResult.isMissing() && remoteResult.isMissing()) {
+                return ResponseEntity.status(500).body(Map.of(
+                        "error", "All search sources failed",
+                        "timedOut", timedOut,
+                        "failed", failed
+                ));
             }
 
-            JsonNode root = mapper.readTree(response.body());
-            return ResponseEntity.ok(root);
+            // A source that is missing from this window is not asked again further down the cursor
+            Slice<AdminBook> localSlice = adminResult.valueOr(new SliceImpl<>(List.of()));
+            RemoteSearchPage remotePage = remoteResult.valueOr(RemoteSearchPage.of(List.of()));
+            SearchWindow window = new SearchWindow(
+                    SearchMerger.merge(query, localSlice.getContent(), remotePage.books(), catalogIndex::hostsMd5),
+                    localSlice.hasNext(),
+                    remotePage.books().size() >= remoteBooks.getSearchLimit()
+            );
+            if (timedOut.isEmpty() && failed.isEmpty()) searchWindowCache.put(windowKey, window);
 
-        } catch (Exception e) {
-            e.printStackTrace();
-            return ResponseEntity.status(500).body(Map.of("error", e.getMessage()));
+            return searchPage(window, at, pageSize, fieldMask, localSearchMaxResults, remoteBooks.getSearchLimit(), timedOut, failed, ifNoneMatch);
+        });
+    }
+
+    // A complete page gets a strong ETag from its window's version, checked before the page is
+    // serialized, so revalidating an unchanged page costs a 304 and no body. A page with a
+    // missing source has none: it is a stopgap that the next search should replace.
+    static ResponseEntity<?> searchPage(SearchWindow window, SearchCursor at, int pageSize, int fields,
+                                        int localBlock, int remoteBlock, List<String> timedOut, List<String> failed,
+                                        String ifNoneMatch) {
+        if (!timedOut.isEmpty() || !failed.isEmpty()) {
+            return ResponseEntity.ok().cacheControl(CacheControl.noStore())
+                    .body(window.page(at, pageSize, localBlock, remoteBlock, timedOut, failed, fields));
+        }
+        String eTag = window.eTag(at, pageSize, fields);
+        if (ifNoneMatch != null && BookContentController.matches(ifNoneMatch, eTag)) {
+            return ResponseEntity.status(304).eTag(eTag).cacheControl(CacheControl.noCache()).build();
+        }
+        return ResponseEntity.ok().eTag(eTag).cacheControl(CacheControl.noCache())
+                .body(window.page(at, pageSize, localBlock, remoteBlock, timedOut, failed, fields));
+    }
+
+    // Served from the in-memory catalog index; until it is built, from Mongo with the limit
+    // pushed down and a sort the title_id index covers. An offset of -1 means exhausted.
+    private CompletableFuture<Slice<AdminBook>> searchLocal(String query, int offset) {
+        if (offset < 0) return CompletableFuture.completedFuture(new SliceImpl<>(List.of()));
+        Pageable window = PageRequest.of(offset / localSearchMaxResults, localSearchMaxResults);
+        if (catalogIndex.isReady()) {
+            return searchPhase("local", "index", phase -> {
+                CatalogIndex.Page result = catalogIndex.search(query, offset, localSearchMaxResults);
+                List<AdminBook> books = new ArrayList<>(result.hits().size());
+                for (CatalogIndex.Hit hit : result.hits()) books.add(hit.book());
+                return CompletableFuture.completedFuture(
+                        new SliceImpl<>(books, window, result.total() > offset + localSearchMaxResults));
+            });
         }
+        return searchPhase("local", "mongo", phase -> CompletableFuture.supplyAsync(() -> phase.scoped(() ->
+                adminBookRepository.searchByTitleContainingIgnoreCase(
+                        query, PageRequest.of(window.getPageNumber(), window.getPageSize(), Sort.by("title", "id")))), searchExecutor));
+    }
+
+    // Remote pages are cached per normalized query and offset; concurrent misses share one RapidAPI call
+    private CompletableFuture<RemoteSearchPage> searchRemote(String query, int skip) {
+        if (skip < 0) return CompletableFuture.completedFuture(RemoteSearchPage.of(List.of()));
+        String normalized = normalizeQuery(query);
+        String key = skip == 0 ? normalized : normalized + "|" + skip;
+        return searchPhase("remote", "rapidapi", phase -> remoteSearchCache.getOrLoad(key, k -> remoteBooks.search(normalized, skip)));
+    }
+
+    // One "search.phase" observation per source: a timer, and a child span of the request's span
+    // so a trace shows how long the index / Mongo and RapidAPI legs of a search each took
+    private <T> CompletableFuture<T> searchPhase(String phase, String source, Function<Observation, CompletableFuture<T>> call) {
+        Observation observation = Observation.createNotStarted("search.phase", observationRegistry)
+                .contextualName("search " + phase)
+                .lowCardinalityKeyValue("phase", phase)
+                .lowCardinalityKeyValue("source", source)
+                .start();
+        CompletableFuture<T> future;
+        try (Observation.Scope scope = observation.openScope()) {
+            future = call.apply(observation);
+        } catch (RuntimeException e) {
+            observation.error(e);
+            observation.stop();
+            throw e;
+        }
+        return future.whenComplete((value, error) -> {
+            if (error != null) {
+                observation.error(error instanceof CompletionException && error.getCause() != null ? error.getCause() : error);
+            }
+            observation.stop();
+        });
+    }
+
+    static String normalizeQuery(String query) {
+        return query.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
     }
 
     // =========================
-    // Anna's Archive Download Links
+    // GlitterNode Book Detail
     // =========================
-    @GetMapping("/download")
-    public ResponseEntity<?> getDownloadLinks(@RequestParam String md5) {
-        try {
-            String url = String.format("https://%s/download?md5=%s", RAPIDAPI_HOST, md5);
+    // Details are cached per md5. Only ids that are neither cached nor already being fetched
+    // go upstream, in chunks with a bounded number of requests in flight. The response keeps
+    // GlitterNode's {"data": {"book": {MD5: ...}}} shape, in the order the ids were asked for.
+    @SuppressWarnings("unchecked")
+    @PostMapping("/book-detail")
+    public CompletableFuture<ResponseEntity<?>> getBookDetail(@RequestBody Map<String, Object> payload) {
+        List<String> bookIds = (List<String>) payload.get("book_ids");
+        if (bookIds == null || bookIds.isEmpty()) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(Map.of("error", "book_ids is required")));
+        }
+        String address = String.valueOf(payload.getOrDefault("address", ""));
 
-            HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create(url))
-                    .header("x-rapidapi-key", RAPIDAPI_KEY)
-                    .header("x-rapidapi-host", RAPIDAPI_HOST)
-                    .GET()
-                    .build();
+        List<String> keys = new ArrayList<>(bookIds.size());
+        for (String id : bookIds) {
+            if (id != null && !id.isBlank()) keys.add(RemoteBooks.detailCacheKey(id, address));
+        }
 
-            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        Map<String, CompletableFuture<JsonNode>> details = bookDetailCache.getAllOrLoad(keys,
+                misses -> fetchBookDetails(misses, address));
+
+        return CompletableFuture.allOf(details.values().toArray(new CompletableFuture[0]))
+                .<ResponseEntity<?>>thenApply(done -> {
+                    ObjectNode books = mapper.createObjectNode();
+                    details.forEach((key, detail) -> {
+                        JsonNode node = detail.join();
+                        if (node != null) books.set(RemoteBooks.detailId(key), node);
+                    });
+                    ObjectNode root = mapper.createObjectNode();
+                    root.putObject("data").set("book", books);
+                    return ResponseEntity.ok(root);
+                })
+                .exceptionally(error -> {
+                    Throwable cause = error instanceof CompletionException && error.getCause() != null
+                            ? error.getCause() : error;
+                    if (cause instanceof UpstreamStatusException upstream) {
+                        return ResponseEntity.status(upstream.getStatus())
+                                .body(Map.of("error", "Failed to fetch data from Glitter Node"));
+                    }
+                    if (cause instanceof UpstreamClient.UpstreamUnavailableException) {
+                        return ResponseEntity.status(503).body(Map.of("error", cause.getMessage()));
+                    }
+                    cause.printStackTrace();
+                    return ResponseEntity.status(500).body(Map.of("error", String.valueOf(cause.getMessage())));
+                });
+    }
 
-            if (response.statusCode() != 200) {
-                return ResponseEntity.status(response.statusCode())
-                        .body(Map.of("error", "Failed to fetch download links"));
-            }
+    // Splits the misses into chunks and runs them on a fixed number of lanes, each lane sending
+    // its next chunk when the previous one completes.
+    private CompletableFuture<Map<String, JsonNode>> fetchBookDetails(List<String> keys, String address) {
+        ConcurrentLinkedQueue<List<String>> chunks = new ConcurrentLinkedQueue<>();
+        for (int i = 0; i < keys.size(); i += detailChunkSize) {
+            chunks.add(keys.subList(i, Math.min(keys.size(), i + detailChunkSize)));
+        }
 
-            JsonNode root = mapper.readTree(response.body());
-            if (!root.isArray()) {
-                return ResponseEntity.status(500).body(Map.of("error", "Unexpected response format"));
-            }
+        Map<String, JsonNode> found = new ConcurrentHashMap<>();
+        int lanes = Math.min(detailMaxInFlight, chunks.size());
+        CompletableFuture<?>[] running = new CompletableFuture[lanes];
+        for (int i = 0; i < lanes; i++) {
+            running[i] = fetchDetailLane(chunks, address, found);
+        }
+        return CompletableFuture.allOf(running).thenApply(done -> found);
+    }
 
-            List<String> links = new ArrayList<>();
-            for (JsonNode link : root) {
-                links.add(link.asText());
-            }
+    private CompletableFuture<Void> fetchDetailLane(ConcurrentLinkedQueue<List<String>> chunks, String address,
+                                                    Map<String, JsonNode> found) {
+        List<String> chunk = chunks.poll();
+        if (chunk == null) return CompletableFuture.completedFuture(null);
+        return remoteBooks.details(chunk, address)
+                .thenAccept(found::putAll)
+                .thenCompose(done -> fetchDetailLane(chunks, address, found));
+    }
 
-            return ResponseEntity.ok(Map.of("links", links));
+    // =========================
+    // Anna's Archive Download Links
+    // =========================
+    @GetMapping("/download")
+    public CompletableFuture<ResponseEntity<?>> getDownloadLinks(@RequestParam String md5) {
+        return downloadLinksCache.getOrLoad(md5.trim().toLowerCase(Locale.ROOT), remoteBooks::downloadLinks)
+                .<ResponseEntity<?>>thenApply(links -> ResponseEntity.ok(Map.of("links", links)))
+                .exceptionally(error -> {
+                    Throwable cause = error instanceof CompletionException && error.getCause() != null
+                            ? error.getCause() : error;
+                    if (cause instanceof UpstreamStatusException upstream) {
+                        return ResponseEntity.status(upstream.getStatus())
+                                .body(Map.of("error", "Failed to fetch download links"));
+                    }
+                    if (cause instanceof UpstreamBudget.BudgetExhaustedException exhausted) {
+                        return tooManyRequests(exhausted);
+                    }
+                    if (cause instanceof UpstreamClient.UpstreamUnavailableException) {
+                        return ResponseEntity.status(503).body(Map.of("error", cause.getMessage()));
+                    }
+                    cause.printStackTrace();
+                    return ResponseEntity.status(500).body(Map.of("error", String.valueOf(cause.getMessage())));
+                });
+    }
 
-        } catch (Exception e) {
-            e.printStackTrace();
-            return ResponseEntity.status(500).body(Map.of("error", e.getMessage()));
-        }
+    // The shared RapidAPI budget is spent for now; the client should come back later, not retry at once
+    static ResponseEntity<?> tooManyRequests(UpstreamBudget.BudgetExhaustedException exhausted) {
+        return ResponseEntity.status(429)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(exhausted.getRetryAfterSeconds()))
+                .body(Map.of("error", "Upstream request budget exhausted, try again later"));
     }
+
 }
 
 // ==========================
@@ -352,5 +612,8 @@ public ResponseEntity<?> updateAdminBook(
 // ==========================
 @Repository
 interface AdminBookRepository extends MongoRepository<AdminBook, String> {
-    List<AdminBook> findByTitleContainingIgnoreCase(String title);
+    Page<AdminBook> findByTitleContainingIgnoreCase(String title, Pageable pageable);
+
+    // Slice skips the count query; used by search, which only needs to know if there is more
+    Slice<AdminBook> searchByTitleContainingIgnoreCase(String title, Pageable pageable);
 }
@@ -0,0 +1,307 @@
+package com.example.backend;
+
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.io.IOUtils;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Extracts what the catalog needs from a stored book file: its size and md5, a JPEG cover
+ * thumbnail and the leading text. PDFs are read with PDFBox (the cover is the first page,
+ * rendered); EPUBs are read as zip archives (the cover is the image the package document
+ * marks as the cover, the text is the spine in reading order). The format is detected from
+ * the file's first bytes, not from the name. Other formats get size and md5 only.
+ *
+ * Stateless and thread-safe; the work is CPU-bound and meant for the enrichment workers.
+ */
+public class BookEnricher {
+
+    public record Result(long size, String md5, String format, byte[] cover, String text) {}
+
+    private static final Pattern SCRIPT_OR_STYLE = Pattern.compile("(?is)<(script|style)[^>]*>.*?</\\1>");
+    private static final Pattern TAG = Pattern.compile("<[^>]*>");
+    private static final Pattern ENTITY = Pattern.compile("&(#x?[0-9a-fA-F]+|[a-zA-Z]+);");
+    private static final Pattern SPACES = Pattern.compile("\\s+");
+
+    private static final Set<String> STOPWORDS = Set.of(
+            "the", "and", "for", "are", "but", "not", "you", "all", "any", "can", "had", "her", "was", "one",
+            "our", "out", "has", "him", "his", "how", "its", "may", "new", "now", "see", "two", "who", "did",
+            "get", "let", "say", "she", "too", "use", "that", "with", "have", "this", "will", "your", "from",
+            "they", "been", "were", "said", "each", "which", "their", "there", "what", "when", "would", "about",
+            "into", "than", "them", "then", "these", "some", "only", "also", "other", "more", "such", "very",
+            "just", "over", "where", "most", "could", "should", "being", "those", "because", "between");
+
+    private final int coverWidth;
+    private final int maxPdfPages;
+    private final int maxTextChars;
+    private final long maxCoverPixels;
+
+    public BookEnricher(int coverWidth, int maxPdfPages, int maxTextChars) {
+        this(coverWidth, maxPdfPages, maxTextChars, 25_000_000);
+    }
+
+    /** {@code maxCoverPixels} caps the decoded size of an EPUB's cover image; larger covers are skipped. */
+    public BookEnricher(int coverWidth, int maxPdfPages, int maxTextChars, long maxCoverPixels) {
+        this.coverWidth = coverWidth;
+        this.maxPdfPages = maxPdfPages;
+        this.maxTextChars = maxTextChars;
+        this.maxCoverPixels = maxCoverPixels;
+    }
+
+    public Result enrich(Path file) throws IOException {
+        long size = Files.size(file);
+        String md5 = md5(file);
+        String format = detectFormat(file);
+        if ("pdf".equals(format)) return readPdf(file, size, md5);
+        if ("epub".equals(format)) return readEpub(file, size, md5);
+        return new Result(size, md5, format, null, null);
+    }
+
+    // =========================
+    // PDF
+    // =========================
+    private Result readPdf(Path file, long size, String md5) throws IOException {
+        // Temp-file stream cache: large scans are not pulled into the heap
+        try (PDDocument pdf = Loader.loadPDF(file.toFile(), IOUtils.createTempFileOnlyStreamCache())) {
+            byte[] cover = null;
+            if (pdf.getNumberOfPages() > 0) {
+                float pageWidth = pdf.getPage(0).getMediaBox().getWidth();
+                // Render at the resolution that gives the thumbnail width directly (72 points per inch)
+                float dpi = Math.max(18f, Math.min(300f, 72f * coverWidth / Math.max(1f, pageWidth)));
+                cover = thumbnail(new PDFRenderer(pdf).renderImageWithDPI(0, dpi, ImageType.RGB));
+            }
+            PDFTextStripper stripper = new PDFTextStripper();
+            stripper.setStartPage(1);
+            stripper.setEndPage(maxPdfPages);
+            return new Result(size, md5, "pdf", cover, clip(stripper.getText(pdf)));
+        }
+    }
+
+    // =========================
+    // EPUB
+    // =========================
+    private Result readEpub(Path file, long size, String md5) throws IOException {
+        try (ZipFile zip = new ZipFile(file.toFile())) {
+            String opfPath = rootFile(zip);
+            if (opfPath == null) return new Result(size, md5, "epub", null, null);
+            Element opf = parseXml(zip, opfPath);
+            if (opf == null) return new Result(size, md5, "epub", null, null);
+            String base = opfPath.contains("/") ? opfPath.substring(0, opfPath.lastIndexOf('/') + 1) : "";
+
+            Map<String, Element> items = new HashMap<>();
+            NodeList manifest = opf.getElementsByTagNameNS("*", "item");
+            for (int i = 0; i < manifest.getLength(); i++) {
+                Element item = (Element) manifest.item(i);
+                items.put(item.getAttribute("id"), item);
+            }
+
+            byte[] cover = null;
+            Element coverItem = coverItem(opf, items);
+            if (coverItem != null) {
+                BufferedImage image = readImage(zip, base + href(coverItem));
+                if (image != null) cover = thumbnail(image);
+            }
+
+            StringBuilder text = new StringBuilder();
+            NodeList spine = opf.getElementsByTagNameNS("*", "itemref");
+            for (int i = 0; i < spine.getLength() && text.length() < maxTextChars; i++) {
+                Element item = items.get(((Element) spine.item(i)).getAttribute("idref"));
+                if (item == null) continue;
+                ZipEntry entry = zip.getEntry(base + href(item));
+                if (entry == null) continue;
+                try (InputStream in = zip.getInputStream(entry)) {
+                    text.append(htmlToText(new String(in.readNBytes(maxTextChars * 4), StandardCharsets.UTF_8))).append('\n');
+                }
+            }
+            return new Result(size, md5, "epub", cover, clip(text.toString()));
+        }
+    }
+
+    private static String rootFile(ZipFile zip) throws IOException {
+        Element container = parseXml(zip, "META-INF/container.xml");
+        if (container == null) return null;
+        NodeList roots = container.getElementsByTagNameNS("*", "rootfile");
+        return roots.getLength() == 0 ? null : ((Element) roots.item(0)).getAttribute("full-path");
+    }
+
+    // EPUB 3 marks the cover with properties="cover-image"; EPUB 2 with <meta name="cover" content="item-id">
+    private static Element coverItem(Element opf, Map<String, Element> items) {
+        for (Element item : items.values()) {
+            if (item.getAttribute("properties").contains("cover-image")) return item;
+        }
+        NodeList metas = opf.getElementsByTagNameNS("*", "meta");
+        for (int i = 0; i < metas.getLength(); i++) {
+            Element meta = (Element) metas.item(i);
+            if ("cover".equals(meta.getAttribute("name")) && items.containsKey(meta.getAttribute("content"))) {
+                return items.get(meta.getAttribute("content"));
+            }
+        }
+        for (Element item : items.values()) {
+            if (item.getAttribute("media-type").startsWith("image/")
+                    && item.getAttribute("id").toLowerCase(Locale.ROOT).contains("cover")) return item;
+        }
+        return null;
+    }
+
+    private static String href(Element item) {
+        String href = item.getAttribute("href");
+        int fragment = href.indexOf('#');
+        if (fragment >= 0) href = href.substring(0, fragment);
+        return URLDecoder.decode(href.replace("+", "%2B"), StandardCharsets.UTF_8);
+    }
+
+    private BufferedImage readImage(ZipFile zip, String path) throws IOException {
+        ZipEntry entry = zip.getEntry(path);
+        if (entry == null) return null;
+        try (InputStream in = zip.getInputStream(entry)) {
+            return Thumbnails.read(in, maxCoverPixels);
+        } catch (Thumbnails.ImageTooLargeException e) {
+            // The book is still enriched, without a cover
+            System.err.println("EPUB cover " + path + " skipped: " + e.getMessage());
+            return null;
+        }
+    }
+
+    // Package documents come from uploaded files: no DTDs, no external entities
+    private static Element parseXml(ZipFile zip, String path) throws IOException {
+        ZipEntry entry = zip.getEntry(path);
+        if (entry == null) return null;
+        try (InputStream in = zip.getInputStream(entry)) {
+            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+            factory.setNamespaceAware(true);
+            factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+            factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+            factory.setExpandEntityReferences(false);
+            DocumentBuilder builder = factory.newDocumentBuilder();
+            return builder.parse(in).getDocumentElement();
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    static String htmlToText(String html) {
+        String text = TAG.matcher(SCRIPT_OR_STYLE.matcher(html).replaceAll(" ")).replaceAll(" ");
+        Matcher m = ENTITY.matcher(text);
+        StringBuilder out = new StringBuilder(text.length());
+        while (m.find()) m.appendReplacement(out, Matcher.quoteReplacement(entity(m.group(1))));
+        m.appendTail(out);
+        return SPACES.matcher(out).replaceAll(" ").trim();
+    }
+
+    private static String entity(String name) {
+        try {
+            if (name.startsWith("#x") || name.startsWith("#X")) return Character.toString(Integer.parseInt(name.substring(2), 16));
+            if (name.startsWith("#")) return Character.toString(Integer.parseInt(name.substring(1)));
+        } catch (IllegalArgumentException e) {
+            return " ";
+        }
+        return switch (name) {
+            case "amp" -> "&";
+            case "lt" -> "<";
+            case "gt" -> ">";
+            case "quot" -> "\"";
+            case "apos" -> "'";
+            default -> " ";
+        };
+    }
+
+    // =========================
+    // Shared
+    // =========================
+    private byte[] thumbnail(BufferedImage source) throws IOException {
+        return Thumbnails.jpeg(Thumbnails.scale(source, coverWidth), 0.85f);
+    }
+
+    private String clip(String text) {
+        if (text == null) return null;
+        String trimmed = text.strip();
+        return trimmed.length() <= maxTextChars ? trimmed : trimmed.substring(0, maxTextChars);
+    }
+
+    private static String detectFormat(Path file) throws IOException {
+        byte[] head;
+        try (InputStream in = Files.newInputStream(file)) {
+            head = in.readNBytes(64);
+        }
+        String ascii = new String(head, StandardCharsets.ISO_8859_1);
+        if (ascii.startsWith("%PDF-")) return "pdf";
+        // The EPUB container's first entry is an uncompressed "mimetype" file
+        if (ascii.startsWith("PK") && ascii.contains("mimetypeapplication/epub+zip")) return "epub";
+        return null;
+    }
+
+    private static String md5(Path file) throws IOException {
+        try {
+            MessageDigest md5 = MessageDigest.getInstance("MD5");
+            try (InputStream in = new DigestInputStream(Files.newInputStream(file), md5)) {
+                in.transferTo(OutputStream.nullOutputStream());
+            }
+            return HexFormat.of().formatHex(md5.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * The {@code max} most frequent words of {@code text}, space-separated, for the search index.
+     * Short words, numbers and common English words are left out.
+     */
+    static String keyTerms(String text, int max) {
+        if (text == null || text.isEmpty() || max <= 0) return null;
+        Map<String, Integer> counts = new HashMap<>();
+        for (String token : CatalogIndex.tokenize(text)) {
+            if (token.length() < 3 || STOPWORDS.contains(token) || token.chars().allMatch(Character::isDigit)) continue;
+            counts.merge(token, 1, Integer::sum);
+        }
+        if (counts.isEmpty()) return null;
+        List<Map.Entry<String, Integer>> ranked = new ArrayList<>(counts.entrySet());
+        ranked.sort(Map.Entry.<String, Integer>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()));
+        return ranked.stream().limit(max).map(Map.Entry::getKey).collect(Collectors.joining(" "));
+    }
+
+    /** Human-readable file size, as shown in search results ("2.4 MB"). */
+    static String formatSize(long bytes) {
+        if (bytes < 1024) return bytes + " B";
+        String[] units = {"KB", "MB", "GB", "TB"};
+        double value = bytes;
+        int unit = -1;
+        while (value >= 1024 && unit < units.length - 1) {
+            value /= 1024;
+            unit++;
+        }
+        return String.format(Locale.ROOT, "%.1f %s", value, units[unit]);
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.backend;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * One book in a search response, from the admin catalog or from Anna's Archive. Remote
+ * summaries are built once when a RapidAPI page is parsed and then shared, unchanged, by every
+ * response served from the search cache.
+ *
+ * {@code language}, {@code pages} and {@code extension} are optional for remote books and are
+ * left out of the JSON when null. A response can also ask for only some fields ({@code fields=}
+ * on /api/search), e.g. leaving out {@code descr} in list views; {@code id} is always written.
+ */
+@JsonSerialize(using = BookSummary.Serializer.class)
+public record BookSummary(
+        String id,
+        String title,
+        String author,
+        String publisher,
+        String year,
+        String descr,
+        String format,
+        String size,
+        String imgUrl,
+        String language,
+        String pages,
+        String extension,
+        boolean adminBook
+) {
+
+    /** JSON field names, in output order; bit {@code i} of a field mask selects {@code FIELDS.get(i)}. */
+    static final List<String> FIELDS = List.of("id", "title", "author", "publisher", "year", "descr", "format",
+            "size", "imgUrl", "language", "pages", "extension", "isAdminBook");
+    static final int ALL_FIELDS = (1 << FIELDS.size()) - 1;
+
+    private static final int TITLE = 1 << 1, AUTHOR = 1 << 2, PUBLISHER = 1 << 3, YEAR = 1 << 4, DESCR = 1 << 5,
+            FORMAT = 1 << 6, SIZE = 1 << 7, IMG_URL = 1 << 8, LANGUAGE = 1 << 9, PAGES = 1 << 10,
+            EXTENSION = 1 << 11, ADMIN_BOOK = 1 << 12;
+
+    /**
+     * Field mask for a comma-separated {@code fields=} value; null or blank selects all fields.
+     *
+     * @throws IllegalArgumentException for a name that is not a field
+     */
+    static int parseFields(String fields) {
+        if (fields == null || fields.isBlank()) return ALL_FIELDS;
+        int mask = 1; // id
+        for (String name : fields.split(",")) {
+            int i = FIELDS.indexOf(name.trim());
+            if (i < 0) throw new IllegalArgumentException("Unknown field: " + name.trim());
+            mask |= 1 << i;
+        }
+        return mask;
+    }
+
+    public static BookSummary fromAdminBook(AdminBook b) {
+        return new BookSummary(
+                b.getId(),
+                b.getTitle(),
+                b.getAuthor(),
+                b.getPublisher(),
+                b.getYear(),
+                b.getDescription(),
+                b.getFormat(),
+                b.getSize() != null ? b.getSize() : "N/A",
+                b.getImgUrl() != null ? b.getImgUrl() : "",
+                b.getLanguage(),
+                null,
+                null,
+                true
+        );
+    }
+
+    public BookSummary withImgUrl(String imgUrl) {
+        return new BookSummary(id, title, author, publisher, year, descr, format, size, imgUrl, language, pages, extension, adminBook);
+    }
+
+    /** Rough heap size, used to weigh cached search pages. */
+    long estimatedBytes() {
+        return 80 + chars(id) + chars(title) + chars(author) + chars(publisher) + chars(year) + chars(descr)
+                + chars(format) + chars(size) + chars(imgUrl) + chars(language) + chars(pages) + chars(extension);
+    }
+
+    private static long chars(String s) {
+        return s == null ? 0 : 40L + s.length();
+    }
+
+    /**
+     * 64-bit hash of every field. Built from the Strings' own cached hash codes, so it costs a
+     * few multiplications per field once the strings have been hashed.
+     */
+    long contentHash() {
+        long h = adminBook ? 1 : 0;
+        for (String field : new String[]{id, title, author, publisher, year, descr, format, size, imgUrl, language, pages, extension}) {
+            h = h * 0x9E3779B97F4A7C15L + (field == null ? 0x5bd1e995 : field.hashCode());
+        }
+        return h;
+    }
+
+    void writeTo(JsonGenerator gen, int fields) throws IOException {
+        gen.writeStartObject();
+        gen.writeStringField("id", id);
+        if ((fields & TITLE) != 0) gen.writeStringField("title", title);
+        if ((fields & AUTHOR) != 0) gen.writeStringField("author", author);
+        if ((fields & PUBLISHER) != 0) gen.writeStringField("publisher", publisher);
+        if ((fields & YEAR) != 0) gen.writeStringField("year", year);
+        if ((fields & DESCR) != 0) gen.writeStringField("descr", descr);
+        if ((fields & FORMAT) != 0) gen.writeStringField("format", format);
+        if ((fields & SIZE) != 0) gen.writeStringField("size", size);
+        if ((fields & IMG_URL) != 0) gen.writeStringField("imgUrl", imgUrl);
+        if ((fields & LANGUAGE) != 0 && language != null) gen.writeStringField("language", language);
+        if ((fields & PAGES) != 0 && pages != null) gen.writeStringField("pages", pages);
+        if ((fields & EXTENSION) != 0 && extension != null) gen.writeStringField("extension", extension);
+        if ((fields & ADMIN_BOOK) != 0) gen.writeBooleanField("isAdminBook", adminBook);
+        gen.writeEndObject();
+    }
+
+    // Writes the fields straight to the generator, without bean introspection or an intermediate map
+    static final class Serializer extends StdSerializer<BookSummary> {
+
+        Serializer() {
+            super(BookSummary.class);
+        }
+
+        @Override
+        public void serialize(BookSummary b, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            b.writeTo(gen, ALL_FIELDS);
+        }
+    }
+}
@@ -0,0 +1,259 @@
+package com.example.backend;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * In-process LRU cache bounded by entry count and by an estimated byte weight, with a
+ * time-to-live per entry.
+ *
+ * {@link #getOrLoad} coalesces concurrent misses: while a load for a key is in flight, every
+ * other caller for that key waits on the same future, so a burst of identical misses makes
+ * one upstream call. Failed loads are not cached.
+ */
+public class BoundedCache<K, V> {
+
+    private final String name;
+    private final int maxEntries;
+    private final long maxBytes;
+    private final long ttlNanos;
+    private final BiFunction<K, V, Long> weigher;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    // Bumped on every invalidation; a load that started before one is not stored.
+    private final AtomicLong invalidations = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder loadFailures = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    private record Entry<V>(V value, long weight, long expiresAt) {}
+
+    public BoundedCache(String name, int maxEntries, long maxBytes, Duration ttl, BiFunction<K, V, Long> weigher) {
+        this.name = name;
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+        this.ttlNanos = ttl.toNanos();
+        this.weigher = weigher;
+    }
+
+    public String getName() { return name; }
+
+    /** Returns the cached value, or null when absent or expired. */
+    public V get(K key) {
+        lock.lock();
+        try {
+            Entry<V> entry = entries.get(key);
+            if (entry == null) {
+                misses.increment();
+                return null;
+            }
+            if (System.nanoTime() - entry.expiresAt >= 0) {
+                entries.remove(key);
+                bytes -= entry.weight;
+                expirations.increment();
+                misses.increment();
+                return null;
+            }
+            hits.increment();
+            return entry.value;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void put(K key, V value) {
+        long weight = weigher.apply(key, value);
+        if (weight > maxBytes) return;
+
+        lock.lock();
+        try {
+            Entry<V> previous = entries.put(key, new Entry<>(value, weight, System.nanoTime() + ttlNanos));
+            if (previous != null) bytes -= previous.weight;
+            bytes += weight;
+
+            Iterator<Map.Entry<K, Entry<V>>> eldest = entries.entrySet().iterator();
+            while ((entries.size() > maxEntries || bytes > maxBytes) && eldest.hasNext()) {
+                Entry<V> evicted = eldest.next().getValue();
+                eldest.remove();
+                bytes -= evicted.weight;
+                evictions.increment();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the cached value, or loads it. Concurrent callers for the same missing key share
+     * one load. Each caller gets its own dependent future, so cancelling one (for example on a
+     * deadline) does not cancel the load for the others.
+     */
+    public CompletableFuture<V> getOrLoad(K key, Function<K, CompletableFuture<V>> loader) {
+        V cached = get(key);
+        if (cached != null) return CompletableFuture.completedFuture(cached);
+
+        CompletableFuture<V> promise = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, promise);
+        if (existing != null) {
+            coalesced.increment();
+            return existing.copy();
+        }
+
+        loads.increment();
+        long generation = invalidations.get();
+        CompletableFuture<V> load;
+        try {
+            load = loader.apply(key);
+        } catch (RuntimeException e) {
+            load = CompletableFuture.failedFuture(e);
+        }
+        load.whenComplete((value, error) -> {
+            if (error == null && value != null && invalidations.get() == generation) {
+                put(key, value);
+            }
+            if (error != null) loadFailures.increment();
+            inFlight.remove(key, promise);
+            if (error != null) promise.completeExceptionally(error);
+            else promise.complete(value);
+        });
+        return promise.copy();
+    }
+
+    /**
+     * Batch form of {@link #getOrLoad}: returns a future per key, in the order given. Keys
+     * already cached or already being loaded by another caller are not passed to the loader;
+     * the rest are loaded with one call. A key the loader leaves out of its result completes
+     * with null and is not cached.
+     */
+    public Map<K, CompletableFuture<V>> getAllOrLoad(Collection<K> keys, Function<List<K>, CompletableFuture<Map<K, V>>> loader) {
+        Map<K, CompletableFuture<V>> results = new LinkedHashMap<>();
+        Map<K, CompletableFuture<V>> owned = new LinkedHashMap<>();
+
+        for (K key : keys) {
+            if (results.containsKey(key)) continue;
+            V cached = get(key);
+            if (cached != null) {
+                results.put(key, CompletableFuture.completedFuture(cached));
+                continue;
+            }
+            CompletableFuture<V> promise = new CompletableFuture<>();
+            CompletableFuture<V> existing = inFlight.putIfAbsent(key, promise);
+            if (existing != null) {
+                coalesced.increment();
+                results.put(key, existing.copy());
+            } else {
+                owned.put(key, promise);
+                results.put(key, promise.copy());
+            }
+        }
+        if (owned.isEmpty()) return results;
+
+        loads.increment();
+        long generation = invalidations.get();
+        CompletableFuture<Map<K, V>> load;
+        try {
+            load = loader.apply(new ArrayList<>(owned.keySet()));
+        } catch (RuntimeException e) {
+            load = CompletableFuture.failedFuture(e);
+        }
+        load.whenComplete((values, error) -> {
+            if (error != null) loadFailures.increment();
+            for (Map.Entry<K, CompletableFuture<V>> e : owned.entrySet()) {
+                K key = e.getKey();
+                V value = error == null ? values.get(key) : null;
+                if (value != null && invalidations.get() == generation) put(key, value);
+                inFlight.remove(key, e.getValue());
+                if (error != null) e.getValue().completeExceptionally(error);
+                else e.getValue().complete(value);
+            }
+        });
+        return results;
+    }
+
+    public void invalidate(K key) {
+        invalidations.incrementAndGet();
+        inFlight.remove(key);
+        lock.lock();
+        try {
+            Entry<V> removed = entries.remove(key);
+            if (removed != null) bytes -= removed.weight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void invalidateAll() {
+        invalidations.incrementAndGet();
+        inFlight.clear();
+        lock.lock();
+        try {
+            entries.clear();
+            bytes = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long weightedBytes() {
+        lock.lock();
+        try {
+            return bytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long hitCount() { return hits.sum(); }
+    public long missCount() { return misses.sum(); }
+    public long coalescedCount() { return coalesced.sum(); }
+    public long loadCount() { return loads.sum(); }
+    public long loadFailureCount() { return loadFailures.sum(); }
+    public long evictionCount() { return evictions.sum(); }
+    public long expirationCount() { return expirations.sum(); }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("entries", size());
+        stats.put("maxEntries", maxEntries);
+        stats.put("bytes", weightedBytes());
+        stats.put("maxBytes", maxBytes);
+        stats.put("hits", hitCount());
+        stats.put("misses", missCount());
+        stats.put("coalesced", coalescedCount());
+        stats.put("loads", loadCount());
+        stats.put("loadFailures", loadFailureCount());
+        stats.put("evictions", evictionCount());
+        stats.put("expirations", expirationCount());
+        return stats;
+    }
+}
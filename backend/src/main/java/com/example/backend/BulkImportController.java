@@ -0,0 +1,50 @@
+package com.example.backend;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Map;
+
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RestController
+@RequestMapping("/api/admin/imports")
+public class BulkImportController {
+
+    @Autowired
+    private BulkImporter importer;
+
+    // Start an import: {"manifest": "backlog/manifest.jsonl", "source": "backlog/files.zip"},
+    // paths relative to import.allowedRoot on the server. Poll the returned job for progress.
+    @PostMapping
+    public ResponseEntity<?> startImport(@RequestBody Map<String, String> payload) {
+        try {
+            ImportJob job = importer.start(payload.get("manifest"), payload.get("source"));
+            return ResponseEntity.accepted().body(job.progress());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.status(500).body(Map.of("error", String.valueOf(e.getMessage())));
+        }
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<?> getImport(@PathVariable String id) {
+        ImportJob job = importer.get(id);
+        if (job == null) return ResponseEntity.status(404).body(Map.of("error", "Import not found"));
+        return ResponseEntity.ok(job.progress());
+    }
+
+    @GetMapping
+    public List<Map<String, Object>> listImports() {
+        return importer.jobs().stream().map(ImportJob::progress).toList();
+    }
+}
@@ -0,0 +1,372 @@
+package com.example.backend;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.bulk.BulkWriteUpsert;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Loads many books at once from a JSON Lines manifest and a directory or zip archive of files.
+ *
+ * The manifest is processed in batches. Every file in a batch is hashed; books whose md5 is
+ * already in the catalog (or earlier in the same import) are skipped, the rest are uploaded to
+ * R2 with up to {@code concurrency} uploads in flight and then written to Mongo in one unordered
+ * bulk upsert keyed on md5. The R2 key is derived from the md5 too, so re-running an import
+ * after a crash re-uploads at most the batch that was in flight and never duplicates a book.
+ * New books are published as catalog changes, which updates the search index and caches, and
+ * queued for enrichment (cover and text).
+ */
+@Component
+public class BulkImporter {
+
+    private final R2MultipartUploader uploader;
+    private final MongoTemplate mongoTemplate;
+    private final CatalogEventBus catalogEvents;
+    private final EnrichmentQueue enrichmentQueue;
+    private final Executor executor;
+    private final String bucket;
+    private final int concurrency;
+    private final int batchSize;
+    private final Path allowedRoot;
+    private final Duration retainJobs;
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private final Map<String, ImportJob> jobs = new ConcurrentHashMap<>();
+
+    @Autowired
+    public BulkImporter(
+            R2MultipartUploader uploader,
+            MongoTemplate mongoTemplate,
+            CatalogEventBus catalogEvents,
+            EnrichmentQueue enrichmentQueue,
+            @Qualifier("importExecutor") AsyncTaskExecutor executor,
+            @Value("${cloudflare.r2.bucket:knowledgehub-books}") String bucket,
+            @Value("${import.concurrency:8}") int concurrency,
+            @Value("${import.batchSize:500}") int batchSize,
+            @Value("${import.allowedRoot:${user.home}/knowledgehub-import}") String allowedRoot,
+            @Value("${import.jobs.retainMinutes:1440}") long retainJobsMinutes
+    ) {
+        this.uploader = uploader;
+        this.mongoTemplate = mongoTemplate;
+        this.catalogEvents = catalogEvents;
+        this.enrichmentQueue = enrichmentQueue;
+        this.executor = executor;
+        this.bucket = bucket;
+        this.concurrency = Math.max(1, concurrency);
+        this.batchSize = Math.max(1, batchSize);
+        this.allowedRoot = Path.of(allowedRoot).toAbsolutePath().normalize();
+        this.retainJobs = Duration.ofMinutes(Math.max(0, retainJobsMinutes));
+    }
+
+    /**
+     * Starts importing in the background and returns the job to poll.
+     *
+     * @throws IllegalArgumentException if either path is outside {@code import.allowedRoot} or
+     *                                  missing, or the source is not a directory or zip archive
+     */
+    public ImportJob start(String manifest, String source) {
+        Path manifestPath = checkedPath(manifest);
+        Path sourcePath = checkedPath(source);
+        ImportSource files;
+        try {
+            files = ImportSource.open(sourcePath);
+        } catch (IOException e) {
+            throw new IllegalArgumentException(source + " is not a directory or zip archive");
+        }
+
+        ImportJob job = new ImportJob(UUID.randomUUID().toString(), manifestPath.toString(), sourcePath.toString());
+        pruneFinishedJobs(Instant.now());
+        jobs.put(job.getId(), job);
+        Thread runner = new Thread(() -> {
+            try (files) {
+                run(job, manifestPath, files);
+            } catch (IOException e) {
+                System.err.println("Bulk import " + job.getId() + " could not close its source: " + e.getMessage());
+            }
+        }, "bulk-import-" + job.getId().substring(0, 8));
+        runner.setDaemon(true);
+        runner.start();
+        return job;
+    }
+
+    public ImportJob get(String id) {
+        return jobs.get(id);
+    }
+
+    public Collection<ImportJob> jobs() {
+        return jobs.values();
+    }
+
+    /** Forgets jobs that finished more than {@code import.jobs.retainMinutes} before {@code now}. */
+    void pruneFinishedJobs(Instant now) {
+        Instant cutoff = now.minus(retainJobs);
+        jobs.values().removeIf(job -> job.finishedAt() != null && job.finishedAt().isBefore(cutoff));
+    }
+
+    void run(ImportJob job, Path manifest, ImportSource files) {
+        Set<String> seen = new HashSet<>();
+        try (BufferedReader reader = Files.newBufferedReader(manifest, StandardCharsets.UTF_8)) {
+            List<ImportManifestEntry> batch = new ArrayList<>(batchSize);
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) continue;
+                job.read.incrementAndGet();
+                try {
+                    batch.add(ImportManifestEntry.parse(mapper.readTree(line)));
+                } catch (IOException | IllegalArgumentException e) {
+                    job.recordError("line " + lineNumber, e.getMessage());
+                    continue;
+                }
+                if (batch.size() == batchSize) {
+                    importBatch(job, batch, files, seen);
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) importBatch(job, batch, files, seen);
+            job.complete();
+        } catch (Exception e) {
+            // Mongo or the manifest failed under us; the import can be re-run and resumes by hash
+            job.fail(e.getMessage());
+            e.printStackTrace();
+        }
+        System.err.println("Bulk import " + job.getId() + " " + job.getState() + ": " + job.progress());
+    }
+
+    private record Hashed(ImportManifestEntry entry, String md5, long size) {}
+
+    private void importBatch(ImportJob job, List<ImportManifestEntry> batch, ImportSource files, Set<String> seen) {
+        // 1. Hash every file
+        List<CompletableFuture<Hashed>> hashing = new ArrayList<>(batch.size());
+        Semaphore inFlight = new Semaphore(concurrency);
+        for (ImportManifestEntry entry : batch) {
+            hashing.add(submit(inFlight, () -> new Hashed(entry, md5(files, entry.file()), files.size(entry.file()))));
+        }
+        Map<String, Hashed> byMd5 = new LinkedHashMap<>();
+        for (int i = 0; i < batch.size(); i++) {
+            try {
+                Hashed hashed = hashing.get(i).join();
+                if (seen.add(hashed.md5())) byMd5.put(hashed.md5(), hashed);
+                else job.skipped.incrementAndGet(); // same content listed twice
+            } catch (Exception e) {
+                job.recordError(batch.get(i).file(), rootMessage(e));
+            }
+        }
+        if (byMd5.isEmpty()) return;
+
+        // 2. Skip what an earlier (possibly interrupted) import already stored
+        for (String md5 : existingMd5s(byMd5.keySet())) {
+            byMd5.remove(md5);
+            job.skipped.incrementAndGet();
+        }
+
+        // 3. Upload the rest, bounded
+        List<Hashed> pending = new ArrayList<>(byMd5.values());
+        List<CompletableFuture<AdminBook>> uploads = new ArrayList<>(pending.size());
+        for (Hashed hashed : pending) {
+            uploads.add(submit(inFlight, () -> upload(job, files, hashed)));
+        }
+        List<AdminBook> books = new ArrayList<>(uploads.size());
+        for (int i = 0; i < pending.size(); i++) {
+            try {
+                books.add(uploads.get(i).join());
+            } catch (Exception e) {
+                job.recordError(pending.get(i).entry().file(), rootMessage(e));
+            }
+        }
+        if (books.isEmpty()) return;
+
+        // 4. One bulk write for the batch, then let the index and caches know
+        List<AdminBook> inserted = insertNew(books);
+        job.inserted.addAndGet(inserted.size());
+        job.skipped.addAndGet(books.size() - inserted.size());
+        if (inserted.size() < books.size()) deleteUnused(books, inserted);
+        List<CatalogChange> changes = new ArrayList<>(inserted.size());
+        for (AdminBook book : inserted) changes.add(CatalogChange.upsert(book, null));
+        try {
+            catalogEvents.publishAll(changes).join();
+        } catch (CompletionException e) {
+            // The books are stored; the change stream or the next snapshot sync brings them in
+            System.err.println("Catalog changes for " + changes.size() + " imported books failed: " + rootMessage(e));
+        }
+    }
+
+    private AdminBook upload(ImportJob job, ImportSource files, Hashed hashed) throws IOException {
+        ImportManifestEntry entry = hashed.entry();
+        // Same content, same key: a retried upload overwrites the object instead of adding one
+        String key = UUID.nameUUIDFromBytes(HexFormat.of().parseHex(hashed.md5())) + "-" + entry.fileName();
+        try (InputStream in = files.open(entry.file())) {
+            uploader.upload(bucket, key, in, hashed.size(), entry.contentType());
+        }
+        job.uploaded.incrementAndGet();
+        job.bytesUploaded.addAndGet(hashed.size());
+
+        AdminBook book = new AdminBook();
+        book.setTitle(entry.title());
+        book.setAuthor(entry.author());
+        book.setPublisher(entry.publisher());
+        book.setYear(entry.year());
+        book.setFormat(entry.format());
+        book.setLanguage(entry.language() != null ? entry.language() : "Unknown");
+        book.setDescription(entry.description() != null ? entry.description() : "");
+        book.setR2Key(key);
+        book.setMd5(hashed.md5());
+        book.setSize(BookEnricher.formatSize(hashed.size()));
+        return book;
+    }
+
+    /**
+     * Deletes the objects uploaded for books that were not inserted because another import or an
+     * admin upload stored the same md5 first. Same content maps to the same key, so a key that a
+     * stored book points at is kept.
+     */
+    private void deleteUnused(List<AdminBook> books, List<AdminBook> inserted) {
+        Set<String> unused = new HashSet<>();
+        for (AdminBook book : books) unused.add(book.getR2Key());
+        for (AdminBook book : inserted) unused.remove(book.getR2Key());
+        if (unused.isEmpty()) return;
+        unused.removeAll(referencedKeys(unused));
+        for (String key : unused) {
+            try {
+                uploader.delete(bucket, key);
+            } catch (RuntimeException e) {
+                System.err.println("Could not delete unused import upload " + key + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /** The keys among {@code keys} that some admin book points at. */
+    Collection<String> referencedKeys(Collection<String> keys) {
+        return mongoTemplate.findDistinct(Query.query(Criteria.where("r2Key").in(keys)), "r2Key", AdminBook.class, String.class);
+    }
+
+    /** The md5s among {@code md5s} that some admin book already has. */
+    Collection<String> existingMd5s(Collection<String> md5s) {
+        return mongoTemplate.findDistinct(Query.query(Criteria.where("md5").in(md5s)), "md5", AdminBook.class, String.class);
+    }
+
+    /**
+     * Inserts the books whose md5 is not in the collection yet, in one unordered bulk upsert, and
+     * returns those that were inserted, with their ids set, after queueing them for enrichment.
+     * A book stored concurrently by another import or an admin upload is left alone: the upsert
+     * then either matches it or, when both inserts race, hits the unique md5 index, which counts
+     * as already present.
+     */
+    List<AdminBook> insertNew(List<AdminBook> books) {
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, AdminBook.class);
+        Instant now = Instant.now();
+        for (AdminBook book : books) {
+            book.setUpdatedAt(now);
+            Document document = new Document();
+            mongoTemplate.getConverter().write(book, document);
+            document.remove("_id");
+            Update update = new Update();
+            document.forEach(update::setOnInsert);
+            bulk.upsert(Query.query(Criteria.where("md5").is(book.getMd5())), update);
+        }
+        BulkWriteResult result;
+        try {
+            result = bulk.execute();
+        } catch (BulkOperationException e) {
+            if (!onlyDuplicateKeys(e.getErrors())) throw e;
+            result = e.getResult();
+        }
+        List<AdminBook> inserted = new ArrayList<>(result.getUpserts().size());
+        for (BulkWriteUpsert upsert : result.getUpserts()) {
+            AdminBook book = books.get(upsert.getIndex());
+            book.setId(upsert.getId().asObjectId().getValue().toHexString());
+            inserted.add(book);
+        }
+        enrichmentQueue.enqueueAll(inserted);
+        return inserted;
+    }
+
+    static boolean onlyDuplicateKeys(List<BulkWriteError> errors) {
+        return errors.stream().allMatch(error -> error.getCode() == MongoIndexes.DUPLICATE_KEY);
+    }
+
+    private <T> CompletableFuture<T> submit(Semaphore inFlight, Callable<T> task) {
+        inFlight.acquireUninterruptibly();
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                try {
+                    future.complete(task.call());
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                } finally {
+                    inFlight.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            inFlight.release();
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    private static String md5(ImportSource files, String file) throws IOException, NoSuchAlgorithmException {
+        MessageDigest md5 = MessageDigest.getInstance("MD5");
+        try (InputStream in = new DigestInputStream(files.open(file), md5)) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        return HexFormat.of().formatHex(md5.digest());
+    }
+
+    private Path checkedPath(String path) {
+        if (path == null || path.isBlank()) throw new IllegalArgumentException("path is required");
+        Path resolved = allowedRoot.resolve(path).toAbsolutePath().normalize();
+        if (!resolved.startsWith(allowedRoot)) {
+            throw new IllegalArgumentException(path + " is outside the import root " + allowedRoot);
+        }
+        if (!Files.exists(resolved)) throw new IllegalArgumentException(path + " does not exist");
+        return resolved;
+    }
+
+    private static String rootMessage(Throwable e) {
+        while (e.getCause() != null && e.getCause() != e) e = e.getCause();
+        return e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+    }
+}
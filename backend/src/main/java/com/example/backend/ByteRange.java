@@ -0,0 +1,55 @@
+package com.example.backend;
+
+/**
+ * A single byte range of an object of known size, parsed from an HTTP Range header; {@code end}
+ * is inclusive, as in the header.
+ *
+ * Only one range per request is supported. A header with several ranges, another unit, or that
+ * does not parse is ignored and the whole object is sent, which RFC 9110 allows. A range that
+ * starts past the end of the object is {@link #NOT_SATISFIABLE} (416).
+ */
+record ByteRange(long start, long end) {
+
+    static final ByteRange NOT_SATISFIABLE = new ByteRange(-1, -1);
+
+    long length() {
+        return end - start + 1;
+    }
+
+    /** Value for the Content-Range response header. */
+    String contentRange(long size) {
+        return "bytes " + start + "-" + end + "/" + size;
+    }
+
+    /** Value for the Range header of the matching R2 GetObject. */
+    String header() {
+        return "bytes=" + start + "-" + end;
+    }
+
+    /** Returns null when the whole object should be sent. */
+    static ByteRange parse(String header, long size) {
+        if (header == null || !header.startsWith("bytes=")) return null;
+        String spec = header.substring("bytes=".length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0 || spec.indexOf(',') >= 0) return null;
+
+        try {
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+            if (first.isEmpty()) {
+                // Suffix range: the last n bytes
+                long n = Long.parseLong(last);
+                if (n < 0) return null;
+                if (n == 0 || size == 0) return NOT_SATISFIABLE;
+                return new ByteRange(Math.max(0, size - n), size - 1);
+            }
+            long start = Long.parseLong(first);
+            long end = last.isEmpty() ? Long.MAX_VALUE : Long.parseLong(last);
+            if (start < 0 || end < start) return null;
+            if (start >= size) return NOT_SATISFIABLE;
+            return new ByteRange(start, Math.min(end, size - 1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
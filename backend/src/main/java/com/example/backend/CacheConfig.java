@@ -0,0 +1,120 @@
+package com.example.backend;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.List;
+
+@Configuration
+public class CacheConfig {
+
+    // Anna's Archive search results, keyed on the normalized query
+    @Bean
+    public BoundedCache<String, RemoteSearchPage> remoteSearchCache(
+            @Value("${cache.search.maxEntries:2000}") int maxEntries,
+            @Value("${cache.search.maxMb:64}") long maxMb,
+            @Value("${cache.search.ttlSeconds:600}") long ttlSeconds
+    ) {
+        return new BoundedCache<>("remoteSearch", maxEntries, maxMb * 1024 * 1024,
+                Duration.ofSeconds(ttlSeconds), (query, page) -> 2L * query.length() + page.bytes());
+    }
+
+    // Merged /api/search windows, keyed on normalized query and source offsets; short-lived,
+    // and dropped whenever the admin catalog changes
+    @Bean
+    public BoundedCache<String, SearchWindow> searchWindowCache(
+            @Value("${cache.searchWindow.maxEntries:5000}") int maxEntries,
+            @Value("${cache.searchWindow.maxMb:64}") long maxMb,
+            @Value("${cache.searchWindow.ttlSeconds:120}") long ttlSeconds
+    ) {
+        return new BoundedCache<>("searchWindow", maxEntries, maxMb * 1024 * 1024,
+                Duration.ofSeconds(ttlSeconds), (key, window) -> 2L * key.length() + window.estimatedBytes());
+    }
+
+    // GlitterNode book details, keyed on upper-case md5 and request address
+    @Bean
+    public BoundedCache<String, JsonNode> bookDetailCache(
+            @Value("${cache.detail.maxEntries:20000}") int maxEntries,
+            @Value("${cache.detail.maxMb:64}") long maxMb,
+            @Value("${cache.detail.ttlSeconds:3600}") long ttlSeconds
+    ) {
+        return new BoundedCache<>("bookDetail", maxEntries, maxMb * 1024 * 1024,
+                Duration.ofSeconds(ttlSeconds), (key, detail) -> 2L * key.length() + 2L * detail.toString().length());
+    }
+
+    // Anna's Archive download links, keyed on lower-case md5
+    @Bean
+    public BoundedCache<String, List<String>> downloadLinksCache(
+            @Value("${cache.download.maxEntries:20000}") int maxEntries,
+            @Value("${cache.download.maxMb:16}") long maxMb,
+            @Value("${cache.download.ttlSeconds:1800}") long ttlSeconds
+    ) {
+        return new BoundedCache<>("downloadLinks", maxEntries, maxMb * 1024 * 1024,
+                Duration.ofSeconds(ttlSeconds), (md5, links) -> {
+                    long weight = 64L + 2L * md5.length();
+                    for (String link : links) weight += 40L + 2L * link.length();
+                    return weight;
+                });
+    }
+
+    // Presigned R2 download URLs, keyed on bucket/key; entries must expire well inside the signature validity
+    @Bean
+    public BoundedCache<String, PresignedUrl> presignedUrlCache(
+            @Value("${cache.presign.maxEntries:50000}") int maxEntries,
+            @Value("${cache.presign.maxMb:32}") long maxMb,
+            @Value("${cache.presign.ttlMinutes:45}") long ttlMinutes
+    ) {
+        return new BoundedCache<>("presignedUrl", maxEntries, maxMb * 1024 * 1024,
+                Duration.ofMinutes(ttlMinutes), (key, url) -> 96L + 2L * key.length() + 2L * url.url().length());
+    }
+
+    // Cover thumbnails, keyed on cover hash and size; thumbnails never change under a key
+    @Bean
+    public BoundedCache<String, CoverService.Thumbnail> coverThumbnailCache(
+            @Value("${cache.cover.maxEntries:20000}") int maxEntries,
+            @Value("${cache.cover.maxMb:64}") long maxMb,
+            @Value("${cache.cover.ttlMinutes:1440}") long ttlMinutes
+    ) {
+        return new BoundedCache<>("coverThumbnail", maxEntries, maxMb * 1024 * 1024,
+                Duration.ofMinutes(ttlMinutes), (key, thumbnail) -> 96L + 2L * key.length() + thumbnail.jpeg().length);
+    }
+
+    // Source image URL of each remote book's cover, keyed on lower-case md5; filled from search results
+    @Bean
+    public BoundedCache<String, String> coverSourceCache(
+            @Value("${cache.coverSource.maxEntries:200000}") int maxEntries,
+            @Value("${cache.coverSource.maxMb:64}") long maxMb,
+            @Value("${cache.coverSource.ttlHours:24}") long ttlHours
+    ) {
+        return new BoundedCache<>("coverSource", maxEntries, maxMb * 1024 * 1024,
+                Duration.ofHours(ttlHours), (md5, url) -> 64L + 2L * md5.length() + 2L * url.length());
+    }
+
+    // Covers found missing (no source, source gone, over the limits), keyed on tier key; kept
+    // briefly so a page of books without covers does not repeat the R2 read and remote fetch
+    @Bean
+    public BoundedCache<String, Boolean> coverMissCache(
+            @Value("${cache.coverMiss.maxEntries:50000}") int maxEntries,
+            @Value("${cache.coverMiss.maxMb:8}") long maxMb,
+            @Value("${cache.coverMiss.ttlSeconds:300}") long ttlSeconds
+    ) {
+        return new BoundedCache<>("coverMiss", maxEntries, maxMb * 1024 * 1024,
+                Duration.ofSeconds(ttlSeconds), (key, missing) -> 64L + 2L * key.length());
+    }
+
+    // R2 object size / type / ETag, keyed on object key. Keys are never reused for new content,
+    // so entries only go stale when the object is deleted
+    @Bean
+    public BoundedCache<String, R2ObjectInfo> objectInfoCache(
+            @Value("${cache.objectInfo.maxEntries:50000}") int maxEntries,
+            @Value("${cache.objectInfo.maxMb:16}") long maxMb,
+            @Value("${cache.objectInfo.ttlMinutes:60}") long ttlMinutes
+    ) {
+        return new BoundedCache<>("objectInfo", maxEntries, maxMb * 1024 * 1024,
+                Duration.ofMinutes(ttlMinutes), (key, info) -> 96L + 2L * key.length()
+                        + 2L * (info.contentType() == null ? 0 : info.contentType().length()) + 2L * info.eTag().length());
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.backend;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/cache")
+public class CacheController {
+
+    @Autowired
+    private List<BoundedCache<?, ?>> caches;
+
+    @Autowired
+    private R2ContentCache contentCache;
+
+    @Autowired
+    private CoverService coverService;
+
+    @Autowired
+    private CatalogIndex catalogIndex;
+
+    // Hit / miss / eviction counters for every in-process cache, for sizing
+    @GetMapping("/stats")
+    public Map<String, Object> getCacheStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        for (BoundedCache<?, ?> cache : caches) {
+            stats.put(cache.getName(), cache.stats());
+        }
+        stats.put("contentDisk", contentCache.stats());
+        stats.put("covers", coverService.stats());
+        stats.put("catalogIndex", catalogIndex.stats());
+        return stats;
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.backend;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Drops cached data made stale by catalog changes: presigned URLs for object keys that a book
+ * no longer points at, and cached search windows, which may hold the changed book anywhere.
+ */
+@Component
+public class CatalogCacheInvalidator implements CatalogChangeListener {
+
+    private final BoundedCache<String, SearchWindow> searchWindowCache;
+    private final R2UrlSigner r2UrlSigner;
+    private final String bucketName;
+
+    @Autowired
+    public CatalogCacheInvalidator(
+            @Qualifier("searchWindowCache") BoundedCache<String, SearchWindow> searchWindowCache,
+            R2UrlSigner r2UrlSigner,
+            @Value("${cloudflare.r2.bucket:knowledgehub-books}") String bucketName
+    ) {
+        this.searchWindowCache = searchWindowCache;
+        this.r2UrlSigner = r2UrlSigner;
+        this.bucketName = bucketName;
+    }
+
+    @Override
+    public void onCatalogChanges(List<CatalogChange> changes) {
+        // Windows are keyed by query, not by book, so any change clears them; once per batch is enough
+        searchWindowCache.invalidateAll();
+        for (CatalogChange change : changes) {
+            switch (change.type()) {
+                case UPSERT -> {
+                    String newKey = change.book().getR2Key();
+                    if (!Objects.equals(change.previousR2Key(), newKey)) r2UrlSigner.invalidate(bucketName, change.previousR2Key());
+                }
+                case DELETE -> r2UrlSigner.invalidate(bucketName, change.previousR2Key());
+                case RESYNC -> r2UrlSigner.invalidateAll();
+            }
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.backend;
+
+/**
+ * One change to admin_books, as delivered to {@link CatalogChangeListener}s.
+ *
+ * {@code book} is the document after an upsert and null for a delete. {@code previousR2Key} is
+ * the object key the book pointed at before the change, when known, so caches keyed on it can
+ * be invalidated. RESYNC means changes may have been missed and listeners should rebuild.
+ */
+public record CatalogChange(Type type, String id, AdminBook book, String previousR2Key) {
+
+    public enum Type { UPSERT, DELETE, RESYNC }
+
+    public static final CatalogChange RESYNC = new CatalogChange(Type.RESYNC, null, null, null);
+
+    public static CatalogChange upsert(AdminBook book, String previousR2Key) {
+        return new CatalogChange(Type.UPSERT, book.getId(), book, previousR2Key);
+    }
+
+    public static CatalogChange delete(String id, String previousR2Key) {
+        return new CatalogChange(Type.DELETE, id, null, previousR2Key);
+    }
+}
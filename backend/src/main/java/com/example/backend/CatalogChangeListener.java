@@ -0,0 +1,13 @@
+package com.example.backend;
+
+import java.util.List;
+
+/**
+ * Receives admin_books changes from the {@link CatalogEventBus}, in publish order, a batch at a
+ * time. The same change can arrive twice (once from the local write path and once from the
+ * change stream), so handling must be idempotent.
+ */
+public interface CatalogChangeListener {
+
+    void onCatalogChanges(List<CatalogChange> changes);
+}
@@ -0,0 +1,254 @@
+package com.example.backend;
+
+import com.mongodb.MongoCommandException;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import com.mongodb.client.model.changestream.FullDocumentBeforeChange;
+import com.mongodb.client.model.changestream.OperationType;
+import jakarta.annotation.PreDestroy;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tails the admin_books change stream and publishes every change on the {@link CatalogEventBus},
+ * so writes made through any backend replica reach this node's index and caches.
+ *
+ * Changes are read in batches; after a batch has been handled by every listener, the stream's
+ * resume token is stored in catalog_change_state, and a restart resumes from there. A batch that
+ * a listener failed on, or could not queue, is not stored past: the stream is reopened from the
+ * last stored token after the retry period and the batch is delivered again. If Mongo no
+ * longer has the history for that token, the token is dropped and listeners get a RESYNC.
+ * Change streams need a replica set; on a standalone server this logs once per retry period and
+ * the node relies on its own write path.
+ *
+ * Every replica tails the stream for its own index, so each stores its own token, keyed by
+ * {@code catalog.changes.nodeId} (the host name when unset). A node id that changes across
+ * restarts only costs the position: the node then starts from the current end of the stream,
+ * after catching up from its snapshot.
+ */
+@Component
+public class CatalogChangeStream {
+
+    static final String STATE_COLLECTION = "catalog_change_state";
+    private static final String STREAM_ID = "admin_books";
+
+    // Resume token too old or unusable: ChangeStreamHistoryLost, InvalidResumeToken, ChangeStreamFatalError
+    private static final Set<Integer> LOST_POSITION_CODES = Set.of(286, 260, 280);
+    private static final int NOT_A_REPLICA_SET = 40573;
+
+    @Autowired(required = false)
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private CatalogEventBus events;
+
+    @Autowired
+    private CatalogIndex catalogIndex;
+
+    @Value("${catalog.changes.enabled:true}")
+    private boolean enabled;
+
+    @Value("${catalog.changes.batchSize:256}")
+    private int batchSize;
+
+    @Value("${catalog.changes.retrySeconds:30}")
+    private long retrySeconds;
+
+    @Value("${catalog.changes.tokenSaveIntervalMs:10000}")
+    private long tokenSaveIntervalMs;
+
+    @Value("${catalog.changes.nodeId:}")
+    private String nodeId;
+
+    private String stateId;
+
+    private volatile boolean running = true;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void watchInBackground() {
+        if (mongoTemplate == null || !enabled) return;
+        stateId = stateId(nodeId);
+        Thread watcher = new Thread(() -> {
+            while (running) {
+                try {
+                    watch();
+                } catch (MongoCommandException e) {
+                    if (e.getErrorCode() == NOT_A_REPLICA_SET) {
+                        System.err.println("Catalog change stream unavailable (Mongo is not a replica set), retrying in " + retrySeconds + "s");
+                    } else if (LOST_POSITION_CODES.contains(e.getErrorCode())) {
+                        System.err.println("Catalog change stream lost its position, resyncing: " + e.getMessage());
+                        clearResumeToken();
+                        events.publish(CatalogChange.RESYNC);
+                        continue;
+                    } else {
+                        System.err.println("Catalog change stream failed, retrying in " + retrySeconds + "s: " + e.getMessage());
+                    }
+                    if (!sleepBeforeRetry()) return;
+                } catch (Exception e) {
+                    System.err.println("Catalog change stream failed, retrying in " + retrySeconds + "s: " + e.getMessage());
+                    if (!sleepBeforeRetry()) return;
+                }
+            }
+        }, "catalog-change-stream");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+    }
+
+    private void watch() throws Exception {
+        MongoCollection<Document> collection = mongoTemplate.getCollection(mongoTemplate.getCollectionName(AdminBook.class));
+        var stream = collection.watch()
+                .fullDocument(FullDocument.UPDATE_LOOKUP)
+                .fullDocumentBeforeChange(FullDocumentBeforeChange.WHEN_AVAILABLE)
+                .maxAwaitTime(250, TimeUnit.MILLISECONDS)
+                .batchSize(batchSize);
+        BsonDocument resumeToken = loadResumeToken();
+        if (resumeToken != null) stream = stream.resumeAfter(resumeToken);
+
+        try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor = stream.cursor()) {
+            BsonDocument savedToken = resumeToken;
+            long savedAt = System.currentTimeMillis();
+            List<CatalogChange> batch = new ArrayList<>(batchSize);
+
+            while (running) {
+                ChangeStreamDocument<Document> event;
+                while (batch.size() < batchSize && (event = cursor.tryNext()) != null) {
+                    CatalogChange change = toChange(event);
+                    if (change != null) batch.add(change);
+                    if (event.getOperationType() == OperationType.INVALIDATE) {
+                        // The stream is closed after an invalidate; start over from now.
+                        events.publishAll(batch).get();
+                        clearResumeToken();
+                        return;
+                    }
+                }
+
+                BsonDocument token = cursor.getResumeToken();
+                if (!batch.isEmpty()) {
+                    // Stored only once every listener has the batch, so a crash replays it rather than losing it
+                    events.publishAll(batch).get();
+                    batch.clear();
+                    saveResumeToken(token);
+                    savedToken = token;
+                    savedAt = System.currentTimeMillis();
+                } else if (token != null && !token.equals(savedToken)
+                        && System.currentTimeMillis() - savedAt >= tokenSaveIntervalMs) {
+                    // Idle: the token still advances, keep the stored one reasonably fresh
+                    saveResumeToken(token);
+                    savedToken = token;
+                    savedAt = System.currentTimeMillis();
+                }
+            }
+        }
+    }
+
+    private CatalogChange toChange(ChangeStreamDocument<Document> event) {
+        if (event.getOperationType() == null) return null;
+        switch (event.getOperationType()) {
+            case INSERT, UPDATE, REPLACE -> {
+                Document full = event.getFullDocument();
+                if (full == null) return null; // deleted again before the lookup; the delete event follows
+                AdminBook book = mongoTemplate.getConverter().read(AdminBook.class, full);
+                return CatalogChange.upsert(book, previousR2Key(event, book.getId()));
+            }
+            case DELETE -> {
+                String id = idOf(event.getDocumentKey());
+                return id == null ? null : CatalogChange.delete(id, previousR2Key(event, id));
+            }
+            case DROP, RENAME, DROP_DATABASE, INVALIDATE -> {
+                return CatalogChange.RESYNC;
+            }
+            default -> {
+                return null;
+            }
+        }
+    }
+
+    // From the pre-image when the collection records them, otherwise from this node's index,
+    // which has not seen the change yet when it came from another replica
+    private String previousR2Key(ChangeStreamDocument<Document> event, String id) {
+        Document before = event.getFullDocumentBeforeChange();
+        if (before != null) return before.getString("r2Key");
+        AdminBook indexed = catalogIndex.get(id);
+        return indexed != null ? indexed.getR2Key() : null;
+    }
+
+    private static String idOf(BsonDocument documentKey) {
+        if (documentKey == null) return null;
+        BsonValue id = documentKey.get("_id");
+        if (id == null) return null;
+        if (id.isObjectId()) return id.asObjectId().getValue().toHexString();
+        if (id.isString()) return id.asString().getValue();
+        return null;
+    }
+
+    static String stateId(String nodeId) {
+        if (nodeId == null || nodeId.isBlank()) {
+            String host = System.getenv("HOSTNAME");
+            if (host != null && !host.isBlank()) {
+                nodeId = host;
+            } else {
+                try {
+                    nodeId = InetAddress.getLocalHost().getHostName();
+                } catch (UnknownHostException e) {
+                    nodeId = "localhost";
+                }
+            }
+        }
+        return STREAM_ID + ":" + nodeId.trim();
+    }
+
+    private BsonDocument loadResumeToken() {
+        BsonDocument state = mongoTemplate.getDb().getCollection(STATE_COLLECTION, BsonDocument.class)
+                .find(Filters.eq("_id", stateId)).first();
+        return state != null && state.isDocument("resumeToken") ? state.getDocument("resumeToken") : null;
+    }
+
+    private void saveResumeToken(BsonDocument token) {
+        if (token == null) return;
+        mongoTemplate.getCollection(STATE_COLLECTION).replaceOne(
+                Filters.eq("_id", stateId),
+                new Document("_id", stateId).append("resumeToken", token).append("updatedAt", new Date()),
+                new ReplaceOptions().upsert(true));
+    }
+
+    private void clearResumeToken() {
+        try {
+            mongoTemplate.getCollection(STATE_COLLECTION).deleteOne(Filters.eq("_id", stateId));
+        } catch (RuntimeException e) {
+            System.err.println("Could not clear catalog change stream token: " + e.getMessage());
+        }
+    }
+
+    private boolean sleepBeforeRetry() {
+        try {
+            Thread.sleep(retrySeconds * 1000);
+            return true;
+        } catch (InterruptedException e) {
+            return false;
+        }
+    }
+}
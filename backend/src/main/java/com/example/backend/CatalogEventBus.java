@@ -0,0 +1,165 @@
+package com.example.backend;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-process fan-out of catalog changes to every {@link CatalogChangeListener} bean.
+ *
+ * Each listener has its own bounded queue and delivery thread, so a slow listener does not
+ * hold up the others. The thread drains whatever has queued up, up to {@code batchSize}, and
+ * hands it over as one batch. When a listener's queue is full, {@link #publishAll} waits up to
+ * {@code enqueueTimeoutMs} for room: the change stream reader then stops pulling from Mongo
+ * instead of buffering without bound, and a request thread is not held indefinitely. If there
+ * is still no room the returned future fails with a {@link TimeoutException}; otherwise it
+ * completes once every listener has handled the changes, or fails with the exception of the
+ * first listener that threw on them.
+ */
+@Component
+public class CatalogEventBus {
+
+    private final List<Subscription> subscriptions = new ArrayList<>();
+    private final long enqueueTimeoutMs;
+
+    @Autowired
+    public CatalogEventBus(
+            List<CatalogChangeListener> listeners,
+            @Value("${catalog.events.queueCapacity:1024}") int queueCapacity,
+            @Value("${catalog.events.batchSize:256}") int batchSize,
+            @Value("${catalog.events.enqueueTimeoutMs:5000}") long enqueueTimeoutMs
+    ) {
+        this.enqueueTimeoutMs = enqueueTimeoutMs;
+        for (CatalogChangeListener listener : listeners) {
+            subscriptions.add(new Subscription(listener, Math.max(1, queueCapacity), Math.max(1, batchSize)));
+        }
+    }
+
+    public CompletableFuture<Void> publish(CatalogChange change) {
+        return publishAll(List.of(change));
+    }
+
+    public CompletableFuture<Void> publishAll(List<CatalogChange> changes) {
+        if (changes.isEmpty() || subscriptions.isEmpty()) return CompletableFuture.completedFuture(null);
+
+        List<Envelope> envelopes = new ArrayList<>(changes.size());
+        for (CatalogChange change : changes) envelopes.add(new Envelope(change, subscriptions.size()));
+        // One deadline for the whole call; changes already queued are still delivered
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(enqueueTimeoutMs);
+        try {
+            for (Subscription subscription : subscriptions) {
+                for (Envelope envelope : envelopes) {
+                    if (!subscription.queue.offer(envelope, deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                        return CompletableFuture.failedFuture(new TimeoutException(
+                                "Catalog listener " + subscription.name + " has had no room for " + enqueueTimeoutMs + "ms"));
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.failedFuture(e);
+        }
+        return CompletableFuture.allOf(envelopes.stream().map(e -> e.delivered).toArray(CompletableFuture[]::new));
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        for (Subscription s : subscriptions) {
+            stats.put(s.name, Map.of(
+                    "queued", s.queue.size(),
+                    "delivered", s.delivered.sum(),
+                    "batches", s.batches.sum(),
+                    "failedBatches", s.failedBatches.sum()
+            ));
+        }
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        subscriptions.forEach(s -> s.thread.interrupt());
+    }
+
+    private static final class Envelope {
+        final CatalogChange change;
+        final AtomicInteger pending;
+        final CompletableFuture<Void> delivered = new CompletableFuture<>();
+
+        Envelope(CatalogChange change, int listeners) {
+            this.change = change;
+            this.pending = new AtomicInteger(listeners);
+        }
+
+        void done() {
+            if (pending.decrementAndGet() == 0) delivered.complete(null);
+        }
+
+        // Whoever waits on the change must not take it as applied, e.g. save a resume token past it
+        void failed(RuntimeException e) {
+            delivered.completeExceptionally(e);
+        }
+    }
+
+    private static final class Subscription {
+        final String name;
+        final CatalogChangeListener listener;
+        final BlockingQueue<Envelope> queue;
+        final int batchSize;
+        final Thread thread;
+        final LongAdder delivered = new LongAdder();
+        final LongAdder batches = new LongAdder();
+        final LongAdder failedBatches = new LongAdder();
+
+        Subscription(CatalogChangeListener listener, int queueCapacity, int batchSize) {
+            this.name = listener.getClass().getSimpleName();
+            this.listener = listener;
+            this.queue = new ArrayBlockingQueue<>(queueCapacity);
+            this.batchSize = batchSize;
+            this.thread = new Thread(this::run, "catalog-events-" + name);
+            this.thread.setDaemon(true);
+            this.thread.start();
+        }
+
+        private void run() {
+            List<Envelope> batch = new ArrayList<>(batchSize);
+            List<CatalogChange> changes = new ArrayList<>(batchSize);
+            while (!Thread.currentThread().isInterrupted()) {
+                try {
+                    Envelope first = queue.poll(1, TimeUnit.SECONDS);
+                    if (first == null) continue;
+                    batch.add(first);
+                    queue.drainTo(batch, batchSize - 1);
+                } catch (InterruptedException e) {
+                    return;
+                }
+
+                for (Envelope envelope : batch) changes.add(envelope.change);
+                try {
+                    listener.onCatalogChanges(List.copyOf(changes));
+                    batch.forEach(Envelope::done);
+                } catch (RuntimeException e) {
+                    failedBatches.increment();
+                    System.err.println("Catalog listener " + name + " failed on " + changes.size() + " changes: " + e.getMessage());
+                    batch.forEach(envelope -> envelope.failed(e));
+                }
+                delivered.add(batch.size());
+                batches.increment();
+                batch.clear();
+                changes.clear();
+            }
+        }
+    }
+}
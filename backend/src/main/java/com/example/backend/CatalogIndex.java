@@ -0,0 +1,669 @@
+package com.example.backend;
+
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.Projections;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * In-memory inverted index over admin_books, so catalog search does not scan the collection.
+ *
+ * Title, author, publisher, description and the key terms extracted from the file's text are
+ * tokenized into one term dictionary with per-field weights. Queries are ANDed across tokens, the last token matches as a prefix
+ * (search-as-you-type), and hits are ranked with BM25. The index holds the documents too,
+ * so a search is answered without touching Mongo. It is built from Mongo once the app is up
+ * and kept current incrementally from the {@link CatalogEventBus}, which carries this node's
+ * admin writes and, through the change stream, those of every other node. A RESYNC change
+ * rebuilds it from Mongo. Until the first build finishes, {@link #isReady()} is false and
+ * callers fall back to Mongo.
+ *
+ * A node that has run before starts from its {@link CatalogSnapshot} instead: the index is
+ * loaded from local disk before the first request and serves from it, Mongo or not. A sync
+ * thread then catches up with what changed in Mongo since the snapshot (books written after
+ * its watermark, and ids added or removed) rather than reading the whole collection, repeats
+ * that every {@code catalog.snapshot.syncIntervalSeconds} and writes the snapshot again when
+ * the index has changed.
+ */
+@Component
+public class CatalogIndex implements CatalogChangeListener {
+
+    private static final float TITLE_WEIGHT = 3.0f;
+    private static final float AUTHOR_WEIGHT = 2.0f;
+    private static final float PUBLISHER_WEIGHT = 1.0f;
+    private static final float DESCRIPTION_WEIGHT = 1.0f;
+    private static final float CONTENT_WEIGHT = 0.5f;
+
+    // BM25 parameters
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+
+    // Prefix expansions score a little below an exact term, and are capped per query: the
+    // completions in the most documents are kept, not the first ones alphabetically.
+    private static final float PREFIX_FACTOR = 0.8f;
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final TreeMap<String, Postings> terms = new TreeMap<>();
+    private final Map<String, Integer> ordinalById = new HashMap<>();
+    // Lower-case content hash of every live book, so search can drop remote copies of what we host
+    private final Map<String, String> idByMd5 = new HashMap<>();
+    private final List<AdminBook> docs = new ArrayList<>();
+    private float[] docLengths = new float[1024];
+    private final BitSet deleted = new BitSet();
+    private int liveDocs;
+    private double totalLength;
+    private volatile boolean ready;
+    // Writes made while a rebuild is streaming from Mongo, replayed onto the new index before it is
+    // swapped in. Owned by the running rebuild; guarded by the write lock.
+    private List<Consumer<CatalogIndex>> replay;
+    // One rebuild at a time (snapshot load, sync thread, RESYNC), so each has the replay list to itself
+    private final ReentrantLock rebuilding = new ReentrantLock();
+    // A RESYNC rebuild is queued and has not started reading yet; later RESYNCs fold into it
+    private final AtomicBoolean resyncQueued = new AtomicBoolean();
+
+    @Autowired(required = false)
+    private MongoTemplate mongoTemplate;
+
+    @Value("${catalog.index.rebuildRetrySeconds:30}")
+    private long rebuildRetrySeconds = 30;
+
+    @Autowired(required = false)
+    private CatalogSnapshot snapshot;
+
+    @Value("${catalog.snapshot.enabled:true}")
+    private boolean snapshotEnabled;
+
+    @Value("${catalog.snapshot.syncIntervalSeconds:300}")
+    private long syncIntervalSeconds;
+
+    // updatedAt is stamped by the writing node's clock; look back this far past the watermark
+    @Value("${catalog.snapshot.clockSkewSeconds:60}")
+    private long clockSkewSeconds;
+
+    // Epoch millis of the start of the last full read or catch-up from Mongo; -1 before the first
+    private volatile long syncedAt = -1;
+    private volatile String loadedFrom;
+    private volatile long loadMillis;
+    // Guarded by the write lock; compared with savedWrites to skip writing an unchanged snapshot
+    private long writes;
+    private long savedWrites = -1;
+    // Tells this process's write counts apart from another node's or an earlier run's
+    private final long instance = ThreadLocalRandom.current().nextLong();
+    private volatile long savedSyncedAt = -1;
+
+    public record Hit(AdminBook book, float score) {}
+
+    public record Page(long total, List<Hit> hits) {}
+
+    // =========================
+    // Build from Mongo
+    // =========================
+    @PostConstruct
+    public void loadSnapshot() {
+        if (!snapshotEnabled || snapshot == null) return;
+        long started = System.nanoTime();
+        CatalogSnapshot.Loaded loaded = snapshot.load();
+        if (loaded == null) return;
+        rebuild(loaded.books().stream());
+        syncedAt = loaded.watermark();
+        savedSyncedAt = loaded.watermark();
+        loadMillis = (System.nanoTime() - started) / 1_000_000;
+        loadedFrom = "snapshot";
+        lock.writeLock().lock();
+        try {
+            savedWrites = writes;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildInBackground() {
+        if (mongoTemplate == null) return;
+        Thread sync = new Thread(() -> {
+            while (true) {
+                try {
+                    if (syncedAt < 0) rebuildFromMongo();
+                    else catchUp(syncedAt - clockSkewSeconds * 1000);
+                    saveSnapshot();
+                    if (!snapshotEnabled || syncIntervalSeconds <= 0) return;
+                    Thread.sleep(syncIntervalSeconds * 1000);
+                } catch (InterruptedException e) {
+                    return;
+                } catch (Exception e) {
+                    System.err.println("Catalog index sync failed, retrying in " + rebuildRetrySeconds + "s: " + e.getMessage());
+                    try {
+                        Thread.sleep(rebuildRetrySeconds * 1000);
+                    } catch (InterruptedException ie) {
+                        return;
+                    }
+                }
+            }
+        }, "catalog-index-sync");
+        sync.setDaemon(true);
+        sync.start();
+    }
+
+    @PreDestroy
+    public void saveOnShutdown() {
+        try {
+            saveSnapshot();
+        } catch (Exception e) {
+            System.err.println("Could not save catalog snapshot: " + e.getMessage());
+        }
+    }
+
+    private void rebuildFromMongo() {
+        long started = System.currentTimeMillis();
+        try (Stream<AdminBook> books = mongoTemplate.stream(new Query(), AdminBook.class)) {
+            rebuild(books);
+        }
+        syncedAt = started;
+        if (loadedFrom == null) loadedFrom = "mongo";
+    }
+
+    /**
+     * Brings a loaded snapshot up to date: books written since {@code since} are read again, ids
+     * that are new to the index are read, and indexed books that are gone from Mongo are dropped.
+     * Only ids are read for the whole collection.
+     */
+    void catchUp(long since) {
+        long started = System.currentTimeMillis();
+        Set<String> stored = new HashSet<>();
+        try (MongoCursor<Document> ids = mongoTemplate.getCollection(mongoTemplate.getCollectionName(AdminBook.class))
+                .find().projection(Projections.include("_id")).iterator()) {
+            while (ids.hasNext()) {
+                Object id = ids.next().get("_id");
+                stored.add(id instanceof ObjectId objectId ? objectId.toHexString() : String.valueOf(id));
+            }
+        }
+
+        List<String> gone = new ArrayList<>();
+        List<String> added = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (Map.Entry<String, Integer> e : ordinalById.entrySet()) {
+                // A book this node wrote after the id scan began is not in it, but is not gone either
+                Instant updated = docs.get(e.getValue()).getUpdatedAt();
+                if (!stored.contains(e.getKey()) && (updated == null || updated.toEpochMilli() < started)) gone.add(e.getKey());
+            }
+            for (String id : stored) if (!ordinalById.containsKey(id)) added.add(id);
+        } finally {
+            lock.readLock().unlock();
+        }
+        gone.forEach(this::remove);
+
+        Query changed = Query.query(Criteria.where("updatedAt").gte(Date.from(Instant.ofEpochMilli(since))));
+        try (Stream<AdminBook> books = mongoTemplate.stream(changed, AdminBook.class)) {
+            books.forEach(this::upsertIfNewer);
+        }
+        for (int from = 0; from < added.size(); from += 1000) {
+            List<String> chunk = added.subList(from, Math.min(from + 1000, added.size()));
+            try (Stream<AdminBook> books = mongoTemplate.stream(Query.query(Criteria.where("_id").in(chunk)), AdminBook.class)) {
+                books.forEach(this::upsertIfNewer);
+            }
+        }
+        syncedAt = started;
+    }
+
+    /**
+     * Writes the snapshot if the index changed since it was last written or loaded, or if its
+     * watermark is over an hour behind, so a restart does not catch up on more than it must.
+     */
+    void saveSnapshot() throws IOException {
+        long watermark = syncedAt;
+        if (!snapshotEnabled || snapshot == null || !ready || watermark < 0) return;
+        List<AdminBook> live;
+        long version;
+        lock.readLock().lock();
+        try {
+            if (writes == savedWrites && watermark - savedSyncedAt < 3_600_000) return;
+            version = writes;
+            live = new ArrayList<>(liveDocs);
+            for (int i = 0; i < docs.size(); i++) {
+                if (!deleted.get(i)) live.add(docs.get(i));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        snapshot.save(live, watermark);
+        savedSyncedAt = watermark;
+        lock.writeLock().lock();
+        try {
+            savedWrites = version;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("ready", ready);
+        stats.put("books", size());
+        stats.put("loadedFrom", loadedFrom);
+        if ("snapshot".equals(loadedFrom)) stats.put("snapshotLoadMillis", loadMillis);
+        stats.put("syncedAt", syncedAt < 0 ? null : Instant.ofEpochMilli(syncedAt).toString());
+        return stats;
+    }
+
+    // At most one queued behind a running rebuild: a RESYNC during a rebuild needs a fresh read,
+    // more of them before that read starts do not
+    private void rebuildInBackground() {
+        if (mongoTemplate == null || !resyncQueued.compareAndSet(false, true)) return;
+        Thread builder = new Thread(() -> {
+            while (true) {
+                try {
+                    rebuilding.lock();
+                    try {
+                        resyncQueued.set(false);
+                        rebuildFromMongo();
+                    } finally {
+                        rebuilding.unlock();
+                    }
+                    return;
+                } catch (Exception e) {
+                    // A RESYNC that arrived meanwhile already has a thread queued to do this
+                    if (!resyncQueued.compareAndSet(false, true)) return;
+                    System.err.println("Catalog index build failed, retrying in " + rebuildRetrySeconds + "s: " + e.getMessage());
+                    try {
+                        Thread.sleep(rebuildRetrySeconds * 1000);
+                    } catch (InterruptedException ie) {
+                        return;
+                    }
+                }
+            }
+        }, "catalog-index-build");
+        builder.setDaemon(true);
+        builder.start();
+    }
+
+    @Override
+    public void onCatalogChanges(List<CatalogChange> changes) {
+        for (CatalogChange change : changes) {
+            switch (change.type()) {
+                case UPSERT -> upsert(change.book());
+                case DELETE -> remove(change.id());
+                case RESYNC -> rebuildInBackground();
+            }
+        }
+    }
+
+    /** Replaces the index contents with {@code books} and marks it ready. Rebuilds run one at a time. */
+    public void rebuild(Stream<AdminBook> books) {
+        rebuilding.lock();
+        try {
+            List<Consumer<CatalogIndex>> writesDuringRebuild = new ArrayList<>();
+            lock.writeLock().lock();
+            try {
+                replay = writesDuringRebuild;
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            CatalogIndex fresh = new CatalogIndex();
+            try {
+                books.forEach(fresh::add);
+            } catch (RuntimeException e) {
+                lock.writeLock().lock();
+                try {
+                    if (replay == writesDuringRebuild) replay = null;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                throw e;
+            }
+
+            lock.writeLock().lock();
+            try {
+                writesDuringRebuild.forEach(op -> op.accept(fresh));
+                if (replay == writesDuringRebuild) replay = null;
+                adopt(fresh);
+                writes++;
+                ready = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } finally {
+            rebuilding.unlock();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    // =========================
+    // Writes
+    // =========================
+    public void upsert(AdminBook book) {
+        if (book == null || book.getId() == null) return;
+        lock.writeLock().lock();
+        try {
+            if (replay != null) replay.add(index -> {
+                index.removeLocked(book.getId());
+                index.add(book);
+            });
+            removeLocked(book.getId());
+            add(book);
+            writes++;
+            compactIfSparse();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // For books read back from Mongo while live changes keep arriving: an indexed copy written
+    // later than the one read wins.
+    private void upsertIfNewer(AdminBook book) {
+        AdminBook indexed = get(book.getId());
+        if (indexed != null && indexed.getUpdatedAt() != null && book.getUpdatedAt() != null
+                && indexed.getUpdatedAt().isAfter(book.getUpdatedAt())) return;
+        upsert(book);
+    }
+
+    public void remove(String id) {
+        lock.writeLock().lock();
+        try {
+            if (replay != null) replay.add(index -> index.removeLocked(id));
+            removeLocked(id);
+            writes++;
+            compactIfSparse();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public AdminBook get(String id) {
+        lock.readLock().lock();
+        try {
+            Integer ordinal = ordinalById.get(id);
+            return ordinal == null ? null : docs.get(ordinal);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Changes whenever the index does; the same value means the same search results, so it
+     * can stand in for an ETag of anything served from the index.
+     */
+    public String version() {
+        lock.readLock().lock();
+        try {
+            return Long.toHexString(instance) + "-" + Long.toHexString(writes);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Whether some indexed book has this content hash (any case). */
+    public boolean hostsMd5(String md5) {
+        if (md5 == null) return false;
+        lock.readLock().lock();
+        try {
+            return idByMd5.containsKey(md5.toLowerCase(Locale.ROOT));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return liveDocs;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Caller holds the write lock, or owns an unpublished index.
+    private void add(AdminBook book) {
+        int ordinal = docs.size();
+        docs.add(book);
+        ordinalById.put(book.getId(), ordinal);
+        if (book.getMd5() != null) idByMd5.put(book.getMd5().toLowerCase(Locale.ROOT), book.getId());
+
+        Map<String, Float> termWeights = new HashMap<>();
+        float length = 0;
+        length += collect(book.getTitle(), TITLE_WEIGHT, termWeights);
+        length += collect(book.getAuthor(), AUTHOR_WEIGHT, termWeights);
+        length += collect(book.getPublisher(), PUBLISHER_WEIGHT, termWeights);
+        length += collect(book.getDescription(), DESCRIPTION_WEIGHT, termWeights);
+        length += collect(book.getContentTerms(), CONTENT_WEIGHT, termWeights);
+
+        for (Map.Entry<String, Float> e : termWeights.entrySet()) {
+            terms.computeIfAbsent(e.getKey(), t -> new Postings()).add(ordinal, e.getValue());
+        }
+        if (ordinal >= docLengths.length) {
+            docLengths = Arrays.copyOf(docLengths, Math.max(ordinal + 1, docLengths.length * 2));
+        }
+        docLengths[ordinal] = length;
+        totalLength += length;
+        liveDocs++;
+    }
+
+    private void removeLocked(String id) {
+        Integer ordinal = ordinalById.remove(id);
+        if (ordinal == null) return;
+        String md5 = docs.get(ordinal).getMd5();
+        if (md5 != null) idByMd5.remove(md5.toLowerCase(Locale.ROOT), id);
+        deleted.set(ordinal);
+        totalLength -= docLengths[ordinal];
+        liveDocs--;
+    }
+
+    // Postings of deleted documents are only skipped; once they are a quarter of the index it is rebuilt.
+    private void compactIfSparse() {
+        int dead = deleted.cardinality();
+        if (dead < 1024 || dead < docs.size() / 4) return;
+
+        CatalogIndex fresh = new CatalogIndex();
+        for (int i = 0; i < docs.size(); i++) {
+            if (!deleted.get(i)) fresh.add(docs.get(i));
+        }
+        adopt(fresh);
+    }
+
+    // Caller holds the write lock.
+    private void adopt(CatalogIndex fresh) {
+        terms.clear();
+        terms.putAll(fresh.terms);
+        ordinalById.clear();
+        ordinalById.putAll(fresh.ordinalById);
+        idByMd5.clear();
+        idByMd5.putAll(fresh.idByMd5);
+        docs.clear();
+        docs.addAll(fresh.docs);
+        docLengths = fresh.docLengths;
+        deleted.clear();
+        deleted.or(fresh.deleted);
+        liveDocs = fresh.liveDocs;
+        totalLength = fresh.totalLength;
+    }
+
+    private static float collect(String text, float weight, Map<String, Float> termWeights) {
+        List<String> tokens = tokenize(text);
+        for (String token : tokens) termWeights.merge(token, weight, Float::sum);
+        return tokens.size() * weight;
+    }
+
+    // =========================
+    // Search
+    // =========================
+
+    /**
+     * Returns one page of hits for {@code query}, best first. An empty query lists the whole
+     * catalog in insertion order.
+     */
+    public Page search(String query, int offset, int limit) {
+        List<String> tokens = tokenize(query);
+        int window = (int) Math.min((long) offset + limit, Integer.MAX_VALUE);
+
+        lock.readLock().lock();
+        try {
+            if (tokens.isEmpty()) return listAll(offset, limit);
+
+            // One clause per token; the last token also matches longer terms by prefix.
+            List<List<Map.Entry<Postings, Float>>> clauses = new ArrayList<>(tokens.size());
+            for (int i = 0; i < tokens.size(); i++) {
+                String token = tokens.get(i);
+                List<Map.Entry<Postings, Float>> clause = new ArrayList<>();
+                Postings exact = terms.get(token);
+                if (exact != null) clause.add(Map.entry(exact, 1.0f));
+                if (i == tokens.size() - 1) {
+                    for (Postings p : topExpansions(token)) clause.add(Map.entry(p, PREFIX_FACTOR));
+                }
+                if (clause.isEmpty()) return new Page(0, List.of());
+                clauses.add(clause);
+            }
+
+            // Score the rarest clause's documents first, then intersect with the others.
+            clauses.sort((a, b) -> Integer.compare(docFrequency(a), docFrequency(b)));
+            float avgLength = liveDocs == 0 ? 1 : (float) (totalLength / liveDocs);
+
+            Map<Integer, Float> scores = scoreClause(clauses.get(0), avgLength, null);
+            for (int c = 1; c < clauses.size() && !scores.isEmpty(); c++) {
+                Map<Integer, Float> next = scoreClause(clauses.get(c), avgLength, scores);
+                next.replaceAll((doc, score) -> score + scores.get(doc));
+                scores.clear();
+                scores.putAll(next);
+            }
+
+            PriorityQueue<Hit> top = new PriorityQueue<>(Math.max(1, Math.min(window, scores.size())),
+                    (a, b) -> Float.compare(a.score, b.score));
+            for (Map.Entry<Integer, Float> e : scores.entrySet()) {
+                if (window == 0) break;
+                if (top.size() < window) {
+                    top.add(new Hit(docs.get(e.getKey()), e.getValue()));
+                } else if (e.getValue() > top.peek().score) {
+                    top.poll();
+                    top.add(new Hit(docs.get(e.getKey()), e.getValue()));
+                }
+            }
+
+            List<Hit> ranked = new ArrayList<>(top);
+            ranked.sort((a, b) -> Float.compare(b.score, a.score));
+            List<Hit> page = offset >= ranked.size() ? List.of() : ranked.subList(offset, ranked.size());
+            return new Page(scores.size(), page);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Page listAll(int offset, int limit) {
+        List<Hit> hits = new ArrayList<>(Math.min(limit, liveDocs));
+        int seen = 0;
+        for (int i = 0; i < docs.size() && hits.size() < limit; i++) {
+            if (deleted.get(i)) continue;
+            if (seen++ >= offset) hits.add(new Hit(docs.get(i), 0f));
+        }
+        return new Page(liveDocs, hits);
+    }
+
+    private List<Postings> topExpansions(String prefix) {
+        NavigableMap<String, Postings> expansions = terms.subMap(prefix, false, prefix + Character.MAX_VALUE, false);
+        if (expansions.size() <= MAX_PREFIX_EXPANSIONS) return new ArrayList<>(expansions.values());
+        PriorityQueue<Postings> top = new PriorityQueue<>(MAX_PREFIX_EXPANSIONS + 1, (a, b) -> Integer.compare(a.size, b.size));
+        for (Postings p : expansions.values()) {
+            if (top.size() < MAX_PREFIX_EXPANSIONS) {
+                top.add(p);
+            } else if (p.size > top.peek().size) {
+                top.poll();
+                top.add(p);
+            }
+        }
+        return new ArrayList<>(top);
+    }
+
+    private int docFrequency(List<Map.Entry<Postings, Float>> clause) {
+        int df = 0;
+        for (Map.Entry<Postings, Float> e : clause) df += e.getKey().size;
+        return df;
+    }
+
+    // Best BM25 contribution per live document for one clause, optionally restricted to {@code within}.
+    private Map<Integer, Float> scoreClause(List<Map.Entry<Postings, Float>> clause, float avgLength,
+                                            Map<Integer, Float> within) {
+        Map<Integer, Float> scores = new HashMap<>();
+        for (Map.Entry<Postings, Float> e : clause) {
+            Postings postings = e.getKey();
+            float idf = (float) Math.log(1 + (liveDocs - postings.size + 0.5) / (postings.size + 0.5));
+            for (int i = 0; i < postings.size; i++) {
+                int doc = postings.docs[i];
+                if (deleted.get(doc) || (within != null && !within.containsKey(doc))) continue;
+                float tf = postings.weights[i];
+                float norm = K1 * (1 - B + B * docLengths[doc] / avgLength);
+                float score = e.getValue() * idf * tf * (K1 + 1) / (tf + norm);
+                scores.merge(doc, score, Math::max);
+            }
+        }
+        return scores;
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null || text.isEmpty()) return Collections.emptyList();
+        List<String> tokens = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        text.codePoints().forEach(cp -> {
+            if (Character.isLetterOrDigit(cp)) {
+                current.appendCodePoint(Character.toLowerCase(cp));
+            } else if (current.length() > 0) {
+                tokens.add(current.toString());
+                current.setLength(0);
+            }
+        });
+        if (current.length() > 0) tokens.add(current.toString());
+        return tokens;
+    }
+
+    // Growable parallel arrays of document ordinal and field-weighted term frequency.
+    private static final class Postings {
+        int[] docs = new int[4];
+        float[] weights = new float[4];
+        int size;
+
+        void add(int doc, float weight) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                weights = Arrays.copyOf(weights, size * 2);
+            }
+            docs[size] = doc;
+            weights[size] = weight;
+            size++;
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.example.backend;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * The admin catalog as one binary file on local disk, so a starting node has its catalog index
+ * in milliseconds instead of streaming admin_books from Mongo, and still has it while Mongo is
+ * down. The file is read through a read-only memory mapping and replaced atomically; a file
+ * that is truncated, corrupt or of another version is ignored.
+ *
+ * Layout: a 32-byte header (magic, version, book count, CRC32 of the body, the sync watermark
+ * and the time of writing), then per book its string fields as a length (-1 for null) and
+ * UTF-8 bytes, and its instants as epoch millis ({@link Long#MIN_VALUE} for null).
+ */
+@Component
+public class CatalogSnapshot {
+
+    private static final int MAGIC = 0x4B484353; // "KHCS"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 32;
+    private static final long NO_INSTANT = Long.MIN_VALUE;
+
+    private final Path path;
+
+    /**
+     * @param books     the catalog as of the snapshot
+     * @param watermark epoch millis of the last read from Mongo the books reflect; changes after
+     *                  it are fetched again when the snapshot is loaded
+     * @param savedAt   epoch millis when the file was written
+     */
+    public record Loaded(List<AdminBook> books, long watermark, long savedAt) {}
+
+    public CatalogSnapshot(@Value("${catalog.snapshot.path:${java.io.tmpdir}/knowledgehub/catalog.snapshot}") String path) {
+        this.path = Path.of(path);
+    }
+
+    public Path getPath() { return path; }
+
+    /** The snapshot on disk, or null if there is none or it cannot be used. */
+    public Loaded load() {
+        if (!Files.isRegularFile(path)) return null;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES || size > Integer.MAX_VALUE) return null;
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) return null;
+            int count = buffer.getInt();
+            int crc = buffer.getInt();
+            long watermark = buffer.getLong();
+            long savedAt = buffer.getLong();
+
+            CRC32 checksum = new CRC32();
+            checksum.update(buffer.slice());
+            if ((int) checksum.getValue() != crc) {
+                System.err.println("Catalog snapshot " + path + " is corrupt, ignoring it");
+                return null;
+            }
+
+            List<AdminBook> books = new ArrayList<>(count);
+            Reader in = new Reader(buffer);
+            for (int i = 0; i < count; i++) {
+                AdminBook book = new AdminBook();
+                book.setId(in.string());
+                book.setTitle(in.string());
+                book.setAuthor(in.string());
+                book.setPublisher(in.string());
+                book.setYear(in.string());
+                book.setFormat(in.string());
+                book.setSize(in.string());
+                book.setLanguage(in.string());
+                book.setImgUrl(in.string());
+                book.setR2Key(in.string());
+                book.setDescription(in.string());
+                book.setMd5(in.string());
+                book.setCoverKey(in.string());
+                book.setContentTerms(in.string());
+                book.setEnrichedAt(in.instant());
+                book.setUpdatedAt(in.instant());
+                books.add(book);
+            }
+            return new Loaded(books, watermark, savedAt);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Could not read catalog snapshot " + path + ": " + e);
+            return null;
+        }
+    }
+
+    /** Writes {@code books} to a temporary file and moves it over the snapshot. */
+    public void save(Collection<AdminBook> books, long watermark) throws IOException {
+        Files.createDirectories(path.toAbsolutePath().getParent());
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.position(HEADER_BYTES);
+            CRC32 checksum = new CRC32();
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    new CheckedOutputStream(Channels.newOutputStream(channel), checksum), 1 << 16));
+            int count = 0;
+            for (AdminBook book : books) {
+                writeString(out, book.getId());
+                writeString(out, book.getTitle());
+                writeString(out, book.getAuthor());
+                writeString(out, book.getPublisher());
+                writeString(out, book.getYear());
+                writeString(out, book.getFormat());
+                writeString(out, book.getSize());
+                writeString(out, book.getLanguage());
+                writeString(out, book.getImgUrl());
+                writeString(out, book.getR2Key());
+                writeString(out, book.getDescription());
+                writeString(out, book.getMd5());
+                writeString(out, book.getCoverKey());
+                writeString(out, book.getContentTerms());
+                out.writeLong(book.getEnrichedAt() == null ? NO_INSTANT : book.getEnrichedAt().toEpochMilli());
+                out.writeLong(book.getUpdatedAt() == null ? NO_INSTANT : book.getUpdatedAt().toEpochMilli());
+                count++;
+            }
+            out.flush();
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES)
+                    .putInt(MAGIC)
+                    .putInt(VERSION)
+                    .putInt(count)
+                    .putInt((int) checksum.getValue())
+                    .putLong(watermark)
+                    .putLong(System.currentTimeMillis())
+                    .flip();
+            channel.write(header, 0);
+            channel.force(true);
+        }
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    // Decodes fields from the mapping through one reused byte array, so a string costs one copy
+    private static final class Reader {
+        private final ByteBuffer buffer;
+        private byte[] scratch = new byte[256];
+
+        Reader(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        String string() {
+            int length = buffer.getInt();
+            if (length < 0) return null;
+            if (length > scratch.length) scratch = new byte[Math.max(length, scratch.length * 2)];
+            buffer.get(scratch, 0, length);
+            return new String(scratch, 0, length, StandardCharsets.UTF_8);
+        }
+
+        Instant instant() {
+            long millis = buffer.getLong();
+            return millis == NO_INSTANT ? null : Instant.ofEpochMilli(millis);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.backend;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Consecutive-failure circuit breaker.
+ *
+ * CLOSED lets every call through. After {@code failureThreshold} failures in a row it goes
+ * OPEN and rejects calls for {@code openMillis}. Then it is HALF_OPEN: one probe call is let
+ * through, and its outcome closes the breaker again or re-opens it for another period.
+ */
+public class CircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final int failureThreshold;
+    private final long openMillis;
+    private final LongSupplier clock;
+
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final AtomicLong openedAt = new AtomicLong(-1);
+    private final AtomicBoolean probeInFlight = new AtomicBoolean();
+
+    public CircuitBreaker(int failureThreshold, long openMillis) {
+        this(failureThreshold, openMillis, System::currentTimeMillis);
+    }
+
+    CircuitBreaker(int failureThreshold, long openMillis, LongSupplier clock) {
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openMillis = openMillis;
+        this.clock = clock;
+    }
+
+    public State getState() {
+        long opened = openedAt.get();
+        if (opened < 0) return State.CLOSED;
+        return clock.getAsLong() - opened >= openMillis ? State.HALF_OPEN : State.OPEN;
+    }
+
+    /** Returns true if a call may proceed; the caller must then report its outcome. */
+    public boolean tryAcquire() {
+        switch (getState()) {
+            case CLOSED:
+                return true;
+            case HALF_OPEN:
+                return probeInFlight.compareAndSet(false, true);
+            default:
+                return false;
+        }
+    }
+
+    public void onSuccess() {
+        consecutiveFailures.set(0);
+        openedAt.set(-1);
+        probeInFlight.set(false);
+    }
+
+    public void onFailure() {
+        if (probeInFlight.getAndSet(false) || consecutiveFailures.incrementAndGet() >= failureThreshold) {
+            openedAt.set(clock.getAsLong());
+            consecutiveFailures.set(0);
+        }
+    }
+
+    /** Gives back a half-open probe slot for a call that was acquired but never made. */
+    public void releaseProbe() {
+        probeInFlight.set(false);
+    }
+
+    /** Milliseconds until an open breaker lets a probe through; 0 when not open. */
+    public long remainingOpenMillis() {
+        long opened = openedAt.get();
+        if (opened < 0) return 0;
+        return Math.max(0, openMillis - (clock.getAsLong() - opened));
+    }
+}
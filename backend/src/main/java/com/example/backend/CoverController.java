@@ -0,0 +1,75 @@
+package com.example.backend;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RestController
+@RequestMapping("/api/covers")
+public class CoverController {
+
+    // A cover URL always serves the same bytes (admin URLs carry the cover version), so browsers
+    // and CDNs may keep it for a year without revalidating
+    private static final CacheControl IMMUTABLE = CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable();
+    private static final CacheControl MISSING = CacheControl.maxAge(Duration.ofMinutes(5)).cachePublic();
+
+    @Autowired
+    private CoverService coverService;
+
+    // Cover thumbnail in one of the fixed sizes: s (80px wide), m (160px, the search grid) or l (320px)
+    @GetMapping("/{id}")
+    public CompletableFuture<ResponseEntity<?>> getCover(
+            @PathVariable String id,
+            @RequestParam(defaultValue = "m") String size,
+            @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch
+    ) {
+        CoverService.Size thumbnailSize;
+        try {
+            thumbnailSize = CoverService.Size.parse(size);
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.completedFuture(badSize());
+        }
+
+        return coverService.get(id, thumbnailSize)
+                .<ResponseEntity<?>>thenApply(thumbnail -> response(thumbnail, ifNoneMatch))
+                .exceptionally(CoverController::failed);
+    }
+
+    static ResponseEntity<?> response(CoverService.Thumbnail thumbnail, String ifNoneMatch) {
+        if (thumbnail == null) {
+            return ResponseEntity.status(404).cacheControl(MISSING).body(Map.of("error", "Cover not found"));
+        }
+        if (ifNoneMatch != null && BookContentController.matches(ifNoneMatch, thumbnail.eTag())) {
+            return ResponseEntity.status(304).eTag(thumbnail.eTag()).cacheControl(IMMUTABLE).build();
+        }
+        return ResponseEntity.ok()
+                .eTag(thumbnail.eTag())
+                .cacheControl(IMMUTABLE)
+                .contentType(MediaType.IMAGE_JPEG)
+                .body(thumbnail.jpeg());
+    }
+
+    static ResponseEntity<?> badSize() {
+        return ResponseEntity.badRequest().body(Map.of("error", "size must be one of s, m, l"));
+    }
+
+    static ResponseEntity<?> failed(Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        cause.printStackTrace();
+        return ResponseEntity.status(502).body(Map.of("error", "Cover source unavailable"));
+    }
+}
@@ -0,0 +1,458 @@
+package com.example.backend;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.UnknownHostException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Cover thumbnails for {@code /api/covers/{id}}, in a few fixed widths.
+ *
+ * A thumbnail is looked up in memory, then in a local disk tier, then in R2
+ * ({@code thumbs/...}); only when all three miss is the source image fetched, once for all
+ * sizes, and the rendered thumbnails written back to every tier. Concurrent misses for the
+ * same cover share one fetch. Admin books use the cover rendered by enrichment (in R2); remote
+ * books use the image URL Anna's Archive gave for them, remembered when their search page was
+ * parsed. Tier keys are derived from content hashes (the admin cover's md5, the remote book's
+ * md5), so a thumbnail never changes under its key and nothing needs invalidating. A cover
+ * found missing is remembered for {@code cache.coverMiss.ttlSeconds}, or until a remote book's
+ * source turns up, so repeated requests for it do not repeat the R2 read and the remote fetch.
+ *
+ * Remote image URLs come from upstream responses and are not trusted: only https URLs on
+ * {@code covers.allowedHosts} (or their subdomains) are fetched, only when the host resolves to
+ * public addresses, and the covers client does not follow redirects.
+ */
+@Component
+public class CoverService {
+
+    public enum Size {
+        S(80), M(160), L(320);
+
+        final int width;
+
+        Size(int width) { this.width = width; }
+
+        public static Size parse(String value) {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        }
+    }
+
+    public record Thumbnail(byte[] jpeg, String eTag) {
+        static Thumbnail of(byte[] jpeg) {
+            try {
+                return new Thumbnail(jpeg, "\"" + HexFormat.of().formatHex(MessageDigest.getInstance("MD5").digest(jpeg)) + "\"");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    private static final Pattern SAFE_ID = Pattern.compile("[A-Za-z0-9]{1,64}");
+    private static final String R2_PREFIX = "thumbs/";
+
+    private final S3Client s3Client;
+    private final BoundedCache<String, Thumbnail> memory;
+    private final BoundedCache<String, String> sources;
+    private final BoundedCache<String, Boolean> misses;
+    private final UpstreamClient coverClient;
+    private final CatalogIndex catalogIndex;
+    private final AdminBookRepository adminBookRepository;
+    private final Executor executor;
+    private final String bucket;
+    private final Path dir;
+    private final long maxDiskBytes;
+    private final long maxSourceBytes;
+    private final long maxSourcePixels;
+    private final List<String> allowedHosts;
+
+    // Disk tier: file sizes in access order, the eldest evicted first, guarded by diskLock
+    private final LinkedHashMap<String, Long> diskEntries = new LinkedHashMap<>(256, 0.75f, true);
+    private long diskBytes;
+    private final ReentrantLock diskLock = new ReentrantLock();
+    private final Map<String, CompletableFuture<Map<Size, Thumbnail>>> rendering = new ConcurrentHashMap<>();
+
+    private final LongAdder diskHits = new LongAdder();
+    private final LongAdder r2Hits = new LongAdder();
+    private final LongAdder renders = new LongAdder();
+    private final LongAdder sourceMisses = new LongAdder();
+
+    @Autowired
+    public CoverService(
+            S3Client s3Client,
+            @Qualifier("coverThumbnailCache") BoundedCache<String, Thumbnail> memory,
+            @Qualifier("coverSourceCache") BoundedCache<String, String> sources,
+            @Qualifier("coverMissCache") BoundedCache<String, Boolean> misses,
+            @Qualifier("coverClient") UpstreamClient coverClient,
+            CatalogIndex catalogIndex,
+            AdminBookRepository adminBookRepository,
+            @Qualifier("coverExecutor") AsyncTaskExecutor executor,
+            @Value("${cloudflare.r2.bucket:knowledgehub-books}") String bucket,
+            @Value("${covers.cache.dir:${java.io.tmpdir}/knowledgehub-covers}") String dir,
+            @Value("${covers.cache.maxMb:512}") long maxDiskMb,
+            @Value("${covers.maxSourceMb:5}") long maxSourceMb,
+            @Value("${covers.maxSourcePixels:25000000}") long maxSourcePixels,
+            @Value("${covers.allowedHosts:}") String[] allowedHosts
+    ) throws IOException {
+        this.s3Client = s3Client;
+        this.memory = memory;
+        this.sources = sources;
+        this.misses = misses;
+        this.coverClient = coverClient;
+        this.catalogIndex = catalogIndex;
+        this.adminBookRepository = adminBookRepository;
+        this.executor = executor;
+        this.bucket = bucket;
+        this.dir = Files.createDirectories(Path.of(dir));
+        this.maxDiskBytes = maxDiskMb * 1024 * 1024;
+        this.maxSourceBytes = maxSourceMb * 1024 * 1024;
+        this.maxSourcePixels = maxSourcePixels;
+        this.allowedHosts = Arrays.stream(allowedHosts)
+                .map(host -> host.trim().toLowerCase(Locale.ROOT))
+                .filter(host -> !host.isEmpty())
+                .toList();
+        loadDiskTier();
+    }
+
+    /** Remembers where the cover of remote book {@code id} comes from. */
+    public void registerSource(String id, String imageUrl) {
+        if (id != null && SAFE_ID.matcher(id).matches() && isAllowedSource(imageUrl, allowedHosts)) {
+            sources.put(id.toLowerCase(Locale.ROOT), imageUrl);
+            // A miss recorded before the source was known no longer holds
+            misses.invalidate("r-" + id.toLowerCase(Locale.ROOT));
+        }
+    }
+
+    /**
+     * The thumbnail of book {@code id}, or null if it has no cover. An admin book missing from
+     * the index is looked up in Mongo on the calling thread.
+     */
+    public CompletableFuture<Thumbnail> get(String id, Size size) {
+        AdminBook book = catalogIndex.get(id);
+        if (book == null && adminBookRepository != null && mayBeAdminBook(id)) {
+            book = adminBookRepository.findById(id).orElse(null);
+        }
+        return get(id, book, size);
+    }
+
+    /** Whether {@code id} could be an admin book that the index does not have yet (an ObjectId). */
+    static boolean mayBeAdminBook(String id) {
+        return id != null && id.length() == 24 && SAFE_ID.matcher(id).matches();
+    }
+
+    /** As {@link #get(String, Size)}, with the admin book already looked up: null for a remote book. */
+    public CompletableFuture<Thumbnail> get(String id, AdminBook book, Size size) {
+        if (id == null || !SAFE_ID.matcher(id).matches()) return CompletableFuture.completedFuture(null);
+        String tierKey;
+        if (book != null) {
+            if (book.getCoverKey() == null) return CompletableFuture.completedFuture(null);
+            tierKey = "a-" + coverHash(book.getCoverKey());
+        } else {
+            tierKey = "r-" + id.toLowerCase(Locale.ROOT);
+        }
+        if (misses.get(tierKey) != null) return CompletableFuture.completedFuture(null);
+        AdminBook admin = book;
+        return memory.getOrLoad(tierKey + "-" + size.name().toLowerCase(Locale.ROOT),
+                key -> CompletableFuture.supplyAsync(() -> fromDiskOrR2(key), executor)
+                        .thenCompose(found -> found != null
+                                ? CompletableFuture.completedFuture(found)
+                                : render(tierKey, admin, id).thenApply(all -> all == null ? null : all.get(size))));
+    }
+
+    // covers/<md5>.jpg -> <md5>
+    private static String coverHash(String coverKey) {
+        String name = coverKey.substring(coverKey.lastIndexOf('/') + 1);
+        int dot = name.indexOf('.');
+        return dot < 0 ? name : name.substring(0, dot);
+    }
+
+    // =========================
+    // Disk and R2 tiers
+    // =========================
+    private Thumbnail fromDiskOrR2(String key) {
+        Path file = dir.resolve(key + ".jpg");
+        try {
+            if (touch(key)) {
+                byte[] jpeg = Files.readAllBytes(file);
+                diskHits.increment();
+                return Thumbnail.of(jpeg);
+            }
+        } catch (IOException e) {
+            // Evicted while being read: fall through to R2
+        }
+        try {
+            byte[] jpeg = s3Client.getObjectAsBytes(b -> b.bucket(bucket).key(R2_PREFIX + key + ".jpg")).asByteArray();
+            r2Hits.increment();
+            writeDisk(key, jpeg);
+            return Thumbnail.of(jpeg);
+        } catch (NoSuchKeyException e) {
+            return null;
+        }
+    }
+
+    private boolean touch(String key) {
+        diskLock.lock();
+        try {
+            return diskEntries.get(key) != null;
+        } finally {
+            diskLock.unlock();
+        }
+    }
+
+    private void writeDisk(String key, byte[] jpeg) {
+        try {
+            Path tmp = Files.createTempFile(dir, key, ".part");
+            Files.write(tmp, jpeg);
+            Files.move(tmp, dir.resolve(key + ".jpg"), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            System.err.println("Could not write cover " + key + " to disk: " + e.getMessage());
+            return;
+        }
+        // Evicted files are deleted after the lock is released, so other requests never wait on disk
+        List<String> evicted = new ArrayList<>();
+        diskLock.lock();
+        try {
+            Long previous = diskEntries.put(key, (long) jpeg.length);
+            diskBytes += jpeg.length - (previous == null ? 0 : previous);
+            Iterator<Map.Entry<String, Long>> eldest = diskEntries.entrySet().iterator();
+            while (diskBytes > maxDiskBytes && eldest.hasNext()) {
+                Map.Entry<String, Long> entry = eldest.next();
+                if (entry.getKey().equals(key)) continue;
+                eldest.remove();
+                diskBytes -= entry.getValue();
+                evicted.add(entry.getKey());
+            }
+        } finally {
+            diskLock.unlock();
+        }
+        for (String victim : evicted) {
+            try {
+                Files.deleteIfExists(dir.resolve(victim + ".jpg"));
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    // Thumbnails survive restarts: the tier is rebuilt from the directory, oldest first
+    private void loadDiskTier() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            List<Path> list = files.toList();
+            list.stream().filter(p -> p.toString().endsWith(".part")).forEach(p -> p.toFile().delete());
+            list.stream()
+                    .filter(p -> p.toString().endsWith(".jpg"))
+                    .sorted(Comparator.comparingLong(p -> p.toFile().lastModified()))
+                    .forEach(p -> {
+                        String name = p.getFileName().toString();
+                        long size = p.toFile().length();
+                        diskEntries.put(name.substring(0, name.length() - 4), size);
+                        diskBytes += size;
+                    });
+        }
+    }
+
+    // =========================
+    // Rendering
+    // =========================
+    private CompletableFuture<Map<Size, Thumbnail>> render(String tierKey, AdminBook admin, String id) {
+        CompletableFuture<Map<Size, Thumbnail>> promise = new CompletableFuture<>();
+        CompletableFuture<Map<Size, Thumbnail>> existing = rendering.putIfAbsent(tierKey, promise);
+        if (existing != null) return existing;
+
+        CompletableFuture<byte[]> source = admin != null
+                ? CompletableFuture.supplyAsync(() -> readAdminCover(admin), executor)
+                : fetchRemote(id);
+        source.thenApplyAsync(bytes -> bytes == null ? null : renderAll(tierKey, bytes), executor)
+                .whenComplete((thumbnails, error) -> {
+                    // Only a cover known to be missing; a failed fetch is tried again next time
+                    if (error == null && thumbnails == null) misses.put(tierKey, Boolean.TRUE);
+                    rendering.remove(tierKey, promise);
+                    if (error != null) promise.completeExceptionally(error);
+                    else promise.complete(thumbnails);
+                });
+        return promise;
+    }
+
+    private byte[] readAdminCover(AdminBook book) {
+        try {
+            return s3Client.getObjectAsBytes(b -> b.bucket(bucket).key(book.getCoverKey())).asByteArray();
+        } catch (NoSuchKeyException e) {
+            sourceMisses.increment();
+            return null;
+        }
+    }
+
+    private CompletableFuture<byte[]> fetchRemote(String id) {
+        String url = sources.get(id.toLowerCase(Locale.ROOT));
+        if (url == null) {
+            sourceMisses.increment();
+            return CompletableFuture.completedFuture(null);
+        }
+        if (!isAllowedSource(url, allowedHosts)) {
+            sourceMisses.increment();
+            return CompletableFuture.completedFuture(null);
+        }
+        URI uri = URI.create(url);
+        // Resolved here as well as by the client, so a listed host pointing inward is never called
+        return CompletableFuture.supplyAsync(() -> resolvesToPublicAddresses(uri.getHost()), executor)
+                .thenCompose(isPublic -> {
+                    if (!isPublic) {
+                        System.err.println("Cover source " + uri.getHost() + " does not resolve to public addresses, not fetched");
+                        sourceMisses.increment();
+                        return CompletableFuture.completedFuture(null);
+                    }
+                    return fetch(uri);
+                });
+    }
+
+    private CompletableFuture<byte[]> fetch(URI uri) {
+        HttpRequest request = HttpRequest.newBuilder(uri).header("Accept", "image/*").GET().build();
+        return coverClient.send("cover", request, HttpResponse.BodyHandlers.ofInputStream())
+                .thenApplyAsync(response -> {
+                    try (InputStream body = response.body()) {
+                        if (response.statusCode() == 404) {
+                            sourceMisses.increment();
+                            return null;
+                        }
+                        if (response.statusCode() != 200) throw new UpstreamStatusException("Cover", response.statusCode());
+                        byte[] bytes = body.readNBytes((int) Math.min(Integer.MAX_VALUE - 8, maxSourceBytes + 1));
+                        if (bytes.length > maxSourceBytes) throw new IOException("cover image over " + maxSourceBytes + " bytes");
+                        return bytes;
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }, executor);
+    }
+
+    private Map<Size, Thumbnail> renderAll(String tierKey, byte[] source) {
+        try {
+            BufferedImage image;
+            try {
+                image = Thumbnails.read(new ByteArrayInputStream(source), maxSourcePixels);
+            } catch (Thumbnails.ImageTooLargeException e) {
+                System.err.println("Cover " + tierKey + " not rendered: " + e.getMessage());
+                sourceMisses.increment();
+                return null;
+            }
+            if (image == null) {
+                // Not a format ImageIO reads (e.g. WebP)
+                sourceMisses.increment();
+                return null;
+            }
+            renders.increment();
+            Map<Size, Thumbnail> thumbnails = new EnumMap<>(Size.class);
+            for (Size size : Size.values()) {
+                String key = tierKey + "-" + size.name().toLowerCase(Locale.ROOT);
+                byte[] jpeg = Thumbnails.jpeg(Thumbnails.scale(image, size.width), 0.8f);
+                Thumbnail thumbnail = Thumbnail.of(jpeg);
+                thumbnails.put(size, thumbnail);
+                memory.put(key, thumbnail);
+                writeDisk(key, jpeg);
+                try {
+                    s3Client.putObject(b -> b.bucket(bucket).key(R2_PREFIX + key + ".jpg").contentType("image/jpeg")
+                            .cacheControl("public, max-age=31536000, immutable"), RequestBody.fromBytes(jpeg));
+                } catch (RuntimeException e) {
+                    // Still served from memory and disk; another node renders it again
+                    System.err.println("Could not store cover " + key + " in R2: " + e.getMessage());
+                }
+            }
+            return thumbnails;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // https on the default port, no user info, host on the allowlist or a subdomain of an entry
+    static boolean isAllowedSource(String url, List<String> allowedHosts) {
+        if (url == null) return false;
+        URI uri;
+        try {
+            uri = new URI(url);
+        } catch (URISyntaxException e) {
+            return false;
+        }
+        if (!"https".equalsIgnoreCase(uri.getScheme()) || uri.getHost() == null || uri.getRawUserInfo() != null) return false;
+        if (uri.getPort() != -1 && uri.getPort() != 443) return false;
+        String host = uri.getHost().toLowerCase(Locale.ROOT);
+        for (String allowed : allowedHosts) {
+            if (host.equals(allowed) || host.endsWith("." + allowed)) return true;
+        }
+        return false;
+    }
+
+    private static boolean resolvesToPublicAddresses(String host) {
+        try {
+            InetAddress[] addresses = InetAddress.getAllByName(host);
+            for (InetAddress address : addresses) {
+                if (!isPublicAddress(address)) return false;
+            }
+            return addresses.length > 0;
+        } catch (UnknownHostException e) {
+            return false;
+        }
+    }
+
+    // Not loopback, private, link-local (cloud metadata), unique-local, shared (CGNAT) or multicast
+    static boolean isPublicAddress(InetAddress address) {
+        if (address.isAnyLocalAddress() || address.isLoopbackAddress() || address.isLinkLocalAddress()
+                || address.isSiteLocalAddress() || address.isMulticastAddress()) {
+            return false;
+        }
+        byte[] bytes = address.getAddress();
+        if (bytes.length == 16 && (bytes[0] & 0xfe) == 0xfc) return false;
+        if (bytes.length == 4 && (bytes[0] & 0xff) == 100 && (bytes[1] & 0xc0) == 64) return false;
+        return true;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        diskLock.lock();
+        try {
+            stats.put("diskEntries", diskEntries.size());
+            stats.put("diskBytes", diskBytes);
+        } finally {
+            diskLock.unlock();
+        }
+        stats.put("diskHits", diskHits.sum());
+        stats.put("r2Hits", r2Hits.sum());
+        stats.put("renders", renders.sum());
+        stats.put("sourceMisses", sourceMisses.sum());
+        return stats;
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.backend;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RestController
+@RequestMapping("/api/admin/enrichment")
+public class EnrichmentController {
+
+    @Autowired
+    private EnrichmentQueue enrichmentQueue;
+
+    // Task counts by state, plus this node's in-flight and finished-but-unwritten work
+    @GetMapping
+    public ResponseEntity<?> getEnrichmentStats() {
+        try {
+            return ResponseEntity.ok(enrichmentQueue.stats());
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.status(500).body(Map.of("error", String.valueOf(e.getMessage())));
+        }
+    }
+
+    // Queues every book uploaded before enrichment existed (or never enriched)
+    @PostMapping("/backfill")
+    public ResponseEntity<?> backfill() {
+        try {
+            return ResponseEntity.accepted().body(Map.of("queued", enrichmentQueue.backfill()));
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.status(500).body(Map.of("error", String.valueOf(e.getMessage())));
+        }
+    }
+}
@@ -0,0 +1,425 @@
+package com.example.backend;
+
+import com.mongodb.bulk.BulkWriteError;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Background enrichment of stored books, so uploads return as soon as the bytes are in R2.
+ *
+ * Tasks live in the {@code enrichment_tasks} collection, one per book. A poller thread claims
+ * due tasks in batches (a lease, so a task whose node died is picked up again), and hands them
+ * to the small {@code enrichmentExecutor} pool, never more than {@code enrichment.concurrency}
+ * at a time. A worker downloads the object to a temp file, runs the {@link BookEnricher} and
+ * uploads the cover thumbnail to R2 under its md5. Finished tasks are written back together:
+ * one bulk update of the books, one of their texts ({@code book_texts}) and one of the tasks,
+ * then one batch of catalog changes so the index and caches pick up the new fields.
+ *
+ * A failed task is retried with exponential backoff up to {@code enrichment.maxAttempts} times,
+ * then left FAILED with its last error. Every claim counts as an attempt, so a file that kills
+ * its worker (the lease just runs out) is also given up on after that many claims. Re-enqueueing a book (its file was replaced) resets the
+ * task; results computed for the old file are dropped.
+ */
+@Component
+public class EnrichmentQueue {
+
+    private final MongoTemplate mongoTemplate;
+    private final S3Client s3Client;
+    private final CatalogEventBus catalogEvents;
+    private final AsyncTaskExecutor executor;
+    private final BookEnricher enricher;
+    private final String bucket;
+    private final int concurrency;
+    private final int batchSize;
+    private final long pollIntervalMs;
+    private final long retrySeconds;
+    private final long flushIntervalMs;
+    private final long leaseSeconds;
+    private final int maxAttempts;
+    private final long retryBackoffSeconds;
+    private final long maxObjectBytes;
+    private final int contentTerms;
+
+    private final Semaphore slots;
+    // Released on enqueue and when a worker finishes, so the poller does not sleep out its interval
+    private final Semaphore wake = new Semaphore(0);
+    private final ConcurrentLinkedQueue<Finished> finished = new ConcurrentLinkedQueue<>();
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private volatile boolean running;
+
+    private record Finished(EnrichmentTask task, String owner, BookEnricher.Result result, String coverKey) {}
+
+    @Autowired
+    public EnrichmentQueue(
+            MongoTemplate mongoTemplate,
+            S3Client s3Client,
+            CatalogEventBus catalogEvents,
+            @Qualifier("enrichmentExecutor") AsyncTaskExecutor executor,
+            @Value("${cloudflare.r2.bucket:knowledgehub-books}") String bucket,
+            @Value("${enrichment.concurrency:2}") int concurrency,
+            @Value("${enrichment.batchSize:50}") int batchSize,
+            @Value("${enrichment.pollIntervalMs:2000}") long pollIntervalMs,
+            @Value("${enrichment.flushIntervalMs:1000}") long flushIntervalMs,
+            @Value("${enrichment.retrySeconds:30}") long retrySeconds,
+            @Value("${enrichment.leaseSeconds:300}") long leaseSeconds,
+            @Value("${enrichment.maxAttempts:5}") int maxAttempts,
+            @Value("${enrichment.retryBackoffSeconds:30}") long retryBackoffSeconds,
+            @Value("${enrichment.maxObjectMb:200}") long maxObjectMb,
+            @Value("${enrichment.cover.width:640}") int coverWidth,
+            @Value("${enrichment.cover.maxPixels:25000000}") long maxCoverPixels,
+            @Value("${enrichment.text.maxPdfPages:50}") int maxPdfPages,
+            @Value("${enrichment.text.maxChars:200000}") int maxTextChars,
+            @Value("${enrichment.text.indexTerms:200}") int contentTerms
+    ) {
+        this.mongoTemplate = mongoTemplate;
+        this.s3Client = s3Client;
+        this.catalogEvents = catalogEvents;
+        this.executor = executor;
+        this.enricher = new BookEnricher(coverWidth, maxPdfPages, maxTextChars, maxCoverPixels);
+        this.bucket = bucket;
+        this.concurrency = Math.max(1, concurrency);
+        this.batchSize = Math.max(1, batchSize);
+        this.pollIntervalMs = pollIntervalMs;
+        this.flushIntervalMs = flushIntervalMs;
+        this.retrySeconds = retrySeconds;
+        this.leaseSeconds = leaseSeconds;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.retryBackoffSeconds = retryBackoffSeconds;
+        this.maxObjectBytes = maxObjectMb * 1024 * 1024;
+        this.contentTerms = contentTerms;
+        this.slots = new Semaphore(this.concurrency);
+    }
+
+    // =========================
+    // Producers
+    // =========================
+
+    /** Queues {@code book} for enrichment, replacing any task it already has. */
+    public void enqueue(AdminBook book) {
+        enqueueAll(List.of(book));
+    }
+
+    public void enqueueAll(List<AdminBook> books) {
+        if (books.isEmpty()) return;
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, EnrichmentTask.class);
+        Instant now = Instant.now();
+        for (AdminBook book : books) {
+            bulk.upsert(Query.query(Criteria.where("_id").is(book.getId())), new Update()
+                    .set("r2Key", book.getR2Key())
+                    .set("state", EnrichmentTask.State.PENDING)
+                    .set("attempts", 0)
+                    .set("runAfter", now)
+                    .unset("leaseUntil")
+                    .unset("owner")
+                    .unset("lastError")
+                    .set("updatedAt", now));
+        }
+        bulk.execute();
+        wake.release();
+    }
+
+    public void cancel(String bookId) {
+        mongoTemplate.remove(Query.query(Criteria.where("_id").is(bookId)), EnrichmentTask.class);
+    }
+
+    /** Queues every book that has never been enriched. Returns how many were queued. */
+    public int backfill() {
+        Query unenriched = Query.query(Criteria.where("enrichedAt").exists(false));
+        unenriched.fields().include("_id", "r2Key");
+        List<AdminBook> books = mongoTemplate.find(unenriched, AdminBook.class);
+        for (int i = 0; i < books.size(); i += batchSize) {
+            enqueueAll(books.subList(i, Math.min(books.size(), i + batchSize)));
+        }
+        return books.size();
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        for (EnrichmentTask.State state : EnrichmentTask.State.values()) {
+            stats.put(state.name().toLowerCase(), mongoTemplate.count(
+                    Query.query(Criteria.where("state").is(state)), EnrichmentTask.class));
+        }
+        stats.put("inFlight", concurrency - slots.availablePermits());
+        stats.put("awaitingWrite", finished.size());
+        stats.put("processed", processed.get());
+        stats.put("failures", failures.get());
+        return stats;
+    }
+
+    // =========================
+    // Poller
+    // =========================
+    @EventListener(ApplicationReadyEvent.class)
+    public void startInBackground() {
+        running = true;
+        Thread poller = new Thread(this::pollLoop, "enrichment-poller");
+        poller.setDaemon(true);
+        poller.start();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        wake.release();
+    }
+
+    private void pollLoop() {
+        long lastFlush = System.currentTimeMillis();
+        while (running) {
+            try {
+                if (!finished.isEmpty() && (finished.size() >= batchSize
+                        || System.currentTimeMillis() - lastFlush >= flushIntervalMs || slots.availablePermits() == concurrency)) {
+                    flush();
+                    lastFlush = System.currentTimeMillis();
+                }
+                int claimed = slots.availablePermits() > 0 ? claimAndSubmit(slots.availablePermits()) : 0;
+                if (claimed == 0) {
+                    wake.tryAcquire(finished.isEmpty() ? pollIntervalMs : flushIntervalMs, TimeUnit.MILLISECONDS);
+                    wake.drainPermits();
+                }
+            } catch (InterruptedException e) {
+                return;
+            } catch (Exception e) {
+                System.err.println("Enrichment poll failed, retrying in " + retrySeconds + "s: " + e.getMessage());
+                try {
+                    Thread.sleep(retrySeconds * 1000);
+                } catch (InterruptedException ie) {
+                    return;
+                }
+            }
+        }
+    }
+
+    // Marks up to {@code limit} due tasks with a fresh claim token in one update, then reads back
+    // the ones this claim won; a concurrent poller on another node gets the rest.
+    private int claimAndSubmit(int limit) {
+        Instant now = Instant.now();
+        // Lost its worker on every attempt (crash, OOM): most likely the file does it, so stop here
+        mongoTemplate.updateMulti(Query.query(Criteria.where("state").is(EnrichmentTask.State.RUNNING)
+                        .and("leaseUntil").lt(now).and("attempts").gte(maxAttempts)), new Update()
+                .set("state", EnrichmentTask.State.FAILED)
+                .set("lastError", "Lease expired on the last of " + maxAttempts + " attempts")
+                .unset("owner")
+                .unset("leaseUntil")
+                .set("updatedAt", now), EnrichmentTask.class);
+
+        Criteria due = new Criteria().orOperator(
+                Criteria.where("state").is(EnrichmentTask.State.PENDING).and("runAfter").lte(now)
+                        .and("attempts").lt(maxAttempts),
+                Criteria.where("state").is(EnrichmentTask.State.RUNNING).and("leaseUntil").lt(now)
+                        .and("attempts").lt(maxAttempts));
+        Query candidates = Query.query(due).with(Sort.by("runAfter")).limit(limit);
+        candidates.fields().include("_id");
+        List<Object> ids = new ArrayList<>();
+        for (EnrichmentTask t : mongoTemplate.find(candidates, EnrichmentTask.class)) ids.add(t.getId());
+        if (ids.isEmpty()) return 0;
+
+        String owner = UUID.randomUUID().toString();
+        mongoTemplate.updateMulti(Query.query(new Criteria().andOperator(Criteria.where("_id").in(ids), due)), new Update()
+                .set("state", EnrichmentTask.State.RUNNING)
+                .set("owner", owner)
+                .set("leaseUntil", now.plusSeconds(leaseSeconds))
+                .inc("attempts", 1)
+                .set("updatedAt", now), EnrichmentTask.class);
+        List<EnrichmentTask> claimed = mongoTemplate.find(Query.query(Criteria.where("owner").is(owner)), EnrichmentTask.class);
+
+        for (EnrichmentTask task : claimed) {
+            slots.acquireUninterruptibly();
+            try {
+                executor.execute(() -> process(task, owner));
+            } catch (RuntimeException e) {
+                slots.release();
+                // Lease runs out and the task is claimed again
+                System.err.println("Enrichment of " + task.getId() + " not started: " + e.getMessage());
+            }
+        }
+        return claimed.size();
+    }
+
+    // =========================
+    // Worker
+    // =========================
+    private void process(EnrichmentTask task, String owner) {
+        Path file = null;
+        try {
+            HeadObjectResponse head = s3Client.headObject(b -> b.bucket(bucket).key(task.getR2Key()));
+            BookEnricher.Result result;
+            String coverKey = null;
+            if (head.contentLength() > maxObjectBytes) {
+                // Too big to read here; record the size only
+                result = new BookEnricher.Result(head.contentLength(), null, null, null, null);
+            } else {
+                file = Files.createTempFile("enrichment-", ".book");
+                try (OutputStream out = Files.newOutputStream(file)) {
+                    s3Client.getObject(b -> b.bucket(bucket).key(task.getR2Key()), (response, in) -> {
+                        in.transferTo(out);
+                        return response;
+                    });
+                }
+                result = enricher.enrich(file);
+                if (result.cover() != null) {
+                    coverKey = "covers/" + result.md5() + ".jpg";
+                    String key = coverKey;
+                    s3Client.putObject(b -> b.bucket(bucket).key(key).contentType("image/jpeg")
+                            .cacheControl("public, max-age=31536000, immutable"), RequestBody.fromBytes(result.cover()));
+                }
+            }
+            finished.add(new Finished(task, owner, result, coverKey));
+            processed.incrementAndGet();
+        } catch (Exception e) {
+            failures.incrementAndGet();
+            fail(task, owner, e);
+        } finally {
+            if (file != null) {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (Exception ignored) {
+                }
+            }
+            slots.release();
+            wake.release();
+        }
+    }
+
+    private void fail(EnrichmentTask task, String owner, Exception error) {
+        // The claim already counted this attempt
+        boolean giveUp = task.getAttempts() >= maxAttempts;
+        long backoff = retryBackoffSeconds << Math.min(task.getAttempts() - 1, 10);
+        String message = error.getClass().getSimpleName() + ": " + error.getMessage();
+        System.err.println("Enrichment of " + task.getId() + " failed (attempt " + task.getAttempts() + "): " + message);
+        try {
+            Update update = new Update()
+                    .set("state", giveUp ? EnrichmentTask.State.FAILED : EnrichmentTask.State.PENDING)
+                    .set("runAfter", Instant.now().plusSeconds(backoff))
+                    .set("lastError", message)
+                    .unset("owner")
+                    .unset("leaseUntil")
+                    .set("updatedAt", Instant.now());
+            mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(task.getId()).and("owner").is(owner)), update, EnrichmentTask.class);
+        } catch (Exception e) {
+            // Lease runs out and the task is claimed again
+            System.err.println("Could not record enrichment failure of " + task.getId() + ": " + e.getMessage());
+        }
+    }
+
+    // =========================
+    // Batched write-back
+    // =========================
+    // Only if the file is still the one that was read
+    private static Query bookQuery(Finished f) {
+        return Query.query(Criteria.where("_id").is(f.task().getId()).and("r2Key").is(f.task().getR2Key()));
+    }
+
+    private Update bookUpdate(Finished f, Instant now, boolean withMd5) {
+        BookEnricher.Result result = f.result();
+        Update book = new Update()
+                .set("size", BookEnricher.formatSize(result.size()))
+                .set("enrichedAt", now)
+                .set("updatedAt", now);
+        if (withMd5 && result.md5() != null) book.set("md5", result.md5());
+        // The version makes the cover URL change with the cover, so it can be cached as immutable
+        if (f.coverKey() != null) {
+            book.set("coverKey", f.coverKey()).set("imgUrl", "/api/covers/" + f.task().getId() + "?v=" + result.md5().substring(0, 12));
+        }
+        String terms = BookEnricher.keyTerms(result.text(), contentTerms);
+        if (terms != null) book.set("contentTerms", terms);
+        return book;
+    }
+
+    // A book whose hash another book already has (older data, stored before the md5 index was
+    // unique) keeps its fields without the hash rather than failing the batch every time
+    private void executeBookUpdates(BulkOperations books, List<Finished> batch, Instant now) {
+        try {
+            books.execute();
+        } catch (BulkOperationException e) {
+            if (!BulkImporter.onlyDuplicateKeys(e.getErrors())) throw e;
+            BulkOperations retry = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, AdminBook.class);
+            for (BulkWriteError error : e.getErrors()) {
+                Finished f = batch.get(error.getIndex());
+                System.err.println("Book " + f.task().getId() + " has the same md5 as another book, not storing it");
+                retry.updateOne(bookQuery(f), bookUpdate(f, now, false));
+            }
+            retry.execute();
+        }
+    }
+
+    private void flush() {
+        List<Finished> batch = new ArrayList<>();
+        for (Finished f; batch.size() < batchSize * 4 && (f = finished.poll()) != null; ) batch.add(f);
+        if (batch.isEmpty()) return;
+
+        Instant now = Instant.now();
+        BulkOperations books = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, AdminBook.class);
+        BulkOperations texts = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, "book_texts");
+        BulkOperations tasks = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, EnrichmentTask.class);
+        boolean anyText = false;
+        List<Object> ids = new ArrayList<>(batch.size());
+        for (Finished f : batch) {
+            BookEnricher.Result result = f.result();
+            String id = f.task().getId();
+            ids.add(id);
+
+            books.updateOne(bookQuery(f), bookUpdate(f, now, true));
+
+            if (result.text() != null) {
+                texts.upsert(Query.query(Criteria.where("_id").is(id)), new Update()
+                        .set("r2Key", f.task().getR2Key())
+                        .set("text", result.text())
+                        .set("updatedAt", now));
+                anyText = true;
+            }
+            tasks.updateOne(Query.query(Criteria.where("_id").is(id).and("owner").is(f.owner())), new Update()
+                    .set("state", EnrichmentTask.State.DONE)
+                    .unset("owner")
+                    .unset("leaseUntil")
+                    .unset("lastError")
+                    .set("updatedAt", now));
+        }
+        try {
+            executeBookUpdates(books, batch, now);
+            if (anyText) texts.execute();
+            tasks.execute();
+        } catch (Exception e) {
+            // The tasks stay RUNNING and are claimed again once their lease runs out
+            System.err.println("Writing " + batch.size() + " enrichment results failed: " + e.getMessage());
+            return;
+        }
+
+        List<CatalogChange> changes = new ArrayList<>(batch.size());
+        for (AdminBook book : mongoTemplate.find(Query.query(Criteria.where("_id").in(ids)), AdminBook.class)) {
+            changes.add(CatalogChange.upsert(book, null));
+        }
+        catalogEvents.publishAll(changes);
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.backend;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * One book waiting for (or going through) enrichment. There is at most one task per book: the
+ * task id is the book id, and enqueueing a book again resets its task.
+ */
+@Document(collection = "enrichment_tasks")
+public class EnrichmentTask {
+
+    public enum State { PENDING, RUNNING, DONE, FAILED }
+
+    @Id
+    private String id;        // Book id
+    private String r2Key;     // Object the task was created for; results for an older key are dropped
+    private State state;
+    private int attempts;
+    private Instant runAfter; // Not claimed before this time (retry backoff)
+    private Instant leaseUntil; // A RUNNING task whose lease ran out is claimed again
+    private String owner;     // Claim token of the worker running it
+    private String lastError;
+    private Instant updatedAt;
+
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public String getR2Key() { return r2Key; }
+    public void setR2Key(String r2Key) { this.r2Key = r2Key; }
+
+    public State getState() { return state; }
+    public void setState(State state) { this.state = state; }
+
+    public int getAttempts() { return attempts; }
+    public void setAttempts(int attempts) { this.attempts = attempts; }
+
+    public Instant getRunAfter() { return runAfter; }
+    public void setRunAfter(Instant runAfter) { this.runAfter = runAfter; }
+
+    public Instant getLeaseUntil() { return leaseUntil; }
+    public void setLeaseUntil(Instant leaseUntil) { this.leaseUntil = leaseUntil; }
+
+    public String getOwner() { return owner; }
+    public void setOwner(String owner) { this.owner = owner; }
+
+    public String getLastError() { return lastError; }
+    public void setLastError(String lastError) { this.lastError = lastError; }
+
+    public Instant getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(Instant updatedAt) { this.updatedAt = updatedAt; }
+}
@@ -0,0 +1,80 @@
+package com.example.backend;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Executors for the app's own background I/O (R2 part uploads, outbound HTTP callbacks,
+ * bulk import hashing and uploads, cover thumbnail tiers).
+ *
+ * With the virtual-threads profile ({@code spring.threads.virtual.enabled=true}) on a Java 21+
+ * runtime, Spring Boot runs Tomcat request handling and the application task executor on
+ * virtual threads, and these executors start one virtual thread per task as well. Otherwise
+ * they are bounded platform thread pools.
+ *
+ * Enrichment (cover rendering, text extraction) is CPU-bound, so it always gets a small fixed
+ * pool of platform threads ({@code enrichment.concurrency}), and {@link EnrichmentQueue} never
+ * has more tasks than that in flight: however much is queued, it takes at most that many cores
+ * from request handling. (Java thread priorities are ignored on Linux by default, so the pool
+ * size is the throttle.)
+ *
+ * The beans are not default autowire candidates, so they do not stand in for (or switch off)
+ * Boot's own {@code applicationTaskExecutor}; inject them by qualifier.
+ */
+@Configuration
+public class ExecutionConfig {
+
+    @Bean(defaultCandidate = false)
+    public AsyncTaskExecutor r2PartExecutor(Environment env, @Value("${cloudflare.r2.upload.maxBuffers:16}") int maxBuffers) {
+        return executor(env, "r2-part-", maxBuffers);
+    }
+
+    @Bean(defaultCandidate = false)
+    public AsyncTaskExecutor upstreamExecutor(Environment env, @Value("${upstream.executorThreads:8}") int threads) {
+        return executor(env, "upstream-", threads);
+    }
+
+    @Bean(defaultCandidate = false)
+    public AsyncTaskExecutor importExecutor(Environment env, @Value("${import.concurrency:8}") int concurrency) {
+        return executor(env, "import-", concurrency);
+    }
+
+    @Bean(defaultCandidate = false)
+    public AsyncTaskExecutor coverExecutor(Environment env, @Value("${covers.threads:4}") int threads) {
+        return executor(env, "cover-", threads);
+    }
+
+    @Bean(defaultCandidate = false)
+    public AsyncTaskExecutor enrichmentExecutor(@Value("${enrichment.concurrency:2}") int concurrency) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(Math.max(1, concurrency));
+        executor.setMaxPoolSize(Math.max(1, concurrency));
+        executor.setThreadNamePrefix("enrichment-");
+        executor.setDaemon(true);
+        executor.initialize();
+        return executor;
+    }
+
+    static AsyncTaskExecutor executor(Environment env, String threadNamePrefix, int platformThreads) {
+        if (Threading.VIRTUAL.isActive(env)) {
+            return new VirtualThreadTaskExecutor(threadNamePrefix);
+        }
+        if (env.getProperty("spring.threads.virtual.enabled", Boolean.class, false)) {
+            System.err.println("spring.threads.virtual.enabled is set but the runtime is Java "
+                    + Runtime.version().feature() + "; virtual threads need Java 21, using platform threads");
+        }
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(Math.max(1, platformThreads));
+        executor.setMaxPoolSize(Math.max(1, platformThreads));
+        executor.setThreadNamePrefix(threadNamePrefix);
+        executor.setDaemon(true);
+        executor.initialize();
+        return executor;
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.backend;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/** Progress of one bulk import, updated by the import thread and read by the status endpoint. */
+public class ImportJob {
+
+    public enum State { RUNNING, COMPLETED, FAILED }
+
+    private static final int MAX_ERRORS = 100;
+
+    private final String id;
+    private final String manifest;
+    private final String source;
+    private final Instant startedAt = Instant.now();
+    private volatile Instant finishedAt;
+    private volatile State state = State.RUNNING;
+    private volatile String failure;
+
+    final AtomicLong read = new AtomicLong();
+    final AtomicLong skipped = new AtomicLong();
+    final AtomicLong uploaded = new AtomicLong();
+    final AtomicLong inserted = new AtomicLong();
+    final AtomicLong failed = new AtomicLong();
+    final AtomicLong bytesUploaded = new AtomicLong();
+    private final List<String> errors = new ArrayList<>();
+
+    ImportJob(String id, String manifest, String source) {
+        this.id = id;
+        this.manifest = manifest;
+        this.source = source;
+    }
+
+    public String getId() { return id; }
+
+    public State getState() { return state; }
+
+    /** When the job completed or failed; null while it is running. */
+    Instant finishedAt() { return finishedAt; }
+
+    void recordError(String file, String message) {
+        failed.incrementAndGet();
+        synchronized (errors) {
+            if (errors.size() < MAX_ERRORS) errors.add(file + ": " + message);
+        }
+    }
+
+    void complete() {
+        finishedAt = Instant.now();
+        state = State.COMPLETED;
+    }
+
+    void fail(String message) {
+        failure = message;
+        finishedAt = Instant.now();
+        state = State.FAILED;
+    }
+
+    /** Books newly in the catalog per second of wall time so far. */
+    double booksPerSecond() {
+        long millis = Duration.between(startedAt, finishedAt != null ? finishedAt : Instant.now()).toMillis();
+        return millis == 0 ? 0 : inserted.get() * 1000.0 / millis;
+    }
+
+    public Map<String, Object> progress() {
+        Map<String, Object> progress = new LinkedHashMap<>();
+        progress.put("id", id);
+        progress.put("state", state);
+        progress.put("manifest", manifest);
+        progress.put("source", source);
+        progress.put("startedAt", startedAt.toString());
+        if (finishedAt != null) progress.put("finishedAt", finishedAt.toString());
+        progress.put("read", read.get());
+        progress.put("skipped", skipped.get());
+        progress.put("uploaded", uploaded.get());
+        progress.put("inserted", inserted.get());
+        progress.put("failed", failed.get());
+        progress.put("bytesUploaded", bytesUploaded.get());
+        progress.put("booksPerSecond", Math.round(booksPerSecond() * 10) / 10.0);
+        if (failure != null) progress.put("failure", failure);
+        synchronized (errors) {
+            progress.put("errors", List.copyOf(errors));
+        }
+        return progress;
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.backend;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.Locale;
+
+/**
+ * One line of a bulk import manifest (JSON Lines): the file's path inside the import directory
+ * or archive, plus the catalog metadata. Only {@code file} and {@code title} are required.
+ */
+record ImportManifestEntry(String file, String title, String author, String publisher, String year,
+                           String format, String language, String description) {
+
+    /** @throws IllegalArgumentException if a required field is missing. */
+    static ImportManifestEntry parse(JsonNode line) {
+        String file = text(line, "file");
+        String title = text(line, "title");
+        if (file == null || file.isBlank()) throw new IllegalArgumentException("missing \"file\"");
+        if (title == null || title.isBlank()) throw new IllegalArgumentException("missing \"title\"");
+        String format = text(line, "format");
+        return new ImportManifestEntry(file, title, text(line, "author"), text(line, "publisher"), text(line, "year"),
+                format != null ? format : extension(file), text(line, "language"), text(line, "description"));
+    }
+
+    String fileName() {
+        return file.substring(file.lastIndexOf('/') + 1);
+    }
+
+    String contentType() {
+        return switch (extension(file)) {
+            case "pdf" -> "application/pdf";
+            case "epub" -> "application/epub+zip";
+            case "mobi" -> "application/x-mobipocket-ebook";
+            case "djvu" -> "image/vnd.djvu";
+            case "txt" -> "text/plain";
+            default -> "application/octet-stream";
+        };
+    }
+
+    private static String extension(String file) {
+        int dot = file.lastIndexOf('.');
+        return dot < 0 ? "" : file.substring(dot + 1).toLowerCase(Locale.ROOT);
+    }
+
+    private static String text(JsonNode line, String field) {
+        JsonNode value = line.get(field);
+        return value == null || value.isNull() ? null : value.asText();
+    }
+}
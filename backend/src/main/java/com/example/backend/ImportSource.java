@@ -0,0 +1,82 @@
+package com.example.backend;
+
+import java.io.Closeable;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/** The files of a bulk import: a directory, or a zip archive read in place without unpacking. */
+interface ImportSource extends Closeable {
+
+    long size(String file) throws IOException;
+
+    /** Each call returns a new stream, so a file can be read once to hash it and again to upload it. */
+    InputStream open(String file) throws IOException;
+
+    static ImportSource open(Path path) throws IOException {
+        if (Files.isDirectory(path)) return new Directory(path);
+        return new Zip(new ZipFile(path.toFile()));
+    }
+
+    final class Directory implements ImportSource {
+        private final Path root;
+
+        Directory(Path root) {
+            this.root = root.toAbsolutePath().normalize();
+        }
+
+        @Override
+        public long size(String file) throws IOException {
+            return Files.size(resolve(file));
+        }
+
+        @Override
+        public InputStream open(String file) throws IOException {
+            return Files.newInputStream(resolve(file));
+        }
+
+        // Manifest paths must stay inside the import directory
+        private Path resolve(String file) throws IOException {
+            Path resolved = root.resolve(file).normalize();
+            if (!resolved.startsWith(root)) throw new IOException("Path escapes the import directory: " + file);
+            return resolved;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    final class Zip implements ImportSource {
+        private final ZipFile zip;
+
+        Zip(ZipFile zip) {
+            this.zip = zip;
+        }
+
+        @Override
+        public long size(String file) throws IOException {
+            return entry(file).getSize();
+        }
+
+        @Override
+        public InputStream open(String file) throws IOException {
+            return zip.getInputStream(entry(file));
+        }
+
+        private ZipEntry entry(String file) throws IOException {
+            ZipEntry entry = zip.getEntry(file);
+            if (entry == null || entry.isDirectory()) throw new FileNotFoundException(file + " is not in the archive");
+            return entry;
+        }
+
+        @Override
+        public void close() throws IOException {
+            zip.close();
+        }
+    }
+}
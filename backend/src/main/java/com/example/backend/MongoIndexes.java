@@ -0,0 +1,97 @@
+package com.example.backend;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.PartialIndexFilter;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.stereotype.Component;
+
+/**
+ * Creates the indexes our queries rely on. Runs once Mongo is reachable, on a background thread
+ * that retries, so startup never waits on the database. Creating an index that already exists
+ * is a no-op.
+ */
+@Component
+public class MongoIndexes {
+
+    /** Server error code of a write that would break a unique index. */
+    static final int DUPLICATE_KEY = 11000;
+
+    @Autowired(required = false)
+    private MongoTemplate mongoTemplate;
+
+    @Value("${mongo.indexes.retrySeconds:30}")
+    private long retrySeconds;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureInBackground() {
+        if (mongoTemplate == null) return;
+        Thread creator = new Thread(() -> {
+            while (true) {
+                try {
+                    ensureIndexes();
+                    return;
+                } catch (Exception e) {
+                    System.err.println("Mongo index creation failed, retrying in " + retrySeconds + "s: " + e.getMessage());
+                    try {
+                        Thread.sleep(retrySeconds * 1000);
+                    } catch (InterruptedException ie) {
+                        return;
+                    }
+                }
+            }
+        }, "mongo-indexes");
+        creator.setDaemon(true);
+        creator.start();
+    }
+
+    void ensureIndexes() {
+        // Title search fallback: sorted by title then id, so a limit stops the index walk early
+        mongoTemplate.indexOps(AdminBook.class).createIndex(new Index()
+                .on("title", Sort.Direction.ASC)
+                .on("_id", Sort.Direction.ASC)
+                .named("title_id"));
+
+        // Catalog snapshot catch-up: books written since the snapshot's watermark
+        mongoTemplate.indexOps(AdminBook.class).createIndex(new Index()
+                .on("updatedAt", Sort.Direction.ASC)
+                .named("updatedAt"));
+
+        // Enrichment queue: claimable tasks by state and due time
+        mongoTemplate.indexOps(EnrichmentTask.class).createIndex(new Index()
+                .on("state", Sort.Direction.ASC)
+                .on("runAfter", Sort.Direction.ASC)
+                .named("state_runAfter"));
+
+        ensureUniqueMd5();
+    }
+
+    // One book per content hash: lookups by hash (bulk import resume, enrichment) and the guard
+    // that keeps concurrent imports and uploads of the same file from storing it twice. Books
+    // without a hash are not indexed. If the collection already holds duplicates the unique index
+    // cannot be built; the plain index from earlier versions then stays, and this is retried on
+    // the next start.
+    private void ensureUniqueMd5() {
+        var indexOps = mongoTemplate.indexOps(AdminBook.class);
+        try {
+            indexOps.createIndex(new Index()
+                    .on("md5", Sort.Direction.ASC)
+                    .unique()
+                    .partial(PartialIndexFilter.of(Criteria.where("md5").exists(true)))
+                    .named("md5_unique"));
+        } catch (RuntimeException e) {
+            System.err.println("Unique md5 index not created, remove duplicate books by md5 first: " + e.getMessage());
+            indexOps.createIndex(new Index().on("md5", Sort.Direction.ASC).named("md5"));
+            return;
+        }
+        if (indexOps.getIndexInfo().stream().map(IndexInfo::getName).anyMatch("md5"::equals)) {
+            indexOps.dropIndex("md5");
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.backend;
+
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.observability.ContextProviderFactory;
+import org.springframework.data.mongodb.observability.MongoObservationCommandListener;
+
+@Configuration
+public class ObservabilityConfig {
+
+    // Mongo commands as child spans of whatever observation is current on the calling thread,
+    // so a trace shows the queries behind a request; timings per command come from mongodb.driver.commands
+    @Bean
+    public MongoClientSettingsBuilderCustomizer mongoObservations(ObservationRegistry observations) {
+        return settings -> settings
+                .contextProvider(ContextProviderFactory.create(observations))
+                .addCommandListener(new MongoObservationCommandListener(observations));
+    }
+
+    // The percentiles-histogram properties match by name prefix, so they also reach the
+    // "<name>.active" in-flight timers; those only need their active count and duration.
+    @Bean
+    public MeterFilter noHistogramsForInFlightTimers() {
+        return new MeterFilter() {
+            @Override
+            public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
+                if (id.getType() != Meter.Type.LONG_TASK_TIMER) return config;
+                return DistributionStatisticConfig.builder().percentilesHistogram(false).build().merge(config);
+            }
+        };
+    }
+}
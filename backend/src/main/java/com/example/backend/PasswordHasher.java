@@ -0,0 +1,51 @@
+package com.example.backend;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * Password hashing with bcrypt at a configurable cost ({@code auth.bcrypt.cost}, each step
+ * doubles the work). Passwords stored before hashing was introduced are plaintext; they still
+ * verify, compared in constant time, and {@link #needsRehash} tells the login path to replace
+ * them, as it does for hashes made at an older cost.
+ */
+@Component
+public class PasswordHasher {
+
+    private final BCryptPasswordEncoder encoder;
+    // Hash of nothing in particular at the configured cost, verified against when the user does not exist
+    private final String dummyHash;
+
+    public PasswordHasher(@Value("${auth.bcrypt.cost:10}") int cost) {
+        this.encoder = new BCryptPasswordEncoder(cost);
+        this.dummyHash = encoder.encode("knowledgehub");
+    }
+
+    public String hash(String raw) {
+        return encoder.encode(raw);
+    }
+
+    public boolean matches(String raw, String stored) {
+        if (raw == null || stored == null) return false;
+        if (isHash(stored)) return encoder.matches(raw, stored);
+        return MessageDigest.isEqual(raw.getBytes(StandardCharsets.UTF_8), stored.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** True for legacy plaintext and for hashes at a lower cost than the configured one. */
+    public boolean needsRehash(String stored) {
+        return stored != null && (!isHash(stored) || encoder.upgradeEncoding(stored));
+    }
+
+    /** Stands in for a verification when there is no user, so a miss takes as long as a wrong password. */
+    public void burn(String raw) {
+        encoder.matches(raw == null ? "" : raw, dummyHash);
+    }
+
+    private static boolean isHash(String stored) {
+        return stored.startsWith("$2a$") || stored.startsWith("$2b$") || stored.startsWith("$2y$");
+    }
+}
@@ -0,0 +1,6 @@
+package com.example.backend;
+
+import java.time.Instant;
+
+/** A presigned GET URL for one R2 object and the window it is valid in. */
+public record PresignedUrl(String url, Instant signedAt, Instant expiresAt) {}
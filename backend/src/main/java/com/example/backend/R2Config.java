@@ -1,16 +1,23 @@
 package com.example.backend;
 
+import io.micrometer.observation.ObservationRegistry;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
 import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.http.apache.ApacheHttpClient;
+import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
 import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
 import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3Configuration;
 import software.amazon.awssdk.services.s3.presigner.S3Presigner;
 //import cloudflare.r2.R2Client; // make sure this import exists
 //import org.springframework.beans.factory.annotation.Autowired;
 import java.net.URI;
+import java.time.Duration;
 
 @Configuration
 public class R2Config {
@@ -21,16 +28,55 @@ public class R2Config {
     @Value("${cloudflare.r2.secretKey}")
     private String secretKey;
 
-    @Value("${cloudflare.r2.accountId}")
-    private String accountId;
+    // Defaults to the account's R2 endpoint; point it at any S3-compatible store (a local one for load tests)
+    @Value("${cloudflare.r2.endpoint:https://${cloudflare.r2.accountId}.r2.cloudflarestorage.com}")
+    private String endpoint;
+
+    // Bucket in the path instead of the host name, for stores without virtual-host addressing
+    @Value("${cloudflare.r2.pathStyle:false}")
+    private boolean pathStyle;
+
+    @Value("${cloudflare.r2.connectTimeoutMs:5000}")
+    private long connectTimeoutMs;
+
+    @Value("${cloudflare.r2.socketTimeoutMs:30000}")
+    private long socketTimeoutMs;
+
+    @Value("${cloudflare.r2.maxConnections:64}")
+    private int maxConnections;
 
     @Bean
-    public S3Client s3Client() {
+    public S3Client s3Client(ObservationRegistry observations) {
         AwsBasicCredentials creds = AwsBasicCredentials.create(accessKey, secretKey);
         return S3Client.builder()
                 .credentialsProvider(StaticCredentialsProvider.create(creds))
+                // Bounded pool and timeouts, so a hung R2 connection cannot hold a request thread forever
+                .httpClientBuilder(ApacheHttpClient.builder()
+                        .connectionTimeout(Duration.ofMillis(connectTimeoutMs))
+                        .socketTimeout(Duration.ofMillis(socketTimeoutMs))
+                        .maxConnections(maxConnections))
+                .overrideConfiguration(c -> c.addExecutionInterceptor(new R2ObservationInterceptor(observations)))
                 .region(Region.US_EAST_1) // Required but ignored
-                .endpointOverride(URI.create("https://" + accountId + ".r2.cloudflarestorage.com"))
+                .endpointOverride(URI.create(endpoint))
+                .forcePathStyle(pathStyle)
+                .build();
+    }
+
+    // Reactive profile: content is streamed from R2 by the event loops, reading only as fast as the client takes it
+    @Bean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+    public S3AsyncClient s3AsyncClient(ObservationRegistry observations) {
+        AwsBasicCredentials creds = AwsBasicCredentials.create(accessKey, secretKey);
+        return S3AsyncClient.builder()
+                .credentialsProvider(StaticCredentialsProvider.create(creds))
+                .httpClientBuilder(NettyNioAsyncHttpClient.builder()
+                        .connectionTimeout(Duration.ofMillis(connectTimeoutMs))
+                        .readTimeout(Duration.ofMillis(socketTimeoutMs))
+                        .maxConcurrency(maxConnections))
+                .overrideConfiguration(c -> c.addExecutionInterceptor(new R2ObservationInterceptor(observations)))
+                .region(Region.US_EAST_1)
+                .endpointOverride(URI.create(endpoint))
+                .forcePathStyle(pathStyle)
                 .build();
     }
 
@@ -40,7 +86,8 @@ public class R2Config {
         return S3Presigner.builder()
                 .credentialsProvider(StaticCredentialsProvider.create(creds))
                 .region(Region.US_EAST_1)
-                .endpointOverride(URI.create("https://" + accountId + ".r2.cloudflarestorage.com"))
+                .endpointOverride(URI.create(endpoint))
+                .serviceConfiguration(S3Configuration.builder().pathStyleAccessEnabled(pathStyle).build())
                 .build();
     }
 }
@@ -0,0 +1,308 @@
+package com.example.backend;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.sync.ResponseTransformer;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Book content from R2, with a local disk copy of hot objects.
+ *
+ * An object is copied to disk in the background once it has been requested
+ * {@code admitAfterHits} times, so one-off downloads never cost disk writes. Disk copies are
+ * whole objects under {@code maxObjectBytes}, evicted least-recently-used past {@code maxBytes};
+ * files touched in the last few seconds are kept, since the container may be about to send one.
+ * The disk cache does not survive a restart: the directory is cleared on startup. Object keys
+ * are never reused for new content, so a copy only goes stale when its book is deleted or
+ * replaced, which the catalog change events report.
+ */
+@Component
+public class R2ContentCache implements CatalogChangeListener {
+
+    private static final long EVICTION_GRACE_MILLIS = 10_000;
+
+    private final S3Client s3Client;
+    private final BoundedCache<String, R2ObjectInfo> objectInfoCache;
+    private final Executor fillExecutor;
+    private final String bucket;
+    private final int bufferSize;
+    private final boolean enabled;
+    private final Path dir;
+    private final long maxBytes;
+    private final long maxObjectBytes;
+    private final int admitAfterHits;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Set<String> filling = ConcurrentHashMap.newKeySet();
+    private final BoundedCache<String, Integer> recentHits;
+    private final AtomicLong diskBytes = new AtomicLong();
+    private final ReentrantLock evicting = new ReentrantLock();
+    private final LongAdder diskHits = new LongAdder();
+    private final LongAdder r2Reads = new LongAdder();
+    private final LongAdder fills = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    @Autowired
+    public R2ContentCache(
+            S3Client s3Client,
+            @Qualifier("objectInfoCache") BoundedCache<String, R2ObjectInfo> objectInfoCache,
+            @Qualifier("applicationTaskExecutor") AsyncTaskExecutor fillExecutor,
+            @Value("${cloudflare.r2.bucket:knowledgehub-books}") String bucket,
+            @Value("${content.bufferKb:64}") int bufferKb,
+            @Value("${content.cache.enabled:true}") boolean enabled,
+            @Value("${content.cache.dir:${java.io.tmpdir}/knowledgehub-content}") String dir,
+            @Value("${content.cache.maxMb:2048}") long maxMb,
+            @Value("${content.cache.maxObjectMb:200}") long maxObjectMb,
+            @Value("${content.cache.admitAfterHits:2}") int admitAfterHits
+    ) throws IOException {
+        this(s3Client, objectInfoCache, fillExecutor, bucket, bufferKb * 1024, enabled, Path.of(dir),
+                maxMb * 1024 * 1024, maxObjectMb * 1024 * 1024, admitAfterHits);
+    }
+
+    R2ContentCache(S3Client s3Client, BoundedCache<String, R2ObjectInfo> objectInfoCache, Executor fillExecutor,
+                   String bucket, int bufferSize, boolean enabled, Path dir, long maxBytes, long maxObjectBytes,
+                   int admitAfterHits) throws IOException {
+        this.s3Client = s3Client;
+        this.objectInfoCache = objectInfoCache;
+        this.fillExecutor = fillExecutor;
+        this.bucket = bucket;
+        this.bufferSize = Math.max(4096, bufferSize);
+        this.enabled = enabled;
+        this.dir = dir;
+        this.maxBytes = maxBytes;
+        this.maxObjectBytes = Math.min(maxObjectBytes, maxBytes);
+        this.admitAfterHits = Math.max(1, admitAfterHits);
+        this.recentHits = new BoundedCache<>("contentHits", 10_000, 2L * 1024 * 1024, Duration.ofMinutes(30),
+                (key, hits) -> 64L + 2L * key.length());
+        if (enabled) clearDirectory();
+    }
+
+    /** A local copy of one object, readable at {@link #path()}. */
+    public record CachedFile(Path path, R2ObjectInfo info) {}
+
+    /** Size, type and ETag of the object, from the disk copy, the info cache or a HEAD request. */
+    public R2ObjectInfo info(String key) {
+        Entry entry = entries.get(key);
+        if (entry != null) return entry.info;
+        return objectInfoCache.getOrLoad(key, k -> CompletableFuture.completedFuture(head(k))).join();
+    }
+
+    /**
+     * Returns the disk copy of {@code key}, or null when there is none; in that case the request
+     * counts towards admitting the object, and a copy may be started in the background.
+     */
+    public CachedFile lookup(String key, R2ObjectInfo info) {
+        if (!enabled) return null;
+        Entry entry = entries.get(key);
+        if (entry != null && Files.exists(entry.path)) {
+            entry.lastAccess = System.currentTimeMillis();
+            diskHits.increment();
+            return new CachedFile(entry.path, entry.info);
+        }
+        if (entry != null) remove(key); // deleted from under us
+
+        Integer seen = recentHits.get(key);
+        int hits = seen == null ? 1 : seen + 1;
+        recentHits.put(key, hits);
+        if (hits >= admitAfterHits && info.size() <= maxObjectBytes && filling.add(key)) {
+            try {
+                fillExecutor.execute(() -> fill(key, info));
+            } catch (RuntimeException e) {
+                filling.remove(key);
+            }
+        }
+        return null;
+    }
+
+    /** Streams {@code range} (or the whole object) from R2 to {@code out}, one buffer at a time. */
+    public void copyFromR2(String key, ByteRange range, OutputStream out) throws IOException {
+        r2Reads.increment();
+        GetObjectRequest request = GetObjectRequest.builder()
+                .bucket(bucket)
+                .key(key)
+                .range(range == null ? null : range.header())
+                .build();
+        try (ResponseInputStream<GetObjectResponse> in = s3Client.getObject(request)) {
+            byte[] buffer = new byte[bufferSize];
+            int n;
+            try {
+                while ((n = in.read(buffer)) != -1) out.write(buffer, 0, n);
+            } catch (IOException e) {
+                // Most likely the client went away: drop the R2 connection instead of draining the rest
+                in.abort();
+                throw e;
+            }
+        }
+    }
+
+    /** Copies {@code count} bytes of {@code file} from {@code position} with FileChannel.transferTo. */
+    public void transfer(Path file, long position, long count, WritableByteChannel out) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long sent = 0;
+            while (sent < count) {
+                long n = channel.transferTo(position + sent, count - sent, out);
+                if (n <= 0) throw new IOException("Unexpected end of " + file);
+                sent += n;
+            }
+        }
+    }
+
+    @Override
+    public void onCatalogChanges(List<CatalogChange> changes) {
+        for (CatalogChange change : changes) {
+            String stale = switch (change.type()) {
+                case DELETE -> change.previousR2Key();
+                case UPSERT -> change.previousR2Key() != null && !change.previousR2Key().equals(change.book().getR2Key())
+                        ? change.previousR2Key() : null;
+                case RESYNC -> null;
+            };
+            if (stale != null) {
+                remove(stale);
+                objectInfoCache.invalidate(stale);
+            }
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("objects", entries.size());
+        stats.put("bytes", diskBytes.get());
+        stats.put("maxBytes", maxBytes);
+        stats.put("diskHits", diskHits.sum());
+        stats.put("r2Reads", r2Reads.sum());
+        stats.put("fills", fills.sum());
+        stats.put("evictions", evictions.sum());
+        return stats;
+    }
+
+    private R2ObjectInfo head(String key) {
+        HeadObjectResponse head = s3Client.headObject(b -> b.bucket(bucket).key(key));
+        return new R2ObjectInfo(head.contentLength(), head.contentType(), head.eTag() == null ? "" : head.eTag());
+    }
+
+    private void fill(String key, R2ObjectInfo info) {
+        Path part = dir.resolve(fileName(key) + ".part");
+        try {
+            Files.deleteIfExists(part);
+            s3Client.getObject(b -> b.bucket(bucket).key(key), ResponseTransformer.toFile(part));
+            Path target = dir.resolve(fileName(key));
+            Files.move(part, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            long size = Files.size(target);
+            Entry previous = entries.put(key, new Entry(target, new R2ObjectInfo(size, info.contentType(), info.eTag())));
+            diskBytes.addAndGet(previous == null ? size : size - previous.info.size());
+            fills.increment();
+            evictIfOverBudget();
+        } catch (Exception e) {
+            System.err.println("Could not cache " + key + " on disk: " + e.getMessage());
+            try {
+                Files.deleteIfExists(part);
+            } catch (IOException ignored) {
+            }
+        } finally {
+            filling.remove(key);
+        }
+    }
+
+    private void evictIfOverBudget() {
+        if (diskBytes.get() <= maxBytes) return;
+        // Victims are picked under the lock and their files deleted after it is released
+        List<Entry> evicted = new ArrayList<>();
+        evicting.lock();
+        try {
+            long cutoff = System.currentTimeMillis() - EVICTION_GRACE_MILLIS;
+            List<Map.Entry<String, Entry>> byAge = new ArrayList<>(entries.entrySet());
+            byAge.sort(Comparator.comparingLong(e -> e.getValue().lastAccess));
+            for (Map.Entry<String, Entry> oldest : byAge) {
+                if (diskBytes.get() <= maxBytes || oldest.getValue().lastAccess > cutoff) break;
+                Entry entry = detach(oldest.getKey());
+                if (entry == null) continue;
+                evicted.add(entry);
+                evictions.increment();
+            }
+        } finally {
+            evicting.unlock();
+        }
+        for (Entry entry : evicted) delete(entry);
+    }
+
+    private void remove(String key) {
+        Entry entry = detach(key);
+        if (entry != null) delete(entry);
+    }
+
+    private Entry detach(String key) {
+        Entry entry = entries.remove(key);
+        if (entry != null) diskBytes.addAndGet(-entry.info.size());
+        return entry;
+    }
+
+    private static void delete(Entry entry) {
+        try {
+            // A reader that already opened the file keeps reading it; only the name goes away
+            Files.deleteIfExists(entry.path);
+        } catch (IOException e) {
+            System.err.println("Could not delete cached " + entry.path + ": " + e.getMessage());
+        }
+    }
+
+    private void clearDirectory() throws IOException {
+        Files.createDirectories(dir);
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path file : (Iterable<Path>) files::iterator) Files.deleteIfExists(file);
+        }
+    }
+
+    // Object keys contain user file names; hash them into safe, fixed-length file names
+    private static String fileName(String key) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class Entry {
+        final Path path;
+        final R2ObjectInfo info;
+        volatile long lastAccess = System.currentTimeMillis();
+
+        Entry(Path path, R2ObjectInfo info) {
+            this.path = path;
+            this.info = info;
+        }
+    }
+}
@@ -0,0 +1,263 @@
+package com.example.backend;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.CompletedMultipartUpload;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Streams an upload into R2 without holding the whole file in heap.
+ *
+ * Files up to one part are sent with a single streamed PutObject. Larger files are read
+ * into fixed-size part buffers borrowed from a shared pool and sent as an S3 multipart
+ * upload, with at most {@code concurrency} parts of one upload in flight. A failed part is
+ * retried on its own from the buffer it was read into; the parts already stored are kept.
+ */
+@Component
+public class R2MultipartUploader {
+
+    // S3 (and R2) reject non-final parts smaller than 5 MiB.
+    static final int MIN_PART_SIZE = 5 * 1024 * 1024;
+
+    private final S3Client s3Client;
+    private final int partSize;
+    private final int concurrency;
+    private final int maxAttempts;
+
+    // Buffer pool shared by every upload, so total part memory is bounded across admins too.
+    private final Semaphore bufferPermits;
+    private final ConcurrentLinkedQueue<byte[]> freeBuffers = new ConcurrentLinkedQueue<>();
+    private final AtomicLong buffersInUse = new AtomicLong();
+    private final AtomicLong peakBuffersInUse = new AtomicLong();
+
+    private final AsyncTaskExecutor partExecutor;
+
+    @Autowired
+    public R2MultipartUploader(
+            S3Client s3Client,
+            @Value("#{${cloudflare.r2.upload.partSizeMb:8} * 1024 * 1024}") int partSize,
+            @Value("${cloudflare.r2.upload.concurrency:4}") int concurrency,
+            @Value("${cloudflare.r2.upload.maxBuffers:16}") int maxBuffers,
+            @Value("${cloudflare.r2.upload.maxAttempts:3}") int maxAttempts,
+            @Qualifier("r2PartExecutor") AsyncTaskExecutor partExecutor
+    ) {
+        if (partSize < MIN_PART_SIZE) {
+            throw new IllegalArgumentException("partSize must be at least " + MIN_PART_SIZE + " bytes");
+        }
+        this.s3Client = s3Client;
+        this.partSize = partSize;
+        this.concurrency = Math.max(1, Math.min(concurrency, maxBuffers));
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.bufferPermits = new Semaphore(Math.max(1, maxBuffers));
+        this.partExecutor = partExecutor;
+    }
+
+    /**
+     * Uploads {@code size} bytes read from {@code in} to {@code bucket/key}. The stream is
+     * consumed but not closed. If the upload fails, any multipart upload is aborted.
+     */
+    public void upload(String bucket, String key, InputStream in, long size, String contentType) throws IOException {
+        String mimeType = contentType != null ? contentType : "application/octet-stream";
+
+        if (size >= 0 && size <= partSize) {
+            s3Client.putObject(
+                    PutObjectRequest.builder().bucket(bucket).key(key).contentType(mimeType).build(),
+                    RequestBody.fromInputStream(in, size)
+            );
+            return;
+        }
+
+        String uploadId = s3Client.createMultipartUpload(b -> b.bucket(bucket).key(key).contentType(mimeType)).uploadId();
+        try {
+            List<CompletedPart> parts = uploadParts(bucket, key, uploadId, in, mimeType);
+            s3Client.completeMultipartUpload(b -> b
+                    .bucket(bucket)
+                    .key(key)
+                    .uploadId(uploadId)
+                    .multipartUpload(CompletedMultipartUpload.builder().parts(parts).build()));
+        } catch (IOException | RuntimeException e) {
+            abortQuietly(bucket, key, uploadId, e);
+            throw e;
+        }
+    }
+
+    private List<CompletedPart> uploadParts(String bucket, String key, String uploadId,
+                                            InputStream in, String mimeType) throws IOException {
+        Semaphore inFlight = new Semaphore(concurrency);
+        List<Future<CompletedPart>> pending = new ArrayList<>();
+        int partNumber = 0;
+
+        try {
+            while (true) {
+                acquire(inFlight);
+                byte[] buffer;
+                try {
+                    buffer = borrowBuffer();
+                } catch (RuntimeException e) {
+                    inFlight.release();
+                    throw e;
+                }
+
+                int length;
+                try {
+                    length = readFully(in, buffer);
+                } catch (IOException | RuntimeException e) {
+                    returnBuffer(buffer);
+                    inFlight.release();
+                    throw e;
+                }
+
+                // An exact multiple of the part size ends with an empty read; S3 needs at least one part.
+                if (length == 0 && partNumber > 0) {
+                    returnBuffer(buffer);
+                    inFlight.release();
+                    break;
+                }
+
+                int number = ++partNumber;
+                pending.add(partExecutor.submit(() -> {
+                    try {
+                        return uploadPart(bucket, key, uploadId, number, buffer, length, mimeType);
+                    } finally {
+                        returnBuffer(buffer);
+                        inFlight.release();
+                    }
+                }));
+
+                failFast(pending);
+                if (length < buffer.length) break;
+            }
+
+            List<CompletedPart> parts = new ArrayList<>(pending.size());
+            for (Future<CompletedPart> f : pending) {
+                parts.add(await(f));
+            }
+            return parts;
+        } catch (IOException | RuntimeException e) {
+            pending.forEach(f -> f.cancel(true));
+            throw e;
+        }
+    }
+
+    private CompletedPart uploadPart(String bucket, String key, String uploadId, int partNumber,
+                                     byte[] buffer, int length, String mimeType) throws InterruptedException {
+        UploadPartRequest request = UploadPartRequest.builder()
+                .bucket(bucket)
+                .key(key)
+                .uploadId(uploadId)
+                .partNumber(partNumber)
+                .contentLength((long) length)
+                .build();
+
+        RuntimeException last = null;
+        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+            try {
+                String eTag = s3Client.uploadPart(
+                        request,
+                        RequestBody.fromContentProvider(() -> new ByteArrayInputStream(buffer, 0, length), length, mimeType)
+                ).eTag();
+                return CompletedPart.builder().partNumber(partNumber).eTag(eTag).build();
+            } catch (RuntimeException e) {
+                last = e;
+                if (attempt < maxAttempts) Thread.sleep(200L << (attempt - 1));
+            }
+        }
+        throw last;
+    }
+
+    private byte[] borrowBuffer() {
+        try {
+            bufferPermits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for an upload buffer", e);
+        }
+        long inUse = buffersInUse.incrementAndGet();
+        peakBuffersInUse.accumulateAndGet(inUse, Math::max);
+        byte[] buffer = freeBuffers.poll();
+        return buffer != null ? buffer : new byte[partSize];
+    }
+
+    private void returnBuffer(byte[] buffer) {
+        freeBuffers.offer(buffer);
+        buffersInUse.decrementAndGet();
+        bufferPermits.release();
+    }
+
+    private static int readFully(InputStream in, byte[] buffer) throws IOException {
+        int total = 0;
+        while (total < buffer.length) {
+            int n = in.read(buffer, total, buffer.length - total);
+            if (n < 0) break;
+            total += n;
+        }
+        return total;
+    }
+
+    private static void acquire(Semaphore semaphore) throws IOException {
+        try {
+            semaphore.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while uploading", e);
+        }
+    }
+
+    private static void failFast(List<Future<CompletedPart>> pending) throws IOException {
+        for (Future<CompletedPart> f : pending) {
+            if (f.isDone()) await(f);
+        }
+    }
+
+    private static CompletedPart await(Future<CompletedPart> f) throws IOException {
+        try {
+            return f.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while uploading", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException re) throw re;
+            throw new IOException("Part upload failed", cause);
+        }
+    }
+
+    /** Removes {@code bucket/key}, e.g. an object uploaded for a book that was not stored after all. */
+    public void delete(String bucket, String key) {
+        s3Client.deleteObject(b -> b.bucket(bucket).key(key));
+    }
+
+    private void abortQuietly(String bucket, String key, String uploadId, Exception cause) {
+        try {
+            s3Client.abortMultipartUpload(b -> b.bucket(bucket).key(key).uploadId(uploadId));
+        } catch (RuntimeException e) {
+            cause.addSuppressed(e);
+        }
+    }
+
+    /** Bytes of part buffer this uploader has had checked out at once, across all uploads. */
+    public long peakBufferBytes() {
+        return peakBuffersInUse.get() * (long) partSize;
+    }
+
+    public int getPartSize() { return partSize; }
+}
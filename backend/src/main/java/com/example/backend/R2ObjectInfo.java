@@ -0,0 +1,4 @@
+package com.example.backend;
+
+/** Size, content type and R2 ETag (quoted) of one stored object. */
+public record R2ObjectInfo(long size, String contentType, String eTag) {}
@@ -0,0 +1,51 @@
+package com.example.backend;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import software.amazon.awssdk.core.interceptor.Context;
+import software.amazon.awssdk.core.interceptor.ExecutionAttribute;
+import software.amazon.awssdk.core.interceptor.ExecutionAttributes;
+import software.amazon.awssdk.core.interceptor.ExecutionInterceptor;
+import software.amazon.awssdk.core.interceptor.SdkExecutionAttribute;
+
+/**
+ * Records every R2 API call (PutObject, UploadPart, DeleteObject, ...) as an {@code r2.requests}
+ * observation tagged with the operation and outcome. The SDK's own retries are inside the call,
+ * so the timer shows what the caller waited for.
+ */
+class R2ObservationInterceptor implements ExecutionInterceptor {
+
+    private static final ExecutionAttribute<Observation> OBSERVATION = new ExecutionAttribute<>("r2.observation");
+
+    private final ObservationRegistry observations;
+
+    R2ObservationInterceptor(ObservationRegistry observations) {
+        this.observations = observations;
+    }
+
+    @Override
+    public void beforeExecution(Context.BeforeExecution context, ExecutionAttributes attributes) {
+        String operation = attributes.getAttribute(SdkExecutionAttribute.OPERATION_NAME);
+        attributes.putAttribute(OBSERVATION, Observation.createNotStarted("r2.requests", observations)
+                .contextualName("r2 " + operation)
+                .lowCardinalityKeyValue("operation", String.valueOf(operation))
+                .start());
+    }
+
+    @Override
+    public void afterExecution(Context.AfterExecution context, ExecutionAttributes attributes) {
+        Observation observation = attributes.getAttribute(OBSERVATION);
+        if (observation == null) return;
+        observation.lowCardinalityKeyValue("outcome", context.httpResponse().isSuccessful() ? "SUCCESS" : "ERROR");
+        observation.stop();
+    }
+
+    @Override
+    public void onExecutionFailure(Context.FailedExecution context, ExecutionAttributes attributes) {
+        Observation observation = attributes.getAttribute(OBSERVATION);
+        if (observation == null) return;
+        observation.lowCardinalityKeyValue("outcome", "ERROR");
+        observation.error(context.exception());
+        observation.stop();
+    }
+}
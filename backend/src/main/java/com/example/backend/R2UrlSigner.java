@@ -0,0 +1,123 @@
+package com.example.backend;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+/**
+ * Presigned download URLs for R2 objects, cached per bucket and key.
+ *
+ * A URL is signed for {@code validity} and kept for most of that window. Once a cached URL is
+ * older than {@code refreshAfter}, the next request still gets it but triggers a background
+ * re-sign, so hot objects never wait on signing and never get a URL close to expiry. The cache
+ * TTL caps how long an unrefreshed URL is served. Callers must {@link #invalidate} a key when
+ * its object is replaced or deleted.
+ */
+@Component
+public class R2UrlSigner {
+
+    private final S3Presigner presigner;
+    private final BoundedCache<String, PresignedUrl> cache;
+    private final Executor refreshExecutor;
+    private final Duration validity;
+    private final Duration refreshAfter;
+    private final Clock clock;
+    private final ObservationRegistry observations;
+
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    public R2UrlSigner(
+            S3Presigner presigner,
+            @Qualifier("presignedUrlCache") BoundedCache<String, PresignedUrl> cache,
+            @Qualifier("applicationTaskExecutor") AsyncTaskExecutor refreshExecutor,
+            @Value("${presign.validityMinutes:60}") long validityMinutes,
+            @Value("${presign.refreshAfterMinutes:30}") long refreshAfterMinutes,
+            ObservationRegistry observations
+    ) {
+        this(presigner, cache, refreshExecutor, Duration.ofMinutes(validityMinutes),
+                Duration.ofMinutes(refreshAfterMinutes), Clock.systemUTC(), observations);
+    }
+
+    R2UrlSigner(S3Presigner presigner, BoundedCache<String, PresignedUrl> cache, Executor refreshExecutor,
+                Duration validity, Duration refreshAfter, Clock clock, ObservationRegistry observations) {
+        this.presigner = presigner;
+        this.cache = cache;
+        this.refreshExecutor = refreshExecutor;
+        this.validity = validity;
+        this.refreshAfter = refreshAfter;
+        this.clock = clock;
+        this.observations = observations;
+    }
+
+    public PresignedUrl getDownloadUrl(String bucket, String key) {
+        String cacheKey = cacheKey(bucket, key);
+        PresignedUrl url = cache.getOrLoad(cacheKey, k -> CompletableFuture.completedFuture(sign(bucket, key))).join();
+
+        if (!clock.instant().isBefore(url.signedAt().plus(refreshAfter)) && refreshing.add(cacheKey)) {
+            try {
+                refreshExecutor.execute(() -> {
+                    try {
+                        cache.put(cacheKey, sign(bucket, key));
+                    } finally {
+                        refreshing.remove(cacheKey);
+                    }
+                });
+            } catch (RuntimeException e) {
+                refreshing.remove(cacheKey);
+            }
+        }
+        return url;
+    }
+
+    public void invalidate(String bucket, String key) {
+        if (key != null) cache.invalidate(cacheKey(bucket, key));
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    // Signing is local, but recorded next to the R2 API calls so cache misses show up
+    private PresignedUrl sign(String bucket, String key) {
+        Observation observation = Observation.createNotStarted("r2.requests", observations)
+                .contextualName("r2 PresignGetObject")
+                .lowCardinalityKeyValue("operation", "PresignGetObject")
+                .start();
+        try {
+            Instant signedAt = clock.instant();
+            String url = presigner.presignGetObject(GetObjectPresignRequest.builder()
+                            .getObjectRequest(r -> r.bucket(bucket).key(key))
+                            .signatureDuration(validity)
+                            .build())
+                    .url()
+                    .toString();
+            observation.lowCardinalityKeyValue("outcome", "SUCCESS");
+            return new PresignedUrl(url, signedAt, signedAt.plus(validity));
+        } catch (RuntimeException e) {
+            observation.lowCardinalityKeyValue("outcome", "ERROR");
+            observation.error(e);
+            throw e;
+        } finally {
+            observation.stop();
+        }
+    }
+
+    private static String cacheKey(String bucket, String key) {
+        return bucket + "/" + key;
+    }
+}
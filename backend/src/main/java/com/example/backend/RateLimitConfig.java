@@ -0,0 +1,71 @@
+package com.example.backend;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.Map;
+
+@Configuration
+public class RateLimitConfig {
+
+    // /api/search: each miss can cost a metered RapidAPI call
+    @Bean
+    public RateLimiter searchRateLimiter(Environment env) {
+        return limiter("search", env);
+    }
+
+    // /api/download: one metered RapidAPI call per uncached md5
+    @Bean
+    public RateLimiter downloadRateLimiter(Environment env) {
+        return limiter("download", env);
+    }
+
+    @Bean
+    public WebMvcConfigurer rateLimitInterceptorConfigurer(
+            @Qualifier("searchRateLimiter") RateLimiter searchRateLimiter,
+            @Qualifier("downloadRateLimiter") RateLimiter downloadRateLimiter,
+            @Value("${ratelimit.enabled:true}") boolean enabled,
+            @Value("${ratelimit.trustForwardedFor:false}") boolean trustForwardedFor,
+            ObjectMapper objectMapper) {
+        return new WebMvcConfigurer() {
+            @Override
+            public void addInterceptors(InterceptorRegistry registry) {
+                if (!enabled) return;
+                registry.addInterceptor(new RateLimitInterceptor(searchRateLimiter, trustForwardedFor, objectMapper))
+                        .addPathPatterns("/api/search");
+                registry.addInterceptor(new RateLimitInterceptor(downloadRateLimiter, trustForwardedFor, objectMapper))
+                        .addPathPatterns("/api/download");
+            }
+        };
+    }
+
+    // Reactive profile: the same limiters in front of the same paths
+    @Bean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+    @ConditionalOnProperty(name = "ratelimit.enabled", havingValue = "true", matchIfMissing = true)
+    public RateLimitWebFilter rateLimitWebFilter(
+            @Qualifier("searchRateLimiter") RateLimiter searchRateLimiter,
+            @Qualifier("downloadRateLimiter") RateLimiter downloadRateLimiter,
+            @Value("${ratelimit.trustForwardedFor:false}") boolean trustForwardedFor,
+            ObjectMapper objectMapper) {
+        return new RateLimitWebFilter(Map.of("/api/search", searchRateLimiter, "/api/download", downloadRateLimiter),
+                trustForwardedFor, objectMapper);
+    }
+
+    private static RateLimiter limiter(String name, Environment env) {
+        String prefix = "ratelimit." + name + ".";
+        return new RateLimiter(
+                name,
+                env.getProperty(prefix + "ratePerSecond", Double.class, 1d),
+                env.getProperty(prefix + "burst", Integer.class, 10),
+                env.getProperty("ratelimit.maxClients", Integer.class, 100_000));
+    }
+}
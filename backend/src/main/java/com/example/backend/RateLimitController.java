@@ -0,0 +1,36 @@
+package com.example.backend;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/ratelimits")
+public class RateLimitController {
+
+    @Autowired
+    private List<RateLimiter> limiters;
+
+    @Autowired
+    private List<UpstreamClient> upstreams;
+
+    // Per-client limits (allowed / rejected, clients tracked) and the upstream budgets (granted, queued, shed, quota)
+    @GetMapping
+    public Map<String, Object> getRateLimitStats() {
+        Map<String, Object> clients = new LinkedHashMap<>();
+        for (RateLimiter limiter : limiters) clients.put(limiter.getName(), limiter.stats());
+        Map<String, Object> budgets = new LinkedHashMap<>();
+        for (UpstreamClient upstream : upstreams) {
+            if (upstream.getBudget() != null) budgets.put(upstream.getName(), upstream.getBudget().stats());
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("clients", clients);
+        stats.put("upstreamBudgets", budgets);
+        return stats;
+    }
+}
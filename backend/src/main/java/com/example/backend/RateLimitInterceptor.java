@@ -0,0 +1,55 @@
+package com.example.backend;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-client limit on one group of endpoints: a request over the client's rate is answered
+ * 429 with a Retry-After, before any work or upstream call is done for it. Clients are told
+ * apart by remote address, or by the first X-Forwarded-For hop when behind a trusted proxy.
+ */
+public class RateLimitInterceptor implements HandlerInterceptor {
+
+    private final RateLimiter limiter;
+    private final boolean trustForwardedFor;
+    private final ObjectMapper objectMapper;
+
+    public RateLimitInterceptor(RateLimiter limiter, boolean trustForwardedFor, ObjectMapper objectMapper) {
+        this.limiter = limiter;
+        this.trustForwardedFor = trustForwardedFor;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws IOException {
+        if ("OPTIONS".equals(request.getMethod())) return true;
+
+        long waitNanos = limiter.tryAcquire(clientKey(request));
+        if (waitNanos == 0) return true;
+
+        response.setStatus(429);
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos - 1) + 1)));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), Map.of("error", "Too many requests"));
+        return false;
+    }
+
+    private String clientKey(HttpServletRequest request) {
+        if (trustForwardedFor) {
+            String forwarded = request.getHeader("X-Forwarded-For");
+            if (forwarded != null && !forwarded.isBlank()) {
+                int comma = forwarded.indexOf(',');
+                return (comma < 0 ? forwarded : forwarded.substring(0, comma)).trim();
+            }
+        }
+        return request.getRemoteAddr();
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.backend;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link RateLimitInterceptor} for the "reactive" profile: one {@link RateLimiter} per exact
+ * path, keyed and answered (429 with Retry-After) the same way.
+ */
+public class RateLimitWebFilter implements WebFilter {
+
+    private final Map<String, RateLimiter> limitersByPath;
+    private final boolean trustForwardedFor;
+    private final ObjectMapper objectMapper;
+
+    public RateLimitWebFilter(Map<String, RateLimiter> limitersByPath, boolean trustForwardedFor, ObjectMapper objectMapper) {
+        this.limitersByPath = limitersByPath;
+        this.trustForwardedFor = trustForwardedFor;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        RateLimiter limiter = limitersByPath.get(request.getPath().pathWithinApplication().value());
+        if (limiter == null || HttpMethod.OPTIONS.equals(request.getMethod())) return chain.filter(exchange);
+
+        long waitNanos = limiter.tryAcquire(clientKey(request));
+        if (waitNanos == 0) return chain.filter(exchange);
+
+        exchange.getResponse().getHeaders().set(HttpHeaders.RETRY_AFTER,
+                String.valueOf(Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos - 1) + 1)));
+        return AuthWebFilter.writeError(exchange.getResponse(), HttpStatus.TOO_MANY_REQUESTS, "Too many requests", objectMapper);
+    }
+
+    private String clientKey(ServerHttpRequest request) {
+        if (trustForwardedFor) {
+            String forwarded = request.getHeaders().getFirst("X-Forwarded-For");
+            if (forwarded != null && !forwarded.isBlank()) {
+                int comma = forwarded.indexOf(',');
+                return (comma < 0 ? forwarded : forwarded.substring(0, comma)).trim();
+            }
+        }
+        InetSocketAddress remote = request.getRemoteAddress();
+        return remote == null ? "unknown" : remote.getAddress() != null ? remote.getAddress().getHostAddress() : remote.getHostString();
+    }
+}
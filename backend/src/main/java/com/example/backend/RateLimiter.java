@@ -0,0 +1,96 @@
+package com.example.backend;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Token bucket per client key: {@code ratePerSecond} sustained, bursts of up to {@code burst}.
+ *
+ * Each bucket is a single {@link AtomicLong} holding the time at which it will be full again
+ * (the generic cell rate algorithm), so taking a token is one read and one CAS, with no lock
+ * and no allocation once the client has a bucket. Keys are spread over independent stripes;
+ * when a stripe grows past its share of {@code maxKeys}, the buckets in it that have refilled
+ * are dropped, since a full bucket and a missing one behave the same.
+ */
+public class RateLimiter {
+
+    private final String name;
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final int maxKeysPerStripe;
+    private final LongSupplier clock;
+    private final ConcurrentHashMap<String, AtomicLong>[] stripes;
+    private final int stripeMask;
+
+    private final LongAdder allowed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    public RateLimiter(String name, double ratePerSecond, int burst, int maxKeys) {
+        this(name, ratePerSecond, burst, maxKeys, System::nanoTime);
+    }
+
+    @SuppressWarnings("unchecked")
+    RateLimiter(String name, double ratePerSecond, int burst, int maxKeys, LongSupplier clock) {
+        if (ratePerSecond <= 0) throw new IllegalArgumentException("ratePerSecond must be positive");
+        this.name = name;
+        this.intervalNanos = Math.max(1, Math.round(1_000_000_000d / ratePerSecond));
+        this.burstNanos = intervalNanos * Math.max(1, burst);
+        this.clock = clock;
+        int count = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() * 4 - 1) << 1);
+        this.stripes = new ConcurrentHashMap[count];
+        for (int i = 0; i < count; i++) stripes[i] = new ConcurrentHashMap<>();
+        this.stripeMask = count - 1;
+        this.maxKeysPerStripe = Math.max(16, maxKeys / count);
+    }
+
+    public String getName() { return name; }
+
+    /** Takes a token for {@code key}: 0 if one was available, otherwise nanoseconds until there is one. */
+    public long tryAcquire(String key) {
+        ConcurrentHashMap<String, AtomicLong> stripe = stripes[spread(key.hashCode()) & stripeMask];
+        AtomicLong bucket = stripe.get(key);
+        long now = clock.getAsLong();
+        if (bucket == null) bucket = newBucket(stripe, key, now);
+
+        while (true) {
+            long fullAt = bucket.get();
+            long next = Math.max(fullAt, now) + intervalNanos;
+            long over = next - now - burstNanos;
+            if (over > 0) {
+                rejected.increment();
+                return over;
+            }
+            if (bucket.compareAndSet(fullAt, next)) {
+                allowed.increment();
+                return 0;
+            }
+        }
+    }
+
+    private AtomicLong newBucket(ConcurrentHashMap<String, AtomicLong> stripe, String key, long now) {
+        if (stripe.size() >= maxKeysPerStripe) {
+            stripe.values().removeIf(b -> b.get() <= now);
+        }
+        return stripe.computeIfAbsent(key, k -> new AtomicLong(now));
+    }
+
+    public Map<String, Object> stats() {
+        int keys = 0;
+        for (ConcurrentHashMap<String, AtomicLong> stripe : stripes) keys += stripe.size();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("ratePerSecond", 1_000_000_000d / intervalNanos);
+        stats.put("burst", burstNanos / intervalNanos);
+        stats.put("keys", keys);
+        stats.put("allowed", allowed.sum());
+        stats.put("rejected", rejected.sum());
+        return stats;
+    }
+
+    private static int spread(int h) {
+        return (h ^ (h >>> 16)) * 0x9E3779B9;
+    }
+}
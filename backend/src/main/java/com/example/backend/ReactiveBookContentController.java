@@ -0,0 +1,154 @@
+package com.example.backend;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import software.amazon.awssdk.core.async.AsyncResponseTransformer;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Book content for the "reactive" profile, with the same ranges, ETags and local disk copies as
+ * {@link BookContentController}, streamed without a thread per download.
+ *
+ * From R2, the body is the S3AsyncClient's response publisher: Reactor Netty requests the next
+ * chunk only when the previous one has been written to the client, and the SDK only reads from
+ * R2 as those requests arrive, so a slow reader slows the R2 read down instead of filling
+ * memory. A disk copy is read the same way, {@code content.bufferKb} at a time. A client that
+ * hangs up cancels the read.
+ */
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RestController
+@RequestMapping("/api/admin/books")
+public class ReactiveBookContentController {
+
+    private final DataBufferFactory bufferFactory = DefaultDataBufferFactory.sharedInstance;
+
+    @Autowired
+    private ReactiveMongoTemplate mongo;
+
+    @Autowired
+    private CatalogIndex catalogIndex;
+
+    @Autowired
+    private R2ContentCache contentCache;
+
+    @Autowired
+    private S3AsyncClient s3AsyncClient;
+
+    @Autowired
+    @Qualifier("objectInfoCache")
+    private BoundedCache<String, R2ObjectInfo> objectInfoCache;
+
+    @Value("${cloudflare.r2.bucket:knowledgehub-books}")
+    private String bucketName;
+
+    @Value("${content.bufferKb:64}")
+    private int bufferKb;
+
+    @Value("${content.cacheControl:private, max-age=300}")
+    private String cacheControl;
+
+    @GetMapping("/{id}/content")
+    public Mono<ResponseEntity<?>> getContent(
+            @PathVariable String id,
+            @RequestHeader(value = HttpHeaders.RANGE, required = false) String rangeHeader,
+            @RequestHeader(value = HttpHeaders.IF_RANGE, required = false) String ifRange,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
+    ) {
+        AdminBook indexed = catalogIndex.get(id);
+        Mono<AdminBook> book = indexed != null ? Mono.just(indexed) : mongo.findById(id, AdminBook.class);
+        return book
+                .filter(found -> found.getR2Key() != null)
+                .flatMap(found -> info(found.getR2Key())
+                        .<ResponseEntity<?>>map(info -> respond(found, info, rangeHeader, ifRange, ifNoneMatch)))
+                .defaultIfEmpty(ResponseEntity.status(404).body(Map.of("error", "Book not found")))
+                .onErrorResume(error -> {
+                    Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                    if (cause instanceof NoSuchKeyException || (cause instanceof S3Exception s3 && s3.statusCode() == 404)) {
+                        return Mono.just(ResponseEntity.status(404).body(Map.of("error", "Book content not found")));
+                    }
+                    cause.printStackTrace();
+                    return Mono.just(ResponseEntity.status(500).body(Map.of("error", String.valueOf(cause.getMessage()))));
+                });
+    }
+
+    private ResponseEntity<?> respond(AdminBook book, R2ObjectInfo info, String rangeHeader, String ifRange, String ifNoneMatch) {
+        String key = book.getR2Key();
+        String eTag = book.getMd5() != null ? "\"" + book.getMd5() + "\"" : info.eTag();
+        if (ifNoneMatch != null && BookContentController.matches(ifNoneMatch, eTag)) {
+            return ResponseEntity.status(304).eTag(eTag).header(HttpHeaders.CACHE_CONTROL, cacheControl).build();
+        }
+
+        ByteRange range = ifRange == null || ifRange.equals(eTag) ? ByteRange.parse(rangeHeader, info.size()) : null;
+        if (range == ByteRange.NOT_SATISFIABLE) {
+            return ResponseEntity.status(416).header(HttpHeaders.CONTENT_RANGE, "bytes */" + info.size()).build();
+        }
+
+        long start = range == null ? 0 : range.start();
+        long length = range == null ? info.size() : range.length();
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(range == null ? 200 : 206)
+                .eTag(eTag)
+                .header(HttpHeaders.CACHE_CONTROL, cacheControl)
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.inline()
+                        .filename(BookContentController.fileName(key), StandardCharsets.UTF_8).build().toString())
+                .contentType(MediaType.parseMediaType(info.contentType() != null ? info.contentType() : "application/octet-stream"))
+                .contentLength(length);
+        if (range != null) response.header(HttpHeaders.CONTENT_RANGE, range.contentRange(info.size()));
+
+        R2ContentCache.CachedFile cached = contentCache.lookup(key, info);
+        Flux<DataBuffer> body = cached != null ? readFile(cached, start, length) : readR2(key, range);
+        return response.body(body);
+    }
+
+    // The info cache shared with the servlet variant, filled by a non-blocking HEAD
+    private Mono<R2ObjectInfo> info(String key) {
+        return Mono.fromFuture(objectInfoCache.getOrLoad(key, k -> s3AsyncClient
+                .headObject(b -> b.bucket(bucketName).key(k))
+                .thenApply(head -> new R2ObjectInfo(head.contentLength(), head.contentType(), head.eTag()))), true);
+    }
+
+    private Flux<DataBuffer> readR2(String key, ByteRange range) {
+        GetObjectRequest request = GetObjectRequest.builder()
+                .bucket(bucketName)
+                .key(key)
+                .range(range == null ? null : range.header())
+                .build();
+        return Mono.fromFuture(() -> s3AsyncClient.getObject(request, AsyncResponseTransformer.toPublisher()))
+                .flatMapMany(Flux::from)
+                .map(bufferFactory::wrap);
+    }
+
+    private Flux<DataBuffer> readFile(R2ContentCache.CachedFile cached, long start, long length) {
+        Flux<DataBuffer> file = DataBufferUtils.readAsynchronousFileChannel(
+                () -> AsynchronousFileChannel.open(cached.path(), StandardOpenOption.READ),
+                start, bufferFactory, Math.max(4096, bufferKb * 1024));
+        return DataBufferUtils.takeUntilByteCount(file, length);
+    }
+}
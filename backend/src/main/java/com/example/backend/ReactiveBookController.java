@@ -0,0 +1,332 @@
+package com.example.backend;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * Non-blocking variant of the public book endpoints, served by the "reactive" profile on
+ * WebFlux: /api/search, /api/download, /api/book-detail and /api/admin/download, with the same
+ * parameters, responses and caches as {@link BookController}.
+ *
+ * No request holds a thread while it waits: RapidAPI and GlitterNode are called through the
+ * asynchronous {@link RemoteBooks}, and Mongo through the reactive driver, so a few event-loop
+ * threads carry thousands of slow searches. Demand flows back from the client: a request that
+ * is cancelled or times out cancels its Mongo query and its upstream wait, GlitterNode chunks
+ * are requested only as lanes free up, and the upstream bulkhead and budget shed what the
+ * upstreams cannot take instead of letting it queue without bound.
+ */
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RestController
+@RequestMapping("/api")
+public class ReactiveBookController {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Autowired
+    private ReactiveMongoTemplate mongo;
+
+    @Autowired
+    private RemoteBooks remoteBooks;
+
+    @Autowired
+    private CatalogIndex catalogIndex;
+
+    @Autowired
+    private R2UrlSigner r2UrlSigner;
+
+    @Autowired
+    private ObservationRegistry observationRegistry;
+
+    @Autowired
+    @Qualifier("remoteSearchCache")
+    private BoundedCache<String, RemoteSearchPage> remoteSearchCache;
+
+    @Autowired
+    @Qualifier("searchWindowCache")
+    private BoundedCache<String, SearchWindow> searchWindowCache;
+
+    @Autowired
+    @Qualifier("bookDetailCache")
+    private BoundedCache<String, JsonNode> bookDetailCache;
+
+    @Autowired
+    @Qualifier("downloadLinksCache")
+    private BoundedCache<String, List<String>> downloadLinksCache;
+
+    @Value("${detail.chunkSize:20}")
+    private int detailChunkSize;
+
+    @Value("${detail.maxInFlight:4}")
+    private int detailMaxInFlight;
+
+    @Value("${search.local.maxResults:100}")
+    private int localSearchMaxResults;
+
+    @Value("${search.local.timeoutMs:1500}")
+    private long localSearchTimeoutMs;
+
+    @Value("${search.remote.timeoutMs:4000}")
+    private long remoteSearchTimeoutMs;
+
+    @Value("${cloudflare.r2.bucket:knowledgehub-books}")
+    private String bucketName;
+
+    // Same scatter-gather and windows as BookController.searchBooks
+    @GetMapping("/search")
+    public Mono<ResponseEntity<?>> searchBooks(
+            @RequestParam String query,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "60") int pageSize,
+            @RequestParam(required = false) String fields,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
+    ) {
+        if (pageSize < 1 || pageSize > 200) {
+            return Mono.just(ResponseEntity.badRequest().body(Map.of("error", "pageSize must be between 1 and 200")));
+        }
+        SearchCursor at;
+        int fieldMask;
+        try {
+            at = cursor == null || cursor.isBlank() ? SearchCursor.START : SearchCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            return Mono.just(ResponseEntity.badRequest().body(Map.of("error", "Invalid cursor")));
+        }
+        try {
+            fieldMask = BookSummary.parseFields(fields);
+        } catch (IllegalArgumentException e) {
+            return Mono.just(ResponseEntity.badRequest().body(Map.of("error", e.getMessage())));
+        }
+
+        int remoteLimit = remoteBooks.getSearchLimit();
+        String windowKey = BookController.normalizeQuery(query) + "|" + at.localOffset() + "|" + at.remoteOffset();
+        SearchWindow cached = searchWindowCache.get(windowKey);
+        if (cached != null) {
+            return Mono.just(BookController.searchPage(
+                    cached, at, pageSize, fieldMask, localSearchMaxResults, remoteLimit, List.of(), List.of(), ifNoneMatch));
+        }
+
+        Mono<SourceResult<Slice<AdminBook>>> local = settle("local", searchLocal(query, at.localOffset()), localSearchTimeoutMs);
+        Mono<SourceResult<RemoteSearchPage>> remote = settle("remote", searchRemote(query, at.remoteOffset()), remoteSearchTimeoutMs);
+
+        return Mono.zip(local, remote).map(results -> {
+            SourceResult<Slice<AdminBook>> adminResult = results.getT1();
+            SourceResult<RemoteSearchPage> remoteResult = results.getT2();
+            if (adminResult.error() != null) adminResult.error().printStackTrace();
+            boolean shed = remoteResult.error() instanceof UpstreamBudget.BudgetExhaustedException;
+            if (remoteResult.error() != null && !shed) remoteResult.error().printStackTrace();
+            List<String> timedOut = SourceResult.timedOut(adminResult, remoteResult);
+            List<String> failed = SourceResult.failed(adminResult, remoteResult);
+            if (adminResult.isMissing() && shed) {
+                return BookController.tooManyRequests((UpstreamBudget.BudgetExhaustedException) remoteResult.error());
+            }
+            if (adminResult.isMissing() && remoteResult.isMissing()) {
+                return ResponseEntity.status(500).body(Map.of(
+                        "error", "All search sources failed",
+                        "timedOut", timedOut,
+                        "failed", failed
+                ));
+            }
+
+            Slice<AdminBook> localSlice = adminResult.valueOr(new SliceImpl<>(List.of()));
+            RemoteSearchPage remotePage = remoteResult.valueOr(RemoteSearchPage.of(List.of()));
+            SearchWindow window = new SearchWindow(
+                    SearchMerger.merge(query, localSlice.getContent(), remotePage.books(), catalogIndex::hostsMd5),
+                    localSlice.hasNext(),
+                    remotePage.books().size() >= remoteLimit
+            );
+            if (timedOut.isEmpty() && failed.isEmpty()) searchWindowCache.put(windowKey, window);
+
+            return BookController.searchPage(
+                    window, at, pageSize, fieldMask, localSearchMaxResults, remoteLimit, timedOut, failed, ifNoneMatch);
+        });
+    }
+
+    // A source that misses its deadline is cancelled, which stops its Mongo cursor or its wait upstream
+    private static <T> Mono<SourceResult<T>> settle(String source, Mono<T> call, long deadlineMs) {
+        return call
+                .timeout(Duration.ofMillis(deadlineMs))
+                .map(value -> new SourceResult<>(source, value, false, null))
+                .defaultIfEmpty(new SourceResult<>(source, null, false, null))
+                .onErrorResume(error -> Mono.just(error instanceof TimeoutException
+                        ? new SourceResult<>(source, null, true, null)
+                        : new SourceResult<>(source, null, false, unwrap(error))));
+    }
+
+    // From the catalog index when it is built (in memory, so on the event loop); until then a
+    // reactive Mongo query, one more row than a window to know whether there is a next one
+    private Mono<Slice<AdminBook>> searchLocal(String query, int offset) {
+        if (offset < 0) return Mono.just(new SliceImpl<>(List.of()));
+        Pageable window = PageRequest.of(offset / localSearchMaxResults, localSearchMaxResults);
+        if (catalogIndex.isReady()) {
+            return searchPhase("local", "index", () -> Mono.<Slice<AdminBook>>fromCallable(() -> {
+                CatalogIndex.Page result = catalogIndex.search(query, offset, localSearchMaxResults);
+                List<AdminBook> books = new ArrayList<>(result.hits().size());
+                for (CatalogIndex.Hit hit : result.hits()) books.add(hit.book());
+                return new SliceImpl<>(books, window, result.total() > offset + localSearchMaxResults);
+            }));
+        }
+        Query titleContains = new Query(Criteria.where("title").regex(Pattern.quote(query), "i"))
+                .with(Sort.by("title", "id"))
+                .skip(window.getOffset())
+                .limit(localSearchMaxResults + 1);
+        return searchPhase("local", "mongo", () -> mongo.find(titleContains, AdminBook.class)
+                .collectList()
+                .<Slice<AdminBook>>map(books -> books.size() > localSearchMaxResults
+                        ? new SliceImpl<>(books.subList(0, localSearchMaxResults), window, true)
+                        : new SliceImpl<>(books, window, false)));
+    }
+
+    private Mono<RemoteSearchPage> searchRemote(String query, int skip) {
+        if (skip < 0) return Mono.just(RemoteSearchPage.of(List.of()));
+        String normalized = BookController.normalizeQuery(query);
+        String key = skip == 0 ? normalized : normalized + "|" + skip;
+        // The page is shared with every request waiting on the same key: cancelling ours must not cancel it
+        return searchPhase("remote", "rapidapi", () -> Mono.fromFuture(
+                remoteSearchCache.getOrLoad(key, k -> remoteBooks.search(normalized, skip)), true));
+    }
+
+    // The "search.phase" observation of BookController, started on subscribe and stopped on
+    // completion, error or cancellation
+    private <T> Mono<T> searchPhase(String phase, String source, Supplier<Mono<T>> call) {
+        return Mono.defer(() -> {
+            Observation observation = Observation.createNotStarted("search.phase", observationRegistry)
+                    .contextualName("search " + phase)
+                    .lowCardinalityKeyValue("phase", phase)
+                    .lowCardinalityKeyValue("source", source)
+                    .start();
+            return call.get()
+                    .doOnError(observation::error)
+                    .doFinally(signal -> observation.stop());
+        });
+    }
+
+    // Same cache and response as BookController.getBookDetail; misses are fetched in chunks with at
+    // most detailMaxInFlight requests outstanding, the next chunk requested as one completes
+    @SuppressWarnings("unchecked")
+    @PostMapping("/book-detail")
+    public Mono<ResponseEntity<?>> getBookDetail(@RequestBody Map<String, Object> payload) {
+        List<String> bookIds = (List<String>) payload.get("book_ids");
+        if (bookIds == null || bookIds.isEmpty()) {
+            return Mono.just(ResponseEntity.badRequest().body(Map.of("error", "book_ids is required")));
+        }
+        String address = String.valueOf(payload.getOrDefault("address", ""));
+
+        List<String> keys = new ArrayList<>(bookIds.size());
+        for (String id : bookIds) {
+            if (id != null && !id.isBlank()) keys.add(RemoteBooks.detailCacheKey(id, address));
+        }
+
+        Map<String, CompletableFuture<JsonNode>> details = bookDetailCache.getAllOrLoad(keys,
+                misses -> fetchBookDetails(misses, address));
+
+        return Mono.fromFuture(CompletableFuture.allOf(details.values().toArray(new CompletableFuture[0])), true)
+                .then(Mono.<ResponseEntity<?>>fromSupplier(() -> {
+                    ObjectNode books = mapper.createObjectNode();
+                    details.forEach((key, detail) -> {
+                        JsonNode node = detail.join();
+                        if (node != null) books.set(RemoteBooks.detailId(key), node);
+                    });
+                    ObjectNode root = mapper.createObjectNode();
+                    root.putObject("data").set("book", books);
+                    return ResponseEntity.ok(root);
+                }))
+                .onErrorResume(error -> {
+                    Throwable cause = unwrap(error);
+                    if (cause instanceof UpstreamStatusException upstream) {
+                        return Mono.just(ResponseEntity.status(upstream.getStatus())
+                                .body(Map.of("error", "Failed to fetch data from Glitter Node")));
+                    }
+                    if (cause instanceof UpstreamBudget.BudgetExhaustedException exhausted) {
+                        return Mono.just(BookController.tooManyRequests(exhausted));
+                    }
+                    if (cause instanceof UpstreamClient.UpstreamUnavailableException) {
+                        return Mono.just(ResponseEntity.status(503).body(Map.of("error", cause.getMessage())));
+                    }
+                    cause.printStackTrace();
+                    return Mono.just(ResponseEntity.status(500).body(Map.of("error", String.valueOf(cause.getMessage()))));
+                });
+    }
+
+    // Loads the cache misses: the cache owns the result, so it runs to completion even if the request goes away
+    private CompletableFuture<Map<String, JsonNode>> fetchBookDetails(List<String> keys, String address) {
+        return Flux.fromIterable(keys)
+                .buffer(detailChunkSize)
+                .flatMap(chunk -> Mono.fromFuture(() -> remoteBooks.details(chunk, address)), detailMaxInFlight)
+                .collect(() -> new HashMap<String, JsonNode>(), Map::putAll)
+                .<Map<String, JsonNode>>map(found -> found)
+                .toFuture();
+    }
+
+    @GetMapping("/download")
+    public Mono<ResponseEntity<?>> getDownloadLinks(@RequestParam String md5) {
+        return Mono.fromFuture(downloadLinksCache.getOrLoad(md5.trim().toLowerCase(Locale.ROOT), remoteBooks::downloadLinks), true)
+                .<ResponseEntity<?>>map(links -> ResponseEntity.ok(Map.of("links", links)))
+                .onErrorResume(error -> {
+                    Throwable cause = unwrap(error);
+                    if (cause instanceof UpstreamStatusException upstream) {
+                        return Mono.just(ResponseEntity.status(upstream.getStatus())
+                                .body(Map.of("error", "Failed to fetch download links")));
+                    }
+                    if (cause instanceof UpstreamBudget.BudgetExhaustedException exhausted) {
+                        return Mono.just(BookController.tooManyRequests(exhausted));
+                    }
+                    if (cause instanceof UpstreamClient.UpstreamUnavailableException) {
+                        return Mono.just(ResponseEntity.status(503).body(Map.of("error", cause.getMessage())));
+                    }
+                    cause.printStackTrace();
+                    return Mono.just(ResponseEntity.status(500).body(Map.of("error", String.valueOf(cause.getMessage()))));
+                });
+    }
+
+    // Presigning is local computation and cached, so only a book missing from the index goes to Mongo
+    @GetMapping("/admin/download")
+    public Mono<ResponseEntity<?>> downloadAdminBook(@RequestParam String bookId) {
+        AdminBook indexed = catalogIndex.get(bookId);
+        Mono<AdminBook> book = indexed != null ? Mono.just(indexed) : mongo.findById(bookId, AdminBook.class);
+        return book
+                .<ResponseEntity<?>>map(found -> {
+                    PresignedUrl url = r2UrlSigner.getDownloadUrl(bucketName, found.getR2Key());
+                    return ResponseEntity.ok(Map.of("downloadUrl", url.url(), "expiresAt", url.expiresAt().toString()));
+                })
+                .defaultIfEmpty(ResponseEntity.status(404).body(Map.of("error", "Book not found")))
+                .onErrorResume(error -> {
+                    error.printStackTrace();
+                    return Mono.just(ResponseEntity.status(500).body(Map.of("error", String.valueOf(error.getMessage()))));
+                });
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.backend;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+import java.util.Optional;
+
+/**
+ * Cover thumbnails for the "reactive" profile, with the same sizes, ETags and caching as
+ * {@link CoverController}. An admin book missing from the index is looked up through the
+ * reactive driver, so the event loop never waits on Mongo; rendering runs on the cover executor.
+ */
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RestController
+@RequestMapping("/api/covers")
+public class ReactiveCoverController {
+
+    @Autowired
+    private ReactiveMongoTemplate mongo;
+
+    @Autowired
+    private CatalogIndex catalogIndex;
+
+    @Autowired
+    private CoverService coverService;
+
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<?>> getCover(
+            @PathVariable String id,
+            @RequestParam(defaultValue = "m") String size,
+            @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch
+    ) {
+        CoverService.Size thumbnailSize;
+        try {
+            thumbnailSize = CoverService.Size.parse(size);
+        } catch (IllegalArgumentException e) {
+            return Mono.just(CoverController.badSize());
+        }
+
+        AdminBook indexed = catalogIndex.get(id);
+        Mono<Optional<AdminBook>> book = indexed != null || !CoverService.mayBeAdminBook(id)
+                ? Mono.just(Optional.ofNullable(indexed))
+                : mongo.findById(id, AdminBook.class).map(Optional::of).defaultIfEmpty(Optional.empty());
+        return book
+                .flatMap(b -> Mono.fromFuture(() -> coverService.get(id, b.orElse(null), thumbnailSize)))
+                .<ResponseEntity<?>>map(thumbnail -> CoverController.response(thumbnail, ifNoneMatch))
+                .defaultIfEmpty(CoverController.response(null, ifNoneMatch))
+                .onErrorResume(e -> Mono.just(CoverController.failed(e)));
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.backend;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Server for the "reactive" profile. Tomcat is on the classpath for the servlet variant and
+ * Boot would otherwise prefer it for a reactive app too, running the handlers behind a servlet
+ * adapter on its thread pool; Reactor Netty runs them on a few event-loop threads.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveServerConfig {
+
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+}
@@ -0,0 +1,191 @@
+package com.example.backend;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The remote book sources behind the public endpoints: RapidAPI (Anna's Archive) search and
+ * download links, and GlitterNode details. Calls are sent asynchronously through the
+ * {@link UpstreamClient}s, so no thread waits on them; caching is left to the callers, the
+ * servlet {@link BookController} and the reactive {@link ReactiveBookController}.
+ */
+@Component
+public class RemoteBooks {
+
+    private static final String RAPIDAPI_KEY = "09d1087a77msh8003cef6c78e753p13eafbjsn1cdff80684cf";
+    private static final String RAPIDAPI_HOST = "annas-archive-api.p.rapidapi.com";
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Autowired
+    private CoverService coverService;
+
+    @Autowired
+    @Qualifier("rapidApiClient")
+    private UpstreamClient rapidApiClient;
+
+    @Autowired
+    @Qualifier("glitterNodeClient")
+    private UpstreamClient glitterNodeClient;
+
+    @Value("${upstream.rapidapi.baseUrl:https://" + RAPIDAPI_HOST + "}")
+    private String rapidApiBaseUrl;
+
+    @Value("${upstream.glitternode.url:https://lgate.glitternode.ru/v1/book}")
+    private String glitterNodeUrl;
+
+    @Value("${search.remote.timeoutMs:4000}")
+    private long remoteSearchTimeoutMs;
+
+    @Value("${search.remote.limit:40}")
+    private int remoteSearchLimit;
+
+    /** Results per remote search page; a full page means there may be more. */
+    public int getSearchLimit() { return remoteSearchLimit; }
+
+    public CompletableFuture<RemoteSearchPage> search(String normalizedQuery, int skip) {
+        String encodedQuery = URLEncoder.encode(normalizedQuery, StandardCharsets.UTF_8);
+        String url = String.format(
+                "%s/search?q=%s&cat=fiction,nonfiction,comic,magazine,musicalscore,other,unknown&skip=%d&limit=%d&ext=pdf,epub,mobi,azw3&sort=mostRelevant&source=libgenLi,libgenRs",
+                rapidApiBaseUrl, encodedQuery, skip, remoteSearchLimit
+        );
+
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(url))
+                .header("x-rapidapi-key", RAPIDAPI_KEY)
+                .header("x-rapidapi-host", RAPIDAPI_HOST)
+                .timeout(Duration.ofMillis(remoteSearchTimeoutMs))
+                .GET()
+                .build();
+
+        // The first page of a query is what users see; deeper pages are the first to wait or be shed
+        UpstreamBudget.Priority priority = skip == 0 ? UpstreamBudget.Priority.NORMAL : UpstreamBudget.Priority.LOW;
+        return rapidApiClient.send("search", priority, request, HttpResponse.BodyHandlers.ofByteArray())
+                .thenApply(response -> {
+                    if (response.statusCode() != 200) {
+                        throw new UpstreamStatusException("Remote search", response.statusCode());
+                    }
+                    try {
+                        return RemoteSearchPage.of(proxyCovers(RemoteSearchParser.parse(mapper.getFactory(), response.body())));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+    }
+
+    // Remote covers are served as thumbnails from /api/covers instead of full-size third-party images
+    private List<BookSummary> proxyCovers(List<BookSummary> books) {
+        List<BookSummary> proxied = new ArrayList<>(books.size());
+        for (BookSummary book : books) {
+            if (!book.id().isEmpty() && book.imgUrl().startsWith("http")) {
+                coverService.registerSource(book.id(), book.imgUrl());
+                proxied.add(book.withImgUrl("/api/covers/" + book.id()));
+            } else {
+                proxied.add(book);
+            }
+        }
+        return proxied;
+    }
+
+    public CompletableFuture<List<String>> downloadLinks(String md5) {
+        String url = String.format("%s/download?md5=%s", rapidApiBaseUrl, URLEncoder.encode(md5, StandardCharsets.UTF_8));
+
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(url))
+                .header("x-rapidapi-key", RAPIDAPI_KEY)
+                .header("x-rapidapi-host", RAPIDAPI_HOST)
+                .GET()
+                .build();
+
+        // A user clicked download and is waiting: ahead of searches for the RapidAPI budget
+        return rapidApiClient.send("download", UpstreamBudget.Priority.HIGH, request, HttpResponse.BodyHandlers.ofString())
+                .thenApply(response -> {
+                    if (response.statusCode() != 200) {
+                        throw new UpstreamStatusException("Download links", response.statusCode());
+                    }
+                    JsonNode root;
+                    try {
+                        root = mapper.readTree(response.body());
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    if (!root.isArray()) {
+                        throw new IllegalStateException("Unexpected response format");
+                    }
+
+                    List<String> links = new ArrayList<>();
+                    for (JsonNode link : root) {
+                        links.add(link.asText());
+                    }
+                    return links;
+                });
+    }
+
+    // GlitterNode keys its response by upper-case md5; the address is part of the request, so of the key too
+    static String detailCacheKey(String md5, String address) {
+        return md5.trim().toUpperCase(Locale.ROOT) + "|" + address;
+    }
+
+    static String detailId(String key) {
+        return key.substring(0, key.indexOf('|'));
+    }
+
+    /** Details of one chunk of {@link #detailCacheKey} keys, in one request; keys GlitterNode does not know are left out. */
+    public CompletableFuture<Map<String, JsonNode>> details(List<String> keys, String address) {
+        List<String> ids = new ArrayList<>(keys.size());
+        for (String key : keys) ids.add(detailId(key).toLowerCase(Locale.ROOT));
+
+        Map<String, Object> requestBody = new HashMap<>();
+        requestBody.put("book_ids", ids);
+        requestBody.put("address", address);
+
+        HttpRequest request;
+        try {
+            request = HttpRequest.newBuilder()
+                    .uri(URI.create(glitterNodeUrl))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(mapper.writeValueAsString(requestBody)))
+                    .build();
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        return glitterNodeClient.send("details", request, HttpResponse.BodyHandlers.ofString())
+                .thenApply(response -> {
+                    if (response.statusCode() != 200) {
+                        throw new UpstreamStatusException("Glitter Node", response.statusCode());
+                    }
+                    JsonNode books;
+                    try {
+                        books = mapper.readTree(response.body()).path("data").path("book");
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    Map<String, JsonNode> byKey = new HashMap<>();
+                    for (String key : keys) {
+                        JsonNode detail = books.get(detailId(key));
+                        if (detail != null && !detail.isNull()) byKey.put(key, detail);
+                    }
+                    return byKey;
+                });
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.backend;
+
+import java.util.List;
+
+/**
+ * One page of Anna's Archive search results as cached in front of RapidAPI. {@code bytes} is
+ * the estimated heap size of the summaries, used as the entry's weight in the cache.
+ */
+record RemoteSearchPage(List<BookSummary> books, long bytes) {
+
+    static RemoteSearchPage of(List<BookSummary> books) {
+        long bytes = 64;
+        for (BookSummary book : books) bytes += book.estimatedBytes();
+        return new RemoteSearchPage(books, bytes);
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.backend;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads the {@code books} array of a RapidAPI /search response token by token into
+ * {@link BookSummary} records, without building a tree or decoding the body to a String.
+ * Missing or null fields get the same defaults the search response has always used.
+ */
+final class RemoteSearchParser {
+
+    private RemoteSearchParser() {}
+
+    static List<BookSummary> parse(JsonFactory factory, byte[] body) throws IOException {
+        try (JsonParser p = factory.createParser(body)) {
+            if (p.nextToken() != JsonToken.START_OBJECT) return List.of();
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String field = p.currentName();
+                JsonToken value = p.nextToken();
+                if ("books".equals(field) && value == JsonToken.START_ARRAY) {
+                    List<BookSummary> books = new ArrayList<>(48);
+                    JsonToken token;
+                    while ((token = p.nextToken()) != JsonToken.END_ARRAY && token != null) {
+                        if (token == JsonToken.START_OBJECT) books.add(readBook(p));
+                        else p.skipChildren();
+                    }
+                    return books;
+                }
+                p.skipChildren();
+            }
+            return List.of();
+        }
+    }
+
+    private static BookSummary readBook(JsonParser p) throws IOException {
+        String md5 = null, title = null, author = null, publisher = null, year = null, descr = null;
+        String format = null, size = null, imgUrl = null, language = null, pages = null, extension = null;
+        boolean hasLanguage = false, hasPages = false, hasExtension = false;
+
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.currentName();
+            p.nextToken();
+            String text = text(p);
+            switch (field) {
+                case "md5" -> md5 = text;
+                case "title" -> title = text;
+                case "author" -> author = text;
+                case "publisher" -> publisher = text;
+                case "year" -> year = text;
+                case "descr" -> descr = text;
+                case "format" -> format = text;
+                case "size" -> size = text;
+                case "imgUrl" -> imgUrl = text;
+                case "language" -> { language = text; hasLanguage = true; }
+                case "pages" -> { pages = text; hasPages = true; }
+                case "extension" -> { extension = text; hasExtension = true; }
+                default -> { }
+            }
+        }
+
+        return new BookSummary(
+                md5 == null ? "" : md5.trim(),
+                or(title, "Untitled"),
+                or(author, "Unknown"),
+                or(publisher, "Unknown Publisher"),
+                or(year, "N/A"),
+                or(descr, ""),
+                or(format, "Unknown"),
+                or(size, "N/A"),
+                or(imgUrl, ""),
+                hasLanguage ? or(language, "Unknown") : null,
+                hasPages ? or(pages, "N/A") : null,
+                hasExtension ? or(extension, "") : null,
+                false
+        );
+    }
+
+    // Scalars as text, null as absent, and objects or arrays skipped as ""
+    private static String text(JsonParser p) throws IOException {
+        JsonToken token = p.currentToken();
+        if (token == JsonToken.VALUE_NULL) return null;
+        if (token == JsonToken.START_OBJECT || token == JsonToken.START_ARRAY) {
+            p.skipChildren();
+            return "";
+        }
+        return p.getText();
+    }
+
+    private static String or(String value, String fallback) {
+        return value != null ? value : fallback;
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.backend;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position in a /api/search result stream, handed to clients as an opaque token.
+ *
+ * Results are produced in windows: one merge of a block of local hits and one RapidAPI page.
+ * {@code localOffset} and {@code remoteOffset} pick the window, -1 meaning that source is
+ * exhausted, and {@code position} is the index of the next book inside the merged window.
+ */
+record SearchCursor(int localOffset, int remoteOffset, int position) {
+
+    static final SearchCursor START = new SearchCursor(0, 0, 0);
+
+    private static final String VERSION = "v1";
+
+    String encode() {
+        String raw = VERSION + "." + localOffset + "." + remoteOffset + "." + position;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** @throws IllegalArgumentException if the token was not produced by {@link #encode}. */
+    static SearchCursor decode(String token) {
+        String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split("\\.");
+        if (parts.length != 4 || !VERSION.equals(parts[0])) {
+            throw new IllegalArgumentException("Invalid search cursor");
+        }
+        SearchCursor cursor = new SearchCursor(Integer.parseInt(parts[1]), Integer.parseInt(parts[2]), Integer.parseInt(parts[3]));
+        if (cursor.localOffset < -1 || cursor.remoteOffset < -1 || cursor.position < 0) {
+            throw new IllegalArgumentException("Invalid search cursor");
+        }
+        return cursor;
+    }
+}
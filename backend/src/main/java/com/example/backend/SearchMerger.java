@@ -0,0 +1,100 @@
+package com.example.backend;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Merges the per-source result lists of /api/search into one ranked list.
+ *
+ * Remote results whose md5 matches the content hash of an admin book are dropped, since we
+ * host that file ourselves. The check is a hash lookup per result against the whole catalog,
+ * not just the admin books in this window. Every remaining book is
+ * then scored the same way regardless of source: how much of the query its title, author and
+ * publisher match, plus a prior from its rank within its own source, plus a small bonus for
+ * admin books so our copy wins a tie. The sort is stable, so equal scores keep source order.
+ */
+final class SearchMerger {
+
+    private static final float TITLE_WEIGHT = 3f;
+    private static final float AUTHOR_WEIGHT = 2f;
+    private static final float PUBLISHER_WEIGHT = 1f;
+    private static final float MAX_FIELD_WEIGHT = TITLE_WEIGHT;
+
+    private static final float RANK_PRIOR_WEIGHT = 0.3f;
+    private static final float ADMIN_BONUS = 0.05f;
+
+    private SearchMerger() {}
+
+    private record Scored(BookSummary book, float score) {}
+
+    /**
+     * {@code local} and {@code remote} are each in their source's own relevance order;
+     * {@code hosted} tells whether any admin book has a given md5.
+     */
+    static List<BookSummary> merge(String query, List<AdminBook> local, List<BookSummary> remote,
+                                   Predicate<String> hosted) {
+        List<String> terms = CatalogIndex.tokenize(query);
+
+        Set<String> hostedHashes = new HashSet<>(local.size() * 2);
+        for (AdminBook b : local) {
+            if (b.getMd5() != null) hostedHashes.add(b.getMd5().toLowerCase(Locale.ROOT));
+        }
+
+        List<Scored> scored = new ArrayList<>(local.size() + remote.size());
+        for (int i = 0; i < local.size(); i++) {
+            BookSummary book = BookSummary.fromAdminBook(local.get(i));
+            scored.add(new Scored(book, relevance(terms, book) + rankPrior(i, local.size()) + ADMIN_BONUS));
+        }
+        for (int i = 0; i < remote.size(); i++) {
+            BookSummary book = remote.get(i);
+            if (hostedHashes.contains(book.id().toLowerCase(Locale.ROOT)) || hosted.test(book.id())) continue;
+            scored.add(new Scored(book, relevance(terms, book) + rankPrior(i, remote.size())));
+        }
+
+        scored.sort((a, b) -> Float.compare(b.score, a.score));
+        List<BookSummary> books = new ArrayList<>(scored.size());
+        for (Scored s : scored) books.add(s.book);
+        return books;
+    }
+
+    /**
+     * Fraction of the query matched, in [0, 1]: each term counts with the weight of the best
+     * field it appears in. The last term also matches as a prefix, as in the catalog index.
+     */
+    static float relevance(List<String> terms, BookSummary book) {
+        if (terms.isEmpty()) return 0f;
+        String title = book.title(), author = book.author(), publisher = book.publisher();
+
+        float matched = 0f;
+        for (int t = 0; t < terms.size(); t++) {
+            String term = terms.get(t);
+            boolean prefix = t == terms.size() - 1;
+            if (contains(title, term, prefix)) matched += TITLE_WEIGHT;
+            else if (contains(author, term, prefix)) matched += AUTHOR_WEIGHT;
+            else if (contains(publisher, term, prefix)) matched += PUBLISHER_WEIGHT;
+        }
+        return matched / (terms.size() * MAX_FIELD_WEIGHT);
+    }
+
+    // 1 for a source's first result, falling towards 0 for its last
+    private static float rankPrior(int rank, int size) {
+        return RANK_PRIOR_WEIGHT * (1f - (float) rank / Math.max(1, size));
+    }
+
+    // Scans the field in place for a token equal to (or starting with) the lower-case term,
+    // so scoring a page of results allocates nothing
+    private static boolean contains(String field, String term, boolean prefix) {
+        if (field == null) return false;
+        int n = field.length(), len = term.length();
+        for (int i = 0; i + len <= n; i++) {
+            if (i > 0 && Character.isLetterOrDigit(field.charAt(i - 1))) continue;
+            if (!field.regionMatches(true, i, term, 0, len)) continue;
+            if (prefix || i + len == n || !Character.isLetterOrDigit(field.charAt(i + len))) return true;
+        }
+        return false;
+    }
+}
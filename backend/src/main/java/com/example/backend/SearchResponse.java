@@ -0,0 +1,42 @@
+package com.example.backend;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Body of /api/search: one page of merged books, the cursor for the next page (null at the
+ * end), and the sources that timed out or failed. Each book is written with only the
+ * {@code fields} the request asked for (a {@link BookSummary#parseFields} mask).
+ */
+@JsonSerialize(using = SearchResponse.Serializer.class)
+record SearchResponse(List<BookSummary> books, String nextCursor, List<String> timedOut, List<String> failed, int fields) {
+
+    SearchResponse(List<BookSummary> books, String nextCursor, List<String> timedOut, List<String> failed) {
+        this(books, nextCursor, timedOut, failed, BookSummary.ALL_FIELDS);
+    }
+
+    static class Serializer extends JsonSerializer<SearchResponse> {
+        @Override
+        public void serialize(SearchResponse r, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject();
+            gen.writeArrayFieldStart("books");
+            for (BookSummary book : r.books) book.writeTo(gen, r.fields);
+            gen.writeEndArray();
+            gen.writeStringField("nextCursor", r.nextCursor);
+            writeStrings(gen, "timedOut", r.timedOut);
+            writeStrings(gen, "failed", r.failed);
+            gen.writeEndObject();
+        }
+
+        private static void writeStrings(JsonGenerator gen, String name, List<String> values) throws IOException {
+            gen.writeArrayFieldStart(name);
+            for (String value : values) gen.writeString(value);
+            gen.writeEndArray();
+        }
+    }
+}
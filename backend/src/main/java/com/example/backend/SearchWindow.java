@@ -0,0 +1,61 @@
+package com.example.backend;
+
+import java.util.List;
+
+/**
+ * One merged and ranked block of /api/search results, cached per query and source offsets so
+ * paging through it does not search again. The flags say whether each source may have results
+ * past this window.
+ *
+ * {@code version} is a hash of the window's content, computed once when it is built; the ETags
+ * of its pages are derived from it, so a conditional GET is answered without serializing.
+ */
+record SearchWindow(List<BookSummary> books, boolean localHasMore, boolean remoteHasMore, long version) {
+
+    SearchWindow(List<BookSummary> books, boolean localHasMore, boolean remoteHasMore) {
+        this(books, localHasMore, remoteHasMore, versionOf(books, localHasMore, remoteHasMore));
+    }
+
+    private static long versionOf(List<BookSummary> books, boolean localHasMore, boolean remoteHasMore) {
+        long h = (localHasMore ? 2 : 0) | (remoteHasMore ? 1 : 0);
+        for (BookSummary book : books) h = h * 0xFF51AFD7ED558CCDL + book.contentHash();
+        return h ^ (h >>> 33);
+    }
+
+    /**
+     * Strong ETag of the page at {@code at}: the window's version and everything else in the
+     * request that shapes the body.
+     */
+    String eTag(SearchCursor at, int pageSize, int fields) {
+        return "\"" + Long.toHexString(version) + "-" + at.localOffset() + "." + at.remoteOffset() + "."
+                + at.position() + "." + pageSize + "." + Integer.toHexString(fields) + "\"";
+    }
+
+    /**
+     * The page of this window at {@code at}, with the cursor to the page after it: further into
+     * this window, or on to the next one, which starts {@code localBlock} / {@code remoteBlock}
+     * further into each source that has more.
+     */
+    SearchResponse page(SearchCursor at, int pageSize, int localBlock, int remoteBlock,
+                        List<String> timedOut, List<String> failed, int fields) {
+        int from = Math.min(at.position(), books.size());
+        int to = Math.min(from + pageSize, books.size());
+
+        SearchCursor next = null;
+        if (to < books.size()) {
+            next = new SearchCursor(at.localOffset(), at.remoteOffset(), to);
+        } else if (localHasMore || remoteHasMore) {
+            next = new SearchCursor(
+                    localHasMore ? at.localOffset() + localBlock : -1,
+                    remoteHasMore ? at.remoteOffset() + remoteBlock : -1,
+                    0);
+        }
+        return new SearchResponse(books.subList(from, to), next == null ? null : next.encode(), timedOut, failed, fields);
+    }
+
+    long estimatedBytes() {
+        long bytes = 96;
+        for (BookSummary book : books) bytes += 16 + book.estimatedBytes();
+        return bytes;
+    }
+}
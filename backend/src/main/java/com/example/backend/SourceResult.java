@@ -0,0 +1,50 @@
+package com.example.backend;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Outcome of one source in a scatter-gather call: its value, or whether it timed out or failed.
+ * {@link #settle} never completes exceptionally, so callers can combine sources freely.
+ */
+record SourceResult<T>(String source, T value, boolean timedOut, Throwable error) {
+
+    static <T> CompletableFuture<SourceResult<T>> settle(String source, CompletableFuture<T> future, long deadlineMs) {
+        return future
+                .orTimeout(deadlineMs, TimeUnit.MILLISECONDS)
+                .handle((value, error) -> {
+                    if (error == null) return new SourceResult<>(source, value, false, null);
+                    Throwable cause = error instanceof CompletionException && error.getCause() != null
+                            ? error.getCause() : error;
+                    if (cause instanceof TimeoutException) {
+                        future.cancel(true);
+                        return new SourceResult<>(source, null, true, null);
+                    }
+                    return new SourceResult<>(source, null, false, cause);
+                });
+    }
+
+    boolean isMissing() {
+        return timedOut || error != null;
+    }
+
+    T valueOr(T fallback) {
+        return isMissing() || value == null ? fallback : value;
+    }
+
+    static List<String> timedOut(SourceResult<?>... results) {
+        List<String> names = new ArrayList<>();
+        for (SourceResult<?> r : results) if (r.timedOut) names.add(r.source);
+        return names;
+    }
+
+    static List<String> failed(SourceResult<?>... results) {
+        List<String> names = new ArrayList<>();
+        for (SourceResult<?> r : results) if (r.error != null) names.add(r.source);
+        return names;
+    }
+}
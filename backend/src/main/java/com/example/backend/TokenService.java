@@ -0,0 +1,152 @@
+package com.example.backend;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stateless session tokens: JWTs (HS256) carrying the user id, name and role, signed with
+ * {@code auth.token.secret}. Verifying one is an HMAC over a few hundred bytes with a key and
+ * {@link Mac} prepared once per thread, plus a small JSON parse, so authorizing a request needs
+ * no Mongo lookup. The flip side is that a role change or deleted user takes effect when the
+ * token expires ({@code auth.token.ttlMinutes}).
+ *
+ * {@code auth.token.previousSecret} is still accepted for verification, so the secret can be
+ * rotated without logging everyone out. Without a configured secret a random one is generated
+ * at startup: tokens then do not survive a restart and are not shared between nodes.
+ */
+@Component
+public class TokenService {
+
+    public record Principal(String userId, String username, String role, Instant expiresAt) {
+        public boolean isAdmin() {
+            return "ADMIN".equals(role);
+        }
+    }
+
+    public record Token(String value, Instant expiresAt) {}
+
+    private static final Base64.Encoder B64 = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder B64D = Base64.getUrlDecoder();
+    private static final String HEADER = B64.encodeToString("{\"alg\":\"HS256\",\"typ\":\"JWT\"}".getBytes(StandardCharsets.UTF_8));
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final Duration ttl;
+    private final Clock clock;
+    // One Mac per thread and key: Mac is not thread-safe, and getInstance + init costs more than the HMAC itself
+    private final List<ThreadLocal<Mac>> macs = new ArrayList<>();
+
+    @Autowired
+    public TokenService(
+            @Value("${auth.token.secret:}") String secret,
+            @Value("${auth.token.previousSecret:}") String previousSecret,
+            @Value("${auth.token.ttlMinutes:480}") long ttlMinutes
+    ) {
+        this(keyBytes(secret), previousSecret.isBlank() ? null : keyBytes(previousSecret),
+                Duration.ofMinutes(ttlMinutes), Clock.systemUTC());
+    }
+
+    TokenService(byte[] key, byte[] previousKey, Duration ttl, Clock clock) {
+        this.ttl = ttl;
+        this.clock = clock;
+        macs.add(macFor(key));
+        if (previousKey != null) macs.add(macFor(previousKey));
+    }
+
+    private static byte[] keyBytes(String secret) {
+        if (secret == null || secret.isBlank()) {
+            System.err.println("auth.token.secret is not set; using a random key, tokens will not survive a restart");
+            byte[] key = new byte[32];
+            new SecureRandom().nextBytes(key);
+            return key;
+        }
+        byte[] key = Base64.getDecoder().decode(secret.trim());
+        if (key.length < 32) throw new IllegalArgumentException("auth.token.secret must be at least 32 bytes, base64-encoded");
+        return key;
+    }
+
+    private static ThreadLocal<Mac> macFor(byte[] key) {
+        SecretKeySpec spec = new SecretKeySpec(key, "HmacSHA256");
+        return ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance("HmacSHA256");
+                mac.init(spec);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    public Token issue(User user) {
+        Instant now = clock.instant();
+        Instant expiresAt = now.plus(ttl);
+        Map<String, Object> claims = new LinkedHashMap<>();
+        claims.put("sub", user.getId());
+        claims.put("name", user.getUsername());
+        claims.put("role", user.getRole());
+        claims.put("iat", now.getEpochSecond());
+        claims.put("exp", expiresAt.getEpochSecond());
+        try {
+            String signingInput = HEADER + "." + B64.encodeToString(mapper.writeValueAsBytes(claims));
+            return new Token(signingInput + "." + B64.encodeToString(sign(macs.get(0), signingInput)), expiresAt);
+        } catch (Exception e) {
+            throw new IllegalStateException("Could not issue token", e);
+        }
+    }
+
+    /** The token's principal, or null if it is malformed, not signed by us, or expired. */
+    public Principal verify(String token) {
+        if (token == null) return null;
+        int first = token.indexOf('.');
+        int last = token.lastIndexOf('.');
+        if (first <= 0 || last <= first || !token.startsWith(HEADER + ".")) return null;
+
+        String signingInput = token.substring(0, last);
+        byte[] signature;
+        try {
+            signature = B64D.decode(token.substring(last + 1));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        boolean valid = false;
+        for (ThreadLocal<Mac> mac : macs) {
+            if (MessageDigest.isEqual(sign(mac, signingInput), signature)) {
+                valid = true;
+                break;
+            }
+        }
+        if (!valid) return null;
+
+        try {
+            JsonNode claims = mapper.readTree(B64D.decode(token.substring(first + 1, last)));
+            Instant expiresAt = Instant.ofEpochSecond(claims.path("exp").asLong());
+            if (!clock.instant().isBefore(expiresAt)) return null;
+            return new Principal(claims.path("sub").asText(), claims.path("name").asText(),
+                    claims.path("role").asText(), expiresAt);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private static byte[] sign(ThreadLocal<Mac> mac, String signingInput) {
+        return mac.get().doFinal(signingInput.getBytes(StandardCharsets.US_ASCII));
+    }
+}
@@ -0,0 +1,252 @@
+package com.example.backend;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Shared call budget for one metered upstream, across all clients: {@code ratePerSecond}
+ * calls with bursts of up to {@code burst}, and optionally at most {@code quotaPerDay} calls
+ * per UTC day, so a monthly plan is spent evenly instead of in the first week.
+ *
+ * While the rate allows, a call goes straight through. Otherwise it waits in a queue ordered
+ * by {@link Priority}, then arrival, and is released as the budget refills. A call is shed
+ * with {@link BudgetExhaustedException} (carrying a retry-after) when it has waited
+ * {@code maxWaitMillis}, when the queue is full and nothing queued has a lower priority to
+ * make room, or when the day's quota is spent.
+ */
+public class UpstreamBudget {
+
+    public enum Priority { HIGH, NORMAL, LOW }
+
+    private static final CompletableFuture<Void> GRANTED = CompletableFuture.completedFuture(null);
+    private static final long DAY_MILLIS = TimeUnit.DAYS.toMillis(1);
+
+    private final String name;
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final int maxQueue;
+    private final long maxWaitNanos;
+    private final long quotaPerDay;
+    private final LongSupplier clock;
+    private final LongSupplier wallClock;
+    private final ScheduledExecutorService scheduler;
+
+    // Time at which the budget is full again, as in RateLimiter
+    private final AtomicLong fullAt;
+    private final AtomicLong quotaDay = new AtomicLong(-1);
+    private final AtomicLong quotaUsed = new AtomicLong();
+
+    // Guarded by queueLock; only touched when the rate is exhausted
+    private final TreeSet<Waiter> queue = new TreeSet<>(
+            Comparator.comparing(Waiter::priority).thenComparingLong(Waiter::sequence));
+    private final ReentrantLock queueLock = new ReentrantLock();
+    private long sequence;
+    private boolean drainScheduled;
+
+    private final LongAdder granted = new LongAdder();
+    private final LongAdder queued = new LongAdder();
+    private final LongAdder shed = new LongAdder();
+
+    public UpstreamBudget(String name, double ratePerSecond, int burst, int maxQueue, long maxWaitMillis, long quotaPerDay) {
+        this(name, ratePerSecond, burst, maxQueue, maxWaitMillis, quotaPerDay, System::nanoTime, System::currentTimeMillis);
+    }
+
+    UpstreamBudget(String name, double ratePerSecond, int burst, int maxQueue, long maxWaitMillis, long quotaPerDay,
+                   LongSupplier clock, LongSupplier wallClock) {
+        if (ratePerSecond <= 0) throw new IllegalArgumentException("ratePerSecond must be positive");
+        this.name = name;
+        this.intervalNanos = Math.max(1, Math.round(1_000_000_000d / ratePerSecond));
+        this.burstNanos = intervalNanos * Math.max(1, burst);
+        this.maxQueue = Math.max(0, maxQueue);
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+        this.quotaPerDay = quotaPerDay;
+        this.clock = clock;
+        this.wallClock = wallClock;
+        this.fullAt = new AtomicLong(clock.getAsLong());
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "upstream-budget-" + name);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public String getName() { return name; }
+
+    /** Completes when the call may be made, or fails with {@link BudgetExhaustedException}. */
+    public CompletableFuture<Void> acquire(Priority priority) {
+        long quotaRetry = quotaRetryMillis();
+        if (quotaRetry > 0) {
+            shed.increment();
+            return CompletableFuture.failedFuture(new BudgetExhaustedException(name, "daily quota spent", quotaRetry));
+        }
+
+        Waiter evicted = null;
+        CompletableFuture<Void> future;
+        queueLock.lock();
+        try {
+            // Queued calls were here first; only take a token directly when nobody is waiting
+            if (queue.isEmpty() && tryTake() == 0) {
+                granted.increment();
+                return GRANTED;
+            }
+            if (queue.size() >= maxQueue) {
+                Waiter last = queue.isEmpty() ? null : queue.last();
+                if (last == null || last.priority().compareTo(priority) <= 0) {
+                    shed.increment();
+                    return CompletableFuture.failedFuture(new BudgetExhaustedException(name, "queue full", retryAfterMillis()));
+                }
+                evicted = queue.pollLast();
+            }
+            future = new CompletableFuture<>();
+            queue.add(new Waiter(priority, sequence++, clock.getAsLong() + maxWaitNanos, future));
+            queued.increment();
+            scheduleDrain(0);
+        } finally {
+            queueLock.unlock();
+        }
+        if (evicted != null) {
+            shed.increment();
+            evicted.future().completeExceptionally(
+                    new BudgetExhaustedException(name, "displaced by a higher-priority call", retryAfterMillis()));
+        }
+        return future;
+    }
+
+    /** Gives back a token taken for a call that was never sent (circuit open, bulkhead full). */
+    public void refund() {
+        fullAt.addAndGet(-intervalNanos);
+        if (quotaPerDay > 0) quotaUsed.decrementAndGet();
+    }
+
+    // 0 if a token was taken, otherwise nanoseconds until one is available
+    private long tryTake() {
+        long now = clock.getAsLong();
+        while (true) {
+            long full = fullAt.get();
+            long next = Math.max(full, now) + intervalNanos;
+            long over = next - now - burstNanos;
+            if (over > 0) return over;
+            if (fullAt.compareAndSet(full, next)) {
+                if (quotaPerDay > 0) quotaUsed.incrementAndGet();
+                return 0;
+            }
+        }
+    }
+
+    private long quotaRetryMillis() {
+        if (quotaPerDay <= 0) return 0;
+        long millis = wallClock.getAsLong();
+        long day = millis / DAY_MILLIS;
+        long current = quotaDay.get();
+        if (day != current && quotaDay.compareAndSet(current, day)) quotaUsed.set(0);
+        return quotaUsed.get() >= quotaPerDay ? (day + 1) * DAY_MILLIS - millis : 0;
+    }
+
+    // Roughly how long until everything queued now has been let through
+    private long retryAfterMillis() {
+        int waiting;
+        queueLock.lock();
+        try {
+            waiting = queue.size();
+        } finally {
+            queueLock.unlock();
+        }
+        long backlog = Math.max(0, fullAt.get() - burstNanos - clock.getAsLong()) + (long) waiting * intervalNanos;
+        return Math.max(1, TimeUnit.NANOSECONDS.toMillis(backlog + intervalNanos));
+    }
+
+    // Caller holds the queue lock
+    private void scheduleDrain(long delayNanos) {
+        if (drainScheduled) return;
+        drainScheduled = true;
+        scheduler.schedule(this::drain, delayNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private void drain() {
+        List<Waiter> ready = new ArrayList<>();
+        List<Waiter> expired = new ArrayList<>();
+        queueLock.lock();
+        try {
+            drainScheduled = false;
+            long now = clock.getAsLong();
+            queue.removeIf(w -> {
+                if (w.deadline() - now > 0 && !w.future().isDone()) return false;
+                expired.add(w);
+                return true;
+            });
+            long wait = 0;
+            while (!queue.isEmpty() && quotaRetryMillis() == 0 && (wait = tryTake()) == 0) {
+                ready.add(queue.pollFirst());
+            }
+            if (!queue.isEmpty()) {
+                long nextDeadline = Long.MAX_VALUE;
+                for (Waiter w : queue) nextDeadline = Math.min(nextDeadline, w.deadline() - now);
+                scheduleDrain(Math.max(0, Math.min(wait > 0 ? wait : TimeUnit.SECONDS.toNanos(1), nextDeadline)));
+            }
+        } finally {
+            queueLock.unlock();
+        }
+        // Completed outside the lock: the continuation sends the request on this thread
+        for (Waiter w : expired) {
+            shed.increment();
+            w.future().completeExceptionally(new BudgetExhaustedException(name, "waited too long", retryAfterMillis()));
+        }
+        for (Waiter w : ready) {
+            granted.increment();
+            try {
+                w.future().complete(null);
+            } catch (RuntimeException e) {
+                System.err.println("Upstream budget " + name + ": continuation failed: " + e.getMessage());
+            }
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("ratePerSecond", 1_000_000_000d / intervalNanos);
+        stats.put("burst", burstNanos / intervalNanos);
+        queueLock.lock();
+        try {
+            stats.put("waiting", queue.size());
+        } finally {
+            queueLock.unlock();
+        }
+        stats.put("granted", granted.sum());
+        stats.put("queued", queued.sum());
+        stats.put("shed", shed.sum());
+        if (quotaPerDay > 0) {
+            stats.put("quotaPerDay", quotaPerDay);
+            stats.put("quotaUsedToday", quotaUsed.get());
+        }
+        return stats;
+    }
+
+    private record Waiter(Priority priority, long sequence, long deadline, CompletableFuture<Void> future) {}
+
+    /** Thrown without calling the upstream when the shared budget cannot take the call. */
+    public static class BudgetExhaustedException extends UpstreamClient.UpstreamUnavailableException {
+        private final long retryAfterMillis;
+
+        public BudgetExhaustedException(String upstream, String reason, long retryAfterMillis) {
+            super(upstream, "budget exhausted, " + reason);
+            this.retryAfterMillis = retryAfterMillis;
+        }
+
+        public long getRetryAfterMillis() { return retryAfterMillis; }
+
+        /** Whole seconds, rounded up, for a Retry-After header. */
+        public long getRetryAfterSeconds() { return Math.max(1, (retryAfterMillis + 999) / 1000); }
+    }
+}
@@ -0,0 +1,278 @@
+package com.example.backend;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.core.env.Environment;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Outbound HTTP client for one upstream API, with its own connection settings and failure
+ * isolation so one slow or broken upstream cannot take request threads from the others.
+ *
+ * Every call is non-blocking and goes through, in order: the circuit breaker (fail fast while
+ * the upstream is down), a bulkhead capping concurrent calls, and a timeout. The timeout (the
+ * request's own, else {@code requestTimeoutMs}) is a deadline for the whole call: retries only
+ * get what is left of it, and none is made that would start after it. GET requests are retried
+ * on I/O errors, timeouts, 429 and 5xx, after the delay in a Retry-After header if there is one,
+ * otherwise with full-jitter exponential backoff; other methods are sent once. A 429 means the
+ * upstream is up but throttling us, so unlike errors and 5xx it does not count towards opening
+ * the breaker. Settings are read from {@code upstream.<name>.*}; redirects are followed unless
+ * {@code followRedirects} is false.
+ *
+ * A metered upstream can also have an {@link UpstreamBudget} ({@code upstream.<name>.budget.*}),
+ * taken before each attempt: calls then wait their turn by priority, or are shed when the
+ * budget cannot take them.
+ *
+ * Each call, retries included, is one {@code upstream.requests} observation tagged with the
+ * upstream, the operation and the outcome: a timer, an in-flight gauge and a trace span.
+ */
+public class UpstreamClient {
+
+    private final String name;
+    private final HttpClient httpClient;
+    private final Duration requestTimeout;
+    private final Semaphore bulkhead;
+    private final int maxAttempts;
+    private final long backoffMillis;
+    private final long maxBackoffMillis;
+    private final CircuitBreaker circuitBreaker;
+    private final ObservationRegistry observations;
+    private final UpstreamBudget budget;
+
+    public UpstreamClient(String name, HttpClient httpClient, Duration requestTimeout, int maxConcurrent,
+                          int maxAttempts, long backoffMillis, long maxBackoffMillis, CircuitBreaker circuitBreaker) {
+        this(name, httpClient, requestTimeout, maxConcurrent, maxAttempts, backoffMillis, maxBackoffMillis,
+                circuitBreaker, ObservationRegistry.NOOP);
+    }
+
+    public UpstreamClient(String name, HttpClient httpClient, Duration requestTimeout, int maxConcurrent,
+                          int maxAttempts, long backoffMillis, long maxBackoffMillis, CircuitBreaker circuitBreaker,
+                          ObservationRegistry observations) {
+        this(name, httpClient, requestTimeout, maxConcurrent, maxAttempts, backoffMillis, maxBackoffMillis,
+                circuitBreaker, observations, null);
+    }
+
+    public UpstreamClient(String name, HttpClient httpClient, Duration requestTimeout, int maxConcurrent,
+                          int maxAttempts, long backoffMillis, long maxBackoffMillis, CircuitBreaker circuitBreaker,
+                          ObservationRegistry observations, UpstreamBudget budget) {
+        this.name = name;
+        this.httpClient = httpClient;
+        this.requestTimeout = requestTimeout;
+        this.bulkhead = new Semaphore(Math.max(1, maxConcurrent));
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.backoffMillis = backoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+        this.circuitBreaker = circuitBreaker;
+        this.observations = observations;
+        this.budget = budget;
+    }
+
+    public static UpstreamClient fromEnvironment(String name, Environment env, Executor executor,
+                                                 ObservationRegistry observations) {
+        String prefix = "upstream." + name + ".";
+        HttpClient.Builder builder = HttpClient.newBuilder()
+                .version(env.getProperty(prefix + "http2", Boolean.class, true) ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofMillis(env.getProperty(prefix + "connectTimeoutMs", Long.class, 2000L)))
+                .followRedirects(env.getProperty(prefix + "followRedirects", Boolean.class, true)
+                        ? HttpClient.Redirect.NORMAL : HttpClient.Redirect.NEVER);
+        if (executor != null) builder.executor(executor);
+
+        UpstreamBudget budget = null;
+        double budgetRate = env.getProperty(prefix + "budget.ratePerSecond", Double.class, 0d);
+        if (budgetRate > 0) {
+            budget = new UpstreamBudget(
+                    name,
+                    budgetRate,
+                    env.getProperty(prefix + "budget.burst", Integer.class, 10),
+                    env.getProperty(prefix + "budget.maxQueue", Integer.class, 100),
+                    env.getProperty(prefix + "budget.maxWaitMs", Long.class, 2000L),
+                    env.getProperty(prefix + "budget.quotaPerDay", Long.class, 0L));
+        }
+
+        return new UpstreamClient(
+                name,
+                builder.build(),
+                Duration.ofMillis(env.getProperty(prefix + "requestTimeoutMs", Long.class, 5000L)),
+                env.getProperty(prefix + "maxConcurrent", Integer.class, 32),
+                env.getProperty(prefix + "maxAttempts", Integer.class, 3),
+                env.getProperty(prefix + "backoffMs", Long.class, 100L),
+                env.getProperty(prefix + "maxBackoffMs", Long.class, 2000L),
+                new CircuitBreaker(
+                        env.getProperty(prefix + "failureThreshold", Integer.class, 5),
+                        env.getProperty(prefix + "openMs", Long.class, 30000L)),
+                observations,
+                budget
+        );
+    }
+
+    public String getName() { return name; }
+
+    public CircuitBreaker getCircuitBreaker() { return circuitBreaker; }
+
+    public int availablePermits() { return bulkhead.availablePermits(); }
+
+    /** The shared call budget, or null if this upstream is not metered. */
+    public UpstreamBudget getBudget() { return budget; }
+
+    /** Sends {@code request} with the body read as a string. */
+    public CompletableFuture<HttpResponse<String>> send(HttpRequest request) {
+        return send("request", request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    public <T> CompletableFuture<HttpResponse<T>> send(HttpRequest request, HttpResponse.BodyHandler<T> handler) {
+        return send("request", request, handler);
+    }
+
+    /** Sends {@code request}, recorded under {@code operation} (e.g. "search") in metrics and traces. */
+    public <T> CompletableFuture<HttpResponse<T>> send(String operation, HttpRequest request, HttpResponse.BodyHandler<T> handler) {
+        return send(operation, UpstreamBudget.Priority.NORMAL, request, handler);
+    }
+
+    /** As {@link #send(String, HttpRequest, HttpResponse.BodyHandler)}, queued at {@code priority} when the budget is short. */
+    public <T> CompletableFuture<HttpResponse<T>> send(String operation, UpstreamBudget.Priority priority,
+                                                       HttpRequest request, HttpResponse.BodyHandler<T> handler) {
+        long deadline = System.nanoTime() + request.timeout().orElse(requestTimeout).toNanos();
+        int attempts = "GET".equals(request.method()) ? maxAttempts : 1;
+
+        Observation observation = Observation.createNotStarted("upstream.requests", observations)
+                .contextualName(name + " " + operation)
+                .lowCardinalityKeyValue("upstream", name)
+                .lowCardinalityKeyValue("operation", operation)
+                .start();
+        return attempt(request, handler, priority, 1, attempts, deadline).whenComplete((response, error) -> {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            observation.lowCardinalityKeyValue("outcome", outcome(response, cause));
+            if (cause != null) observation.error(cause);
+            observation.stop();
+        });
+    }
+
+    private static String outcome(HttpResponse<?> response, Throwable error) {
+        if (error instanceof UpstreamBudget.BudgetExhaustedException) return "SHED";
+        if (error instanceof UpstreamUnavailableException) return "REJECTED";
+        if (error instanceof HttpTimeoutException) return "TIMEOUT";
+        if (error != null) return "ERROR";
+        int status = response.statusCode();
+        if (status >= 500) return "SERVER_ERROR";
+        if (status >= 400) return "CLIENT_ERROR";
+        return "SUCCESS";
+    }
+
+    // Each attempt, retries included, is a metered call
+    private <T> CompletableFuture<HttpResponse<T>> attempt(HttpRequest request, HttpResponse.BodyHandler<T> handler,
+                                                           UpstreamBudget.Priority priority, int attempt, int attempts,
+                                                           long deadline) {
+        if (budget == null) return call(request, handler, priority, attempt, attempts, deadline);
+        return budget.acquire(priority).thenCompose(granted -> call(request, handler, priority, attempt, attempts, deadline));
+    }
+
+    private <T> CompletableFuture<HttpResponse<T>> call(HttpRequest request, HttpResponse.BodyHandler<T> handler,
+                                                        UpstreamBudget.Priority priority, int attempt, int attempts,
+                                                        long deadline) {
+        long remaining = deadline - System.nanoTime();
+        if (remaining <= 0) {
+            // Waited out the deadline in the budget queue
+            if (budget != null) budget.refund();
+            return CompletableFuture.failedFuture(new HttpTimeoutException(name + " call timed out before attempt " + attempt));
+        }
+        if (!circuitBreaker.tryAcquire()) {
+            if (budget != null) budget.refund();
+            return CompletableFuture.failedFuture(new UpstreamUnavailableException(name,
+                    "circuit open for another " + circuitBreaker.remainingOpenMillis() + "ms"));
+        }
+        if (!bulkhead.tryAcquire()) {
+            // Not the upstream's fault, so the breaker does not count it.
+            circuitBreaker.releaseProbe();
+            if (budget != null) budget.refund();
+            return CompletableFuture.failedFuture(new UpstreamUnavailableException(name, "too many concurrent calls"));
+        }
+
+        CompletableFuture<HttpResponse<T>> call;
+        try {
+            HttpRequest timed = HttpRequest.newBuilder(request, (n, v) -> true)
+                    .timeout(Duration.ofNanos(remaining))
+                    .build();
+            call = httpClient.sendAsync(timed, handler);
+        } catch (RuntimeException e) {
+            call = CompletableFuture.failedFuture(e);
+        }
+
+        return call
+                .handle((response, error) -> {
+                    bulkhead.release();
+                    int status = error != null ? 0 : response.statusCode();
+                    if (error != null || status >= 500) circuitBreaker.onFailure();
+                    else if (status == 429) circuitBreaker.releaseProbe();
+                    else circuitBreaker.onSuccess();
+                    boolean retryable = error != null || isRetryableStatus(status);
+                    long retryAfter = error != null ? -1 : retryAfterMillis(response);
+                    return new Outcome<>(response, error, retryable, retryAfter);
+                })
+                .thenCompose(outcome -> {
+                    long delay = outcome.retryAfterMillis >= 0 ? outcome.retryAfterMillis : backoff(attempt);
+                    if (outcome.retryable && attempt < attempts
+                            && System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delay) < deadline) {
+                        return CompletableFuture.supplyAsync(() -> null, CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS))
+                                .thenCompose(ignored -> attempt(request, handler, priority, attempt + 1, attempts, deadline));
+                    }
+                    if (outcome.error != null) {
+                        Throwable cause = outcome.error instanceof CompletionException && outcome.error.getCause() != null
+                                ? outcome.error.getCause() : outcome.error;
+                        return CompletableFuture.failedFuture(cause);
+                    }
+                    return CompletableFuture.completedFuture(outcome.response);
+                });
+    }
+
+    private record Outcome<T>(HttpResponse<T> response, Throwable error, boolean retryable, long retryAfterMillis) {}
+
+    private static boolean isRetryableStatus(int status) {
+        return status == 429 || status >= 500;
+    }
+
+    // Retry-After as delay-seconds or an HTTP date; -1 when absent or unreadable
+    static long retryAfterMillis(HttpResponse<?> response) {
+        String value = response.headers().firstValue("Retry-After").orElse(null);
+        if (value == null || value.isBlank()) return -1;
+        value = value.trim();
+        try {
+            return Math.min(Math.max(0, Long.parseLong(value)), TimeUnit.DAYS.toSeconds(1)) * 1000;
+        } catch (NumberFormatException e) {
+            // not seconds, try a date
+        }
+        try {
+            ZonedDateTime at = ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME);
+            return Math.max(0, Duration.between(ZonedDateTime.now(at.getZone()), at).toMillis());
+        } catch (DateTimeParseException e) {
+            return -1;
+        }
+    }
+
+    // Full jitter: uniform in [0, min(max, base * 2^(attempt-1))]
+    private long backoff(int attempt) {
+        long ceiling = Math.min(maxBackoffMillis, backoffMillis << Math.min(attempt - 1, 20));
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    /** Thrown without calling the upstream, when its breaker is open, its bulkhead is full or its budget is spent. */
+    public static class UpstreamUnavailableException extends IOException {
+        public UpstreamUnavailableException(String upstream, String reason) {
+            super(upstream + " unavailable: " + reason);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.backend;
+
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.AsyncTaskExecutor;
+
+@Configuration
+public class UpstreamConfig {
+
+    // Anna's Archive via RapidAPI (search, download links)
+    @Bean
+    public UpstreamClient rapidApiClient(Environment env, @Qualifier("upstreamExecutor") AsyncTaskExecutor executor,
+                                         ObservationRegistry observations) {
+        return UpstreamClient.fromEnvironment("rapidapi", env, executor, observations);
+    }
+
+    // Cover images of remote books (libgen and other hosts), fetched once per cover for thumbnailing
+    @Bean
+    public UpstreamClient coverClient(Environment env, @Qualifier("upstreamExecutor") AsyncTaskExecutor executor,
+                                      ObservationRegistry observations) {
+        return UpstreamClient.fromEnvironment("covers", env, executor, observations);
+    }
+
+    // GlitterNode book details
+    @Bean
+    public UpstreamClient glitterNodeClient(Environment env, @Qualifier("upstreamExecutor") AsyncTaskExecutor executor,
+                                            ObservationRegistry observations) {
+        return UpstreamClient.fromEnvironment("glitternode", env, executor, observations);
+    }
+}
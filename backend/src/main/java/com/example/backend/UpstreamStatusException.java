@@ -0,0 +1,14 @@
+package com.example.backend;
+
+/** An upstream API answered with a non-success HTTP status. */
+public class UpstreamStatusException extends RuntimeException {
+
+    private final int status;
+
+    public UpstreamStatusException(String upstream, int status) {
+        super(upstream + " returned HTTP " + status);
+        this.status = status;
+    }
+
+    public int getStatus() { return status; }
+}
@@ -1,5 +1,6 @@
 package com.example.backend;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.mapping.Document;
 
@@ -9,7 +10,8 @@ public class User {
     private String id;
     private String username;
     private String email;
-    private String password; // store hashed passwords in prod
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY) // accepted on create/update, never returned
+    private String password; // bcrypt hash; plaintext in records older than hashing, replaced on next login
     private String role; // ADMIN / USER
 
     // Getters and Setters
@@ -1,31 +1,112 @@
 package com.example.backend;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Stream;
 
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RestController
 @RequestMapping("/api/users")
 public class UserController {
 
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final int EXPORT_BATCH_SIZE = 500;
+
     @Autowired
     private UserRepository userRepository;
 
-    // GET all users
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PasswordHasher passwordHasher;
+
+    // GET users, one keyset page at a time ordered by _id, without passwords.
+    // The id to continue after is returned in the X-Next-Cursor header while more remain.
     @GetMapping
-    public List<User> getAllUsers() {
-        return userRepository.findAll();
+    public ResponseEntity<?> getAllUsers(
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "100") int limit
+    ) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest().body(Map.of("error", "limit must be between 1 and " + MAX_PAGE_SIZE));
+        }
+
+        Query query = usersWithoutPasswords();
+        if (after != null && !after.isEmpty()) {
+            query.addCriteria(Criteria.where("id").gt(after));
+        }
+        query.limit(limit + 1);
+
+        List<User> users = mongoTemplate.find(query, User.class);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (users.size() > limit) {
+            users = users.subList(0, limit);
+            response.header("X-Next-Cursor", users.get(limit - 1).getId());
+        }
+        return response.body(users);
+    }
+
+    // GET every user as newline-delimited JSON, written as documents come off the Mongo cursor
+    @GetMapping(value = "/export", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> exportUsers() {
+        StreamingResponseBody body = out -> {
+            Query query = usersWithoutPasswords().cursorBatchSize(EXPORT_BATCH_SIZE);
+            ObjectWriter writer = objectMapper.writerFor(User.class)
+                    .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+            try (JsonGenerator gen = objectMapper.getFactory().createGenerator(out);
+                 Stream<User> users = mongoTemplate.stream(query, User.class)) {
+                gen.setRootValueSeparator(null);
+                Iterator<User> it = users.iterator();
+                int written = 0;
+                while (it.hasNext()) {
+                    writer.writeValue(gen, it.next());
+                    gen.writeRaw('\n');
+                    if (++written % EXPORT_BATCH_SIZE == 0) gen.flush();
+                }
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType("application/x-ndjson")).body(body);
+    }
+
+    private static Query usersWithoutPasswords() {
+        Query query = new Query().with(Sort.by(Sort.Direction.ASC, "id"));
+        query.fields().exclude("password");
+        return query;
     }
 
-    // POST create user
+    // POST create user; open for sign-up, where the role is always USER unless an admin is calling
     @PostMapping
-    public ResponseEntity<?> createUser(@RequestBody User user) {
+    public ResponseEntity<?> createUser(@RequestBody User user, HttpServletRequest request) {
+        if (user.getPassword() == null || user.getPassword().isEmpty()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "password is required"));
+        }
         if (userRepository.findByUsername(user.getUsername()).isPresent()) {
             return ResponseEntity.status(400).body(Map.of("error", "Username already exists"));
         }
+        TokenService.Principal caller = AuthInterceptor.principal(request);
+        if (caller == null || !caller.isAdmin() || user.getRole() == null) user.setRole("USER");
+        user.setPassword(passwordHasher.hash(user.getPassword()));
         userRepository.save(user);
         return ResponseEntity.ok(Map.of("message", "User created successfully"));
     }
@@ -39,7 +120,7 @@ public class UserController {
                     user.setEmail(updated.getEmail());
                     user.setRole(updated.getRole());
                     if (updated.getPassword() != null && !updated.getPassword().isEmpty()) {
-                        user.setPassword(updated.getPassword());
+                        user.setPassword(passwordHasher.hash(updated.getPassword()));
                     }
                     userRepository.save(user);
                     return ResponseEntity.ok(Map.of("message", "User updated successfully"));
@@ -0,0 +1,88 @@
+package com.example.backend;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AuthTests {
+
+    private static final byte[] KEY = "0123456789abcdef0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] OLD_KEY = "fedcba9876543210fedcba9876543210".getBytes(StandardCharsets.US_ASCII);
+    private static final Instant NOW = Instant.parse("2026-01-01T12:00:00Z");
+
+    @Test
+    void issuedTokensVerifyUntilTheyExpireOrAreAltered() {
+        TokenService tokens = new TokenService(KEY, null, Duration.ofHours(1), Clock.fixed(NOW, ZoneOffset.UTC));
+        TokenService.Token token = tokens.issue(user("ADMIN"));
+        assertEquals(NOW.plus(Duration.ofHours(1)), token.expiresAt());
+
+        TokenService.Principal principal = tokens.verify(token.value());
+        assertNotNull(principal);
+        assertEquals("64b7f0c2a1b2c3d4e5f60718", principal.userId());
+        assertEquals("admin", principal.username());
+        assertTrue(principal.isAdmin());
+
+        // Claims edited to another role, with the original signature
+        String[] parts = token.value().split("\\.");
+        String payload = new String(Base64.getUrlDecoder().decode(parts[1]), StandardCharsets.UTF_8).replace("ADMIN", "USER");
+        String forged = parts[0] + "." + Base64.getUrlEncoder().withoutPadding().encodeToString(payload.getBytes(StandardCharsets.UTF_8))
+                + "." + parts[2];
+        assertNull(tokens.verify(forged));
+        assertNull(tokens.verify("not-a-token"));
+        assertNull(tokens.verify(null));
+
+        TokenService later = new TokenService(KEY, null, Duration.ofHours(1),
+                Clock.fixed(NOW.plus(Duration.ofHours(1)).plusSeconds(1), ZoneOffset.UTC));
+        assertNull(later.verify(token.value()));
+    }
+
+    @Test
+    void tokensSignedWithThePreviousKeyStillVerifyAfterRotation() {
+        Clock clock = Clock.fixed(NOW, ZoneOffset.UTC);
+        String oldToken = new TokenService(OLD_KEY, null, Duration.ofHours(1), clock).issue(user("USER")).value();
+
+        TokenService rotated = new TokenService(KEY, OLD_KEY, Duration.ofHours(1), clock);
+        TokenService.Principal principal = rotated.verify(oldToken);
+        assertNotNull(principal);
+        assertFalse(principal.isAdmin());
+        assertNull(new TokenService(KEY, null, Duration.ofHours(1), clock).verify(oldToken));
+    }
+
+    @Test
+    void legacyAndWeakerHashesMatchAndAskToBeReplaced() {
+        PasswordHasher hasher = new PasswordHasher(5);
+        String hash = hasher.hash("secret");
+        assertNotEquals("secret", hash);
+        assertTrue(hasher.matches("secret", hash));
+        assertFalse(hasher.matches("Secret", hash));
+        assertFalse(hasher.needsRehash(hash));
+
+        // Plaintext stored before passwords were hashed
+        assertTrue(hasher.matches("secret", "secret"));
+        assertFalse(hasher.matches("secre", "secret"));
+        assertTrue(hasher.needsRehash("secret"));
+
+        assertTrue(new PasswordHasher(6).needsRehash(hash));
+        assertFalse(hasher.matches("secret", null));
+    }
+
+    private static User user(String role) {
+        User user = new User();
+        user.setId("64b7f0c2a1b2c3d4e5f60718");
+        user.setUsername("admin");
+        user.setRole(role);
+        return user;
+    }
+}
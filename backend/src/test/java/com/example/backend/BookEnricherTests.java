@@ -0,0 +1,166 @@
+package com.example.backend;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BookEnricherTests {
+
+    private final BookEnricher enricher = new BookEnricher(120, 10, 10_000);
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void rendersTheFirstPdfPageAndExtractsItsText() throws Exception {
+        Path pdf = dir.resolve("book.pdf");
+        try (PDDocument doc = new PDDocument()) {
+            PDPage page = new PDPage(PDRectangle.A4);
+            doc.addPage(page);
+            try (PDPageContentStream content = new PDPageContentStream(doc, page)) {
+                content.beginText();
+                content.setFont(new PDType1Font(Standard14Fonts.FontName.HELVETICA), 14);
+                content.newLineAtOffset(72, 700);
+                content.showText("Distributed systems and consensus protocols");
+                content.endText();
+            }
+            doc.save(pdf.toFile());
+        }
+
+        BookEnricher.Result result = enricher.enrich(pdf);
+
+        assertEquals("pdf", result.format());
+        assertEquals(Files.size(pdf), result.size());
+        assertEquals(md5(Files.readAllBytes(pdf)), result.md5());
+        assertTrue(result.text().contains("consensus protocols"), result.text());
+        BufferedImage cover = ImageIO.read(new ByteArrayInputStream(result.cover()));
+        assertEquals(120, cover.getWidth());
+        assertEquals(Math.round(120 * PDRectangle.A4.getHeight() / PDRectangle.A4.getWidth()), cover.getHeight(), 1.0);
+    }
+
+    @Test
+    void readsTheEpubCoverImageAndSpineText() throws Exception {
+        Path epub = epub(png(600, 900));
+
+        BookEnricher.Result result = enricher.enrich(epub);
+
+        assertEquals("epub", result.format());
+        assertEquals("Chapter one & more\nChapter two", result.text());
+        BufferedImage cover = ImageIO.read(new ByteArrayInputStream(result.cover()));
+        assertEquals(120, cover.getWidth());
+        assertEquals(180, cover.getHeight());
+    }
+
+    @Test
+    void epubCoversOverThePixelLimitAreSkippedWithoutDecoding() throws Exception {
+        Path epub = epub(png(600, 900));
+
+        BookEnricher.Result result = new BookEnricher(120, 10, 10_000, 600L * 900 - 1).enrich(epub);
+
+        assertEquals("epub", result.format());
+        assertNull(result.cover());
+        assertEquals("Chapter one & more\nChapter two", result.text());
+    }
+
+    private Path epub(byte[] coverPng) throws Exception {
+        Path epub = dir.resolve("book.epub");
+        try (ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(epub))) {
+            byte[] mimetype = "application/epub+zip".getBytes(StandardCharsets.US_ASCII);
+            ZipEntry first = new ZipEntry("mimetype");
+            first.setMethod(ZipEntry.STORED);
+            first.setSize(mimetype.length);
+            CRC32 crc = new CRC32();
+            crc.update(mimetype);
+            first.setCrc(crc.getValue());
+            zip.putNextEntry(first);
+            zip.write(mimetype);
+            put(zip, "META-INF/container.xml", """
+                    <container xmlns="urn:oasis:names:tc:opendocument:xmlns:container" version="1.0">
+                      <rootfiles><rootfile full-path="OEBPS/content.opf" media-type="application/oebps-package+xml"/></rootfiles>
+                    </container>""".getBytes(StandardCharsets.UTF_8));
+            put(zip, "OEBPS/content.opf", """
+                    <package xmlns="http://www.idpf.org/2007/opf" version="2.0">
+                      <metadata><meta name="cover" content="cover-img"/></metadata>
+                      <manifest>
+                        <item id="cover-img" href="images/front%20cover.png" media-type="image/png"/>
+                        <item id="ch2" href="text/ch2.xhtml" media-type="application/xhtml+xml"/>
+                        <item id="ch1" href="text/ch1.xhtml" media-type="application/xhtml+xml"/>
+                      </manifest>
+                      <spine><itemref idref="ch1"/><itemref idref="ch2"/></spine>
+                    </package>""".getBytes(StandardCharsets.UTF_8));
+            put(zip, "OEBPS/text/ch1.xhtml", "<html><head><style>p{}</style></head><body><p>Chapter one &amp; more</p></body></html>"
+                    .getBytes(StandardCharsets.UTF_8));
+            put(zip, "OEBPS/text/ch2.xhtml", "<html><body><p>Chapter two</p></body></html>".getBytes(StandardCharsets.UTF_8));
+            put(zip, "OEBPS/images/front cover.png", coverPng);
+        }
+        return epub;
+    }
+
+    @Test
+    void otherFormatsGetSizeAndHashOnly() throws Exception {
+        Path txt = dir.resolve("notes.txt");
+        Files.writeString(txt, "plain text");
+
+        BookEnricher.Result result = enricher.enrich(txt);
+
+        assertEquals(10, result.size());
+        assertEquals(md5("plain text".getBytes(StandardCharsets.UTF_8)), result.md5());
+        assertNull(result.format());
+        assertNull(result.cover());
+        assertNull(result.text());
+    }
+
+    @Test
+    void keyTermsAreTheMostFrequentMeaningfulWords() {
+        String terms = BookEnricher.keyTerms("The raft log; the Raft leader and the log. 2024 raft of it", 2);
+        assertEquals("raft log", terms);
+        assertNull(BookEnricher.keyTerms("the and of 12", 5));
+        assertEquals("512 B", BookEnricher.formatSize(512));
+        assertEquals("2.5 MB", BookEnricher.formatSize(5L * 1024 * 1024 / 2));
+    }
+
+    private static void put(ZipOutputStream zip, String name, byte[] data) throws Exception {
+        zip.putNextEntry(new ZipEntry(name));
+        zip.write(data);
+        zip.closeEntry();
+    }
+
+    private static byte[] png(int width, int height) throws Exception {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setColor(Color.BLUE);
+        g.fillRect(0, 0, width, height);
+        g.dispose();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+
+    private static String md5(byte[] data) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("MD5").digest(data));
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.backend;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class BoundedCacheTests {
+
+    @Test
+    void concurrentMissesShareOneLoad() throws Exception {
+        BoundedCache<String, String> cache = new BoundedCache<>("test", 100, 1 << 20, Duration.ofMinutes(1), (k, v) -> 1L);
+        CompletableFuture<String> upstream = new CompletableFuture<>();
+        AtomicInteger calls = new AtomicInteger();
+
+        ExecutorService pool = Executors.newFixedThreadPool(16);
+        List<CompletableFuture<String>> results = new ArrayList<>();
+        try {
+            List<Future<CompletableFuture<String>>> submitted = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                submitted.add(pool.submit(() -> {
+                    return cache.getOrLoad("the hobbit", k -> {
+                        calls.incrementAndGet();
+                        return upstream;
+                    });
+                }));
+            }
+            for (var f : submitted) results.add(f.get());
+        } finally {
+            pool.shutdown();
+        }
+
+        upstream.complete("result");
+        for (CompletableFuture<String> r : results) assertEquals("result", r.get());
+        assertEquals(1, calls.get());
+        assertEquals(1, cache.loadCount());
+        assertEquals("result", cache.get("the hobbit"));
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedWhenOverByteBudget() {
+        BoundedCache<String, String> cache = new BoundedCache<>("test", 100, 10, Duration.ofMinutes(1),
+                (k, v) -> (long) v.length());
+        cache.put("a", "aaaa");
+        cache.put("b", "bbbb");
+        cache.get("a");
+        cache.put("c", "cccc");
+
+        assertNull(cache.get("b"));
+        assertEquals("aaaa", cache.get("a"));
+        assertEquals(1, cache.evictionCount());
+        assertEquals(8, cache.weightedBytes());
+    }
+
+    @Test
+    void expiredEntriesAreMisses() throws Exception {
+        BoundedCache<String, String> cache = new BoundedCache<>("test", 100, 100, Duration.ofMillis(20), (k, v) -> 1L);
+        cache.put("a", "x");
+        Thread.sleep(40);
+
+        assertNull(cache.get("a"));
+        assertEquals(1, cache.expirationCount());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void failedLoadsAreNotCached() {
+        BoundedCache<String, String> cache = new BoundedCache<>("test", 100, 100, Duration.ofMinutes(1), (k, v) -> 1L);
+        cache.getOrLoad("a", k -> CompletableFuture.failedFuture(new IllegalStateException("down")));
+
+        assertNull(cache.get("a"));
+        assertEquals(1, cache.loadFailureCount());
+        assertEquals("ok", cache.getOrLoad("a", k -> CompletableFuture.completedFuture("ok")).join());
+    }
+
+    @Test
+    void batchLoadsOnlyMissesAndKeepsRequestOrder() {
+        BoundedCache<String, String> cache = new BoundedCache<>("test", 100, 1 << 20, Duration.ofMinutes(1), (k, v) -> 1L);
+        cache.put("b", "B");
+        List<List<String>> loaderCalls = new ArrayList<>();
+
+        Map<String, CompletableFuture<String>> result = cache.getAllOrLoad(List.of("c", "b", "a", "c"), misses -> {
+            loaderCalls.add(misses);
+            return CompletableFuture.completedFuture(Map.of("a", "A", "c", "C"));
+        });
+
+        assertEquals(List.of("c", "b", "a"), new ArrayList<>(result.keySet()));
+        assertEquals(List.of("C", "B", "A"), result.values().stream().map(CompletableFuture::join).toList());
+        assertEquals(List.of(List.of("c", "a")), loaderCalls);
+        assertEquals("A", cache.get("a"));
+    }
+}
@@ -0,0 +1,217 @@
+package com.example.backend;
+
+import com.mongodb.bulk.BulkWriteError;
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BulkImporterTests {
+
+    private static final String BUCKET = "books";
+
+    @TempDir
+    Path root;
+
+    private S3StandIn s3;
+    private S3Client client;
+    private InMemoryImporter importer;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        s3 = new S3StandIn();
+        client = S3Client.builder()
+                .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create("test", "test")))
+                .region(Region.US_EAST_1)
+                .endpointOverride(s3.endpoint())
+                .forcePathStyle(true)
+                .build();
+        R2MultipartUploader uploader = new R2MultipartUploader(client, R2MultipartUploader.MIN_PART_SIZE, 2, 4, 3,
+                new SimpleAsyncTaskExecutor("r2-part-"));
+        importer = new InMemoryImporter(uploader, root);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        client.close();
+        s3.close();
+    }
+
+    @Test
+    void importsADirectoryInBatchesAndSkipsDuplicateContent() throws Exception {
+        Path files = Files.createDirectories(root.resolve("files"));
+        StringBuilder manifest = new StringBuilder();
+        for (int i = 0; i < 25; i++) {
+            Files.writeString(files.resolve("book-" + i + ".pdf"), "content " + i);
+            manifest.append("{\"file\":\"book-").append(i).append(".pdf\",\"title\":\"Book ").append(i).append("\"}\n");
+        }
+        Files.writeString(files.resolve("copy.pdf"), "content 3");
+        manifest.append("{\"file\":\"copy.pdf\",\"title\":\"Copy of 3\"}\n");
+        manifest.append("{\"title\":\"No file\"}\n");
+        manifest.append("{\"file\":\"missing.pdf\",\"title\":\"Missing\"}\n");
+        Files.writeString(root.resolve("manifest.jsonl"), manifest);
+
+        ImportJob job = runImport("manifest.jsonl", "files");
+
+        assertEquals(ImportJob.State.COMPLETED, job.getState());
+        assertEquals(28L, job.progress().get("read"));
+        assertEquals(25L, job.progress().get("inserted"));
+        assertEquals(1L, job.progress().get("skipped"));
+        assertEquals(2L, job.progress().get("failed"));
+        assertEquals(25, importer.stored.size());
+
+        AdminBook book = importer.stored.get(md5("content 7"));
+        assertEquals("Book 7", book.getTitle());
+        assertEquals("pdf", book.getFormat());
+        assertEquals(md5("content 7"), s3.md5(BUCKET, book.getR2Key()));
+        assertEquals(3, importer.batches, "28 manifest lines read in batches of 10");
+    }
+
+    @Test
+    void resumingAfterACrashSkipsWhatIsAlreadyStored() throws Exception {
+        Path archive = root.resolve("files.zip");
+        StringBuilder manifest = new StringBuilder();
+        try (ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(archive))) {
+            for (int i = 0; i < 12; i++) {
+                zip.putNextEntry(new ZipEntry("epub/" + i + ".epub"));
+                zip.write(("epub " + i).getBytes(StandardCharsets.UTF_8));
+                zip.closeEntry();
+                manifest.append("{\"file\":\"epub/").append(i).append(".epub\",\"title\":\"E").append(i).append("\"}\n");
+            }
+        }
+        Files.writeString(root.resolve("manifest.jsonl"), manifest);
+        // An earlier run stored the first batch before dying
+        for (int i = 0; i < 10; i++) {
+            AdminBook done = new AdminBook();
+            done.setMd5(md5("epub " + i));
+            importer.stored.put(done.getMd5(), done);
+        }
+
+        ImportJob job = runImport("manifest.jsonl", "files.zip");
+
+        assertEquals(ImportJob.State.COMPLETED, job.getState());
+        assertEquals(10L, job.progress().get("skipped"));
+        assertEquals(2L, job.progress().get("uploaded"));
+        assertEquals(2L, job.progress().get("inserted"));
+        assertNotNull(s3.md5(BUCKET, importer.stored.get(md5("epub 11")).getR2Key()));
+    }
+
+    @Test
+    void onlyDuplicateKeyErrorsCountAsAlreadyPresent() {
+        BulkWriteError duplicate = new BulkWriteError(MongoIndexes.DUPLICATE_KEY, "E11000 duplicate key", new BsonDocument(), 0);
+        BulkWriteError other = new BulkWriteError(121, "Document failed validation", new BsonDocument(), 1);
+
+        assertTrue(BulkImporter.onlyDuplicateKeys(List.of(duplicate, duplicate)));
+        assertFalse(BulkImporter.onlyDuplicateKeys(List.of(duplicate, other)));
+    }
+
+    @Test
+    void uploadsForBooksStoredConcurrentlyElsewhereAreDeleted() throws Exception {
+        Path files = Files.createDirectories(root.resolve("files"));
+        Files.writeString(files.resolve("a.pdf"), "race a");
+        Files.writeString(files.resolve("b.pdf"), "race b");
+        Files.writeString(root.resolve("manifest.jsonl"),
+                "{\"file\":\"a.pdf\",\"title\":\"A\"}\n{\"file\":\"b.pdf\",\"title\":\"B\"}\n");
+        // An admin upload stores "race a" under its own key between the md5 check and the insert
+        AdminBook uploaded = new AdminBook();
+        uploaded.setMd5(md5("race a"));
+        uploaded.setR2Key("admin-upload.pdf");
+        importer.storedConcurrently.put(uploaded.getMd5(), uploaded);
+
+        ImportJob job = runImport("manifest.jsonl", "files");
+
+        assertEquals(ImportJob.State.COMPLETED, job.getState());
+        assertEquals(1L, job.progress().get("inserted"));
+        assertEquals(1L, job.progress().get("skipped"));
+        assertEquals(1, s3.objectCount(), "only the inserted book's upload is left");
+        assertNotNull(s3.md5(BUCKET, importer.stored.get(md5("race b")).getR2Key()));
+    }
+
+    @Test
+    void finishedJobsAreForgottenAfterTheRetention() throws Exception {
+        Files.createDirectories(root.resolve("files"));
+        Files.writeString(root.resolve("manifest.jsonl"), "");
+        ImportJob finished = runImport("manifest.jsonl", "files");
+        assertEquals(ImportJob.State.COMPLETED, finished.getState());
+
+        importer.pruneFinishedJobs(Instant.now().plus(Duration.ofMinutes(30)));
+        assertNotNull(importer.get(finished.getId()));
+
+        importer.pruneFinishedJobs(Instant.now().plus(Duration.ofMinutes(61)));
+        assertNull(importer.get(finished.getId()));
+    }
+
+    private ImportJob runImport(String manifest, String source) throws Exception {
+        ImportJob job = importer.start(manifest, source);
+        for (int i = 0; i < 200 && job.getState() == ImportJob.State.RUNNING; i++) Thread.sleep(50);
+        return job;
+    }
+
+    private static String md5(String content) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("MD5").digest(content.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /** The importer with its two Mongo calls answered from a map keyed on md5. */
+    private static final class InMemoryImporter extends BulkImporter {
+        final Map<String, AdminBook> stored = new ConcurrentHashMap<>();
+        /** Books that show up in {@link #stored} only once {@link #insertNew} runs. */
+        final Map<String, AdminBook> storedConcurrently = new ConcurrentHashMap<>();
+        int batches;
+
+        InMemoryImporter(R2MultipartUploader uploader, Path root) {
+            super(uploader, null, new CatalogEventBus(List.of(), 16, 16, 5000), null, new SimpleAsyncTaskExecutor("import-"),
+                    BUCKET, 4, 10, root.toString(), 60);
+        }
+
+        @Override
+        Collection<String> referencedKeys(Collection<String> keys) {
+            return stored.values().stream().map(AdminBook::getR2Key).filter(keys::contains).toList();
+        }
+
+        @Override
+        Collection<String> existingMd5s(Collection<String> md5s) {
+            return md5s.stream().filter(stored::containsKey).toList();
+        }
+
+        @Override
+        List<AdminBook> insertNew(List<AdminBook> books) {
+            batches++;
+            stored.putAll(storedConcurrently);
+            List<AdminBook> inserted = new ArrayList<>();
+            for (AdminBook book : books) {
+                if (stored.putIfAbsent(book.getMd5(), book) == null) {
+                    book.setId("id-" + stored.size());
+                    inserted.add(book);
+                }
+            }
+            return inserted;
+        }
+    }
+}
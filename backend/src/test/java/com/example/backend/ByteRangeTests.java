@@ -0,0 +1,36 @@
+package com.example.backend;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ByteRangeTests {
+
+    @Test
+    void parsesTheThreeSingleRangeForms() {
+        assertEquals(new ByteRange(0, 99), ByteRange.parse("bytes=0-99", 1000));
+        assertEquals(new ByteRange(900, 999), ByteRange.parse("bytes=900-", 1000));
+        assertEquals(new ByteRange(900, 999), ByteRange.parse("bytes=-100", 1000));
+        assertEquals(new ByteRange(990, 999), ByteRange.parse("bytes=990-5000", 1000), "end is clamped to the object");
+        assertEquals(new ByteRange(0, 999), ByteRange.parse("bytes=-5000", 1000), "suffix longer than the object");
+        assertEquals("bytes 0-99/1000", ByteRange.parse("bytes=0-99", 1000).contentRange(1000));
+    }
+
+    @Test
+    void rangesPastTheEndAreNotSatisfiable() {
+        assertEquals(ByteRange.NOT_SATISFIABLE, ByteRange.parse("bytes=1000-", 1000));
+        assertEquals(ByteRange.NOT_SATISFIABLE, ByteRange.parse("bytes=-0", 1000));
+        assertEquals(ByteRange.NOT_SATISFIABLE, ByteRange.parse("bytes=0-", 0));
+    }
+
+    @Test
+    void ignoresWhatItDoesNotServe() {
+        assertNull(ByteRange.parse(null, 1000));
+        assertNull(ByteRange.parse("items=0-1", 1000));
+        assertNull(ByteRange.parse("bytes=0-1,5-9", 1000));
+        assertNull(ByteRange.parse("bytes=9-1", 1000));
+        assertNull(ByteRange.parse("bytes=abc", 1000));
+        assertNull(ByteRange.parse("bytes=1-99999999999999999999", 1000));
+    }
+}
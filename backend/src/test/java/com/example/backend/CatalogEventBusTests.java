@@ -0,0 +1,131 @@
+package com.example.backend;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CatalogEventBusTests {
+
+    @Test
+    void deliversInOrderInBatchesAndCompletesAfterEveryListener() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingListener fast = new RecordingListener(null);
+        RecordingListener slow = new RecordingListener(release);
+        CatalogEventBus bus = new CatalogEventBus(List.of(fast, slow), 64, 10, 5000);
+        try {
+            List<CatalogChange> changes = new ArrayList<>();
+            for (int i = 0; i < 25; i++) changes.add(CatalogChange.delete("book-" + i, null));
+
+            CompletableFuture<Void> done = bus.publishAll(changes);
+            Thread.sleep(200);
+            assertFalse(done.isDone(), "completed before the slow listener handled the changes");
+
+            release.countDown();
+            done.get(5, TimeUnit.SECONDS);
+
+            for (RecordingListener listener : List.of(fast, slow)) {
+                assertEquals(changes, listener.received());
+                assertTrue(listener.batchSizes.stream().allMatch(size -> size <= 10), "batch larger than batchSize");
+            }
+        } finally {
+            bus.shutdown();
+        }
+    }
+
+    @Test
+    void publishWaitsWhileAListenerQueueIsFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingListener stuck = new RecordingListener(release);
+        CatalogEventBus bus = new CatalogEventBus(List.of(stuck), 2, 1, 5000);
+        try {
+            // One change held by the blocked listener, two fill its queue; the fourth must wait
+            Thread publisher = new Thread(() -> {
+                for (int i = 0; i < 4; i++) bus.publish(CatalogChange.delete("book-" + i, null));
+            });
+            publisher.start();
+            publisher.join(500);
+            assertTrue(publisher.isAlive(), "publish did not block on a full queue");
+
+            release.countDown();
+            publisher.join(5000);
+            assertFalse(publisher.isAlive());
+            bus.publish(CatalogChange.RESYNC).get(5, TimeUnit.SECONDS);
+            assertEquals(5, stuck.received().size());
+        } finally {
+            bus.shutdown();
+        }
+    }
+
+    @Test
+    void publishFailsOnceAListenerQueueStaysFullPastTheTimeout() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingListener stuck = new RecordingListener(release);
+        CatalogEventBus bus = new CatalogEventBus(List.of(stuck), 2, 1, 200);
+        try {
+            List<CatalogChange> changes = new ArrayList<>();
+            for (int i = 0; i < 4; i++) changes.add(CatalogChange.delete("book-" + i, null));
+
+            long start = System.nanoTime();
+            CompletableFuture<Void> done = bus.publishAll(changes);
+            assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5), "publish waited past its timeout");
+            ExecutionException e = assertThrows(ExecutionException.class, () -> done.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(TimeoutException.class, e.getCause());
+        } finally {
+            release.countDown();
+            bus.shutdown();
+        }
+    }
+
+    @Test
+    void failingListenerFailsTheFutureWithoutStallingPublishers() throws Exception {
+        RecordingListener healthy = new RecordingListener(null);
+        CatalogChangeListener failing = changes -> { throw new IllegalStateException("boom"); };
+        CatalogEventBus bus = new CatalogEventBus(List.of(healthy, failing), 16, 16, 5000);
+        try {
+            ExecutionException e = assertThrows(ExecutionException.class,
+                    () -> bus.publish(CatalogChange.RESYNC).get(5, TimeUnit.SECONDS));
+            assertInstanceOf(IllegalStateException.class, e.getCause());
+            assertThrows(ExecutionException.class, () -> bus.publish(CatalogChange.RESYNC).get(5, TimeUnit.SECONDS));
+        } finally {
+            bus.shutdown();
+        }
+    }
+
+    private static final class RecordingListener implements CatalogChangeListener {
+        private final CountDownLatch gate;
+        private final List<CatalogChange> received = Collections.synchronizedList(new ArrayList<>());
+        final List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+
+        RecordingListener(CountDownLatch gate) {
+            this.gate = gate;
+        }
+
+        @Override
+        public void onCatalogChanges(List<CatalogChange> changes) {
+            try {
+                if (gate != null) gate.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            batchSizes.add(changes.size());
+            received.addAll(changes);
+        }
+
+        List<CatalogChange> received() {
+            return List.copyOf(received);
+        }
+    }
+}
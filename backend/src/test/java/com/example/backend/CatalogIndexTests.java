@@ -0,0 +1,129 @@
+package com.example.backend;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CatalogIndexTests {
+
+    private static AdminBook book(String id, String title, String author, String description) {
+        AdminBook b = new AdminBook();
+        b.setId(id);
+        b.setTitle(title);
+        b.setAuthor(author);
+        b.setDescription(description);
+        return b;
+    }
+
+    private static CatalogIndex index(AdminBook... books) {
+        CatalogIndex index = new CatalogIndex();
+        index.rebuild(Stream.of(books));
+        return index;
+    }
+
+    private static List<String> ids(CatalogIndex.Page page) {
+        return page.hits().stream().map(h -> h.book().getId()).toList();
+    }
+
+    @Test
+    void ranksTitleMatchesAboveDescriptionMatches() {
+        CatalogIndex index = index(
+                book("1", "Cooking for beginners", "Ann Lee", "A friendly guide to the kitchen, with a chapter on dragons"),
+                book("2", "Dragons of the north", "Ole Berg", "Myths of the fjords"),
+                book("3", "Sailing", "Kim Dragon", "Boats"));
+
+        assertEquals(List.of("2", "1"), ids(index.search("dragons", 0, 10)));
+        assertEquals(List.of("3"), ids(index.search("kim", 0, 10)));
+    }
+
+    @Test
+    void lastTokenMatchesAsPrefixAndAllTokensMustMatch() {
+        CatalogIndex index = index(
+                book("1", "The Hobbit", "J. R. R. Tolkien", ""),
+                book("2", "The Lord of the Rings", "J. R. R. Tolkien", ""),
+                book("3", "Hobbies for retirees", "Someone Else", ""));
+
+        assertEquals(List.of("1", "3"), ids(index.search("hob", 0, 10)).stream().sorted().toList());
+        assertEquals(List.of("1"), ids(index.search("tolkien hob", 0, 10)));
+        assertTrue(index.search("tolkien dragons", 0, 10).hits().isEmpty());
+    }
+
+    @Test
+    void paginatesRankedHitsAndListsAllForEmptyQuery() {
+        AdminBook[] books = new AdminBook[25];
+        for (int i = 0; i < books.length; i++) books[i] = book("b" + i, "Volume " + i + " of the saga", "Author", "");
+        CatalogIndex index = index(books);
+
+        CatalogIndex.Page first = index.search("saga", 0, 10);
+        CatalogIndex.Page third = index.search("saga", 20, 10);
+        assertEquals(25, first.total());
+        assertEquals(10, first.hits().size());
+        assertEquals(5, third.hits().size());
+
+        assertEquals(25, index.search("", 0, 100).total());
+        assertEquals(List.of("b5", "b6"), ids(index.search("", 5, 2)));
+    }
+
+    @Test
+    void upsertAndRemoveKeepIndexCurrent() {
+        CatalogIndex index = index(book("1", "Old title", "A", ""));
+
+        index.upsert(book("1", "New title", "A", ""));
+        assertTrue(index.search("old", 0, 10).hits().isEmpty());
+        assertEquals(List.of("1"), ids(index.search("new", 0, 10)));
+
+        index.remove("1");
+        assertFalse(index.search("new", 0, 10).total() > 0);
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    void prefixExpansionKeepsTheMostCommonCompletionsNotTheFirstAlphabetically() {
+        List<AdminBook> books = new ArrayList<>();
+        // 100 rare completions of "p" that all sort before "potter"
+        for (int i = 0; i < 100; i++) books.add(book("pa" + i, "Harry pa" + String.format("%03d", i), "X", ""));
+        for (int i = 0; i < 5; i++) books.add(book("hp" + i, "Harry Potter volume " + i, "J. K. Rowling", ""));
+        CatalogIndex index = index(books.toArray(new AdminBook[0]));
+
+        List<String> found = ids(index.search("harry p", 0, 200));
+        for (int i = 0; i < 5; i++) assertTrue(found.contains("hp" + i), "hp" + i + " missing from " + found);
+    }
+
+    @Test
+    void overlappingRebuildsRunOneAtATimeAndKeepWritesMadeDuringThem() throws Exception {
+        CatalogIndex index = index(book("1", "Seed", "A", ""));
+        CountDownLatch reading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<Void> first = CompletableFuture.runAsync(() -> index.rebuild(Stream.of(
+                book("1", "Seed", "A", ""), book("2", "Slow read", "B", "")).peek(b -> {
+            reading.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        })));
+        assertTrue(reading.await(5, TimeUnit.SECONDS));
+        // Queued behind the first; by the time it reads, the source has the write as well
+        CompletableFuture<Void> second = CompletableFuture.runAsync(() -> index.rebuild(Stream.of(
+                book("1", "Seed", "A", ""), book("2", "Slow read", "B", ""), book("3", "Written meanwhile", "C", ""))));
+        index.upsert(book("3", "Written meanwhile", "C", ""));
+        release.countDown();
+
+        first.get(5, TimeUnit.SECONDS);
+        assertEquals(List.of("3"), ids(index.search("meanwhile", 0, 10)));
+        second.get(5, TimeUnit.SECONDS);
+        assertEquals(List.of("3"), ids(index.search("meanwhile", 0, 10)));
+        assertEquals(3, index.size());
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.backend;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CatalogSnapshotTests {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void aSavedCatalogLoadsBackIntoASearchableIndex() throws Exception {
+        CatalogSnapshot snapshot = new CatalogSnapshot(dir.resolve("nested/catalog.snapshot").toString());
+        List<AdminBook> books = IntStream.range(0, 500).mapToObj(CatalogSnapshotTests::book).toList();
+        books.get(7).setDescription("x".repeat(100_000));
+        books.get(8).setDescription(null);
+        books.get(9).setTitle("Über die Raft-Konsensprotokolle 分布式");
+
+        snapshot.save(books, 1_767_268_800_000L);
+        CatalogSnapshot.Loaded loaded = snapshot.load();
+
+        assertEquals(1_767_268_800_000L, loaded.watermark());
+        assertEquals(500, loaded.books().size());
+        AdminBook first = loaded.books().get(0);
+        assertEquals("64b7f0c2a1b2c3d4e5f60000", first.getId());
+        assertEquals("Book 0 on consensus", first.getTitle());
+        assertEquals("r2/0.pdf", first.getR2Key());
+        assertEquals("raft paxos", first.getContentTerms());
+        assertEquals(Instant.ofEpochMilli(1_767_000_000_000L), first.getUpdatedAt());
+        assertNull(first.getEnrichedAt());
+        assertEquals(100_000, loaded.books().get(7).getDescription().length());
+        assertNull(loaded.books().get(8).getDescription());
+        assertEquals("Über die Raft-Konsensprotokolle 分布式", loaded.books().get(9).getTitle());
+        assertFalse(Files.exists(dir.resolve("nested/catalog.snapshot.tmp")));
+
+        CatalogIndex index = new CatalogIndex();
+        index.rebuild(loaded.books().stream());
+        assertTrue(index.isReady());
+        assertEquals("Book 42 on consensus", index.search("book 42", 0, 1).hits().get(0).book().getTitle());
+        assertEquals(500, index.search("paxos", 0, 10).total());
+    }
+
+    @Test
+    void missingOrDamagedSnapshotsAreIgnored() throws Exception {
+        Path file = dir.resolve("catalog.snapshot");
+        CatalogSnapshot snapshot = new CatalogSnapshot(file.toString());
+        assertNull(snapshot.load());
+
+        snapshot.save(List.of(book(1), book(2)), 0);
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length - 20] ^= 1;
+        Files.write(file, bytes);
+        assertNull(snapshot.load());
+
+        Files.write(file, new byte[10]);
+        assertNull(snapshot.load());
+    }
+
+    private static AdminBook book(int i) {
+        AdminBook book = new AdminBook();
+        book.setId(String.format("64b7f0c2a1b2c3d4e5f6%04x", i));
+        book.setTitle("Book " + i + " on consensus");
+        book.setAuthor("Author " + i % 7);
+        book.setR2Key("r2/" + i + ".pdf");
+        book.setContentTerms("raft paxos");
+        book.setUpdatedAt(Instant.ofEpochMilli(1_767_000_000_000L + i));
+        return book;
+    }
+}
@@ -0,0 +1,182 @@
+package com.example.backend;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.net.InetAddress;
+import java.net.http.HttpClient;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CoverServiceTests {
+
+    private static final String BUCKET = "books";
+    private static final String COVER_KEY = "covers/0123456789abcdef0123456789abcdef.jpg";
+
+    @TempDir
+    Path dir;
+
+    private S3StandIn s3;
+    private S3Client client;
+    private CatalogIndex catalog;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        s3 = new S3StandIn();
+        client = S3Client.builder()
+                .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create("test", "test")))
+                .region(Region.US_EAST_1)
+                .endpointOverride(s3.endpoint())
+                .forcePathStyle(true)
+                .build();
+
+        ByteArrayOutputStream source = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(640, 960, BufferedImage.TYPE_INT_RGB), "jpg", source);
+        client.putObject(b -> b.bucket(BUCKET).key(COVER_KEY), RequestBody.fromBytes(source.toByteArray()));
+
+        AdminBook book = new AdminBook();
+        book.setId("64b7f0c2a1b2c3d4e5f60718");
+        book.setTitle("Covered");
+        book.setCoverKey(COVER_KEY);
+        catalog = new CatalogIndex();
+        catalog.upsert(book);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        client.close();
+        s3.close();
+    }
+
+    @Test
+    void rendersEverySizeFromOneSourceReadAndServesLaterRequestsFromTheTiers() throws Exception {
+        CoverService first = service(dir.resolve("node-a"));
+        CompletableFuture<CoverService.Thumbnail> s = first.get("64b7f0c2a1b2c3d4e5f60718", CoverService.Size.S);
+        CompletableFuture<CoverService.Thumbnail> m = first.get("64b7f0c2a1b2c3d4e5f60718", CoverService.Size.M);
+        CompletableFuture<CoverService.Thumbnail> l = first.get("64b7f0c2a1b2c3d4e5f60718", CoverService.Size.L);
+
+        CoverService.Thumbnail medium = m.join();
+        assertEquals(80, width(s.join()));
+        assertEquals(160, width(medium));
+        assertEquals(320, width(l.join()));
+        assertEquals(1L, first.stats().get("renders"), "concurrent misses must share one source read");
+        assertEquals("\"" + md5(medium.jpeg()) + "\"", medium.eTag());
+        String thumbKey = "thumbs/a-0123456789abcdef0123456789abcdef-m.jpg";
+        assertEquals(md5(medium.jpeg()), s3.md5(BUCKET, thumbKey));
+
+        // Restarted node: empty memory, same disk
+        CoverService restarted = service(dir.resolve("node-a"));
+        assertArrayEquals(medium.jpeg(), restarted.get("64b7f0c2a1b2c3d4e5f60718", CoverService.Size.M).join().jpeg());
+        assertEquals(1L, restarted.stats().get("diskHits"));
+        assertEquals(0L, restarted.stats().get("renders"));
+
+        // Another node: empty memory and disk, thumbnail found in R2
+        CoverService other = service(dir.resolve("node-b"));
+        assertArrayEquals(medium.jpeg(), other.get("64b7f0c2a1b2c3d4e5f60718", CoverService.Size.M).join().jpeg());
+        assertEquals(1L, other.stats().get("r2Hits"));
+        assertEquals(0L, other.stats().get("renders"));
+    }
+
+    @Test
+    void booksWithoutAKnownCoverHaveNone() throws Exception {
+        CoverService covers = service(dir);
+        assertNull(covers.get("d41d8cd98f00b204e9800998ecf8427e", CoverService.Size.M).join());
+        assertNull(covers.get("../../etc/passwd", CoverService.Size.M).join());
+        assertNotNull(covers.get("64b7f0c2a1b2c3d4e5f60718", CoverService.Size.M).join());
+    }
+
+    @Test
+    void remoteSourcesMustBeHttpsOnAnAllowedHost() {
+        List<String> allowed = List.of("covers.example.org");
+        assertTrue(CoverService.isAllowedSource("https://covers.example.org/a.jpg", allowed));
+        assertTrue(CoverService.isAllowedSource("https://cdn.covers.example.org/a.jpg", allowed));
+        assertFalse(CoverService.isAllowedSource("http://covers.example.org/a.jpg", allowed));
+        assertFalse(CoverService.isAllowedSource("https://covers.example.org:8443/a.jpg", allowed));
+        assertFalse(CoverService.isAllowedSource("https://user@covers.example.org/a.jpg", allowed));
+        assertFalse(CoverService.isAllowedSource("https://evilcovers.example.org.attacker.net/a.jpg", allowed));
+        assertFalse(CoverService.isAllowedSource("https://169.254.169.254/latest/meta-data", allowed));
+        assertFalse(CoverService.isAllowedSource("file:///etc/passwd", allowed));
+        assertFalse(CoverService.isAllowedSource(null, allowed));
+    }
+
+    @Test
+    void internalAddressesAreNotPublic() throws Exception {
+        for (String internal : List.of("127.0.0.1", "::1", "10.1.2.3", "172.16.0.1", "192.168.1.1", "169.254.169.254",
+                "fe80::1", "fd00::1", "100.64.0.1", "0.0.0.0", "224.0.0.1")) {
+            assertFalse(CoverService.isPublicAddress(InetAddress.getByName(internal)), internal);
+        }
+        assertTrue(CoverService.isPublicAddress(InetAddress.getByName("93.184.216.34")));
+        assertTrue(CoverService.isPublicAddress(InetAddress.getByName("2606:2800:220:1::1")));
+    }
+
+    @Test
+    void sourcesOverThePixelLimitAreNotDecoded() throws Exception {
+        CoverService covers = service(dir, 640L * 960 - 1);
+        assertNull(covers.get("64b7f0c2a1b2c3d4e5f60718", CoverService.Size.M).join());
+        assertEquals(0L, covers.stats().get("renders"));
+        assertEquals(1L, covers.stats().get("sourceMisses"));
+    }
+
+    @Test
+    void missingCoversAreRememberedUntilASourceTurnsUp() throws Exception {
+        AdminBook gone = new AdminBook();
+        gone.setId("64b7f0c2a1b2c3d4e5f60719");
+        gone.setCoverKey("covers/ffffffffffffffffffffffffffffffff.jpg");
+        catalog.upsert(gone);
+        CoverService covers = service(dir);
+
+        assertNull(covers.get("64b7f0c2a1b2c3d4e5f60719", CoverService.Size.M).join());
+        assertNull(covers.get("64b7f0c2a1b2c3d4e5f60719", CoverService.Size.S).join());
+        assertNull(covers.get("d41d8cd98f00b204e9800998ecf8427e", CoverService.Size.M).join());
+        assertNull(covers.get("d41d8cd98f00b204e9800998ecf8427e", CoverService.Size.M).join());
+        assertEquals(2L, covers.stats().get("sourceMisses"), "one source lookup per missing cover");
+    }
+
+    private CoverService service(Path cacheDir) throws Exception {
+        return service(cacheDir, 25_000_000);
+    }
+
+    private CoverService service(Path cacheDir, long maxSourcePixels) throws Exception {
+        BoundedCache<String, CoverService.Thumbnail> memory = new BoundedCache<>("coverThumbnail", 100, 1 << 20,
+                Duration.ofMinutes(5), (k, t) -> (long) t.jpeg().length);
+        BoundedCache<String, String> sources = new BoundedCache<>("coverSource", 100, 1 << 20,
+                Duration.ofMinutes(5), (k, v) -> 1L);
+        UpstreamClient http = new UpstreamClient("covers", HttpClient.newHttpClient(), Duration.ofSeconds(2), 4, 1, 10, 10,
+                new CircuitBreaker(5, 1000));
+        BoundedCache<String, Boolean> misses = new BoundedCache<>("coverMiss", 100, 1 << 20,
+                Duration.ofMinutes(5), (k, v) -> 1L);
+        return new CoverService(client, memory, sources, misses, http, catalog, null, new SimpleAsyncTaskExecutor("cover-"),
+                BUCKET, cacheDir.toString(), 16, 5, maxSourcePixels, new String[]{"covers.example.org"});
+    }
+
+    private static int width(CoverService.Thumbnail thumbnail) throws Exception {
+        return ImageIO.read(new ByteArrayInputStream(thumbnail.jpeg())).getWidth();
+    }
+
+    private static String md5(byte[] data) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("MD5").digest(data));
+    }
+}
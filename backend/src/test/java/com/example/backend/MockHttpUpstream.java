@@ -0,0 +1,107 @@
+package com.example.backend;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Local HTTP server standing in for an upstream API in tests. Scripted responses are served
+ * first, in order; after that every request gets the default response. Each response can
+ * carry a delay, to inject latency, and extra headers.
+ */
+class MockHttpUpstream implements AutoCloseable {
+
+    record Reply(int status, String body, long delayMs, Map<String, String> headers) {
+        static Reply ok(String body) { return new Reply(200, body, 0, Map.of()); }
+        static Reply status(int status) { return new Reply(status, "{}", 0, Map.of()); }
+        Reply delayed(long ms) { return new Reply(status, body, ms, headers); }
+        Reply header(String name, String value) {
+            Map<String, String> more = new LinkedHashMap<>(headers);
+            more.put(name, value);
+            return new Reply(status, body, delayMs, more);
+        }
+    }
+
+    private final HttpServer server;
+    private final ConcurrentLinkedQueue<Reply> scripted = new ConcurrentLinkedQueue<>();
+    private volatile BiFunction<HttpExchange, byte[], Reply> defaultReply = (ex, body) -> Reply.ok("{}");
+    private final AtomicInteger requests = new AtomicInteger();
+
+    MockHttpUpstream() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        // Named so load runs can leave the stand-in's own work out of the server's allocation rate
+        server.setExecutor(Executors.newCachedThreadPool(r -> new Thread(r, "stand-in-upstream")));
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    URI uri(String path) {
+        return URI.create("http://127.0.0.1:" + server.getAddress().getPort() + path);
+    }
+
+    MockHttpUpstream then(Reply reply) {
+        scripted.add(reply);
+        return this;
+    }
+
+    MockHttpUpstream byDefault(Reply reply) {
+        defaultReply = (ex, body) -> reply;
+        return this;
+    }
+
+    MockHttpUpstream byDefault(Function<HttpExchange, Reply> reply) {
+        defaultReply = (ex, body) -> reply.apply(ex);
+        return this;
+    }
+
+    /** For replies that depend on the request body, such as echoing the ids asked for. */
+    MockHttpUpstream byDefault(BiFunction<HttpExchange, byte[], Reply> reply) {
+        defaultReply = reply;
+        return this;
+    }
+
+    int requestCount() {
+        return requests.get();
+    }
+
+    private void handle(HttpExchange ex) throws IOException {
+        requests.incrementAndGet();
+        try {
+            byte[] requestBody = ex.getRequestBody().readAllBytes();
+            Reply reply = scripted.poll();
+            if (reply == null) reply = defaultReply.apply(ex, requestBody);
+            if (reply.delayMs() > 0) Thread.sleep(reply.delayMs());
+
+            byte[] body = reply.body().getBytes(StandardCharsets.UTF_8);
+            ex.getResponseHeaders().add("Content-Type", "application/json");
+            reply.headers().forEach(ex.getResponseHeaders()::add);
+            ex.sendResponseHeaders(reply.status(), body.length);
+            try (OutputStream out = ex.getResponseBody()) {
+                out.write(body);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException ignored) {
+            // client gave up (timeout); nothing to answer
+        } finally {
+            ex.close();
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.backend;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class R2ContentCacheTests {
+
+    private static final String BUCKET = "books";
+    private static final int SIZE = 256 * 1024;
+
+    @TempDir
+    Path dir;
+
+    private S3StandIn s3;
+    private S3Client client;
+    private byte[] data;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        s3 = new S3StandIn();
+        client = S3Client.builder()
+                .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create("test", "test")))
+                .region(Region.US_EAST_1)
+                .endpointOverride(s3.endpoint())
+                .forcePathStyle(true)
+                .build();
+        data = new byte[SIZE];
+        new Random(7).nextBytes(data);
+        client.putObject(b -> b.bucket(BUCKET).key("a.pdf"), RequestBody.fromBytes(data));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        client.close();
+        s3.close();
+    }
+
+    private R2ContentCache cache(long maxBytes) throws Exception {
+        BoundedCache<String, R2ObjectInfo> info = new BoundedCache<>("objectInfo", 100, 1024 * 1024,
+                Duration.ofMinutes(1), (k, v) -> 100L);
+        return new R2ContentCache(client, info, Runnable::run, BUCKET, 8192, true, dir, maxBytes, maxBytes, 2);
+    }
+
+    @Test
+    void rangeReadsFetchOnlyTheRequestedBytes() throws Exception {
+        R2ContentCache cache = cache(1024 * 1024);
+        ByteRange range = ByteRange.parse("bytes=1000-1999", SIZE);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        cache.copyFromR2("a.pdf", range, out);
+
+        assertArrayEquals(Arrays.copyOfRange(data, 1000, 2000), out.toByteArray());
+        assertEquals(1000, s3.bytesServed());
+    }
+
+    @Test
+    void hotObjectsAreServedFromDisk() throws Exception {
+        R2ContentCache cache = cache(1024 * 1024);
+        R2ObjectInfo info = cache.info("a.pdf");
+        assertEquals(SIZE, info.size());
+
+        assertNull(cache.lookup("a.pdf", info), "first request is not enough to admit");
+        assertNull(cache.lookup("a.pdf", info), "second request admits it; the copy is made in the background");
+        R2ContentCache.CachedFile cached = cache.lookup("a.pdf", info);
+        assertNotNull(cached);
+        long servedBeforeDisk = s3.bytesServed();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        cache.transfer(cached.path(), 5000, 3000, Channels.newChannel(out));
+        assertArrayEquals(Arrays.copyOfRange(data, 5000, 8000), out.toByteArray());
+        assertEquals(servedBeforeDisk, s3.bytesServed());
+
+        cache.onCatalogChanges(List.of(CatalogChange.delete("book-1", "a.pdf")));
+        assertFalse(Files.exists(cached.path()));
+        assertEquals(0L, cache.stats().get("bytes"));
+    }
+}
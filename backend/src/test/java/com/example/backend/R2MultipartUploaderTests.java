@@ -0,0 +1,112 @@
+package com.example.backend;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class R2MultipartUploaderTests {
+
+    private static final int PART_SIZE = R2MultipartUploader.MIN_PART_SIZE;
+    private static final int MAX_BUFFERS = 2;
+    private static final long HEAP_BUDGET = (long) PART_SIZE * MAX_BUFFERS;
+
+    private S3StandIn s3;
+    private S3Client client;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        s3 = new S3StandIn();
+        client = S3Client.builder()
+                .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create("test", "test")))
+                .region(Region.US_EAST_1)
+                .endpointOverride(s3.endpoint())
+                .forcePathStyle(true)
+                .build();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        client.close();
+        s3.close();
+    }
+
+    @Test
+    void streamsFileLargerThanBufferBudgetAndRetriesOnlyTheFailedPart() throws Exception {
+        long size = HEAP_BUDGET * 6 + 12345; // several times the budget, with a short last part
+        R2MultipartUploader uploader = new R2MultipartUploader(client, PART_SIZE, 2, MAX_BUFFERS, 3, new SimpleAsyncTaskExecutor("r2-part-"));
+        s3.failFirstAttemptOfPart(3);
+
+        MessageDigest md5 = MessageDigest.getInstance("MD5");
+        try (InputStream in = new DigestInputStream(new GeneratedStream(size, 42), md5)) {
+            uploader.upload("books", "big.pdf", in, size, "application/pdf");
+        }
+
+        assertEquals(HexFormat.of().formatHex(md5.digest()), s3.md5("books", "big.pdf"));
+        assertTrue(uploader.peakBufferBytes() <= HEAP_BUDGET,
+                "peak part buffers " + uploader.peakBufferBytes() + " exceeded budget " + HEAP_BUDGET);
+
+        int parts = (int) ((size + PART_SIZE - 1) / PART_SIZE);
+        assertEquals(parts, s3.partAttempts().size());
+        s3.partAttempts().forEach((part, attempts) -> {
+            if (part == 3) assertTrue(attempts >= 2, "failed part was not resent");
+            else assertEquals(1, attempts, "part " + part + " was resent");
+        });
+        assertEquals(0, s3.openUploads());
+    }
+
+    @Test
+    void smallFilesUseSinglePut() throws Exception {
+        byte[] data = "hello knowledgehub".getBytes();
+        R2MultipartUploader uploader = new R2MultipartUploader(client, PART_SIZE, 2, MAX_BUFFERS, 3, new SimpleAsyncTaskExecutor("r2-part-"));
+        uploader.upload("books", "small.txt", new ByteArrayInputStream(data), data.length, "text/plain");
+
+        assertEquals(HexFormat.of().formatHex(MessageDigest.getInstance("MD5").digest(data)), s3.md5("books", "small.txt"));
+        assertEquals(0, uploader.peakBufferBytes());
+        assertTrue(s3.partAttempts().isEmpty());
+    }
+
+    /** Deterministic pseudo-random bytes, generated on the fly so the test never holds the file. */
+    private static final class GeneratedStream extends InputStream {
+        private final Random random;
+        private long remaining;
+
+        GeneratedStream(long size, long seed) {
+            this.remaining = size;
+            this.random = new Random(seed);
+        }
+
+        @Override
+        public int read() {
+            if (remaining <= 0) return -1;
+            remaining--;
+            return random.nextInt(256);
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (remaining <= 0) return -1;
+            int n = (int) Math.min(len, Math.min(remaining, 64 * 1024));
+            byte[] chunk = new byte[n];
+            random.nextBytes(chunk);
+            System.arraycopy(chunk, 0, b, off, n);
+            remaining -= n;
+            return n;
+        }
+    }
+}
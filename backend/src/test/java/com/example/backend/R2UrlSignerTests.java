@@ -0,0 +1,96 @@
+package com.example.backend;
+
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+import java.net.URI;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class R2UrlSignerTests {
+
+    private S3Presigner presigner;
+    private BoundedCache<String, PresignedUrl> cache;
+    private final List<Runnable> refreshes = new ArrayList<>();
+    private Instant now = Instant.parse("2025-01-01T00:00:00Z");
+
+    @BeforeEach
+    void setUp() {
+        presigner = S3Presigner.builder()
+                .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create("test", "test")))
+                .region(Region.US_EAST_1)
+                .endpointOverride(URI.create("https://account.r2.cloudflarestorage.com"))
+                .build();
+        cache = new BoundedCache<>("presignedUrl", 100, 1 << 20, Duration.ofMinutes(45), (k, v) -> 100L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        presigner.close();
+    }
+
+    private R2UrlSigner signer() {
+        Clock clock = new Clock() {
+            @Override public ZoneOffset getZone() { return ZoneOffset.UTC; }
+            @Override public Clock withZone(java.time.ZoneId zone) { return this; }
+            @Override public Instant instant() { return now; }
+        };
+        return new R2UrlSigner(presigner, cache, refreshes::add, Duration.ofHours(1), Duration.ofMinutes(30), clock,
+                ObservationRegistry.NOOP);
+    }
+
+    @Test
+    void repeatedRequestsReuseTheSignedUrl() {
+        R2UrlSigner signer = signer();
+        PresignedUrl first = signer.getDownloadUrl("books", "a.pdf");
+        PresignedUrl second = signer.getDownloadUrl("books", "a.pdf");
+
+        assertSame(first, second);
+        assertEquals(now.plus(Duration.ofHours(1)), first.expiresAt());
+        assertTrue(first.url().contains("a.pdf") && first.url().contains("X-Amz-Signature="));
+        assertEquals(1, cache.loadCount());
+        assertTrue(refreshes.isEmpty());
+    }
+
+    @Test
+    void ageingUrlIsServedWhileOneBackgroundRefreshRuns() {
+        R2UrlSigner signer = signer();
+        PresignedUrl original = signer.getDownloadUrl("books", "a.pdf");
+
+        now = now.plus(Duration.ofMinutes(31));
+        assertSame(original, signer.getDownloadUrl("books", "a.pdf"));
+        assertSame(original, signer.getDownloadUrl("books", "a.pdf"));
+        assertEquals(1, refreshes.size(), "only one refresh per key at a time");
+
+        refreshes.remove(0).run();
+        PresignedUrl refreshed = signer.getDownloadUrl("books", "a.pdf");
+        assertEquals(now, refreshed.signedAt());
+        assertNotSame(original, refreshed);
+        assertTrue(refreshes.isEmpty());
+    }
+
+    @Test
+    void invalidatedKeyIsSignedAgain() {
+        R2UrlSigner signer = signer();
+        signer.getDownloadUrl("books", "a.pdf");
+        signer.invalidate("books", "a.pdf");
+        signer.getDownloadUrl("books", "a.pdf");
+
+        assertEquals(2, cache.loadCount());
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.backend;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RateLimiterTests {
+
+    private final AtomicLong now = new AtomicLong(1_000_000_000L);
+
+    @Test
+    void allowsABurstThenTheSustainedRatePerClient() {
+        RateLimiter limiter = new RateLimiter("test", 2, 3, 1000, now::get);
+
+        for (int i = 0; i < 3; i++) assertEquals(0, limiter.tryAcquire("10.0.0.1"));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(500), limiter.tryAcquire("10.0.0.1"));
+        assertEquals(0, limiter.tryAcquire("10.0.0.2"), "other clients have their own bucket");
+
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(500));
+        assertEquals(0, limiter.tryAcquire("10.0.0.1"));
+        assertTrue(limiter.tryAcquire("10.0.0.1") > 0);
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        for (int i = 0; i < 3; i++) assertEquals(0, limiter.tryAcquire("10.0.0.1"), "refills up to the burst only");
+        assertTrue(limiter.tryAcquire("10.0.0.1") > 0);
+
+        assertEquals(8L, limiter.stats().get("allowed"));
+        assertEquals(3L, limiter.stats().get("rejected"));
+    }
+
+    @Test
+    void concurrentCallersNeverGetMoreThanTheBurst() throws Exception {
+        RateLimiter limiter = new RateLimiter("test", 1, 100, 1000, now::get);
+        AtomicLong granted = new AtomicLong();
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 1000; i++) if (limiter.tryAcquire("shared") == 0) granted.incrementAndGet();
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) thread.join();
+
+        assertEquals(100, granted.get());
+    }
+
+    @Test
+    void refilledBucketsAreDroppedWhenAStripeFillsUp() {
+        RateLimiter limiter = new RateLimiter("test", 10, 1, 0, now::get);
+        for (int i = 0; i < 10_000; i++) limiter.tryAcquire("client-" + i);
+        now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        for (int i = 0; i < 10_000; i++) limiter.tryAcquire("other-" + i);
+
+        assertTrue((int) limiter.stats().get("keys") < 20_000, String.valueOf(limiter.stats().get("keys")));
+        assertEquals(20_000L, limiter.stats().get("allowed"));
+    }
+}
@@ -0,0 +1,206 @@
+package com.example.backend;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.boot.web.embedded.netty.NettyWebServer;
+import org.springframework.boot.web.reactive.context.ReactiveWebServerApplicationContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// The test context picks its web stack before profile files are read, so it is set here as well
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.main.web-application-type=reactive",
+        "catalog.snapshot.enabled=false",
+        "ratelimit.enabled=false",
+        "upstream.rapidapi.budget.ratePerSecond=0",
+        "upstream.rapidapi.http2=false",
+        "upstream.rapidapi.maxConcurrent=1000",
+        "upstream.rapidapi.maxAttempts=1",
+        "upstream.glitternode.budget.ratePerSecond=100",
+        "upstream.glitternode.budget.quotaPerDay=1",
+        "search.remote.timeoutMs=10000"
+})
+@ActiveProfiles("reactive")
+class ReactiveBookControllerTests {
+
+    private static final long UPSTREAM_LATENCY_MS = 300;
+    private static final MockHttpUpstream upstream = start();
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final HttpClient http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private CatalogIndex catalogIndex;
+
+    @Autowired
+    private ReactiveWebServerApplicationContext context;
+
+    private static MockHttpUpstream start() {
+        try {
+            MockHttpUpstream server = new MockHttpUpstream();
+            String one = "{\"books\":[{\"title\":\"Remote Reactive Streams\",\"author\":\"Upstream\",\"md5\":\"0123456789abcdef0123456789abcdef\"}]}";
+            StringBuilder many = new StringBuilder("{\"books\":[");
+            for (int i = 0; i < 30; i++) {
+                if (i > 0) many.append(',');
+                many.append("{\"title\":\"Bulky ").append(i).append("\",\"md5\":\"").append(String.format("%032x", i))
+                        .append("\",\"descr\":\"").append("A long description. ".repeat(20)).append("\"}");
+            }
+            String bulky = many.append("]}").toString();
+            server.byDefault(exchange -> MockHttpUpstream.Reply.ok(
+                    String.valueOf(exchange.getRequestURI().getQuery()).contains("q=bulky") ? bulky : one).delayed(UPSTREAM_LATENCY_MS));
+            return server;
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @DynamicPropertySource
+    static void upstreams(DynamicPropertyRegistry registry) {
+        registry.add("upstream.rapidapi.baseUrl", () -> upstream.uri("").toString());
+        registry.add("upstream.glitternode.url", () -> upstream.uri("/v1/book").toString());
+    }
+
+    @AfterAll
+    static void stopUpstream() {
+        upstream.close();
+    }
+
+    @BeforeEach
+    void indexOneBook() {
+        AdminBook book = new AdminBook();
+        book.setId("64b7f0c2a1b2c3d4e5f60718");
+        book.setTitle("Local Reactive Streams");
+        book.setAuthor("Admin");
+        catalogIndex.rebuild(Stream.of(book));
+    }
+
+    @Test
+    void searchMergesTheIndexAndTheUpstreamOnTheEventLoop() throws Exception {
+        assertInstanceOf(NettyWebServer.class, context.getWebServer());
+
+        HttpResponse<String> response = get("/api/search?query=reactive%20streams&pageSize=10");
+
+        assertEquals(200, response.statusCode(), response.body());
+        JsonNode body = mapper.readTree(response.body());
+        List<String> titles = new ArrayList<>();
+        body.path("books").forEach(book -> titles.add(book.path("title").asText()));
+        assertTrue(titles.contains("Local Reactive Streams"), titles.toString());
+        assertTrue(titles.contains("Remote Reactive Streams"), titles.toString());
+        assertEquals(0, body.path("timedOut").size());
+        assertTrue(body.path("nextCursor").isNull());
+    }
+
+    @Test
+    void concurrentSlowSearchesWaitTogetherInsteadOfQueueingForThreads() {
+        int concurrency = 200;
+        long started = System.nanoTime();
+        List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+        for (int i = 0; i < concurrency; i++) {
+            responses.add(http.sendAsync(request("/api/search?query=distinct" + i), HttpResponse.BodyHandlers.ofString()));
+        }
+        for (CompletableFuture<HttpResponse<String>> response : responses) {
+            assertEquals(200, response.join().statusCode());
+        }
+        long elapsedMs = (System.nanoTime() - started) / 1_000_000;
+
+        // One after another this would take concurrency * latency; allow generous slack for a slow machine
+        assertTrue(elapsedMs < 20 * UPSTREAM_LATENCY_MS, "took " + elapsedMs + "ms");
+    }
+
+    @Test
+    void unchangedPagesRevalidateWithoutABody() throws Exception {
+        String path = "/api/search?query=reactive%20streams&pageSize=10&fields=title";
+        HttpResponse<String> first = get(path);
+        String eTag = first.headers().firstValue("ETag").orElseThrow();
+        assertTrue(first.body().contains("\"title\""));
+        assertFalse(first.body().contains("\"descr\""));
+
+        HttpResponse<String> again = http.send(HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + port + path))
+                .header("If-None-Match", eTag).GET().build(), HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(304, again.statusCode());
+        assertEquals(eTag, again.headers().firstValue("ETag").orElse(null));
+        assertEquals("", again.body());
+    }
+
+    @Test
+    void largeSearchPagesAreCompressedWhenTheClientAsks() throws Exception {
+        HttpResponse<byte[]> bulky = getGzip("/api/search?query=bulky");
+        assertEquals(200, bulky.statusCode());
+        assertEquals("gzip", bulky.headers().firstValue("Content-Encoding").orElse(null));
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(bulky.body()))) {
+            assertEquals(30, mapper.readTree(in).path("books").size());
+        }
+
+        // Two books are under the threshold, so that body is sent as it is
+        HttpResponse<byte[]> small = getGzip("/api/search?query=reactive%20streams");
+        assertTrue(small.headers().firstValue("Content-Encoding").isEmpty());
+    }
+
+    @Test
+    void bookDetailsOverTheUpstreamBudgetAreTooManyRequests() throws Exception {
+        // The day's single Glitter Node call goes to the first request, whatever it returns
+        post("/api/book-detail", "{\"book_ids\":[\"first\"]}");
+
+        HttpResponse<String> response = post("/api/book-detail", "{\"book_ids\":[\"second\"]}");
+
+        assertEquals(429, response.statusCode(), response.body());
+        assertTrue(response.headers().firstValue("Retry-After").isPresent());
+    }
+
+    @Test
+    void adminEndpointsNeedAToken() throws Exception {
+        HttpResponse<String> response = get("/api/admin/download?bookId=64b7f0c2a1b2c3d4e5f60718");
+
+        assertEquals(401, response.statusCode());
+        assertEquals("Bearer", response.headers().firstValue("WWW-Authenticate").orElse(null));
+        assertNull(mapper.readTree(response.body()).get("downloadUrl"));
+    }
+
+    private HttpResponse<String> get(String path) throws Exception {
+        return http.send(request(path), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> post(String path, String json) throws Exception {
+        return http.send(HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + port + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json)).build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<byte[]> getGzip(String path) throws Exception {
+        return http.send(HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + port + path))
+                .header("Accept-Encoding", "gzip").GET().build(), HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    private HttpRequest request(String path) {
+        return HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + port + path)).GET().build();
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.backend;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RemoteSearchParserTests {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private List<BookSummary> parse(String json) throws Exception {
+        return RemoteSearchParser.parse(mapper.getFactory(), json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void readsBooksWithDefaultsForMissingAndNullFields() throws Exception {
+        List<BookSummary> books = parse("""
+                {"total": 2, "meta": {"source": ["libgenLi"]},
+                 "books": [
+                   {"md5": " abc123 ", "title": "Designing Data-Intensive Applications", "year": 2017,
+                    "author": null, "covers": {"small": "x"}, "language": "English", "pages": null},
+                   {"title": "Second"}
+                 ]}
+                """);
+
+        assertEquals(2, books.size());
+        BookSummary first = books.get(0);
+        assertEquals("abc123", first.id());
+        assertEquals("Designing Data-Intensive Applications", first.title());
+        assertEquals("2017", first.year());
+        assertEquals("Unknown", first.author());
+        assertEquals("Unknown Publisher", first.publisher());
+        assertEquals("English", first.language());
+        assertEquals("N/A", first.pages());
+        assertNull(first.extension());
+        assertFalse(first.adminBook());
+
+        BookSummary second = books.get(1);
+        assertEquals("", second.id());
+        assertEquals("N/A", second.size());
+        assertNull(second.language());
+    }
+
+    @Test
+    void missingOrMalformedBooksGiveEmptyList() throws Exception {
+        assertTrue(parse("{\"error\": \"quota\"}").isEmpty());
+        assertTrue(parse("[]").isEmpty());
+        assertTrue(parse("{\"books\": {}}").isEmpty());
+    }
+
+    @Test
+    void summariesSerializeToTheSearchResponseShape() throws Exception {
+        AdminBook admin = new AdminBook();
+        admin.setId("65f0c0ffee");
+        admin.setTitle("Local");
+        BookSummary remote = parse("{\"books\":[{\"md5\":\"m\",\"extension\":\"pdf\"}]}").get(0);
+
+        JsonNode json = mapper.readTree(mapper.writeValueAsBytes(
+                new SearchResponse(List.of(BookSummary.fromAdminBook(admin), remote), null, List.of(), List.of("remote"))));
+
+        JsonNode local = json.path("books").get(0);
+        assertEquals("65f0c0ffee", local.path("id").asText());
+        assertTrue(local.path("isAdminBook").asBoolean());
+        assertEquals("N/A", local.path("size").asText());
+        assertFalse(local.has("extension"));
+
+        JsonNode other = json.path("books").get(1);
+        assertEquals("pdf", other.path("extension").asText());
+        assertFalse(other.path("isAdminBook").asBoolean());
+        assertEquals("remote", json.path("failed").get(0).asText());
+    }
+
+    @Test
+    void sparseFieldsetsLeaveTheOtherFieldsOut() throws Exception {
+        BookSummary remote = parse("{\"books\":[{\"md5\":\"m\",\"title\":\"T\",\"descr\":\"long\"}]}").get(0);
+
+        JsonNode book = mapper.readTree(mapper.writeValueAsBytes(new SearchResponse(
+                List.of(remote), null, List.of(), List.of(), BookSummary.parseFields("title, author")))).path("books").get(0);
+
+        assertEquals("m", book.path("id").asText());
+        assertEquals("T", book.path("title").asText());
+        assertTrue(book.has("author"));
+        assertFalse(book.has("descr"));
+        assertFalse(book.has("isAdminBook"));
+        assertEquals(BookSummary.ALL_FIELDS, BookSummary.parseFields(null));
+        assertThrows(IllegalArgumentException.class, () -> BookSummary.parseFields("title,md5"));
+    }
+}
@@ -0,0 +1,307 @@
+package com.example.backend;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Minimal S3-compatible server for tests: path-style PutObject, GetObject (with Range),
+ * HeadObject, DeleteObject and the multipart upload calls. Objects and parts are spooled to a
+ * temp directory, never held in memory, so tests can push files much larger than the client's
+ * buffer budget.
+ */
+class S3StandIn implements AutoCloseable {
+
+    private final HttpServer server;
+    private final Path root;
+    private final Map<String, Path> objects = new ConcurrentHashMap<>();
+    private final Map<String, Map<Integer, Path>> uploads = new ConcurrentHashMap<>();
+    private final Map<Integer, AtomicInteger> partAttempts = new ConcurrentHashMap<>();
+    private final Set<Integer> failFirstAttempt = ConcurrentHashMap.newKeySet();
+    private final AtomicLong bytesServed = new AtomicLong();
+
+    S3StandIn() throws IOException {
+        root = Files.createTempDirectory("s3-stand-in");
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        // The load harness tells these threads apart from the server's by name
+        server.setExecutor(Executors.newCachedThreadPool(r -> new Thread(r, "stand-in-s3")));
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    URI endpoint() {
+        return URI.create("http://127.0.0.1:" + server.getAddress().getPort());
+    }
+
+    /** The next upload of this part number answers 500 once, then succeeds. */
+    void failFirstAttemptOfPart(int partNumber) {
+        failFirstAttempt.add(partNumber);
+    }
+
+    Map<Integer, Integer> partAttempts() {
+        Map<Integer, Integer> copy = new TreeMap<>();
+        partAttempts.forEach((k, v) -> copy.put(k, v.get()));
+        return copy;
+    }
+
+    Path object(String bucket, String key) {
+        return objects.get(bucket + "/" + key);
+    }
+
+    int objectCount() {
+        return objects.size();
+    }
+
+    String md5(String bucket, String key) throws IOException {
+        Path p = object(bucket, key);
+        return p == null ? null : md5(p);
+    }
+
+    private static String md5(Path p) throws IOException {
+        try (InputStream in = Files.newInputStream(p)) {
+            return HexFormat.of().formatHex(digest(in));
+        }
+    }
+
+    /** Object bytes sent by GetObject so far. */
+    long bytesServed() {
+        return bytesServed.get();
+    }
+
+    int openUploads() {
+        return uploads.size();
+    }
+
+    private void handle(HttpExchange ex) throws IOException {
+        try {
+            String path = ex.getRequestURI().getPath().substring(1);
+            Map<String, String> query = parseQuery(ex.getRequestURI().getRawQuery());
+            String method = ex.getRequestMethod();
+
+            if (method.equals("POST") && query.containsKey("uploads")) {
+                String uploadId = UUID.randomUUID().toString();
+                uploads.put(uploadId, new ConcurrentHashMap<>());
+                xml(ex, 200, "<InitiateMultipartUploadResult><UploadId>" + uploadId + "</UploadId></InitiateMultipartUploadResult>");
+            } else if (method.equals("PUT") && query.containsKey("uploadId")) {
+                uploadPart(ex, query.get("uploadId"), Integer.parseInt(query.get("partNumber")));
+            } else if (method.equals("POST") && query.containsKey("uploadId")) {
+                completeUpload(ex, path, query.get("uploadId"));
+            } else if (method.equals("DELETE") && query.containsKey("uploadId")) {
+                uploads.remove(query.get("uploadId"));
+                empty(ex, 204);
+            } else if (method.equals("PUT")) {
+                Path file = spool(ex);
+                objects.put(path, file);
+                ex.getResponseHeaders().add("ETag", "\"" + md5(file) + "\"");
+                empty(ex, 200);
+            } else if (method.equals("DELETE")) {
+                objects.remove(path);
+                empty(ex, 204);
+            } else if (method.equals("GET") || method.equals("HEAD")) {
+                getObject(ex, path, method.equals("HEAD"));
+            } else {
+                empty(ex, 405);
+            }
+        } catch (Exception e) {
+            xml(ex, 500, "<Error><Code>InternalError</Code><Message>" + e.getMessage() + "</Message></Error>");
+        } finally {
+            ex.close();
+        }
+    }
+
+    private void uploadPart(HttpExchange ex, String uploadId, int partNumber) throws IOException {
+        Map<Integer, Path> parts = uploads.get(uploadId);
+        if (parts == null) {
+            xml(ex, 404, "<Error><Code>NoSuchUpload</Code></Error>");
+            return;
+        }
+        partAttempts.computeIfAbsent(partNumber, n -> new AtomicInteger()).incrementAndGet();
+        Path file = spool(ex);
+        if (failFirstAttempt.remove(partNumber)) {
+            Files.deleteIfExists(file);
+            xml(ex, 500, "<Error><Code>InternalError</Code><Message>injected</Message></Error>");
+            return;
+        }
+        parts.put(partNumber, file);
+        ex.getResponseHeaders().add("ETag", "\"part-" + partNumber + "\"");
+        empty(ex, 200);
+    }
+
+    private void completeUpload(HttpExchange ex, String key, String uploadId) throws IOException {
+        ex.getRequestBody().readAllBytes();
+        Map<Integer, Path> parts = uploads.remove(uploadId);
+        if (parts == null) {
+            xml(ex, 404, "<Error><Code>NoSuchUpload</Code></Error>");
+            return;
+        }
+        Path target = Files.createTempFile(root, "object", ".bin");
+        try (OutputStream out = Files.newOutputStream(target)) {
+            for (Path part : new TreeMap<>(parts).values()) {
+                Files.copy(part, out);
+                Files.delete(part);
+            }
+        }
+        objects.put(key, target);
+        xml(ex, 200, "<CompleteMultipartUploadResult><Key>" + key + "</Key><ETag>\"done\"</ETag></CompleteMultipartUploadResult>");
+    }
+
+    private void getObject(HttpExchange ex, String key, boolean headOnly) throws IOException {
+        Path file = objects.get(key);
+        if (file == null) {
+            xml(ex, 404, "<Error><Code>NoSuchKey</Code></Error>");
+            return;
+        }
+        long size = Files.size(file);
+        ex.getResponseHeaders().add("Content-Type", "application/octet-stream");
+        ex.getResponseHeaders().add("ETag", "\"" + Integer.toHexString(file.hashCode()) + "\"");
+        if (headOnly) {
+            ex.getResponseHeaders().add("Content-Length", Long.toString(size));
+            ex.sendResponseHeaders(200, -1);
+            return;
+        }
+
+        long start = 0, end = size - 1;
+        String range = ex.getRequestHeaders().getFirst("Range");
+        int status = 200;
+        if (range != null && range.startsWith("bytes=")) {
+            String[] bounds = range.substring(6).split("-", 2);
+            if (bounds[0].isEmpty()) {
+                start = Math.max(0, size - Long.parseLong(bounds[1]));
+            } else {
+                start = Long.parseLong(bounds[0]);
+                if (!bounds[1].isEmpty()) end = Math.min(end, Long.parseLong(bounds[1]));
+            }
+            status = 206;
+            ex.getResponseHeaders().add("Content-Range", "bytes " + start + "-" + end + "/" + size);
+        }
+        long length = end - start + 1;
+        ex.sendResponseHeaders(status, length);
+        try (InputStream in = Files.newInputStream(file); OutputStream out = ex.getResponseBody()) {
+            in.skipNBytes(start);
+            byte[] buf = new byte[8192];
+            long remaining = length;
+            while (remaining > 0) {
+                int n = in.read(buf, 0, (int) Math.min(buf.length, remaining));
+                if (n < 0) break;
+                out.write(buf, 0, n);
+                bytesServed.addAndGet(n);
+                remaining -= n;
+            }
+        }
+    }
+
+    /** Writes the request body to a temp file, decoding aws-chunked payloads. */
+    private Path spool(HttpExchange ex) throws IOException {
+        Path file = Files.createTempFile(root, "upload", ".bin");
+        String sha = ex.getRequestHeaders().getFirst("x-amz-content-sha256");
+        String encoding = ex.getRequestHeaders().getFirst("Content-Encoding");
+        boolean chunked = (sha != null && sha.startsWith("STREAMING-"))
+                || (encoding != null && encoding.contains("aws-chunked"));
+        try (InputStream in = ex.getRequestBody()) {
+            if (chunked) {
+                try (OutputStream out = Files.newOutputStream(file)) {
+                    decodeAwsChunked(in, out);
+                }
+            } else {
+                Files.copy(in, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        return file;
+    }
+
+    private static void decodeAwsChunked(InputStream in, OutputStream out) throws IOException {
+        byte[] buf = new byte[8192];
+        while (true) {
+            String header = readLine(in);
+            if (header == null) return;
+            if (header.isEmpty()) continue;
+            int semi = header.indexOf(';');
+            long size = Long.parseLong(semi >= 0 ? header.substring(0, semi) : header, 16);
+            if (size == 0) return;
+            long remaining = size;
+            while (remaining > 0) {
+                int n = in.read(buf, 0, (int) Math.min(buf.length, remaining));
+                if (n < 0) throw new IOException("Truncated aws-chunked body");
+                out.write(buf, 0, n);
+                remaining -= n;
+            }
+            readLine(in);
+        }
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int b;
+        while ((b = in.read()) >= 0) {
+            if (b == '\n') break;
+            if (b != '\r') line.write(b);
+        }
+        if (b < 0 && line.size() == 0) return null;
+        return line.toString(StandardCharsets.US_ASCII);
+    }
+
+    private static Map<String, String> parseQuery(String raw) {
+        Map<String, String> query = new HashMap<>();
+        if (raw == null || raw.isEmpty()) return query;
+        for (String pair : raw.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq < 0) query.put(pair, "");
+            else query.put(pair.substring(0, eq), java.net.URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+        }
+        return query;
+    }
+
+    private static void xml(HttpExchange ex, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        ex.getResponseHeaders().add("Content-Type", "application/xml");
+        ex.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = ex.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static void empty(HttpExchange ex, int status) throws IOException {
+        ex.sendResponseHeaders(status, -1);
+    }
+
+    static byte[] digest(InputStream in) throws IOException {
+        try {
+            MessageDigest md5 = MessageDigest.getInstance("MD5");
+            byte[] buf = new byte[8192];
+            int n;
+            while ((n = in.read(buf)) > 0) md5.update(buf, 0, n);
+            return md5.digest();
+        } catch (java.security.NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        server.stop(0);
+        try (var files = Files.walk(root)) {
+            files.sorted(java.util.Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+}
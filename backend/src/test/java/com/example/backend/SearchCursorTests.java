@@ -0,0 +1,22 @@
+package com.example.backend;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SearchCursorTests {
+
+    @Test
+    void roundTripsThroughTheOpaqueToken() {
+        SearchCursor cursor = new SearchCursor(100, -1, 37);
+        assertEquals(cursor, SearchCursor.decode(cursor.encode()));
+    }
+
+    @Test
+    void rejectsTokensItDidNotProduce() {
+        assertThrows(IllegalArgumentException.class, () -> SearchCursor.decode("not base64!"));
+        assertThrows(IllegalArgumentException.class, () -> SearchCursor.decode("djIuMC4wLjA")); // "v2.0.0.0"
+        assertThrows(IllegalArgumentException.class, () -> SearchCursor.decode(new SearchCursor(0, 0, -5).encode()));
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.backend;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SearchMergerTests {
+
+    private static AdminBook admin(String id, String title, String md5) {
+        AdminBook b = new AdminBook();
+        b.setId(id);
+        b.setTitle(title);
+        b.setAuthor("Someone");
+        b.setPublisher("Press");
+        b.setMd5(md5);
+        return b;
+    }
+
+    private static BookSummary remote(String md5, String title, String author) {
+        return new BookSummary(md5, title, author, "Unknown Publisher", "N/A", "", "pdf", "N/A", "",
+                null, null, null, false);
+    }
+
+    private static List<String> ids(List<BookSummary> books) {
+        return books.stream().map(BookSummary::id).toList();
+    }
+
+    @Test
+    void dropsRemoteCopiesOfHostedFilesByContentHash() {
+        List<BookSummary> merged = SearchMerger.merge("dune",
+                List.of(admin("65f0aa", "Dune", "0123456789abcdef0123456789abcdef")),
+                List.of(remote("0123456789ABCDEF0123456789ABCDEF", "Dune", "Frank Herbert"),
+                        remote("fedcba9876543210fedcba9876543210", "Dune Messiah", "Frank Herbert")),
+                md5 -> false);
+
+        assertEquals(List.of("65f0aa", "fedcba9876543210fedcba9876543210"), ids(merged));
+        assertTrue(merged.get(0).adminBook());
+    }
+
+    @Test
+    void dropsRemoteCopiesOfHostedFilesOutsideThisWindow() {
+        // The hosted copy ranks too low to be among this window's admin hits
+        CatalogIndex index = new CatalogIndex();
+        index.upsert(admin("65f0bb", "Children of Dune", "0123456789abcdef0123456789abcdef"));
+
+        List<BookSummary> merged = SearchMerger.merge("dune",
+                List.of(admin("65f0aa", "Dune", null)),
+                List.of(remote("0123456789ABCDEF0123456789ABCDEF", "Children of Dune", "Frank Herbert"),
+                        remote("fedcba9876543210fedcba9876543210", "Dune Messiah", "Frank Herbert")),
+                index::hostsMd5);
+
+        assertEquals(List.of("65f0aa", "fedcba9876543210fedcba9876543210"), ids(merged));
+    }
+
+    @Test
+    void ranksBetterMatchesFirstWhateverTheSource() {
+        List<BookSummary> merged = SearchMerger.merge("kleppmann data intensive",
+                List.of(admin("local-1", "Data Structures in C", null)),
+                List.of(remote("r1", "Designing Data-Intensive Applications", "Martin Kleppmann"),
+                        remote("r2", "Intensive Care Data", "Someone Else")),
+                md5 -> false);
+
+        assertEquals(List.of("r1", "r2", "local-1"), ids(merged));
+    }
+
+    @Test
+    void equalMatchesKeepSourceOrderWithAdminBooksAheadOnTies() {
+        List<BookSummary> merged = SearchMerger.merge("",
+                List.of(admin("a1", "One", null), admin("a2", "Two", null)),
+                List.of(remote("r1", "Three", "X"), remote("r2", "Four", "Y")),
+                md5 -> false);
+
+        assertEquals(List.of("a1", "r1", "a2", "r2"), ids(merged));
+    }
+
+    @Test
+    void lastQueryTermMatchesAsPrefix() {
+        List<String> terms = CatalogIndex.tokenize("distributed sys");
+        float prefixed = SearchMerger.relevance(terms, remote("r", "Distributed Systems", "A"));
+        float partial = SearchMerger.relevance(terms, remote("r", "Distributed Computing", "A"));
+
+        assertEquals(1f, prefixed);
+        assertEquals(0.5f, partial);
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.backend;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class SearchWindowTests {
+
+    private static BookSummary book(String id, String descr) {
+        return new BookSummary(id, "Title " + id, "Author", "N/A", "N/A", descr, "PDF", "N/A", "", null, null, "pdf", false);
+    }
+
+    @Test
+    void versionFollowsTheContentNotTheInstance() {
+        SearchWindow window = new SearchWindow(List.of(book("a", "x"), book("b", "y")), false, true);
+
+        assertEquals(window.version(), new SearchWindow(List.of(book("a", "x"), book("b", "y")), false, true).version());
+        assertNotEquals(window.version(), new SearchWindow(List.of(book("a", "x"), book("b", "z")), false, true).version());
+        assertNotEquals(window.version(), new SearchWindow(List.of(book("b", "y"), book("a", "x")), false, true).version());
+        assertNotEquals(window.version(), new SearchWindow(List.of(book("a", "x"), book("b", "y")), false, false).version());
+    }
+
+    @Test
+    void eachPageAndFieldsetHasItsOwnTag() {
+        SearchWindow window = new SearchWindow(List.of(book("a", "x"), book("b", "y")), false, false);
+        SearchCursor first = SearchCursor.START;
+        SearchCursor second = new SearchCursor(0, 0, 1);
+
+        assertEquals(window.eTag(first, 1, BookSummary.ALL_FIELDS), window.eTag(first, 1, BookSummary.ALL_FIELDS));
+        assertNotEquals(window.eTag(first, 1, BookSummary.ALL_FIELDS), window.eTag(second, 1, BookSummary.ALL_FIELDS));
+        assertNotEquals(window.eTag(first, 1, BookSummary.ALL_FIELDS), window.eTag(first, 2, BookSummary.ALL_FIELDS));
+        assertNotEquals(window.eTag(first, 1, BookSummary.ALL_FIELDS), window.eTag(first, 1, BookSummary.parseFields("title")));
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.backend;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UpstreamBudgetTests {
+
+    private final AtomicLong now = new AtomicLong(1_000_000_000L);
+    private final AtomicLong wall = new AtomicLong(1_767_268_800_000L); // 2026-01-01T12:00:00Z
+
+    @Test
+    void queuedCallsAreReleasedByPriorityAndLowerPrioritiesMakeRoom() throws Exception {
+        UpstreamBudget budget = new UpstreamBudget("test", 10, 2, 2, 60_000, 0, now::get, wall::get);
+
+        assertTrue(budget.acquire(UpstreamBudget.Priority.NORMAL).isDone());
+        assertTrue(budget.acquire(UpstreamBudget.Priority.NORMAL).isDone());
+
+        CompletableFuture<Void> low = budget.acquire(UpstreamBudget.Priority.LOW);
+        CompletableFuture<Void> normal = budget.acquire(UpstreamBudget.Priority.NORMAL);
+        CompletableFuture<Void> high = budget.acquire(UpstreamBudget.Priority.HIGH);
+        assertInstanceOf(UpstreamBudget.BudgetExhaustedException.class, failure(low), "evicted for the HIGH call");
+        assertInstanceOf(UpstreamBudget.BudgetExhaustedException.class, failure(budget.acquire(UpstreamBudget.Priority.LOW)));
+
+        // One interval's worth of budget: one call, the more urgent one
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+        high.get(5, TimeUnit.SECONDS);
+        assertFalse(normal.isDone());
+
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+        normal.get(5, TimeUnit.SECONDS);
+        assertEquals(4L, budget.stats().get("granted"));
+        assertEquals(2L, budget.stats().get("shed"));
+    }
+
+    @Test
+    void callsThatWaitTooLongAreShed() throws Exception {
+        UpstreamBudget budget = new UpstreamBudget("test", 1, 1, 10, 50, 0, now::get, wall::get);
+        assertTrue(budget.acquire(UpstreamBudget.Priority.NORMAL).isDone());
+
+        CompletableFuture<Void> waiting = budget.acquire(UpstreamBudget.Priority.NORMAL);
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(60));
+
+        UpstreamBudget.BudgetExhaustedException shed = assertInstanceOf(UpstreamBudget.BudgetExhaustedException.class,
+                assertThrows(ExecutionException.class, () -> waiting.get(5, TimeUnit.SECONDS)).getCause());
+        assertTrue(shed.getRetryAfterMillis() > 0);
+    }
+
+    @Test
+    void theDailyQuotaResetsAtMidnightUtc() throws Exception {
+        UpstreamBudget budget = new UpstreamBudget("test", 1000, 1000, 10, 1000, 2, now::get, wall::get);
+        assertTrue(budget.acquire(UpstreamBudget.Priority.HIGH).isDone());
+        budget.acquire(UpstreamBudget.Priority.HIGH).get();
+
+        UpstreamBudget.BudgetExhaustedException spent = assertInstanceOf(UpstreamBudget.BudgetExhaustedException.class,
+                failure(budget.acquire(UpstreamBudget.Priority.HIGH)));
+        assertEquals(TimeUnit.HOURS.toMillis(12), spent.getRetryAfterMillis());
+
+        budget.refund();
+        budget.acquire(UpstreamBudget.Priority.HIGH).get();
+
+        wall.addAndGet(TimeUnit.HOURS.toMillis(12));
+        budget.acquire(UpstreamBudget.Priority.HIGH).get();
+        assertEquals(1L, budget.stats().get("quotaUsedToday"));
+    }
+
+    private static Throwable failure(CompletableFuture<?> future) {
+        return assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS)).getCause();
+    }
+}
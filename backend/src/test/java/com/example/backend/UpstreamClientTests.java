@@ -0,0 +1,202 @@
+package com.example.backend;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.observation.DefaultMeterObservationHandler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UpstreamClientTests {
+
+    private MockHttpUpstream upstream;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        upstream = new MockHttpUpstream();
+    }
+
+    @AfterEach
+    void tearDown() {
+        upstream.close();
+    }
+
+    private UpstreamClient client(int maxConcurrent, int maxAttempts, CircuitBreaker breaker, long timeoutMs) {
+        HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+        return new UpstreamClient("mock", http, Duration.ofMillis(timeoutMs), maxConcurrent, maxAttempts, 10, 50, breaker);
+    }
+
+    private HttpRequest get() {
+        return HttpRequest.newBuilder(upstream.uri("/search")).GET().build();
+    }
+
+    private static Throwable failure(CompletableFuture<?> f) {
+        ExecutionException e = assertThrows(ExecutionException.class, f::get);
+        return e.getCause();
+    }
+
+    @Test
+    void retriesIdempotentGetsOnServerErrors() throws Exception {
+        upstream.then(MockHttpUpstream.Reply.status(503)).then(MockHttpUpstream.Reply.status(502));
+        UpstreamClient client = client(4, 3, new CircuitBreaker(10, 1000), 1000);
+
+        HttpResponse<String> response = client.send(get()).get();
+
+        assertEquals(200, response.statusCode());
+        assertEquals(3, upstream.requestCount());
+    }
+
+    @Test
+    void recordsOneTimedCallPerRequestTaggedByOutcome() throws Exception {
+        SimpleMeterRegistry meters = new SimpleMeterRegistry();
+        ObservationRegistry observations = ObservationRegistry.create();
+        observations.observationConfig().observationHandler(new DefaultMeterObservationHandler(meters));
+        HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+        UpstreamClient client = new UpstreamClient("mock", http, Duration.ofSeconds(1), 4, 3, 10, 50,
+                new CircuitBreaker(10, 1000), observations);
+
+        upstream.then(MockHttpUpstream.Reply.status(503));
+        client.send("search", get(), HttpResponse.BodyHandlers.ofString()).get();
+        upstream.byDefault(MockHttpUpstream.Reply.status(404));
+        client.send("search", get(), HttpResponse.BodyHandlers.ofString()).get();
+
+        Timer success = meters.find("upstream.requests").tags("upstream", "mock", "operation", "search", "outcome", "SUCCESS").timer();
+        Timer clientError = meters.find("upstream.requests").tags("outcome", "CLIENT_ERROR").timer();
+        assertEquals(1, success.count(), "retries belong to the one call");
+        assertEquals(1, clientError.count());
+        assertEquals(0, meters.find("upstream.requests.active").longTaskTimer().activeTasks());
+    }
+
+    @Test
+    void doesNotRetryPosts() throws Exception {
+        upstream.then(MockHttpUpstream.Reply.status(503));
+        UpstreamClient client = client(4, 3, new CircuitBreaker(10, 1000), 1000);
+
+        HttpRequest post = HttpRequest.newBuilder(upstream.uri("/v1/book"))
+                .POST(HttpRequest.BodyPublishers.ofString("{}")).build();
+
+        assertEquals(503, client.send(post).get().statusCode());
+        assertEquals(1, upstream.requestCount());
+    }
+
+    @Test
+    void timesOutSlowResponses() {
+        upstream.byDefault(MockHttpUpstream.Reply.ok("{}").delayed(2000));
+        UpstreamClient client = client(4, 1, new CircuitBreaker(10, 1000), 200);
+
+        long start = System.nanoTime();
+        Throwable error = failure(client.send(get()));
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        assertInstanceOf(HttpTimeoutException.class, error);
+        assertTrue(elapsedMs < 1500, "took " + elapsedMs + "ms");
+    }
+
+    @Test
+    void retriesStayWithinTheCallersDeadline() {
+        upstream.byDefault(MockHttpUpstream.Reply.ok("{}").delayed(2000));
+        UpstreamClient client = client(4, 5, new CircuitBreaker(10, 1000), 300);
+
+        long start = System.nanoTime();
+        Throwable error = failure(client.send(get()));
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        assertInstanceOf(HttpTimeoutException.class, error);
+        assertTrue(elapsedMs < 1000, "five attempts of 300ms each would take 1500ms, took " + elapsedMs + "ms");
+    }
+
+    @Test
+    void waitsForRetryAfterAndSkipsRetriesThatWouldMissTheDeadline() throws Exception {
+        UpstreamClient client = client(4, 3, new CircuitBreaker(10, 1000), 3000);
+
+        upstream.then(MockHttpUpstream.Reply.status(503).header("Retry-After", "1"));
+        long start = System.nanoTime();
+        assertEquals(200, client.send(get()).get().statusCode());
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+        assertTrue(elapsedMs >= 900, "retried after " + elapsedMs + "ms, before Retry-After");
+        assertEquals(2, upstream.requestCount());
+
+        // Ten seconds is past the deadline: the 429 is the answer
+        upstream.then(MockHttpUpstream.Reply.status(429).header("Retry-After", "10"));
+        assertEquals(429, client.send(get()).get().statusCode());
+        assertEquals(3, upstream.requestCount());
+    }
+
+    @Test
+    void throttlingDoesNotOpenTheCircuit() throws Exception {
+        upstream.byDefault(MockHttpUpstream.Reply.status(429));
+        CircuitBreaker breaker = new CircuitBreaker(3, 1000);
+        UpstreamClient client = client(4, 1, breaker, 1000);
+
+        for (int i = 0; i < 5; i++) assertEquals(429, client.send(get()).get().statusCode());
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(5, upstream.requestCount());
+    }
+
+    @Test
+    void circuitOpensAfterConsecutiveFailuresAndProbesAfterCooldown() throws Exception {
+        upstream.byDefault(MockHttpUpstream.Reply.status(500));
+        long[] now = {0};
+        CircuitBreaker breaker = new CircuitBreaker(3, 1000, () -> now[0]);
+        UpstreamClient client = client(4, 1, breaker, 1000);
+
+        for (int i = 0; i < 3; i++) client.send(get()).get();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+        // Fails fast without reaching the upstream
+        assertInstanceOf(UpstreamClient.UpstreamUnavailableException.class, failure(client.send(get())));
+        assertEquals(3, upstream.requestCount());
+
+        // After the cool-down one probe goes through and closes the breaker when it succeeds
+        upstream.byDefault(MockHttpUpstream.Reply.ok("{}"));
+        now[0] = 1000;
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertEquals(200, client.send(get()).get().statusCode());
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    void bulkheadRejectsCallsBeyondTheLimit() throws Exception {
+        upstream.byDefault(MockHttpUpstream.Reply.ok("{}").delayed(500));
+        UpstreamClient client = client(2, 1, new CircuitBreaker(10, 1000), 2000);
+
+        CompletableFuture<HttpResponse<String>> first = client.send(get());
+        CompletableFuture<HttpResponse<String>> second = client.send(get());
+        CompletableFuture<HttpResponse<String>> third = client.send(get());
+
+        assertInstanceOf(UpstreamClient.UpstreamUnavailableException.class, failure(third));
+        assertEquals(200, first.get().statusCode());
+        assertEquals(200, second.get().statusCode());
+        assertEquals(2, client.availablePermits());
+    }
+
+    @Test
+    void callsBeyondTheBudgetAreShedWithoutReachingTheUpstream() throws Exception {
+        HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+        UpstreamBudget budget = new UpstreamBudget("mock", 0.1, 1, 0, 1000, 0);
+        UpstreamClient client = new UpstreamClient("mock", http, Duration.ofSeconds(1), 4, 3, 10, 50,
+                new CircuitBreaker(10, 1000), ObservationRegistry.NOOP, budget);
+
+        assertEquals(200, client.send(get()).get().statusCode());
+        Throwable shed = failure(client.send(get()));
+
+        UpstreamBudget.BudgetExhaustedException exhausted = assertInstanceOf(UpstreamBudget.BudgetExhaustedException.class, shed);
+        assertTrue(exhausted.getRetryAfterSeconds() >= 9, "about one refill interval: " + exhausted.getRetryAfterMillis());
+        assertEquals(1, upstream.requestCount());
+    }
+}
@@ -45,3 +45,10 @@ export const AuthProvider = ({ children }) => {
 };
 
 export const useAuth = () => useContext(AuthContext);
+
+// Bearer token from the last login, for the admin and user-management endpoints
+export const authHeaders = () => {
+  const stored = localStorage.getItem("user");
+  const token = stored ? JSON.parse(stored).token : null;
+  return token ? { Authorization: `Bearer ${token}` } : {};
+};
@@ -6,9 +6,12 @@ const BooksContext = createContext();
 export function BooksProvider({ children }) {
   const [books, setBooks] = useState([]);
   const [query, setQuery] = useState("");
+  const [nextCursor, setNextCursor] = useState(null);
 
   return (
-    <BooksContext.Provider value={{ books, setBooks, query, setQuery }}>
+    <BooksContext.Provider
+      value={{ books, setBooks, query, setQuery, nextCursor, setNextCursor }}
+    >
       {children}
     </BooksContext.Provider>
   );
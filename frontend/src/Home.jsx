@@ -6,7 +6,8 @@ import { useBooks } from "./BooksContext";
 import { useAuth } from "./AuthContext";
 
 function Home() {
-  const { books, setBooks, query, setQuery } = useBooks();
+  const { books, setBooks, query, setQuery, nextCursor, setNextCursor } =
+    useBooks();
   const { user, logout } = useAuth();
   const [loading, setLoading] = useState(false);
   const [currentPage, setCurrentPage] = useState(1);
@@ -26,14 +27,15 @@ function Home() {
     return () => window.removeEventListener("resize", updateBooksPerPage);
   }, []);
 
-  const searchBooks = async () => {
+  // Fetches one page of results; with a cursor, appends to the books already shown
+  const fetchBooks = async (cursor) => {
     setLoading(true);
-    setCurrentPage(1);
 
     try {
-      const url = `http://localhost:8080/api/search?query=${encodeURIComponent(
+      let url = `http://localhost:8080/api/search?query=${encodeURIComponent(
         query
       )}`;
+      if (cursor) url += `&cursor=${encodeURIComponent(cursor)}`;
       const res = await fetch(url);
       const data = await res.json();
       const rawBooks = Array.isArray(data.books) ? data.books : [];
@@ -50,20 +52,35 @@ function Home() {
         imgUrl: b.imgUrl
           ? b.imgUrl.startsWith("http")
             ? b.imgUrl
+            : b.imgUrl.startsWith("/api/")
+            ? `http://localhost:8080${b.imgUrl}`
             : `https://libgen.li/covers/${b.coverurl}`
           : placeholderImg,
         ipfsCid: b.ipfs_cid || null,
       }));
 
-      setBooks(normalized);
+      setBooks(cursor ? (prev) => [...prev, ...normalized] : normalized);
+      setNextCursor(data.nextCursor || null);
     } catch (err) {
       console.error("Error fetching books:", err);
-      setBooks([]);
+      if (!cursor) setBooks([]);
+      setNextCursor(null);
     } finally {
       setLoading(false);
     }
   };
 
+  const searchBooks = () => {
+    setCurrentPage(1);
+    fetchBooks(null);
+  };
+
+  // On the last loaded page, "Next" fetches the following page from the server
+  const nextPage = async () => {
+    if (currentPage === totalPages && nextCursor) await fetchBooks(nextCursor);
+    setCurrentPage(currentPage + 1);
+  };
+
   const indexOfLastBook = currentPage * booksPerPage;
   const indexOfFirstBook = indexOfLastBook - booksPerPage;
   const currentBooks = books.slice(indexOfFirstBook, indexOfLastBook);
@@ -156,7 +173,7 @@ function Home() {
         )}
 
         {/* Pagination */}
-        {books.length > booksPerPage && (
+        {(books.length > booksPerPage || nextCursor) && (
           <div className="flex justify-center items-center gap-4 mt-8">
             <button
               disabled={currentPage === 1}
@@ -167,10 +184,11 @@ function Home() {
             </button>
             <span className="font-medium text-gray-700">
               Page {currentPage} of {totalPages}
+              {nextCursor ? "+" : ""}
             </span>
             <button
-              disabled={currentPage === totalPages}
-              onClick={() => setCurrentPage(currentPage + 1)}
+              disabled={loading || (currentPage === totalPages && !nextCursor)}
+              onClick={nextPage}
               className="px-4 py-2 rounded-lg bg-[#004d40] text-white hover:bg-[#00695c] disabled:bg-gray-300 transition"
             >
               Next ▶
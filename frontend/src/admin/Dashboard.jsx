@@ -1,7 +1,9 @@
-import { useAuth } from "../AuthContext";
+import { useAuth, authHeaders } from "../AuthContext";
 import { useState, useEffect } from "react";
 import ManageUsers from "./ManageUsers";
 
+const BOOKS_PER_PAGE = 50;
+
 const Dashboard = () => {
   const { logout } = useAuth();
   const [menu, setMenu] = useState("overview");
@@ -18,21 +20,31 @@ const Dashboard = () => {
   const [message, setMessage] = useState("");
   const [loading, setLoading] = useState(false);
 
-  // Admin books
+  // Admin books, one page at a time
   const [books, setBooks] = useState([]);
+  const [page, setPage] = useState(0);
+  const [total, setTotal] = useState(0);
+  const totalPages = Math.max(1, Math.ceil(total / BOOKS_PER_PAGE));
 
   // Edit book state
   const [editingBook, setEditingBook] = useState(null);
   const [editFile, setEditFile] = useState(null);
 
-  // Fetch admin books
+  // Fetch the current page of admin books
   const fetchAdminBooks = async () => {
     try {
-      const res = await fetch(`http://localhost:8080/api/search?query=`);
+      const res = await fetch(`http://localhost:8080/api/admin/books?page=${page}&pageSize=${BOOKS_PER_PAGE}`, {
+        headers: authHeaders(),
+      });
       const data = await res.json();
       if (res.ok) {
-        const adminOnly = data.books.filter((b) => b.isAdminBook);
-        setBooks(adminOnly);
+        // Deleting the last book on the last page leaves it empty: step back one
+        if (data.books.length === 0 && page > 0) {
+          setPage(Math.max(0, Math.ceil(data.total / BOOKS_PER_PAGE) - 1));
+          return;
+        }
+        setBooks(data.books);
+        setTotal(data.total);
       }
     } catch (err) {
       console.error("Failed to fetch admin books:", err);
@@ -41,7 +53,7 @@ const Dashboard = () => {
 
   useEffect(() => {
     fetchAdminBooks();
-  }, []);
+  }, [page]);
 
   // Upload book
   const handleUpload = async (e) => {
@@ -62,6 +74,7 @@ const Dashboard = () => {
     try {
       const res = await fetch("http://localhost:8080/api/admin/upload", {
         method: "POST",
+        headers: authHeaders(),
         body: formData,
       });
       const data = await res.json();
@@ -86,6 +99,7 @@ const Dashboard = () => {
     try {
       const res = await fetch(`http://localhost:8080/api/admin/delete?bookId=${bookId}`, {
         method: "DELETE",
+        headers: authHeaders(),
       });
       const data = await res.json();
       if (res.ok) {
@@ -121,6 +135,7 @@ const Dashboard = () => {
     try {
       const res = await fetch("http://localhost:8080/api/admin/update", {
         method: "PUT",
+        headers: authHeaders(),
         body: formData,
       });
       const data = await res.json();
@@ -163,7 +178,7 @@ const Dashboard = () => {
         {/* Overview */}
         {menu === "overview" && (
           <div>
-            <h2 className="text-xl font-bold mb-4">📊 Uploaded Books</h2>
+            <h2 className="text-xl font-bold mb-4">📊 Uploaded Books {total > 0 && `(${total})`}</h2>
             {books.length === 0 ? (
               <p>No books uploaded yet.</p>
             ) : (
@@ -178,7 +193,9 @@ const Dashboard = () => {
                       <button
   onClick={async () => {
     try {
-      const res = await fetch(`http://localhost:8080/api/admin/download?bookId=${b.id}`);
+      const res = await fetch(`http://localhost:8080/api/admin/download?bookId=${b.id}`, {
+        headers: authHeaders(),
+      });
       const data = await res.json();
       if (data.downloadUrl) {
         window.open(data.downloadUrl, "_blank"); // open the presigned URL in new tab
@@ -211,6 +228,29 @@ const Dashboard = () => {
                 ))}
               </ul>
             )}
+
+            {/* Pagination */}
+            {totalPages > 1 && (
+              <div className="flex justify-center items-center gap-4 mt-6">
+                <button
+                  disabled={page === 0}
+                  onClick={() => setPage(page - 1)}
+                  className="px-4 py-2 rounded-lg bg-[#004d40] text-white hover:bg-[#00695c] disabled:bg-gray-300 transition"
+                >
+                  ◀ Prev
+                </button>
+                <span className="font-medium text-gray-700">
+                  Page {page + 1} of {totalPages}
+                </span>
+                <button
+                  disabled={page + 1 >= totalPages}
+                  onClick={() => setPage(page + 1)}
+                  className="px-4 py-2 rounded-lg bg-[#004d40] text-white hover:bg-[#00695c] disabled:bg-gray-300 transition"
+                >
+                  Next ▶
+                </button>
+              </div>
+            )}
           </div>
         )}
 
@@ -1,10 +1,12 @@
 import { useEffect, useState } from "react";
-import { useAuth } from "../AuthContext";
+import { useAuth, authHeaders } from "../AuthContext";
 
 const ManageUsers = () => {
   const { user } = useAuth();
   const [users, setUsers] = useState([]);
   const [loading, setLoading] = useState(true);
+  const [nextCursor, setNextCursor] = useState(null);
+  const [loadingMore, setLoadingMore] = useState(false);
 
   // Edit state
   const [editingUser, setEditingUser] = useState(null);
@@ -12,16 +14,22 @@ const ManageUsers = () => {
   const [editEmail, setEditEmail] = useState("");
   const [editRole, setEditRole] = useState("");
 
-  const fetchUsers = async () => {
-    setLoading(true);
+  // One page per request: the first page replaces the list, "Load more" appends the next one
+  const fetchUsers = async (after = null) => {
+    const setBusy = after ? setLoadingMore : setLoading;
+    setBusy(true);
     try {
-      const res = await fetch("http://localhost:8080/api/users");
-      const data = await res.json();
-      setUsers(data);
+      const url = after
+        ? `http://localhost:8080/api/users?after=${encodeURIComponent(after)}`
+        : "http://localhost:8080/api/users";
+      const res = await fetch(url, { headers: authHeaders() });
+      const page = await res.json();
+      setUsers(prev => (after ? [...prev, ...page] : page));
+      setNextCursor(res.headers.get("X-Next-Cursor"));
     } catch (err) {
       console.error("Failed to fetch users:", err);
     }
-    setLoading(false);
+    setBusy(false);
   };
 
   useEffect(() => {
@@ -31,8 +39,9 @@ const ManageUsers = () => {
   const deleteUser = async (id) => {
     if (!window.confirm("Are you sure you want to delete this user?")) return;
     try {
-      await fetch(`http://localhost:8080/api/users/${id}`, { method: "DELETE" });
-      fetchUsers();
+      const res = await fetch(`http://localhost:8080/api/users/${id}`, { method: "DELETE", headers: authHeaders() });
+      // Updated in place, so the pages already loaded stay loaded
+      if (res.ok) setUsers(prev => prev.filter(u => u.id !== id));
     } catch (err) {
       console.error("Failed to delete user:", err);
     }
@@ -50,7 +59,7 @@ const ManageUsers = () => {
     try {
       const res = await fetch(`http://localhost:8080/api/users/${editingUser.id}`, {
         method: "PUT",
-        headers: { "Content-Type": "application/json" },
+        headers: { "Content-Type": "application/json", ...authHeaders() },
         body: JSON.stringify({
           username: editUsername,
           email: editEmail,
@@ -58,8 +67,10 @@ const ManageUsers = () => {
         }),
       });
       if (res.ok) {
+        setUsers(prev => prev.map(u =>
+          u.id === editingUser.id ? { ...u, username: editUsername, email: editEmail, role: editRole } : u
+        ));
         setEditingUser(null);
-        fetchUsers();
       } else {
         console.error("Failed to update user");
       }
@@ -109,6 +120,18 @@ const ManageUsers = () => {
         </table>
       )}
 
+      {!loading && nextCursor && (
+        <div className="flex justify-center mt-4">
+          <button
+            disabled={loadingMore}
+            onClick={() => fetchUsers(nextCursor)}
+            className="px-4 py-2 rounded-lg bg-[#004d40] text-white hover:bg-[#00695c] disabled:bg-gray-300 transition"
+          >
+            {loadingMore ? "Loading..." : "Load more"}
+          </button>
+        </div>
+      )}
+
       {/* Edit Modal */}
       {editingUser && (
         <div className="fixed inset-0 bg-black/50 flex items-center justify-center z-50">